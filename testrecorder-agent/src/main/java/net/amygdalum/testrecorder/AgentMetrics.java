@@ -0,0 +1,290 @@
+package net.amygdalum.testrecorder;
+
+import static java.util.Collections.emptyList;
+import static java.util.Comparator.comparingLong;
+
+import java.lang.management.ManagementFactory;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import net.amygdalum.testrecorder.profile.AgentConfiguration;
+import net.amygdalum.testrecorder.profile.RecordingMetrics;
+import net.amygdalum.testrecorder.types.Profile;
+import net.amygdalum.testrecorder.util.Logger;
+
+/**
+ * Collects the metrics of the recording pipeline, publishes them as {@link AgentMetricsMXBean} and forwards all events to
+ * the {@link RecordingMetrics} configured in the {@link AgentConfiguration}.
+ *
+ * All components created from the same configuration share one instance, the instance of the latest configuration is
+ * registered at the platform mbean server.
+ */
+public class AgentMetrics implements RecordingMetrics, AgentMetricsMXBean {
+
+	public static final String OBJECT_NAME = "net.amygdalum.testrecorder:type=AgentMetrics";
+
+	private static final Map<AgentConfiguration, AgentMetrics> METRICS = new WeakHashMap<>();
+
+	private List<RecordingMetrics> sinks;
+
+	private LongAdder recordedCalls;
+	private LongAdder snapshotsStarted;
+	private LongAdder snapshotsInvalidated;
+	private LongAdder snapshotsTimedOut;
+	private LongAdder snapshotsConsumed;
+	private Map<String, Histogram> serializationLatency;
+	private Histogram visitedObjects;
+	private Map<String, Profile> classProfiles;
+	private Map<String, Profile> serializerProfiles;
+	private Histogram generationLatency;
+	private Map<String, LongSupplier> gauges;
+
+	public AgentMetrics() {
+		this(emptyList());
+	}
+
+	public AgentMetrics(List<RecordingMetrics> sinks) {
+		this.sinks = sinks;
+		this.recordedCalls = new LongAdder();
+		this.snapshotsStarted = new LongAdder();
+		this.snapshotsInvalidated = new LongAdder();
+		this.snapshotsTimedOut = new LongAdder();
+		this.snapshotsConsumed = new LongAdder();
+		this.serializationLatency = new ConcurrentHashMap<>();
+		this.visitedObjects = new Histogram();
+		this.classProfiles = new HashMap<>();
+		this.serializerProfiles = new HashMap<>();
+		this.generationLatency = new Histogram();
+		this.gauges = new ConcurrentHashMap<>();
+	}
+
+	public static synchronized AgentMetrics of(AgentConfiguration config) {
+		AgentMetrics metrics = METRICS.get(config);
+		if (metrics == null) {
+			metrics = new AgentMetrics(config.loadConfigurations(RecordingMetrics.class));
+			metrics.register();
+			METRICS.put(config, metrics);
+		}
+		return metrics;
+	}
+
+	private void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(this, name);
+		} catch (JMException | RuntimeException e) {
+			Logger.warn("failed registering agent metrics: " + e.getMessage());
+		}
+	}
+
+	@Override
+	public void recordedCall(String method) {
+		recordedCalls.increment();
+		for (RecordingMetrics sink : sinks) {
+			try {
+				sink.recordedCall(method);
+			} catch (RuntimeException e) {
+				Logger.error("failed reporting metrics to " + sink, e);
+			}
+		}
+	}
+
+	@Override
+	public void snapshotStarted(String method) {
+		snapshotsStarted.increment();
+		for (RecordingMetrics sink : sinks) {
+			try {
+				sink.snapshotStarted(method);
+			} catch (RuntimeException e) {
+				Logger.error("failed reporting metrics to " + sink, e);
+			}
+		}
+	}
+
+	@Override
+	public void snapshotInvalidated(String method) {
+		snapshotsInvalidated.increment();
+		for (RecordingMetrics sink : sinks) {
+			try {
+				sink.snapshotInvalidated(method);
+			} catch (RuntimeException e) {
+				Logger.error("failed reporting metrics to " + sink, e);
+			}
+		}
+	}
+
+	@Override
+	public void snapshotTimedOut(String method) {
+		snapshotsTimedOut.increment();
+		for (RecordingMetrics sink : sinks) {
+			try {
+				sink.snapshotTimedOut(method);
+			} catch (RuntimeException e) {
+				Logger.error("failed reporting metrics to " + sink, e);
+			}
+		}
+	}
+
+	@Override
+	public void snapshotConsumed(String method) {
+		snapshotsConsumed.increment();
+		for (RecordingMetrics sink : sinks) {
+			try {
+				sink.snapshotConsumed(method);
+			} catch (RuntimeException e) {
+				Logger.error("failed reporting metrics to " + sink, e);
+			}
+		}
+	}
+
+	@Override
+	public void serialized(String method, long durationInNanos, int visitedObjects) {
+		serializationLatency.computeIfAbsent(method, key -> new Histogram()).record(durationInNanos);
+		this.visitedObjects.record(visitedObjects);
+		for (RecordingMetrics sink : sinks) {
+			try {
+				sink.serialized(method, durationInNanos, visitedObjects);
+			} catch (RuntimeException e) {
+				Logger.error("failed reporting metrics to " + sink, e);
+			}
+		}
+	}
+
+	@Override
+	public void profiled(String method, Map<Class<?>, Profile> classProfiles, Map<Class<?>, Profile> serializerProfiles) {
+		accumulate(this.classProfiles, classProfiles);
+		accumulate(this.serializerProfiles, serializerProfiles);
+		for (RecordingMetrics sink : sinks) {
+			try {
+				sink.profiled(method, classProfiles, serializerProfiles);
+			} catch (RuntimeException e) {
+				Logger.error("failed reporting metrics to " + sink, e);
+			}
+		}
+	}
+
+	private static void accumulate(Map<String, Profile> accumulated, Map<Class<?>, Profile> profiles) {
+		synchronized (accumulated) {
+			for (Map.Entry<Class<?>, Profile> profile : profiles.entrySet()) {
+				accumulated.computeIfAbsent(profile.getKey().getName(), key -> new Profile()).add(profile.getValue());
+			}
+		}
+	}
+
+	@Override
+	public void generated(String method, long durationInNanos) {
+		generationLatency.record(durationInNanos);
+		for (RecordingMetrics sink : sinks) {
+			try {
+				sink.generated(method, durationInNanos);
+			} catch (RuntimeException e) {
+				Logger.error("failed reporting metrics to " + sink, e);
+			}
+		}
+	}
+
+	@Override
+	public void gauge(String name, LongSupplier value) {
+		gauges.put(name, value);
+		for (RecordingMetrics sink : sinks) {
+			try {
+				sink.gauge(name, value);
+			} catch (RuntimeException e) {
+				Logger.error("failed reporting metrics to " + sink, e);
+			}
+		}
+	}
+
+	@Override
+	public long getRecordedCalls() {
+		return recordedCalls.sum();
+	}
+
+	@Override
+	public long getSnapshotsStarted() {
+		return snapshotsStarted.sum();
+	}
+
+	@Override
+	public long getSnapshotsInvalidated() {
+		return snapshotsInvalidated.sum();
+	}
+
+	@Override
+	public long getSnapshotsTimedOut() {
+		return snapshotsTimedOut.sum();
+	}
+
+	@Override
+	public long getSnapshotsConsumed() {
+		return snapshotsConsumed.sum();
+	}
+
+	@Override
+	public Map<String, Histogram> getSerializationLatency() {
+		return new LinkedHashMap<>(serializationLatency);
+	}
+
+	@Override
+	public Map<String, Profile> getClassProfiles() {
+		return mostExpensiveFirst(classProfiles);
+	}
+
+	@Override
+	public Map<String, Profile> getSerializerProfiles() {
+		return mostExpensiveFirst(serializerProfiles);
+	}
+
+	private static Map<String, Profile> mostExpensiveFirst(Map<String, Profile> accumulated) {
+		List<Map.Entry<String, Profile>> entries = new ArrayList<>();
+		synchronized (accumulated) {
+			for (Map.Entry<String, Profile> entry : accumulated.entrySet()) {
+				Profile profile = new Profile();
+				profile.add(entry.getValue());
+				entries.add(new SimpleEntry<>(entry.getKey(), profile));
+			}
+		}
+		entries.sort(comparingLong((Map.Entry<String, Profile> entry) -> entry.getValue().getTotalNanos()).reversed());
+		Map<String, Profile> profiles = new LinkedHashMap<>();
+		for (Map.Entry<String, Profile> entry : entries) {
+			profiles.put(entry.getKey(), entry.getValue());
+		}
+		return profiles;
+	}
+
+	@Override
+	public Histogram getVisitedObjects() {
+		return visitedObjects;
+	}
+
+	@Override
+	public Histogram getGenerationLatency() {
+		return generationLatency;
+	}
+
+	@Override
+	public Map<String, Long> getGauges() {
+		Map<String, Long> values = new LinkedHashMap<>();
+		for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+			values.put(gauge.getKey(), gauge.getValue().getAsLong());
+		}
+		return values;
+	}
+
+}
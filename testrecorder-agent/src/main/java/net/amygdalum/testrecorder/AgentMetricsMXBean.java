@@ -0,0 +1,52 @@
+package net.amygdalum.testrecorder;
+
+import java.util.Map;
+
+import net.amygdalum.testrecorder.types.Profile;
+
+/**
+ * The metrics of the recording pipeline as published via JMX.
+ */
+public interface AgentMetricsMXBean {
+
+	long getRecordedCalls();
+
+	long getSnapshotsStarted();
+
+	long getSnapshotsInvalidated();
+
+	long getSnapshotsTimedOut();
+
+	long getSnapshotsConsumed();
+
+	/**
+	 * @return the serialization time in nanoseconds per recorded method
+	 */
+	Map<String, Histogram> getSerializationLatency();
+
+	/**
+	 * @return the serialization cost per serialized class (by class name), most expensive first
+	 */
+	Map<String, Profile> getClassProfiles();
+
+	/**
+	 * @return the serialization cost per serializer (by serializer class name), most expensive first
+	 */
+	Map<String, Profile> getSerializerProfiles();
+
+	/**
+	 * @return the number of objects visited per serialization step
+	 */
+	Histogram getVisitedObjects();
+
+	/**
+	 * @return the test generation time in nanoseconds
+	 */
+	Histogram getGenerationLatency();
+
+	/**
+	 * @return the current values of all gauges, e.g. queue depths
+	 */
+	Map<String, Long> getGauges();
+
+}
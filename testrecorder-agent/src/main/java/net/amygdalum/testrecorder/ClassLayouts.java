@@ -0,0 +1,78 @@
+package net.amygdalum.testrecorder;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.amygdalum.testrecorder.profile.Classes;
+import net.amygdalum.testrecorder.profile.ClassesIndex;
+import net.amygdalum.testrecorder.profile.Excluded;
+import net.amygdalum.testrecorder.profile.Facade;
+import net.amygdalum.testrecorder.profile.Fields;
+import net.amygdalum.testrecorder.profile.FieldsIndex;
+import net.amygdalum.testrecorder.types.ClassLayout;
+
+/**
+ * The exclusion and facade rules of a serialization profile, and the {@link ClassLayout}s derived from them. Rules are
+ * compiled into indexes and layouts are computed once per class and shared by all sessions of a profile.
+ */
+public class ClassLayouts {
+
+	private ClassesIndex classExclusions;
+	private ClassesIndex classFacades;
+	private FieldsIndex fieldExclusions;
+	private FieldsIndex fieldFacades;
+
+	private ClassValue<ClassLayout> layouts;
+
+	public ClassLayouts() {
+		this(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+	}
+
+	public ClassLayouts(List<Classes> classExclusions, List<Classes> classFacades, List<Fields> fieldExclusions, List<Fields> fieldFacades) {
+		this.classExclusions = new ClassesIndex(classExclusions);
+		this.classFacades = new ClassesIndex(classFacades);
+		this.fieldExclusions = new FieldsIndex(fieldExclusions);
+		this.fieldFacades = new FieldsIndex(fieldFacades);
+		this.layouts = new ClassValue<ClassLayout>() {
+			@Override
+			protected ClassLayout computeValue(Class<?> type) {
+				return ClassLayout.of(type, ClassLayouts.this::excludes, ClassLayouts.this::excludes, ClassLayouts.this::facades, ClassLayouts.this::facades);
+			}
+		};
+	}
+
+	public ClassLayout layout(Class<?> clazz) {
+		return layouts.get(clazz);
+	}
+
+	public boolean excludes(Field field) {
+		if (field.isAnnotationPresent(Excluded.class)) {
+			return true;
+		}
+		return fieldExclusions.matches(field)
+			|| classExclusions.matches(field.getType());
+	}
+
+	public boolean excludes(Class<?> clazz) {
+		if (clazz.isAnnotationPresent(Excluded.class)) {
+			return true;
+		}
+		return classExclusions.matches(clazz);
+	}
+
+	public boolean facades(Field field) {
+		if (field.isAnnotationPresent(Facade.class)) {
+			return true;
+		}
+		return fieldFacades.matches(field);
+	}
+
+	public boolean facades(Class<?> clazz) {
+		if (clazz.isAnnotationPresent(Facade.class)) {
+			return true;
+		}
+		return classFacades.matches(clazz);
+	}
+
+}
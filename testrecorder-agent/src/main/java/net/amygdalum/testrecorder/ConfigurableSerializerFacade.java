@@ -3,6 +3,11 @@ package net.amygdalum.testrecorder;
 import static java.lang.System.identityHashCode;
 import static java.lang.reflect.Proxy.isProxyClass;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.newSetFromMap;
+import static java.util.Collections.reverse;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
 import static net.amygdalum.testrecorder.util.Distinct.distinct;
 import static net.amygdalum.testrecorder.util.Types.baseType;
 import static net.amygdalum.testrecorder.util.Types.isLiteral;
@@ -11,27 +16,41 @@ import static net.amygdalum.testrecorder.values.SerializedLiteral.literal;
 import static net.amygdalum.testrecorder.values.SerializedNull.nullInstance;
 
 import java.lang.invoke.SerializedLambda;
+import java.lang.reflect.Field;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Deque;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.IntStream;
 
 import net.amygdalum.testrecorder.profile.AgentConfiguration;
 import net.amygdalum.testrecorder.profile.Classes;
 import net.amygdalum.testrecorder.profile.Fields;
+import net.amygdalum.testrecorder.profile.PerformanceProfile;
 import net.amygdalum.testrecorder.profile.SerializationProfile;
 import net.amygdalum.testrecorder.serializers.ArraySerializer;
 import net.amygdalum.testrecorder.serializers.EnumSerializer;
 import net.amygdalum.testrecorder.serializers.GenericSerializer;
 import net.amygdalum.testrecorder.serializers.LambdaSerializer;
+import net.amygdalum.testrecorder.serializers.PrimitiveArraySerializer;
 import net.amygdalum.testrecorder.serializers.ProxySerializer;
 import net.amygdalum.testrecorder.serializers.SerializerFacade;
 import net.amygdalum.testrecorder.types.AnalyzedObject;
+import net.amygdalum.testrecorder.types.ClassLayout;
 import net.amygdalum.testrecorder.types.ContextSnapshot;
 import net.amygdalum.testrecorder.types.MethodSignature;
 import net.amygdalum.testrecorder.types.OverrideSerializer;
@@ -43,35 +62,77 @@ import net.amygdalum.testrecorder.types.SerializedReferenceType;
 import net.amygdalum.testrecorder.types.SerializedValue;
 import net.amygdalum.testrecorder.types.Serializer;
 import net.amygdalum.testrecorder.types.SerializerSession;
+import net.amygdalum.testrecorder.util.Distinct;
+import net.amygdalum.testrecorder.util.Fingerprints;
 import net.amygdalum.testrecorder.util.IdentityWorkSet;
 import net.amygdalum.testrecorder.util.Logger;
 import net.amygdalum.testrecorder.values.SerializedNull;
+import net.amygdalum.testrecorder.values.SerializedTruncated;
 
 public class ConfigurableSerializerFacade implements SerializerFacade {
 
 	private Map<Class<?>, Serializer<?>> serializers;
 	private ArraySerializer arraySerializer;
+	private PrimitiveArraySerializer primitiveArraySerializer;
 	private EnumSerializer enumSerializer;
 	private LambdaSerializer lambdaSerializer;
 	private ProxySerializer proxySerializer;
 	private GenericSerializer genericSerializer;
+	private ClassValue<Serializer<?>> dispatch;
 
-	private List<Classes> classExclusions;
-	private List<Classes> classFacades;
-	private List<Fields> fieldExclusions;
-	private List<Fields> fieldFacades;
+	private ClassLayouts layouts;
+
+	private int maxDepth;
+	private int maxElements;
+	private int maxObjects;
+	private int degradedMaxDepth;
+	private int degradedMaxObjects;
+
+	private ExecutorService traversal;
+	private int parallelThreshold;
+
+	private ThreadLocal<DefaultSerializerSession> pooled;
 
 	public ConfigurableSerializerFacade(AgentConfiguration config) {
 		serializers = setupSerializers(config);
 		arraySerializer = new ArraySerializer();
+		primitiveArraySerializer = new PrimitiveArraySerializer();
 		enumSerializer = new EnumSerializer();
 		lambdaSerializer = new LambdaSerializer();
 		proxySerializer = new ProxySerializer();
 		genericSerializer = new GenericSerializer();
-		classExclusions = classExclusions(config);
-		classFacades = classFacades(config);
-		fieldExclusions = fieldExclusions(config);
-		fieldFacades = fieldFacades(config);
+		dispatch = new ClassValue<Serializer<?>>() {
+			@Override
+			protected Serializer<?> computeValue(Class<?> clazz) {
+				return resolveSerializer(clazz);
+			}
+		};
+		layouts = new ClassLayouts(classExclusions(config), classFacades(config), fieldExclusions(config), fieldFacades(config));
+		PerformanceProfile performanceProfile = Optional.ofNullable(config.loadConfiguration(PerformanceProfile.class))
+			.orElseGet(DefaultPerformanceProfile::new);
+		maxDepth = budget(performanceProfile.getMaxDepth());
+		maxElements = Math.max(performanceProfile.getMaxElements(), 0);
+		maxObjects = budget(performanceProfile.getMaxObjects());
+		degradedMaxDepth = Math.min(budget(performanceProfile.getDegradedMaxDepth()), maxDepth);
+		degradedMaxObjects = Math.min(budget(performanceProfile.getDegradedMaxObjects()), maxObjects);
+		traversal = traversal(performanceProfile);
+		parallelThreshold = Math.max(performanceProfile.getParallelThreshold(), 1);
+		pooled = new ThreadLocal<>();
+	}
+
+	private static ExecutorService traversal(PerformanceProfile performanceProfile) {
+		int workers = performanceProfile.getTraversalWorkers();
+		if (workers <= 0) {
+			return null;
+		}
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, performanceProfile.getIdleTime(), TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+			new TestrecorderThreadFactory("$traverse"));
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private static int budget(int limit) {
+		return limit <= 0 ? Integer.MAX_VALUE : limit;
 	}
 
 	private static List<Classes> classExclusions(AgentConfiguration config) {
@@ -96,7 +157,6 @@ public class ConfigurableSerializerFacade implements SerializerFacade {
 			Classes.byDescription(ConfigurableSerializerFacade.class),
 			Classes.byDescription(SerializerSession.class),
 			Classes.byDescription(DefaultSerializerSession.class),
-			Classes.byDescription(Profile.class),
 			Classes.byDescription(Logger.class),
 			Classes.byPackage("net.amygdalum.testrecorder.values"));
 	}
@@ -155,6 +215,8 @@ public class ConfigurableSerializerFacade implements SerializerFacade {
 
 		if (isGround(object)) {
 			return createGround(type, object);
+		} else if (traversal != null) {
+			return createObjectInParallel(serializableOf(type), object, session);
 		} else {
 			return createObject(serializableOf(type), object, session);
 		}
@@ -173,34 +235,71 @@ public class ConfigurableSerializerFacade implements SerializerFacade {
 
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	private SerializedValue createObject(Type type, Object object, SerializerSession session) {
-		Profile serialization = session.log(type);
+		boolean degraded = isDegraded(session);
+		boolean tracking = isTracking(session);
 		try {
 			IdentityWorkSet<Object> todo = new IdentityWorkSet<>();
 			todo.add(object);
+			int depth = 0;
+			int remainingAtDepth = 1;
+			int atNextDepth = 0;
 			Deque<Runnable> defer = new LinkedList<>();
 			while (!todo.isEmpty()) {
 				Object current = todo.remove();
 				AnalyzedObject analyzed = session.analyze(current);
 
-				Serializer<?> serializer = fetchSerializer(analyzed.effectiveObject.getClass());
-				SerializedValue serializedCurrent = serializer.generate(analyzed.effectiveType, session);
-
-				session.resolve(analyzed.object, serializedCurrent);
+				if (exceedsBudget(depth, session.visited(), degraded)) {
+					SerializedTruncated truncated = new SerializedTruncated(analyzed.effectiveType);
+					truncated.setId(identityHashCode(analyzed.object));
+					session.resolve(analyzed.object, truncated);
+				} else {
+					long start = System.nanoTime();
+					Class<?> clazz = analyzed.effectiveObject.getClass();
+					Serializer<?> serializer = fetchSerializer(clazz);
+					SerializedValue serializedCurrent = serializer.generate(analyzed.effectiveType, session);
+
+					session.resolve(analyzed.object, serializedCurrent);
+
+					Distinct distinct = distinct();
+					int componentCount = 0;
+					long fingerprint = tracking ? Fingerprints.fingerprint(analyzed.effectiveObject) : 0;
+					Iterator<?> components = serializer.components(analyzed.effectiveObject, session).iterator();
+					while (components.hasNext()) {
+						Object component = components.next();
+						componentCount++;
+						if (tracking) {
+							fingerprint = 31 * fingerprint + identityHashCode(component);
+						}
+						if (distinct.test(component)
+							&& session.find(component) == null
+							&& !isGround(component)
+							&& todo.add(component)) {
+							atNextDepth++;
+						}
+					}
+					if (tracking) {
+						((DefaultSerializerSession) session).fingerprinted(analyzed.object, fingerprint);
+					}
+					session.profile(clazz, serializer, System.nanoTime() - start, 1, componentCount);
 
-				serializer.components(analyzed.effectiveObject, session)
-					.filter(distinct())
-					.filter(component -> session.find(component) == null)
-					.filter(component -> !isGround(component))
-					.forEach(todo::add);
+					if (serializedCurrent instanceof SerializedReferenceType) {
+						SerializedReferenceType serializedReferenceType = (SerializedReferenceType) serializedCurrent;
+						serializedReferenceType.setId(identityHashCode(analyzed.object));
+					}
 
-				if (serializedCurrent instanceof SerializedReferenceType) {
-					SerializedReferenceType serializedReferenceType = (SerializedReferenceType) serializedCurrent;
-					serializedReferenceType.setId(identityHashCode(analyzed.object));
+					defer.addFirst(() -> {
+						long populateStart = System.nanoTime();
+						((Serializer) serializer).populate(serializedCurrent, analyzed.effectiveObject, session);
+						session.profile(clazz, serializer, System.nanoTime() - populateStart, 0, 0);
+					});
 				}
 
-				defer.addFirst(() -> {
-					((Serializer) serializer).populate(serializedCurrent, analyzed.effectiveObject, session);
-				});
+				remainingAtDepth--;
+				if (remainingAtDepth == 0) {
+					depth++;
+					remainingAtDepth = atNextDepth;
+					atNextDepth = 0;
+				}
 			}
 			while (!defer.isEmpty()) {
 				Runnable deferred = defer.remove();
@@ -212,21 +311,175 @@ public class ConfigurableSerializerFacade implements SerializerFacade {
 			return serializedValue;
 		} catch (Throwable e) {
 			throw new SerializationException(e);
-		} finally {
-			serialization.stop();
 		}
 	}
 
+	/**
+	 * traverses the object graph level by level. The objects of a level are analyzed and generated in parallel, the results
+	 * are resolved in the session by the serializing thread (such that the session is never modified concurrently). At last
+	 * all objects are populated in parallel, populating threads do not change the usage of referenced values, such usages are
+	 * applied afterwards by the serializing thread.
+	 * 
+	 * The budget is checked by the serializing thread before a level is traversed, each object of the level is counted as if
+	 * the objects before it were already resolved. So the budget is spent in the same order as in a sequential traversal.
+	 */
+	private SerializedValue createObjectInParallel(Type type, Object object, SerializerSession session) {
+		boolean degraded = isDegraded(session);
+		boolean tracking = isTracking(session);
+		try {
+			List<Traversed> traversed = new ArrayList<>();
+			List<Object> level = singletonList(object);
+			int depth = 0;
+			while (!level.isEmpty()) {
+				int visited = session.visited();
+				int withinBudget = 0;
+				while (withinBudget < level.size() && !exceedsBudget(depth, visited + withinBudget, degraded)) {
+					withinBudget++;
+				}
+				List<Traversed> generated = new ArrayList<>();
+				for (List<Traversed> chunk : inParallel(level.subList(0, withinBudget), chunk -> chunk.stream()
+					.map(current -> traverse(current, session, tracking))
+					.collect(toList()))) {
+					generated.addAll(chunk);
+				}
+				for (Object current : level.subList(withinBudget, level.size())) {
+					generated.add(new Traversed(session.analyze(current)));
+				}
+
+				for (Traversed current : generated) {
+					session.resolve(current.analyzed.object, current.value);
+					if (tracking && current.serializer != null) {
+						((DefaultSerializerSession) session).fingerprinted(current.analyzed.object, current.fingerprint);
+					}
+					current.profile(session);
+					traversed.add(current);
+				}
+
+				Set<Object> queued = newSetFromMap(new IdentityHashMap<>());
+				List<Object> next = new ArrayList<>();
+				for (Traversed current : generated) {
+					for (Object component : current.components) {
+						if (session.find(component) == null && queued.add(component)) {
+							next.add(component);
+						}
+					}
+				}
+				level = next;
+				depth++;
+			}
+
+			List<Traversed> populate = new ArrayList<>(traversed);
+			populate.removeIf(current -> current.serializer == null);
+			reverse(populate);
+			List<DeferringSession> populated = inParallel(populate, chunk -> {
+				DeferringSession deferringSession = new DeferringSession(session);
+				for (Traversed current : chunk) {
+					current.populate(deferringSession);
+				}
+				return deferringSession;
+			});
+			for (DeferringSession deferringSession : populated) {
+				deferringSession.commit();
+			}
+
+			SerializedValue serializedValue = session.ref(object, type);
+
+			return serializedValue;
+		} catch (Throwable e) {
+			throw new SerializationException(e);
+		}
+	}
+
+	private Traversed traverse(Object object, SerializerSession session, boolean tracking) {
+		AnalyzedObject analyzed = session.analyze(object);
+		long start = System.nanoTime();
+		Serializer<?> serializer = fetchSerializer(analyzed.effectiveObject.getClass());
+		SerializedValue value = serializer.generate(analyzed.effectiveType, session);
+		Distinct distinct = distinct();
+		int componentCount = 0;
+		long fingerprint = tracking ? Fingerprints.fingerprint(analyzed.effectiveObject) : 0;
+		List<Object> components = new ArrayList<>();
+		Iterator<?> allComponents = serializer.components(analyzed.effectiveObject, session).iterator();
+		while (allComponents.hasNext()) {
+			Object component = allComponents.next();
+			componentCount++;
+			if (tracking) {
+				fingerprint = 31 * fingerprint + identityHashCode(component);
+			}
+			if (distinct.test(component) && !isGround(component)) {
+				components.add(component);
+			}
+		}
+		Traversed traversed = new Traversed(analyzed, serializer, value, components);
+		traversed.fingerprint = fingerprint;
+		traversed.profile(System.nanoTime() - start, componentCount);
+		return traversed;
+	}
+
+	private <T, R> List<R> inParallel(List<T> items, Function<List<T>, R> task) throws Throwable {
+		int size = items.size();
+		if (size < parallelThreshold) {
+			return singletonList(task.apply(items));
+		}
+		int chunks = ((ThreadPoolExecutor) traversal).getMaximumPoolSize() + 1;
+		int chunkSize = (size + chunks - 1) / chunks;
+		List<Future<R>> futures = new ArrayList<>();
+		for (int start = chunkSize; start < size; start += chunkSize) {
+			List<T> chunk = items.subList(start, Math.min(start + chunkSize, size));
+			futures.add(traversal.submit(() -> task.apply(chunk)));
+		}
+		List<R> results = new ArrayList<>();
+		results.add(task.apply(items.subList(0, Math.min(chunkSize, size))));
+		for (Future<R> future : futures) {
+			try {
+				results.add(future.get());
+			} catch (ExecutionException e) {
+				throw e.getCause();
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * @param depth the number of references between the serialized value and the object
+	 * @param visited the number of objects resolved before the object
+	 * @param degraded true if the object is captured with the reduced budget of a degraded session
+	 */
+	private boolean exceedsBudget(int depth, int visited, boolean degraded) {
+		if (degraded) {
+			return depth > degradedMaxDepth
+				|| visited >= degradedMaxObjects;
+		}
+		return depth > maxDepth
+			|| visited >= maxObjects;
+	}
+
+	private static boolean isDegraded(SerializerSession session) {
+		return session instanceof DefaultSerializerSession
+			&& ((DefaultSerializerSession) session).isDegraded();
+	}
+
+	private static boolean isTracking(SerializerSession session) {
+		return session instanceof DefaultSerializerSession
+			&& ((DefaultSerializerSession) session).isTracking();
+	}
+
 	private boolean isGround(Object component) {
 		return component == null || isLiteral(component.getClass());
 	}
 
 	private Serializer<?> fetchSerializer(Class<?> clazz) {
+		return dispatch.get(clazz);
+	}
+
+	private Serializer<?> resolveSerializer(Class<?> clazz) {
 		Serializer<?> serializer = serializers.get(clazz);
 		if (serializer != null) {
 			return serializer;
 		}
-		if (clazz.isArray()) {
+		if (clazz.isArray() && clazz.getComponentType().isPrimitive()) {
+			return primitiveArraySerializer;
+		} else if (clazz.isArray()) {
 			return arraySerializer;
 		} else if (clazz.isEnum() || (clazz.getSuperclass() != null && clazz.getSuperclass().isEnum())) {
 			return enumSerializer;
@@ -258,11 +511,226 @@ public class ConfigurableSerializerFacade implements SerializerFacade {
 
 	@Override
 	public SerializerSession newSession() {
-		return new DefaultSerializerSession()
-			.withClassExclusions(classExclusions)
-			.withFieldExclusions(fieldExclusions)
-			.withClassFacades(classFacades)
-			.withFieldFacades(fieldFacades);
+		DefaultSerializerSession session = pooled.get();
+		if (session != null) {
+			pooled.remove();
+			return session;
+		}
+		return new DefaultSerializerSession(layouts, maxElements);
+	}
+
+	@Override
+	public SerializerSession newDegradedSession() {
+		DefaultSerializerSession session = (DefaultSerializerSession) newSession();
+		session.degrade();
+		return session;
+	}
+
+	/**
+	 * pools at most one released session per thread. Sessions that are retained are not pooled, they are kept for reuse
+	 * by a later session.
+	 */
+	@Override
+	public void release(SerializerSession session) {
+		if (!(session instanceof DefaultSerializerSession)) {
+			return;
+		}
+		DefaultSerializerSession releasedSession = (DefaultSerializerSession) session;
+		if (releasedSession.getLayouts() != layouts || releasedSession.isRetained()) {
+			return;
+		}
+		releasedSession.reset();
+		pooled.set(releasedSession);
+	}
+
+	@Override
+	public void retain(SerializerSession session) {
+		if (session instanceof DefaultSerializerSession) {
+			((DefaultSerializerSession) session).retain();
+		}
+	}
+
+	@Override
+	public void reuse(SerializerSession previous, SerializerSession session) {
+		if (previous instanceof DefaultSerializerSession && session instanceof DefaultSerializerSession) {
+			((DefaultSerializerSession) session).reuse(((DefaultSerializerSession) previous).unchanged(object -> fingerprint(object, session)));
+		}
+	}
+
+	@Override
+	public void track(SerializerSession session) {
+		if (session instanceof DefaultSerializerSession) {
+			((DefaultSerializerSession) session).track();
+		}
+	}
+
+	@Override
+	public boolean changed(SerializerSession session) {
+		if (session instanceof DefaultSerializerSession) {
+			return ((DefaultSerializerSession) session).changed(object -> fingerprint(object, session));
+		}
+		return false;
+	}
+
+	/**
+	 * the fingerprint of an object combines the shallow fingerprint of the object with the identities of its components, such
+	 * that replacing an element of a collection changes the fingerprint of the collection.
+	 */
+	private long fingerprint(Object object, SerializerSession session) {
+		AnalyzedObject analyzed = session.analyze(object);
+		long fingerprint = Fingerprints.fingerprint(analyzed.effectiveObject);
+		Iterator<?> components = fetchSerializer(analyzed.effectiveObject.getClass()).components(analyzed.effectiveObject, session).iterator();
+		while (components.hasNext()) {
+			fingerprint = 31 * fingerprint + identityHashCode(components.next());
+		}
+		return fingerprint;
+	}
+
+	private static class Traversed {
+
+		private AnalyzedObject analyzed;
+		private Serializer<?> serializer;
+		private SerializedValue value;
+		private List<?> components;
+		private long fingerprint;
+		private long durationInNanos;
+		private int componentCount;
+
+		Traversed(AnalyzedObject analyzed, Serializer<?> serializer, SerializedValue value, List<?> components) {
+			this.analyzed = analyzed;
+			this.serializer = serializer;
+			this.value = value;
+			this.components = components;
+			if (value instanceof SerializedReferenceType) {
+				((SerializedReferenceType) value).setId(identityHashCode(analyzed.object));
+			}
+		}
+
+		Traversed(AnalyzedObject analyzed) {
+			SerializedTruncated truncated = new SerializedTruncated(analyzed.effectiveType);
+			truncated.setId(identityHashCode(analyzed.object));
+			this.analyzed = analyzed;
+			this.value = truncated;
+			this.components = emptyList();
+		}
+
+		void profile(long durationInNanos, int componentCount) {
+			this.durationInNanos = durationInNanos;
+			this.componentCount = componentCount;
+		}
+
+		void profile(SerializerSession session) {
+			if (serializer != null) {
+				session.profile(analyzed.effectiveObject.getClass(), serializer, durationInNanos, 1, componentCount);
+			}
+		}
+
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		void populate(SerializerSession session) {
+			long start = System.nanoTime();
+			((Serializer) serializer).populate(value, analyzed.effectiveObject, session);
+			session.profile(analyzed.effectiveObject.getClass(), serializer, System.nanoTime() - start, 0, 0);
+		}
+
+	}
+
+	/**
+	 * a session for populating values in parallel. Resolving references is delegated, registering the usage of referenced values
+	 * is deferred until {@link #commit()}.
+	 */
+	private static class DeferringSession implements SerializerSession {
+
+		private SerializerSession session;
+		private List<Object> objects;
+		private List<Type> types;
+		private List<Runnable> profiles;
+
+		DeferringSession(SerializerSession session) {
+			this.session = session;
+			this.objects = new ArrayList<>();
+			this.types = new ArrayList<>();
+			this.profiles = new ArrayList<>();
+		}
+
+		@Override
+		public AnalyzedObject analyze(Object object) {
+			return session.analyze(object);
+		}
+
+		@Override
+		public SerializedValue find(Object component) {
+			return session.find(component);
+		}
+
+		@Override
+		public void resolve(Object object, SerializedValue value) {
+			session.resolve(object, value);
+		}
+
+		@Override
+		public SerializedValue ref(Object object, Type type) {
+			SerializedValue value = session.find(object);
+			if (value != null) {
+				objects.add(object);
+				types.add(type);
+			}
+			return value;
+		}
+
+		void commit() {
+			for (int i = 0; i < objects.size(); i++) {
+				session.ref(objects.get(i), types.get(i));
+			}
+			for (Runnable profile : profiles) {
+				profile.run();
+			}
+		}
+
+		@Override
+		public boolean excludes(Field field) {
+			return session.excludes(field);
+		}
+
+		@Override
+		public boolean excludes(Class<?> clazz) {
+			return session.excludes(clazz);
+		}
+
+		@Override
+		public boolean facades(Object object) {
+			return session.facades(object);
+		}
+
+		@Override
+		public ClassLayout layout(Class<?> clazz) {
+			return session.layout(clazz);
+		}
+
+		@Override
+		public int visited() {
+			return session.visited();
+		}
+
+		@Override
+		public int maxElements() {
+			return session.maxElements();
+		}
+
+		@Override
+		public void profile(Class<?> type, Serializer<?> serializer, long durationInNanos, int objects, int components) {
+			profiles.add(() -> session.profile(type, serializer, durationInNanos, objects, components));
+		}
+
+		@Override
+		public Map<Class<?>, Profile> getClassProfiles() {
+			return session.getClassProfiles();
+		}
+
+		@Override
+		public Map<Class<?>, Profile> getSerializerProfiles() {
+			return session.getSerializerProfiles();
+		}
+
 	}
 
 }
@@ -6,6 +6,7 @@ import static net.amygdalum.testrecorder.util.Types.getDeclaredMethod;
 
 import java.lang.reflect.Method;
 
+import net.amygdalum.testrecorder.profile.Sampler;
 import net.amygdalum.testrecorder.types.ContextSnapshot;
 import net.amygdalum.testrecorder.types.SerializationException;
 import net.amygdalum.testrecorder.types.VirtualMethodSignature;
@@ -14,7 +15,7 @@ public class ContextSnapshotFactory {
 
 	public static final ContextSnapshotFactory NULL = new ContextSnapshotFactory("null", null, null, null) {
 		@Override
-		public synchronized VirtualMethodSignature signature(ClassLoader loader) {
+		public VirtualMethodSignature signature(Class<?> clazz) {
 			return VirtualMethodSignature.NULL;
 		}
 	};
@@ -25,14 +26,44 @@ public class ContextSnapshotFactory {
 	private String methodName;
 	private String methodDesc;
 
+	private Sampler sampler;
+	private ContextSnapshot skipped;
+
+	private ClassValue<VirtualMethodSignature> signatures;
+
 	public ContextSnapshotFactory(String key, String className, String methodName, String methodDesc) {
+		this(key, className, methodName, methodDesc, Sampler.ALL);
+	}
+
+	public ContextSnapshotFactory(String key, String className, String methodName, String methodDesc, Sampler sampler) {
 		this.key = key;
 		this.className = className;
 		this.methodName = methodName;
 		this.methodDesc = methodDesc;
+		this.sampler = sampler;
+		this.skipped = new ContextSnapshot(0, key, VirtualMethodSignature.NULL);
+		this.skipped.invalidate();
+		this.signatures = new ClassValue<VirtualMethodSignature>() {
+			@Override
+			protected VirtualMethodSignature computeValue(Class<?> type) {
+				return resolve(type.getClassLoader());
+			}
+		};
+	}
+
+	public boolean sample() {
+		return sampler.sample();
+	}
+
+	/**
+	 * @param clazz the class the method is invoked on, the signature is resolved in the class loader of this class
+	 * @return the signature of the method (resolved once per class, without locking on subsequent calls)
+	 */
+	public VirtualMethodSignature signature(Class<?> clazz) {
+		return signatures.get(clazz);
 	}
 
-	public synchronized VirtualMethodSignature signature(ClassLoader loader) {
+	private VirtualMethodSignature resolve(ClassLoader loader) {
 		try {
 			Class<?> clazz = classFrom(className, loader);
 			Method method = getDeclaredMethod(clazz, methodName, argumentTypesFrom(methodDesc, loader));
@@ -42,8 +73,16 @@ public class ContextSnapshotFactory {
 		}
 	}
 
-	public ContextSnapshot createSnapshot(ClassLoader loader) {
-		return new ContextSnapshot(System.currentTimeMillis(), key, signature(loader));
+	public ContextSnapshot createSnapshot(Class<?> clazz) {
+		return new ContextSnapshot(System.currentTimeMillis(), key, signature(clazz));
+	}
+
+	/**
+	 * @return a shared and invalid snapshot standing for invocations that were not sampled. It only serves to keep snapshot
+	 * stacks balanced, it does never collect any data
+	 */
+	public ContextSnapshot skippedSnapshot() {
+		return skipped;
 	}
 
 }
@@ -11,6 +11,7 @@ import net.amygdalum.testrecorder.profile.ExcludeGenerated;
 import net.amygdalum.testrecorder.profile.ExcludeStatic;
 import net.amygdalum.testrecorder.profile.Fields;
 import net.amygdalum.testrecorder.profile.Methods;
+import net.amygdalum.testrecorder.profile.Sampling;
 import net.amygdalum.testrecorder.profile.SerializationProfile;
 
 public class DefaultSerializationProfile implements SerializationProfile {
@@ -28,6 +29,7 @@ public class DefaultSerializationProfile implements SerializationProfile {
 	public static final List<Methods> RECORDED = emptyList();
 	public static final List<Methods> INPUT = emptyList();
 	public static final List<Methods> OUTPUT = emptyList();
+	public static final List<Sampling> SAMPLING = emptyList();
 
 	@Override
 	public List<Fields> getFieldExclusions() {
@@ -69,6 +71,11 @@ public class DefaultSerializationProfile implements SerializationProfile {
 		return RECORDED;
 	}
 
+	@Override
+	public List<Sampling> getSampling() {
+		return SAMPLING;
+	}
+
 	@Override
 	public List<Classes> getClasses() {
 		return emptyList();
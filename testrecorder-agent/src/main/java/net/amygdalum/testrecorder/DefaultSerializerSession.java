@@ -1,9 +1,9 @@
 package net.amygdalum.testrecorder;
 
-import static java.util.stream.Collectors.toList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.synchronizedMap;
 import static net.amygdalum.testrecorder.asm.ByteCode.classFrom;
 import static net.amygdalum.testrecorder.util.Lambdas.isSerializableLambda;
-import static net.amygdalum.testrecorder.util.Reflections.accessing;
 import static net.amygdalum.testrecorder.util.Types.baseType;
 import static net.amygdalum.testrecorder.util.Types.isLiteral;
 import static net.amygdalum.testrecorder.util.Types.serializableOf;
@@ -11,87 +11,114 @@ import static net.amygdalum.testrecorder.util.Types.serializableOf;
 import java.lang.invoke.SerializedLambda;
 import java.lang.reflect.Field;
 import java.lang.reflect.Type;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.IdentityHashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.ToLongFunction;
 
-import net.amygdalum.testrecorder.profile.Classes;
-import net.amygdalum.testrecorder.profile.Excluded;
-import net.amygdalum.testrecorder.profile.Facade;
-import net.amygdalum.testrecorder.profile.Fields;
 import net.amygdalum.testrecorder.types.AnalyzedObject;
+import net.amygdalum.testrecorder.types.ClassLayout;
+import net.amygdalum.testrecorder.types.ClassLayout.LayoutField;
 import net.amygdalum.testrecorder.types.Profile;
 import net.amygdalum.testrecorder.types.SerializedReferenceType;
 import net.amygdalum.testrecorder.types.SerializedValue;
+import net.amygdalum.testrecorder.types.Serializer;
 import net.amygdalum.testrecorder.types.SerializerSession;
 import net.amygdalum.testrecorder.util.Lambdas;
 
+/**
+ * The session of a single serialization. Objects may be analyzed concurrently (if the object graph is traversed in parallel),
+ * yet values are only resolved by the serializing thread.
+ *
+ * A session may reuse the values of a previous session (see {@link #unchanged(ToLongFunction)}), such values are found but
+ * not counted as visited.
+ */
 public class DefaultSerializerSession implements SerializerSession {
 
+	private static final int POOLED_CAPACITY = 1 << 14;
+
 	private Map<Object, SerializedValue> serialized;
-	private Map<Class<?>, Profile> profiles;
+	private Map<Object, SerializedValue> reused;
+	private Map<Object, Long> fingerprints;
+	private boolean retained;
+	private Map<Class<?>, Profile> classProfiles;
+	private Map<Class<?>, Profile> serializerProfiles;
 
-	private List<Classes> classExclusions;
-	private List<Classes> classFacades;
-	private List<Fields> fieldExclusions;
-	private List<Fields> fieldFacades;
+	private ClassLayouts layouts;
+	private int maxElements;
+	private boolean degraded;
 	private Map<Object, Object> facaded;
 
 	public DefaultSerializerSession() {
-		serialized = new IdentityHashMap<>();
-		profiles = new LinkedHashMap<>();
-		facaded = new IdentityHashMap<>();
-		classExclusions = new ArrayList<>();
-		classFacades = new ArrayList<>();
-		fieldExclusions = new ArrayList<>();
-		fieldFacades = new ArrayList<>();
-	}
-
-	public DefaultSerializerSession withClassExclusions(List<Classes> classExclusions) {
-		this.classExclusions.addAll(classExclusions);
-		return this;
+		this(new ClassLayouts());
 	}
 
-	public DefaultSerializerSession withClassFacades(List<Classes> classFacades) {
-		this.classFacades.addAll(classFacades);
-		return this;
+	public DefaultSerializerSession(ClassLayouts layouts) {
+		this(layouts, 0);
 	}
 
-	public DefaultSerializerSession withFieldExclusions(List<Fields> fieldExclusions) {
-		this.fieldExclusions.addAll(fieldExclusions);
-		return this;
+	/**
+	 * @param layouts the class layouts of the serialized classes
+	 * @param maxElements the maximum number of elements captured of a collection, map or array, 0 if not limited
+	 */
+	public DefaultSerializerSession(ClassLayouts layouts, int maxElements) {
+		this.serialized = new IdentityHashMap<>();
+		this.facaded = synchronizedMap(new IdentityHashMap<>());
+		this.classProfiles = new IdentityHashMap<>();
+		this.serializerProfiles = new IdentityHashMap<>();
+		this.layouts = layouts;
+		this.maxElements = maxElements;
 	}
 
-	public DefaultSerializerSession withFieldFacades(List<Fields> fieldFacades) {
-		this.fieldFacades.addAll(fieldFacades);
-		return this;
+	public ClassLayouts getLayouts() {
+		return layouts;
 	}
 
-	@Override
-	public synchronized Profile log(Type type) {
-		return profiles.computeIfAbsent(baseType(type), (t) -> Profile.start(t));
-	}
-
-	@Override
-	public synchronized List<Profile> dumpProfiles() {
-		List<Profile> dump = profiles.values().stream()
-			.sorted()
-			.limit(20)
-			.collect(toList());
-		profiles = new LinkedHashMap<>();
-		return dump;
+	/**
+	 * resets this session to the state of a new session (sharing the same layouts). The maps of large sessions are dropped
+	 * instead of cleared, such that a pooled session does not retain the memory of a large object graph.
+	 */
+	public void reset() {
+		if (serialized.size() > POOLED_CAPACITY) {
+			serialized = new IdentityHashMap<>();
+		} else {
+			serialized.clear();
+		}
+		if (facaded.size() > POOLED_CAPACITY) {
+			facaded = synchronizedMap(new IdentityHashMap<>());
+		} else {
+			facaded.clear();
+		}
+		reused = null;
+		fingerprints = null;
+		retained = false;
+		degraded = false;
+		classProfiles.clear();
+		serializerProfiles.clear();
 	}
 
 	@Override
 	public SerializedValue find(Object object) {
-		return serialized.get(object);
+		SerializedValue serializedValue = serialized.get(object);
+		if (serializedValue == null && reused != null) {
+			serializedValue = reused.get(object);
+		}
+		return serializedValue;
 	}
 
+	/**
+	 * returns the value of an object and records that it is used as the given type. Values reused from another session keep
+	 * the usage of that session, otherwise referencing them here would change the types of the other session's values.
+	 */
 	@Override
 	public SerializedValue ref(Object object, Type type) {
-		SerializedValue serializedValue = find(object);
+		SerializedValue serializedValue = serialized.get(object);
+		if (serializedValue == null && reused != null) {
+			return reused.get(object);
+		}
 		if (serializedValue instanceof SerializedReferenceType && type != null && !baseType(type).isSynthetic()) {
 			SerializedReferenceType serializedReferenceType = (SerializedReferenceType) serializedValue;
 			serializedReferenceType.useAs(serializableOf(type));
@@ -106,17 +133,7 @@ public class DefaultSerializerSession implements SerializerSession {
 
 	@Override
 	public boolean excludes(Field field) {
-		if (field.isAnnotationPresent(Excluded.class)) {
-			return true;
-		}
-		boolean excluded = fieldExclusions.stream()
-			.anyMatch(exclusion -> exclusion.matches(field));
-		if (!excluded) {
-			Class<?> type = field.getType();
-			excluded = classExclusions.stream()
-				.anyMatch(exclusion -> exclusion.matches(type));
-		}
-		return excluded;
+		return layouts.excludes(field);
 	}
 
 	public AnalyzedObject analyze(Object object) {
@@ -132,53 +149,185 @@ public class DefaultSerializerSession implements SerializerSession {
 			Class<?> type = classFrom(lambda.getFunctionalInterfaceClass(), clazz.getClassLoader());
 			return new AnalyzedObject(object, type, lambda);
 		}
-		if (facades(clazz)) {
+		ClassLayout layout = layouts.layout(clazz);
+		if (layout.isFacade()) {
 			facaded.put(object, object);
 		}
-		Class<?> objectClass = clazz;
-		while (objectClass != Object.class) {
-			for (Field field : objectClass.getDeclaredFields()) {
-				if (facades(field)) {
-					try {
-						Object obj = accessing(field).call(f -> f.get(object));
-						facaded.put(obj, obj);
-					} catch (ReflectiveOperationException e) {
-						continue;
-					}
-				}
+		for (LayoutField field : layout.getFacadeFields()) {
+			try {
+				Object obj = field.get(object);
+				facaded.put(obj, obj);
+			} catch (ReflectiveOperationException e) {
+				continue;
 			}
-			objectClass = objectClass.getSuperclass();
 		}
 		return new AnalyzedObject(clazz, object);
 	}
 
-	private boolean facades(Field field) {
-		if (field.isAnnotationPresent(Facade.class)) {
-			return true;
+	@Override
+	public boolean excludes(Class<?> clazz) {
+		return layouts.excludes(clazz);
+	}
+
+	@Override
+	public boolean facades(Object object) {
+		return facaded.containsKey(object);
+	}
+
+	@Override
+	public ClassLayout layout(Class<?> clazz) {
+		return layouts.layout(clazz);
+	}
+
+	@Override
+	public int visited() {
+		return serialized.size();
+	}
+
+	@Override
+	public int maxElements() {
+		return maxElements;
+	}
+
+	@Override
+	public void profile(Class<?> type, Serializer<?> serializer, long durationInNanos, int objects, int components) {
+		classProfiles.computeIfAbsent(type, key -> new Profile()).record(durationInNanos, objects, components);
+		serializerProfiles.computeIfAbsent(serializer.getClass(), key -> new Profile()).record(durationInNanos, objects, components);
+	}
+
+	@Override
+	public Map<Class<?>, Profile> getClassProfiles() {
+		return classProfiles;
+	}
+
+	@Override
+	public Map<Class<?>, Profile> getSerializerProfiles() {
+		return serializerProfiles;
+	}
+
+	/**
+	 * keeps this session (and the fingerprints recorded while serializing) for reuse by a later session. A retained session
+	 * should not be pooled.
+	 */
+	public void retain() {
+		retained = true;
+	}
+
+	public boolean isRetained() {
+		return retained;
+	}
+
+	/**
+	 * makes this session record the fingerprint of each object at the time it is serialized (see
+	 * {@link #fingerprinted(Object, long)})
+	 */
+	public void track() {
+		if (fingerprints == null) {
+			fingerprints = new IdentityHashMap<>();
 		}
-		return fieldFacades.stream()
-			.anyMatch(facade -> facade.matches(field));
 	}
 
-	private boolean facades(Class<?> clazz) {
-		if (clazz.isAnnotationPresent(Facade.class)) {
-			return true;
+	public boolean isTracking() {
+		return fingerprints != null;
+	}
+
+	/**
+	 * records the fingerprint of an object that is serialized, if this session is tracking
+	 *
+	 * @param object the serialized object
+	 * @param fingerprint the fingerprint of the object at the time of serialization
+	 */
+	public void fingerprinted(Object object, long fingerprint) {
+		if (fingerprints != null) {
+			fingerprints.put(object, fingerprint);
 		}
-		return classFacades.stream()
-			.anyMatch(facade -> facade.matches(clazz));
 	}
 
-	@Override
-	public boolean excludes(Class<?> clazz) {
-		if (clazz.isAnnotationPresent(Excluded.class)) {
-			return true;
+	/**
+	 * compares the fingerprints recorded while serializing to the current fingerprints
+	 *
+	 * @param fingerprint computes the current fingerprint of an object
+	 * @return true if any tracked object changed since it was serialized
+	 */
+	public boolean changed(ToLongFunction<Object> fingerprint) {
+		if (fingerprints == null) {
+			return false;
 		}
-		return classExclusions.stream()
-			.anyMatch(exclusion -> exclusion.matches(clazz));
+		for (Map.Entry<Object, Long> entry : fingerprints.entrySet()) {
+			if (entry.getValue() != fingerprint.applyAsLong(entry.getKey())) {
+				return true;
+			}
+		}
+		return false;
 	}
 
-	@Override
-	public boolean facades(Object object) {
-		return facaded.containsKey(object);
+	/**
+	 * marks this session as degraded, a degraded session captures objects with a reduced budget
+	 */
+	public void degrade() {
+		degraded = true;
+	}
+
+	public boolean isDegraded() {
+		return degraded;
+	}
+
+	/**
+	 * compares the fingerprints recorded while serializing to the current fingerprints. An object is changed if its fingerprint
+	 * changed (or was not recorded, e.g. because it was truncated) or if it references a changed object (directly or
+	 * indirectly), all other objects are unchanged.
+	 *
+	 * @param fingerprint computes the current fingerprint of an object
+	 * @return the values of all unchanged objects, or an empty map if this session was not tracked
+	 */
+	public Map<Object, SerializedValue> unchanged(ToLongFunction<Object> fingerprint) {
+		Map<Object, SerializedValue> unchanged = new IdentityHashMap<>();
+		if (fingerprints == null) {
+			return unchanged;
+		}
+		Map<SerializedValue, Object> objects = new IdentityHashMap<>();
+		for (Map.Entry<Object, SerializedValue> entry : serialized.entrySet()) {
+			objects.put(entry.getValue(), entry.getKey());
+		}
+		Map<Object, List<Object>> referencing = new IdentityHashMap<>();
+		Map<Object, Boolean> changed = new IdentityHashMap<>();
+		Deque<Object> todo = new ArrayDeque<>();
+		for (Map.Entry<Object, SerializedValue> entry : serialized.entrySet()) {
+			Object object = entry.getKey();
+			for (SerializedValue referencedValue : entry.getValue().referencedValues()) {
+				Object referenced = objects.get(referencedValue);
+				if (referenced != null) {
+					referencing.computeIfAbsent(referenced, key -> new ArrayList<>()).add(object);
+				}
+			}
+			Long recorded = fingerprints.get(object);
+			if (recorded == null || recorded != fingerprint.applyAsLong(object)) {
+				changed.put(object, true);
+				todo.add(object);
+			}
+		}
+		while (!todo.isEmpty()) {
+			Object object = todo.remove();
+			for (Object referencingObject : referencing.getOrDefault(object, emptyList())) {
+				if (changed.put(referencingObject, true) == null) {
+					todo.add(referencingObject);
+				}
+			}
+		}
+		for (Map.Entry<Object, SerializedValue> entry : serialized.entrySet()) {
+			if (!changed.containsKey(entry.getKey())) {
+				unchanged.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return unchanged;
+	}
+
+	/**
+	 * reuses the given values in this session. Reused objects are not serialized again.
+	 *
+	 * @param values the values of objects resolved in another session
+	 */
+	public void reuse(Map<Object, SerializedValue> values) {
+		reused = values;
 	}
 }
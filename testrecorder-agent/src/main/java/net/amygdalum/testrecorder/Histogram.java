@@ -0,0 +1,52 @@
+package net.amygdalum.testrecorder;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free summary of recorded values: count, mean and maximum.
+ */
+public class Histogram {
+
+	private LongAdder count;
+	private LongAdder total;
+	private LongAccumulator max;
+
+	public Histogram() {
+		this.count = new LongAdder();
+		this.total = new LongAdder();
+		this.max = new LongAccumulator(Math::max, 0);
+	}
+
+	public void record(long value) {
+		count.increment();
+		total.add(value);
+		max.accumulate(value);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getTotal() {
+		return total.sum();
+	}
+
+	public double getMean() {
+		long count = this.count.sum();
+		if (count == 0) {
+			return 0;
+		}
+		return (double) total.sum() / count;
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + getCount() + ", mean=" + getMean() + ", max=" + getMax();
+	}
+
+}
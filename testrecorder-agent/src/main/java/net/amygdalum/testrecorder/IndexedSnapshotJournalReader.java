@@ -0,0 +1,334 @@
+package net.amygdalum.testrecorder;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static net.amygdalum.testrecorder.SnapshotJournal.HEADER_SIZE;
+import static net.amygdalum.testrecorder.SnapshotJournal.MAGIC;
+import static net.amygdalum.testrecorder.SnapshotJournal.RECORD_HEADER_SIZE;
+import static net.amygdalum.testrecorder.SnapshotJournal.VERSION;
+import static net.amygdalum.testrecorder.SnapshotJournalIndex.INDEX_MAGIC;
+import static net.amygdalum.testrecorder.SnapshotJournalIndex.INDEX_MARKER;
+import static net.amygdalum.testrecorder.SnapshotJournalIndex.TRAILER_SIZE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import net.amygdalum.testrecorder.types.ContextSnapshot;
+import net.amygdalum.testrecorder.util.BlockCompression;
+import net.amygdalum.testrecorder.util.Logger;
+import net.amygdalum.testrecorder.values.SnapshotCodec;
+
+/**
+ * Gives random access to the snapshots of a {@link SnapshotJournal}, e.g. to list, filter and open the snapshots of one
+ * method or of a time range.
+ *
+ * The segments are memory mapped. The entries of a segment are read from the index at its end, segments without index (the
+ * current segment of a running or crashed recording) are scanned for entries, decoding only the time and the key of each
+ * record. The snapshot of an entry is decoded (and decompressed) only when it is accessed with {@link Entry#snapshot()}.
+ */
+public class IndexedSnapshotJournalReader implements Closeable {
+
+	private SnapshotCodec codec;
+	private List<BlockCompression> compressions;
+
+	private List<Entry> entries;
+	private List<Entry> entriesByTime;
+	private Map<String, List<Entry>> entriesByKey;
+
+	public IndexedSnapshotJournalReader(Path journal) throws IOException {
+		this(journal, IndexedSnapshotJournalReader.class.getClassLoader());
+	}
+
+	/**
+	 * @param journal the directory of the journal
+	 * @param loader the class loader resolving the recorded classes
+	 * @throws IOException if the journal cannot be read
+	 */
+	public IndexedSnapshotJournalReader(Path journal, ClassLoader loader) throws IOException {
+		this.codec = new SnapshotCodec(loader);
+		this.compressions = new ArrayList<>();
+		this.entries = new ArrayList<>();
+		this.entriesByKey = new LinkedHashMap<>();
+		for (Path segment : new SnapshotJournalReader(journal, loader).segments()) {
+			load(segment);
+		}
+		this.entriesByTime = new ArrayList<>(entries);
+		this.entriesByTime.sort(Comparator.comparingLong(Entry::getTime));
+	}
+
+	private void load(Path segment) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(segment, READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				Logger.warn("skipping " + segment + ", segment is too large to be mapped");
+				return;
+			}
+			buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			Logger.warn("skipping " + segment + ", no journal segment of version " + VERSION);
+			return;
+		}
+		int compression = buffer.getInt(8);
+		BlockCompression blocks = compression == Deflater.NO_COMPRESSION ? null : new BlockCompression(compression);
+		SnapshotJournalIndex index = readIndex(buffer);
+		if (index == null) {
+			index = scanIndex(segment, buffer, blocks);
+		} else if (blocks != null && index.size() > 0) {
+			try {
+				blocks.decompress(read(buffer, (int) index.offset(0) + RECORD_HEADER_SIZE, index.length(0)));
+			} catch (IOException e) {
+				Logger.warn("skipping " + segment + ", first record (the compression dictionary) cannot be decompressed");
+				blocks.close();
+				return;
+			}
+		}
+		if (blocks != null) {
+			compressions.add(blocks);
+		}
+		for (int i = 0; i < index.size(); i++) {
+			Entry entry = new Entry(segment, buffer, blocks, index.key(i), index.time(i), index.offset(i), index.length(i));
+			entries.add(entry);
+			entriesByKey.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(entry);
+		}
+	}
+
+	private SnapshotJournalIndex readIndex(ByteBuffer buffer) {
+		int limit = buffer.limit();
+		if (limit < HEADER_SIZE + RECORD_HEADER_SIZE + TRAILER_SIZE || buffer.getInt(limit - 4) != INDEX_MAGIC) {
+			return null;
+		}
+		int length = buffer.getInt(limit - TRAILER_SIZE);
+		int crc = buffer.getInt(limit - 8);
+		int start = limit - TRAILER_SIZE - length;
+		if (length < 0 || start < HEADER_SIZE + RECORD_HEADER_SIZE || buffer.getInt(start - RECORD_HEADER_SIZE) != INDEX_MARKER) {
+			return null;
+		}
+		byte[] bytes = read(buffer, start, length);
+		if (!matches(bytes, crc)) {
+			return null;
+		}
+		try {
+			return SnapshotJournalIndex.fromByteArray(bytes);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private SnapshotJournalIndex scanIndex(Path segment, ByteBuffer buffer, BlockCompression blocks) {
+		SnapshotJournalIndex index = new SnapshotJournalIndex();
+		int offset = HEADER_SIZE;
+		while (offset + RECORD_HEADER_SIZE <= buffer.limit()) {
+			int length = buffer.getInt(offset);
+			int crc = buffer.getInt(offset + 4);
+			if (length == INDEX_MARKER) {
+				break;
+			}
+			if (length < 0 || length > buffer.limit() - offset - RECORD_HEADER_SIZE) {
+				Logger.warn("skipping incomplete record in " + segment + " at " + offset);
+				break;
+			}
+			byte[] record = read(buffer, offset + RECORD_HEADER_SIZE, length);
+			if (!matches(record, crc)) {
+				Logger.warn("skipping corrupt record in " + segment + " at " + offset);
+				break;
+			}
+			try {
+				ContextSnapshot header = codec.decodeHeader(blocks == null ? record : blocks.decompress(record));
+				index.add(header.getKey(), header.getTime(), offset, length);
+			} catch (IOException e) {
+				Logger.warn("skipping undecodable record in " + segment + " at " + offset);
+				break;
+			}
+			offset += RECORD_HEADER_SIZE + length;
+		}
+		return index;
+	}
+
+	private static byte[] read(ByteBuffer buffer, int offset, int length) {
+		ByteBuffer source = buffer.duplicate();
+		source.position(offset);
+		byte[] bytes = new byte[length];
+		source.get(bytes);
+		return bytes;
+	}
+
+	private static boolean matches(byte[] bytes, int crc) {
+		CRC32 checksum = new CRC32();
+		checksum.update(bytes, 0, bytes.length);
+		return (int) checksum.getValue() == crc;
+	}
+
+	/**
+	 * @return all entries in the order they were journaled
+	 */
+	public List<Entry> entries() {
+		return unmodifiableList(entries);
+	}
+
+	/**
+	 * @return the keys (method signatures) of all journaled snapshots
+	 */
+	public Set<String> keys() {
+		return entriesByKey.keySet();
+	}
+
+	/**
+	 * @param key the key (method signature) of the snapshots
+	 * @return the entries with the given key in the order they were journaled
+	 */
+	public List<Entry> entries(String key) {
+		List<Entry> keyEntries = entriesByKey.get(key);
+		if (keyEntries == null) {
+			return emptyList();
+		}
+		return unmodifiableList(keyEntries);
+	}
+
+	/**
+	 * @param from the minimum time (inclusive)
+	 * @param to the maximum time (inclusive)
+	 * @return the entries with a time in the given range, ordered by time
+	 */
+	public List<Entry> entries(long from, long to) {
+		int start = firstAtOrAfter(from);
+		int end = to == Long.MAX_VALUE ? entriesByTime.size() : firstAtOrAfter(to + 1);
+		if (start >= end) {
+			return emptyList();
+		}
+		return unmodifiableList(entriesByTime.subList(start, end));
+	}
+
+	private int firstAtOrAfter(long time) {
+		int low = 0;
+		int high = entriesByTime.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (entriesByTime.get(mid).getTime() < time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * releases the mapped segments. The entries of this reader cannot be accessed after closing.
+	 */
+	@Override
+	public void close() {
+		for (Entry entry : entries) {
+			entry.buffer = null;
+		}
+		for (BlockCompression blocks : compressions) {
+			synchronized (blocks) {
+				blocks.close();
+			}
+		}
+		compressions.clear();
+		entries.clear();
+		entriesByTime.clear();
+		entriesByKey.clear();
+	}
+
+	/**
+	 * A journaled snapshot, which is decoded on access.
+	 */
+	public class Entry {
+
+		private Path segment;
+		private ByteBuffer buffer;
+		private BlockCompression blocks;
+		private String key;
+		private long time;
+		private long offset;
+		private int length;
+
+		Entry(Path segment, ByteBuffer buffer, BlockCompression blocks, String key, long time, long offset, int length) {
+			this.segment = segment;
+			this.buffer = buffer;
+			this.blocks = blocks;
+			this.key = key;
+			this.time = time;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		public Path getSegment() {
+			return segment;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public long getTime() {
+			return time;
+		}
+
+		/**
+		 * @return the position of the record in the segment
+		 */
+		public long getOffset() {
+			return offset;
+		}
+
+		/**
+		 * @return the length of the encoded (and possibly compressed) snapshot
+		 */
+		public int getLength() {
+			return length;
+		}
+
+		/**
+		 * decodes the snapshot of this entry
+		 *
+		 * @return the journaled snapshot
+		 * @throws IOException if the record is corrupt or the reader is closed
+		 */
+		public ContextSnapshot snapshot() throws IOException {
+			ByteBuffer buffer = this.buffer;
+			if (buffer == null) {
+				throw new IOException("reader is closed");
+			}
+			if (offset + RECORD_HEADER_SIZE + length > buffer.limit() || buffer.getInt((int) offset) != length) {
+				throw new IOException("no record in " + segment + " at " + offset);
+			}
+			byte[] record = read(buffer, (int) offset + RECORD_HEADER_SIZE, length);
+			if (!matches(record, buffer.getInt((int) offset + 4))) {
+				throw new IOException("corrupt record in " + segment + " at " + offset);
+			}
+			if (blocks != null) {
+				synchronized (blocks) {
+					if (this.buffer == null) {
+						throw new IOException("reader is closed");
+					}
+					record = blocks.decompress(record);
+				}
+			}
+			return codec.decode(record);
+		}
+
+		@Override
+		public String toString() {
+			return key + "@" + time;
+		}
+
+	}
+
+}
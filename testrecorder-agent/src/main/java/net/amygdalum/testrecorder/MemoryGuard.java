@@ -0,0 +1,237 @@
+package net.amygdalum.testrecorder;
+
+import static java.lang.management.MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED;
+import static java.lang.management.MemoryType.HEAP;
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import net.amygdalum.testrecorder.util.Logger;
+
+/**
+ * Suspends recording while the heap is about to be exhausted. The guard sets the collection usage threshold of each heap
+ * pool to the configured fraction of its maximum and listens to the notifications of the memory bean. Collection usage is
+ * the usage after garbage collection, so memory that is just garbage does not suspend recording.
+ *
+ * The thresholds are shared with the application. A pool that already has a collection usage threshold keeps it, such a
+ * pool is only checked when its own threshold is exceeded. Notifications of other pools or of usage thresholds are ignored.
+ * Closing the guard resets the thresholds it has set.
+ *
+ * Once suspended, recording is resumed after the cool-down time if no heap pool exceeds its threshold any more, otherwise the
+ * cool-down starts again. Each suspension starts a new epoch, snapshots started in an earlier epoch are incomplete and must
+ * be invalidated.
+ */
+public class MemoryGuard {
+
+	private double threshold;
+	private long cooldown;
+	private Runnable onSuspend;
+	private List<GuardedPool> pools;
+	private ThresholdListener listener;
+
+	private volatile boolean suspended;
+	private volatile long resumeAt;
+	private volatile long epoch;
+
+	/**
+	 * @param threshold the fraction of the maximum of a heap pool that suspends recording, values &lt;= 0 disable the guard
+	 * @param cooldownInMillis the minimum time recording is suspended
+	 * @param onSuspend the action to release resources held by recording, it is called once for each suspension
+	 */
+	public MemoryGuard(double threshold, long cooldownInMillis, Runnable onSuspend) {
+		this.threshold = threshold;
+		this.cooldown = TimeUnit.MILLISECONDS.toNanos(cooldownInMillis);
+		this.onSuspend = onSuspend;
+		this.pools = guardedPools(threshold);
+		if (!pools.isEmpty()) {
+			this.listener = new ThresholdListener(this);
+			((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(listener, null, null);
+		}
+	}
+
+	public static MemoryGuard disabled() {
+		return new MemoryGuard(0, 0, () -> {
+		});
+	}
+
+	private static List<GuardedPool> guardedPools(double threshold) {
+		if (threshold <= 0) {
+			return emptyList();
+		}
+		return ManagementFactory.getMemoryPoolMXBeans().stream()
+			.filter(pool -> pool.getType() == HEAP)
+			.filter(pool -> pool.isCollectionUsageThresholdSupported())
+			.filter(pool -> pool.getUsage().getMax() > 0)
+			.map(pool -> new GuardedPool(pool, (long) (Math.min(threshold, 1d) * pool.getUsage().getMax())))
+			.collect(toList());
+	}
+
+	public double getThreshold() {
+		return threshold;
+	}
+
+	public boolean isEnabled() {
+		return listener != null;
+	}
+
+	/**
+	 * @return the number of suspensions so far, a snapshot started before the last suspension is incomplete
+	 */
+	public long getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * @return true if recording is currently suspended
+	 */
+	public boolean isSuspended() {
+		if (!suspended) {
+			return false;
+		}
+		if (System.nanoTime() - resumeAt < 0) {
+			return true;
+		}
+		return !resume();
+	}
+
+	public synchronized void suspend() {
+		resumeAt = System.nanoTime() + cooldown;
+		if (suspended) {
+			return;
+		}
+		epoch++;
+		suspended = true;
+		Logger.warn("suspending recording, heap usage exceeds " + threshold + " of maximum");
+		onSuspend.run();
+	}
+
+	private synchronized boolean resume() {
+		if (!suspended) {
+			return true;
+		}
+		if (System.nanoTime() - resumeAt < 0) {
+			return false;
+		}
+		if (exceeded()) {
+			resumeAt = System.nanoTime() + cooldown;
+			return false;
+		}
+		suspended = false;
+		Logger.info("resuming recording");
+		return true;
+	}
+
+	private boolean exceeded() {
+		for (GuardedPool pool : pools) {
+			if (pool.exceeds(pool.pool.getCollectionUsage())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * stops listening to memory notifications and resets the collection usage thresholds set by this guard
+	 */
+	public void close() {
+		if (listener != null) {
+			listener.remove();
+			listener = null;
+		}
+		for (GuardedPool pool : pools) {
+			pool.release();
+		}
+		pools = emptyList();
+	}
+
+	void handleNotification(Notification notification) {
+		if (!MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())
+			|| !(notification.getUserData() instanceof CompositeData)) {
+			return;
+		}
+		MemoryNotificationInfo info = MemoryNotificationInfo.from((CompositeData) notification.getUserData());
+		for (GuardedPool pool : pools) {
+			if (pool.pool.getName().equals(info.getPoolName()) && pool.exceeds(info.getUsage())) {
+				suspend();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * A heap pool with the usage limit of this guard. The collection usage threshold of the pool is set to the limit, unless
+	 * the application has set a threshold before.
+	 */
+	private static class GuardedPool {
+
+		private MemoryPoolMXBean pool;
+		private long limit;
+		private boolean owned;
+
+		GuardedPool(MemoryPoolMXBean pool, long limit) {
+			this.pool = pool;
+			this.limit = limit;
+			if (pool.getCollectionUsageThreshold() == 0) {
+				pool.setCollectionUsageThreshold(limit);
+				this.owned = true;
+			}
+		}
+
+		boolean exceeds(MemoryUsage usage) {
+			return usage != null && usage.getUsed() >= limit;
+		}
+
+		void release() {
+			if (owned && pool.getCollectionUsageThreshold() == limit) {
+				pool.setCollectionUsageThreshold(0);
+			}
+			owned = false;
+		}
+
+	}
+
+	/**
+	 * The memory bean lives as long as the jvm, so it only references the guard weakly and unregisters when the guard is gone.
+	 */
+	private static class ThresholdListener implements NotificationListener {
+
+		private WeakReference<MemoryGuard> guard;
+
+		ThresholdListener(MemoryGuard guard) {
+			this.guard = new WeakReference<>(guard);
+		}
+
+		@Override
+		public void handleNotification(Notification notification, Object handback) {
+			MemoryGuard memoryGuard = guard.get();
+			if (memoryGuard == null) {
+				remove();
+				return;
+			}
+			memoryGuard.handleNotification(notification);
+		}
+
+		void remove() {
+			try {
+				((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(this);
+			} catch (ListenerNotFoundException e) {
+				// already removed
+			}
+		}
+
+	}
+
+}
@@ -1,8 +1,9 @@
 package net.amygdalum.testrecorder;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import net.amygdalum.testrecorder.profile.Sampler;
 import net.amygdalum.testrecorder.types.ContextSnapshot;
 import net.amygdalum.testrecorder.types.VirtualMethodSignature;
 
@@ -11,21 +12,35 @@ public class MethodContext {
 	private Map<String, ContextSnapshotFactory> factories;
 
 	public MethodContext() {
-		factories = new HashMap<>();
+		factories = new ConcurrentHashMap<>();
 	}
 
 	public void add(String signature, String className, String methodName, String methodDesc) {
 		factories.put(signature, new ContextSnapshotFactory(signature, className, methodName, methodDesc));
 	}
 
-	public ContextSnapshot createSnapshot(String signature, ClassLoader loader) {
+	public void add(String signature, String className, String methodName, String methodDesc, Sampler sampler) {
+		factories.put(signature, new ContextSnapshotFactory(signature, className, methodName, methodDesc, sampler));
+	}
+
+	public boolean sample(String signature) {
+		ContextSnapshotFactory factory = factories.getOrDefault(signature, ContextSnapshotFactory.NULL);
+		return factory.sample();
+	}
+
+	public ContextSnapshot skippedSnapshot(String signature) {
+		ContextSnapshotFactory factory = factories.getOrDefault(signature, ContextSnapshotFactory.NULL);
+		return factory.skippedSnapshot();
+	}
+
+	public ContextSnapshot createSnapshot(String signature, Class<?> clazz) {
 		ContextSnapshotFactory factory = factories.getOrDefault(signature, ContextSnapshotFactory.NULL);
-		return factory.createSnapshot(loader);
+		return factory.createSnapshot(clazz);
 	}
 
-	public VirtualMethodSignature signature(String signature, ClassLoader loader) {
+	public VirtualMethodSignature signature(String signature, Class<?> clazz) {
 		ContextSnapshotFactory factory = factories.getOrDefault(signature, ContextSnapshotFactory.NULL);
-		return factory.signature(loader);
+		return factory.signature(clazz);
 	}
 
 }
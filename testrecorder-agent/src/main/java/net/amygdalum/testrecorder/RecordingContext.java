@@ -0,0 +1,97 @@
+package net.amygdalum.testrecorder;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+import net.amygdalum.testrecorder.types.ContextSnapshot;
+
+/**
+ * The recording state of one thread: the flag guarding against recording calls from the recorder itself and the stack of
+ * snapshots of recorded methods that did not yet return. It is looked up once for each recorded event.
+ * 
+ * Threads may be pooled, so the context is held for the lifetime of the thread. To not retain more than necessary, the stack
+ * is replaced by a small one when it is left empty after having grown deep.
+ * 
+ * Snapshots that were started before recording was suspended by the {@link MemoryGuard} are incomplete, they are invalidated
+ * on the next recorded event of the thread.
+ */
+public class RecordingContext {
+
+	private static final int COMPACT_DEPTH = 32;
+
+	private MemoryGuard memoryGuard;
+	private long epoch;
+
+	private boolean locked;
+	private Deque<ContextSnapshot> snapshots;
+	private int maxDepth;
+
+	public RecordingContext() {
+		this(MemoryGuard.disabled());
+	}
+
+	public RecordingContext(MemoryGuard memoryGuard) {
+		this.memoryGuard = memoryGuard;
+		this.epoch = memoryGuard.getEpoch();
+		this.snapshots = new ArrayDeque<>();
+	}
+
+	public boolean acquire() {
+		if (locked) {
+			return false;
+		}
+		locked = true;
+		long currentEpoch = memoryGuard.getEpoch();
+		if (epoch != currentEpoch) {
+			for (ContextSnapshot snapshot : snapshots) {
+				snapshot.invalidate();
+			}
+			epoch = currentEpoch;
+		}
+		return true;
+	}
+
+	public boolean locked() {
+		return locked;
+	}
+
+	public void release() {
+		locked = false;
+		if (maxDepth > COMPACT_DEPTH && snapshots.isEmpty()) {
+			snapshots = new ArrayDeque<>();
+			maxDepth = 0;
+		}
+	}
+
+	public void push(ContextSnapshot snapshot) {
+		snapshots.push(snapshot);
+		int depth = snapshots.size();
+		if (depth > maxDepth) {
+			maxDepth = depth;
+		}
+	}
+
+	public ContextSnapshot pop() {
+		return snapshots.poll();
+	}
+
+	public Deque<ContextSnapshot> snapshots() {
+		return snapshots;
+	}
+
+	/**
+	 * @return the innermost snapshot that is still valid, invalid (e.g. skipped) snapshots do not record any interactions
+	 */
+	public ContextSnapshot recording() {
+		Iterator<ContextSnapshot> iterator = snapshots.iterator();
+		while (iterator.hasNext()) {
+			ContextSnapshot snapshot = iterator.next();
+			if (snapshot.isValid()) {
+				return snapshot;
+			}
+		}
+		return null;
+	}
+
+}
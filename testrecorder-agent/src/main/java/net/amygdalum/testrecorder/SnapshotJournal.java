@@ -0,0 +1,372 @@
+package net.amygdalum.testrecorder;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static net.amygdalum.testrecorder.SnapshotJournalIndex.INDEX_MAGIC;
+import static net.amygdalum.testrecorder.SnapshotJournalIndex.INDEX_MARKER;
+import static net.amygdalum.testrecorder.SnapshotJournalIndex.TRAILER_SIZE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import net.amygdalum.testrecorder.profile.AgentConfiguration;
+import net.amygdalum.testrecorder.profile.SnapshotConsumer;
+import net.amygdalum.testrecorder.types.ContextSnapshot;
+import net.amygdalum.testrecorder.util.BlockCompression;
+import net.amygdalum.testrecorder.util.Logger;
+import net.amygdalum.testrecorder.values.SnapshotCodec;
+
+/**
+ * A SnapshotConsumer that does not generate tests, but appends each snapshot to a journal on the local file system. Tests may
+ * be generated later on (and in another process) by replaying the journal with a {@link SnapshotJournalReader}, such that the
+ * recorded process only pays for serialization and a sequential write.
+ *
+ * The journal is a directory of segments. Segments are only appended, a segment that exceeds {@link #segmentSize} is closed
+ * and the next snapshot starts a new segment. A new journal never appends to the segments of a former journal in the same
+ * directory. Each record is encoded with the {@link SnapshotCodec} and checksummed, so a record that was torn by a crash is
+ * detected (and skipped) on replay. A closed segment ends with an index of its records, which allows the
+ * {@link IndexedSnapshotJournalReader} to access snapshots by key or time without decoding the whole segment.
+ *
+ * Records may be compressed (see {@link #compression}). Each record is compressed on its own, using the first record of the
+ * segment as dictionary, so records stay independently checksummed and accessible.
+ *
+ * Snapshots are encoded recursively, a snapshot that is nested too deeply to be encoded on the stack of the calling thread is
+ * counted as lost (see {@link #getLostSnapshots()}).
+ *
+ * Segments are synced to disk in batches (see {@link #syncEvery} and {@link #syncInterval}), so a crash of the operating system
+ * may lose the last unsynced batch. Batches are synced by a background thread, such that the thread accepting a snapshot (which
+ * is the recorded thread if snapshots are not consumed asynchronously) does not wait for the disk. Only closing a segment (when
+ * it exceeds {@link #segmentSize}) and {@link #flush()} sync on the calling thread.
+ */
+public class SnapshotJournal implements SnapshotConsumer, Closeable {
+
+	static final int MAGIC = 0x54524a31;
+	static final int VERSION = 4;
+	static final int HEADER_SIZE = 12;
+	static final int RECORD_HEADER_SIZE = 8;
+
+	private static final Pattern SEGMENT = Pattern.compile("snapshots-(\\d+)\\.journal");
+
+	private static volatile Set<SnapshotJournal> closeOnShutDown;
+
+	/**
+	 * specifies the directory of the journal
+	 */
+	protected Path journalTo;
+	/**
+	 * specifies the size (in bytes) after which a segment is closed and a new segment is started
+	 */
+	protected long segmentSize;
+	/**
+	 * specifies the number of snapshots after which the current segment is synced to disk
+	 */
+	protected int syncEvery;
+	/**
+	 * specifies the time (in milliseconds) after which the current segment is synced to disk on the next snapshot
+	 */
+	protected long syncInterval;
+	/**
+	 * specifies the deflate level records are compressed with ({@link Deflater#NO_COMPRESSION} does not compress records)
+	 */
+	protected int compression;
+
+	private int segmentNumber;
+	private FileChannel segment;
+	private SnapshotJournalIndex index;
+	private BlockCompression blocks;
+	private int unsynced;
+	private long lastSync;
+	private ExecutorService syncer;
+	private AtomicBoolean syncPending;
+	private SnapshotCodec codec;
+	private CRC32 checksum;
+	private AtomicLong lostSnapshots;
+
+	public SnapshotJournal(AgentConfiguration config) {
+		this(Paths.get("journal"));
+	}
+
+	public SnapshotJournal(Path journalTo) {
+		this.journalTo = journalTo;
+		this.segmentSize = 64 * 1024 * 1024;
+		this.syncEvery = 64;
+		this.syncInterval = 1_000;
+		this.compression = Deflater.NO_COMPRESSION;
+		this.segmentNumber = -1;
+		this.codec = new SnapshotCodec();
+		this.checksum = new CRC32();
+		this.lostSnapshots = new AtomicLong();
+		this.syncer = new ThreadPoolExecutor(0, 1, 1_000, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new TestrecorderThreadFactory("$journal-sync"));
+		this.syncPending = new AtomicBoolean();
+		closeOnShutdown(true);
+	}
+
+	public static String segmentName(int number) {
+		return String.format("snapshots-%08d.journal", number);
+	}
+
+	/**
+	 * @param path a path of a journal file
+	 * @return the number of the segment or -1 if the path is not a segment
+	 */
+	public static int segmentNumber(Path path) {
+		Matcher matcher = SEGMENT.matcher(path.getFileName().toString());
+		if (!matcher.matches()) {
+			return -1;
+		}
+		return Integer.parseInt(matcher.group(1));
+	}
+
+	/**
+	 * specifies that the journal should be synced and closed at shutdown time
+	 * @param shutDown true if the journal should be closed at shutdown, false otherwise
+	 */
+	protected synchronized void closeOnShutdown(boolean shutDown) {
+		if (closeOnShutDown == null) {
+			closeOnShutDown = new HashSet<>();
+			Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					if (closeOnShutDown != null) {
+						for (SnapshotJournal journal : closeOnShutDown) {
+							journal.close();
+						}
+					}
+				}
+
+			}, "$journal-shutdown"));
+		}
+		if (shutDown) {
+			closeOnShutDown.add(this);
+		} else {
+			closeOnShutDown.remove(this);
+		}
+	}
+
+	@Override
+	public synchronized void accept(ContextSnapshot snapshot) {
+		byte[] encoded;
+		try {
+			encoded = codec.encode(snapshot);
+		} catch (IOException | RuntimeException e) {
+			lostSnapshots.incrementAndGet();
+			Logger.error("failed journaling " + snapshot, e);
+			return;
+		} catch (StackOverflowError e) {
+			lostSnapshots.incrementAndGet();
+			Logger.error("failed journaling " + snapshot + ", snapshot is nested too deeply");
+			return;
+		}
+		try {
+			byte[] record = segment == null ? encoded : compress(encoded);
+			if (segment != null && segment.position() + RECORD_HEADER_SIZE + record.length > segmentSize) {
+				closeSegment();
+			}
+			if (segment == null) {
+				openSegment();
+				record = compress(encoded);
+			}
+			long offset = segment.position();
+			checksum.reset();
+			checksum.update(record, 0, record.length);
+			ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+			header.putInt(record.length);
+			header.putInt((int) checksum.getValue());
+			header.flip();
+			write(header);
+			write(ByteBuffer.wrap(record));
+			index.add(snapshot.getKey(), snapshot.getTime(), offset, record.length);
+			unsynced++;
+			if (unsynced >= syncEvery || System.currentTimeMillis() - lastSync >= syncInterval) {
+				syncInBackground();
+			}
+		} catch (IOException | RuntimeException e) {
+			lostSnapshots.incrementAndGet();
+			Logger.error("failed journaling " + snapshot, e);
+			abandonSegment();
+		}
+	}
+
+	private byte[] compress(byte[] encoded) {
+		if (blocks == null) {
+			return encoded;
+		}
+		return blocks.compress(encoded);
+	}
+
+	void write(ByteBuffer bytes) throws IOException {
+		while (bytes.hasRemaining()) {
+			segment.write(bytes);
+		}
+	}
+
+	private void openSegment() throws IOException {
+		if (segmentNumber < 0) {
+			Files.createDirectories(journalTo);
+			segmentNumber = nextSegmentNumber();
+		}
+		segment = FileChannel.open(journalTo.resolve(segmentName(segmentNumber)), CREATE_NEW, WRITE);
+		segmentNumber++;
+		index = new SnapshotJournalIndex();
+		blocks = compression == Deflater.NO_COMPRESSION ? null : new BlockCompression(compression);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(compression);
+		header.flip();
+		write(header);
+		lastSync = System.currentTimeMillis();
+	}
+
+	private int nextSegmentNumber() throws IOException {
+		try (Stream<Path> files = Files.list(journalTo)) {
+			return files
+				.mapToInt(SnapshotJournal::segmentNumber)
+				.max()
+				.orElse(-1) + 1;
+		}
+	}
+
+	void force(FileChannel channel) throws IOException {
+		channel.force(false);
+	}
+
+	private void sync() throws IOException {
+		force(segment);
+		unsynced = 0;
+		lastSync = System.currentTimeMillis();
+	}
+
+	/**
+	 * syncs the current segment on the background thread. Requests that arrive while a sync is pending are merged into the
+	 * pending sync.
+	 */
+	private void syncInBackground() {
+		unsynced = 0;
+		lastSync = System.currentTimeMillis();
+		if (!syncPending.compareAndSet(false, true)) {
+			return;
+		}
+		FileChannel channel = segment;
+		syncer.execute(() -> {
+			syncPending.set(false);
+			try {
+				force(channel);
+			} catch (ClosedChannelException e) {
+				// closed segments are synced on close
+			} catch (IOException e) {
+				Logger.error("failed syncing journal " + journalTo, e);
+			}
+		});
+	}
+
+	private void closeSegment() throws IOException {
+		try {
+			writeIndex();
+			sync();
+		} finally {
+			releaseSegment();
+		}
+	}
+
+	/**
+	 * closes the current segment without index after a failed write. The segment may end with a torn record (which readers
+	 * skip), the next snapshot starts a new segment, such that no record depends on a compression dictionary that was not
+	 * written.
+	 */
+	private void abandonSegment() {
+		if (segment == null) {
+			return;
+		}
+		try {
+			releaseSegment();
+		} catch (IOException e) {
+			Logger.error("failed closing segment of journal " + journalTo, e);
+		}
+	}
+
+	private void releaseSegment() throws IOException {
+		try {
+			segment.close();
+		} finally {
+			segment = null;
+			index = null;
+			if (blocks != null) {
+				blocks.close();
+				blocks = null;
+			}
+		}
+	}
+
+	private void writeIndex() throws IOException {
+		byte[] indexBytes = index.toByteArray();
+		checksum.reset();
+		checksum.update(indexBytes, 0, indexBytes.length);
+		ByteBuffer footer = ByteBuffer.allocate(RECORD_HEADER_SIZE + indexBytes.length + TRAILER_SIZE);
+		footer.putInt(INDEX_MARKER);
+		footer.putInt(0);
+		footer.put(indexBytes);
+		footer.putInt(indexBytes.length);
+		footer.putInt((int) checksum.getValue());
+		footer.putInt(INDEX_MAGIC);
+		footer.flip();
+		write(footer);
+	}
+
+	/**
+	 * syncs all journaled snapshots to disk
+	 */
+	public synchronized void flush() {
+		if (segment == null) {
+			return;
+		}
+		try {
+			sync();
+		} catch (IOException e) {
+			Logger.error("failed syncing journal " + journalTo, e);
+		}
+	}
+
+	/**
+	 * indexes, syncs and closes the current segment. Snapshots accepted after closing start a new segment.
+	 */
+	@Override
+	public synchronized void close() {
+		if (segment == null) {
+			return;
+		}
+		try {
+			closeSegment();
+		} catch (IOException e) {
+			Logger.error("failed closing journal " + journalTo, e);
+		}
+	}
+
+	/**
+	 * @return the number of snapshots that could not be journaled
+	 */
+	public long getLostSnapshots() {
+		return lostSnapshots.get();
+	}
+
+}
@@ -0,0 +1,128 @@
+package net.amygdalum.testrecorder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The index of a journal segment: the key, the time and the position of each record. The {@link SnapshotJournal} appends the
+ * index as footer when closing a segment, the {@link IndexedSnapshotJournalReader} reads it to find records without decoding
+ * them.
+ *
+ * The footer consists of a record header with length {@link #INDEX_MARKER} (telling sequential readers that no more records
+ * follow), the index and a trailer with the length of the index, its checksum and {@link #INDEX_MAGIC}.
+ */
+class SnapshotJournalIndex {
+
+	static final int INDEX_MARKER = -1;
+	static final int INDEX_MAGIC = 0x54524958;
+	static final int TRAILER_SIZE = 12;
+
+	private List<String> keys;
+	private Map<String, Integer> keyNumbers;
+
+	private int size;
+	private int[] recordKeys;
+	private long[] times;
+	private long[] offsets;
+	private int[] lengths;
+
+	SnapshotJournalIndex() {
+		this.keys = new ArrayList<>();
+		this.keyNumbers = new HashMap<>();
+		this.recordKeys = new int[16];
+		this.times = new long[16];
+		this.offsets = new long[16];
+		this.lengths = new int[16];
+	}
+
+	/**
+	 * @param key the key of the snapshot
+	 * @param time the time of the snapshot
+	 * @param offset the position of the record header in the segment
+	 * @param length the length of the record (without record header)
+	 */
+	void add(String key, long time, long offset, int length) {
+		if (size == times.length) {
+			int capacity = size * 2;
+			recordKeys = Arrays.copyOf(recordKeys, capacity);
+			times = Arrays.copyOf(times, capacity);
+			offsets = Arrays.copyOf(offsets, capacity);
+			lengths = Arrays.copyOf(lengths, capacity);
+		}
+		recordKeys[size] = keyNumbers.computeIfAbsent(key, k -> {
+			keys.add(k);
+			return keys.size() - 1;
+		});
+		times[size] = time;
+		offsets[size] = offset;
+		lengths[size] = length;
+		size++;
+	}
+
+	int size() {
+		return size;
+	}
+
+	String key(int index) {
+		return keys.get(recordKeys[index]);
+	}
+
+	long time(int index) {
+		return times[index];
+	}
+
+	long offset(int index) {
+		return offsets[index];
+	}
+
+	int length(int index) {
+		return lengths[index];
+	}
+
+	byte[] toByteArray() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(keys.size());
+			for (String key : keys) {
+				out.writeUTF(key);
+			}
+			out.writeInt(size);
+			for (int i = 0; i < size; i++) {
+				out.writeInt(recordKeys[i]);
+				out.writeLong(times[i]);
+				out.writeLong(offsets[i]);
+				out.writeInt(lengths[i]);
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	static SnapshotJournalIndex fromByteArray(byte[] bytes) throws IOException {
+		SnapshotJournalIndex index = new SnapshotJournalIndex();
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+			int keyCount = in.readInt();
+			String[] keys = new String[keyCount];
+			for (int i = 0; i < keyCount; i++) {
+				keys[i] = in.readUTF();
+			}
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				int key = in.readInt();
+				if (key < 0 || key >= keyCount) {
+					throw new IOException("corrupt index");
+				}
+				index.add(keys[key], in.readLong(), in.readLong(), in.readInt());
+			}
+		}
+		return index;
+	}
+
+}
@@ -0,0 +1,146 @@
+package net.amygdalum.testrecorder;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.stream.Collectors.toList;
+import static net.amygdalum.testrecorder.SnapshotJournal.HEADER_SIZE;
+import static net.amygdalum.testrecorder.SnapshotJournal.MAGIC;
+import static net.amygdalum.testrecorder.SnapshotJournal.RECORD_HEADER_SIZE;
+import static net.amygdalum.testrecorder.SnapshotJournal.VERSION;
+import static net.amygdalum.testrecorder.SnapshotJournalIndex.INDEX_MARKER;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import net.amygdalum.testrecorder.profile.SnapshotConsumer;
+import net.amygdalum.testrecorder.util.BlockCompression;
+import net.amygdalum.testrecorder.util.Logger;
+import net.amygdalum.testrecorder.values.SnapshotCodec;
+
+/**
+ * Reads the snapshots of a {@link SnapshotJournal}, segment by segment and in the order they were journaled.
+ *
+ * A record that is incomplete or does not match its checksum (e.g. because the recording process crashed while writing it)
+ * ends the segment, reading continues with the next segment. The index at the end of a closed segment is skipped, compressed
+ * records are decompressed.
+ */
+public class SnapshotJournalReader {
+
+	private Path journal;
+	private SnapshotCodec codec;
+
+	public SnapshotJournalReader(Path journal) {
+		this(journal, SnapshotJournalReader.class.getClassLoader());
+	}
+
+	/**
+	 * @param journal the directory of the journal
+	 * @param loader the class loader resolving the recorded classes
+	 */
+	public SnapshotJournalReader(Path journal, ClassLoader loader) {
+		this.journal = journal;
+		this.codec = new SnapshotCodec(loader);
+	}
+
+	/**
+	 * @return the segments of the journal in the order they were written
+	 * @throws IOException if the journal directory cannot be listed
+	 */
+	public List<Path> segments() throws IOException {
+		try (Stream<Path> files = Files.list(journal)) {
+			return files
+				.filter(file -> SnapshotJournal.segmentNumber(file) >= 0)
+				.sorted(Comparator.comparingInt(SnapshotJournal::segmentNumber))
+				.collect(toList());
+		}
+	}
+
+	/**
+	 * passes all journaled snapshots to the given consumer
+	 *
+	 * @param consumer the consumer of the snapshots, e.g. a test generator
+	 * @return the number of replayed snapshots
+	 * @throws IOException if a segment cannot be read
+	 */
+	public int replay(SnapshotConsumer consumer) throws IOException {
+		int count = 0;
+		for (Path segment : segments()) {
+			count += replay(segment, consumer);
+		}
+		return count;
+	}
+
+	/**
+	 * passes all snapshots of one segment to the given consumer
+	 *
+	 * @param segment the segment file
+	 * @param consumer the consumer of the snapshots
+	 * @return the number of replayed snapshots
+	 * @throws IOException if the segment cannot be read
+	 */
+	public int replay(Path segment, SnapshotConsumer consumer) throws IOException {
+		try (FileChannel channel = FileChannel.open(segment, READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			if (!readFully(channel, header) || header.getInt() != MAGIC || header.getInt() != VERSION) {
+				Logger.warn("skipping " + segment + ", no journal segment of version " + VERSION);
+				return 0;
+			}
+			int compression = header.getInt();
+			try (BlockCompression blocks = compression == Deflater.NO_COMPRESSION ? null : new BlockCompression(compression)) {
+				return replay(segment, channel, blocks, consumer);
+			}
+		}
+	}
+
+	private int replay(Path segment, FileChannel channel, BlockCompression blocks, SnapshotConsumer consumer) throws IOException {
+		int count = 0;
+		CRC32 checksum = new CRC32();
+		ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+		while (true) {
+			recordHeader.clear();
+			if (!readFully(channel, recordHeader)) {
+				return count;
+			}
+			int length = recordHeader.getInt();
+			int crc = recordHeader.getInt();
+			if (length == INDEX_MARKER) {
+				return count;
+			}
+			if (length < 0 || length > channel.size() - channel.position()) {
+				Logger.warn("skipping incomplete record in " + segment + " at " + (channel.position() - RECORD_HEADER_SIZE));
+				return count;
+			}
+			byte[] record = new byte[length];
+			readFully(channel, ByteBuffer.wrap(record));
+			checksum.reset();
+			checksum.update(record, 0, length);
+			if ((int) checksum.getValue() != crc) {
+				Logger.warn("skipping corrupt record in " + segment + " at " + (channel.position() - RECORD_HEADER_SIZE - length));
+				return count;
+			}
+			if (blocks != null) {
+				record = blocks.decompress(record);
+			}
+			consumer.accept(codec.decode(record));
+			count++;
+		}
+	}
+
+	private boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				return false;
+			}
+		}
+		buffer.flip();
+		return true;
+	}
+
+}
@@ -2,8 +2,9 @@ package net.amygdalum.testrecorder;
 
 import static java.lang.System.identityHashCode;
 import static java.lang.Thread.currentThread;
-import static java.util.stream.Collectors.joining;
+import static java.util.Collections.synchronizedMap;
 import static net.amygdalum.testrecorder.TestrecorderThreadFactory.RECORDING;
+import static net.amygdalum.testrecorder.util.Fingerprints.fingerprintAll;
 import static net.amygdalum.testrecorder.util.Reflections.accessing;
 
 import java.io.File;
@@ -16,20 +17,18 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Type;
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
-import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -39,12 +38,15 @@ import java.util.jar.Manifest;
 import net.amygdalum.testrecorder.bridge.BridgedSnapshotManager;
 import net.amygdalum.testrecorder.profile.AgentConfiguration;
 import net.amygdalum.testrecorder.profile.PerformanceProfile;
+import net.amygdalum.testrecorder.profile.RecordingMetrics;
+import net.amygdalum.testrecorder.profile.Sampler;
+import net.amygdalum.testrecorder.profile.Sampling;
+import net.amygdalum.testrecorder.profile.SerializationProfile;
 import net.amygdalum.testrecorder.profile.SnapshotConsumer;
 import net.amygdalum.testrecorder.serializers.SerializerFacade;
 import net.amygdalum.testrecorder.types.ContextSnapshot;
 import net.amygdalum.testrecorder.types.FieldSignature;
 import net.amygdalum.testrecorder.types.MethodSignature;
-import net.amygdalum.testrecorder.types.Profile;
 import net.amygdalum.testrecorder.types.SerializationException;
 import net.amygdalum.testrecorder.types.SerializedField;
 import net.amygdalum.testrecorder.types.SerializedInput;
@@ -52,16 +54,12 @@ import net.amygdalum.testrecorder.types.SerializedInteraction;
 import net.amygdalum.testrecorder.types.SerializedOutput;
 import net.amygdalum.testrecorder.types.SerializedValue;
 import net.amygdalum.testrecorder.types.SerializerSession;
-import net.amygdalum.testrecorder.util.CircularityLock;
 import net.amygdalum.testrecorder.util.Logger;
 import net.amygdalum.testrecorder.values.SerializedNull;
 import net.bytebuddy.agent.ByteBuddyAgent;
 
 public class SnapshotManager {
 
-	private static final StackTraceValidator STACKTRACE_VALIDATOR = new StackTraceValidator()
-		.invalidate(Logger.class);
-
 	public static volatile SnapshotManager MANAGER;
 
 	static {
@@ -69,31 +67,44 @@ public class SnapshotManager {
 		installBridge(inst);
 	}
 
-	private ThreadPoolExecutor snapshotExecutor;
-	private CircularityLock lock;
+	private SnapshotWorkers snapshotWorkers;
+	private MemoryGuard memoryGuard;
+	private ThreadLocal<RecordingContext> threadContext;
 
+	private List<Sampling> sampling;
 	private MethodContext methodContext;
 	private GlobalContext globalContext;
 
-	private ThreadLocal<Deque<ContextSnapshot>> current;
-
 	private SnapshotConsumer snapshotConsumer;
+	private RecordingMetrics metrics;
 	private long timeoutInMillis;
+	private boolean asynchronous;
+	private boolean incremental;
+	private Map<ContextSnapshot, SerializerSession> setupSessions;
+	private AtomicLong lostSnapshots;
 
 	private ConfigurableSerializerFacade facade;
 
 	public SnapshotManager(AgentConfiguration config) {
 		this.snapshotConsumer = config.loadConfiguration(SnapshotConsumer.class, config);
+		this.metrics = AgentMetrics.of(config);
 
-		this.current = ThreadLocal.withInitial(() -> newStack());
 		this.facade = new ConfigurableSerializerFacade(config);
 
 		PerformanceProfile performanceProfile = config.loadConfiguration(PerformanceProfile.class);
 
 		this.timeoutInMillis = performanceProfile.getTimeoutInMillis();
-		this.snapshotExecutor = new ThreadPoolExecutor(0, 1, performanceProfile.getIdleTime(), TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
-			new TestrecorderThreadFactory("$snapshot"));
-		this.lock = new CircularityLock();
+		this.asynchronous = performanceProfile.isAsynchronous();
+		this.incremental = performanceProfile.isIncrementalExpect();
+		this.setupSessions = synchronizedMap(new WeakHashMap<>());
+		this.lostSnapshots = new AtomicLong();
+		this.snapshotWorkers = new SnapshotWorkers(performanceProfile.getSerializationWorkers(), performanceProfile.getIdleTime(),
+			performanceProfile.getQueueCapacity(), performanceProfile.getOverflowPolicy());
+		this.snapshotWorkers.onDiscard(setupSessions::remove);
+		this.memoryGuard = new MemoryGuard(performanceProfile.getMemoryThreshold(), performanceProfile.getMemoryCooldown(), this::suspended);
+		this.threadContext = ThreadLocal.withInitial(() -> new RecordingContext(memoryGuard));
+		this.metrics.gauge("snapshot.queue", snapshotWorkers::queued);
+		this.sampling = config.loadConfiguration(SerializationProfile.class).getSampling();
 		this.methodContext = new MethodContext();
 		this.globalContext = new GlobalContext();
 	}
@@ -154,18 +165,65 @@ public class SnapshotManager {
 		}
 	}
 
+	/**
+	 * creates and installs a new snapshot manager. A previously installed manager is closed.
+	 */
 	public static SnapshotManager init(AgentConfiguration config) {
+		if (MANAGER != null) {
+			MANAGER.close();
+		}
 		MANAGER = new SnapshotManager(config);
 		BridgedSnapshotManager.MANAGER = MANAGER;
 		return MANAGER;
 	}
 
+	/**
+	 * releases the resources that this manager holds beyond its own lifetime (e.g. the memory listener of the {@link MemoryGuard})
+	 */
+	public void close() {
+		memoryGuard.close();
+	}
+
 	public SnapshotConsumer getMethodConsumer() {
 		return snapshotConsumer;
 	}
 
+	/**
+	 * @return the number of snapshots that were discarded in asynchronous mode, because a recorded object changed before it
+	 * could be serialized
+	 */
+	public long getLostSnapshots() {
+		return lostSnapshots.get();
+	}
+
+	/**
+	 * @return the number of snapshots that were discarded in asynchronous mode, because the queue of a serialization worker
+	 * was full
+	 */
+	public long getDiscardedSnapshots() {
+		return snapshotWorkers.getDiscarded();
+	}
+
+	/**
+	 * @return true if recording is suspended, because the heap is about to be exhausted
+	 */
+	public boolean isSuspended() {
+		return memoryGuard.isSuspended();
+	}
+
+	private void suspended() {
+		int invalidated = snapshotWorkers.invalidatePending();
+		setupSessions.clear();
+		Logger.warn("invalidated " + invalidated + " pending snapshots");
+	}
+
 	public void registerRecordedMethod(String signature, String className, String methodName, String methodDesc) {
-		methodContext.add(signature, className, methodName, methodDesc);
+		Sampler sampler = sampling.stream()
+			.filter(candidate -> candidate.matches(className, methodName, methodDesc))
+			.findFirst()
+			.map(Sampling::newSampler)
+			.orElse(Sampler.ALL);
+		methodContext.add(signature, className, methodName, methodDesc, sampler);
 	}
 
 	public void registerGlobal(String className, String fieldName) {
@@ -176,47 +234,178 @@ public class SnapshotManager {
 		if (self == null) {
 			return true;
 		}
-		return methodContext.signature(signature, self.getClass().getClassLoader()).validIn(self.getClass());
+		Class<?> clazz = self.getClass();
+		return methodContext.signature(signature, clazz).validIn(clazz);
+	}
+
+	public ContextSnapshotTransaction push(String signature, Class<?> clazz) {
+		return push(threadContext.get(), signature, clazz);
+	}
+
+	ContextSnapshotTransaction push(RecordingContext context, String signature, Class<?> clazz) {
+		ContextSnapshot snapshot = methodContext.createSnapshot(signature, clazz);
+		context.push(snapshot);
+		metrics.snapshotStarted(signature);
+		return transaction(snapshot);
 	}
 
-	public ContextSnapshotTransaction push(String signature, ClassLoader loader) {
-		ContextSnapshot snapshot = methodContext.createSnapshot(signature, loader);
-		current.get().push(snapshot);
-		return new ValidContextSnapshotTransaction(snapshotExecutor, timeoutInMillis, facade, snapshot);
+	/**
+	 * pushes a placeholder for an invocation that was not sampled. The placeholder is invalid, so it does not collect any data, yet
+	 * it keeps the stack of snapshots balanced, such that the corresponding {@link #pop(String)} does not affect enclosing snapshots.
+	 */
+	public void skip(String signature) {
+		skip(threadContext.get(), signature);
+	}
+
+	void skip(RecordingContext context, String signature) {
+		context.push(methodContext.skippedSnapshot(signature));
 	}
 
 	public ContextSnapshotTransaction pop(String signature) {
-		Deque<ContextSnapshot> snapshots = current.get();
-		while (!snapshots.isEmpty()) {
-			ContextSnapshot snapshot = snapshots.pop();
+		return pop(threadContext.get(), signature);
+	}
+
+	ContextSnapshotTransaction pop(RecordingContext context, String signature) {
+		ContextSnapshot snapshot = context.pop();
+		while (snapshot != null) {
 			if (snapshot.matches(signature)) {
-				return new ValidContextSnapshotTransaction(snapshotExecutor, timeoutInMillis, facade, snapshot);
+				if (snapshot == methodContext.skippedSnapshot(signature)) {
+					return DummyContextSnapshotTransaction.INVALID;
+				}
+				if (!snapshot.isValid()) {
+					setupSessions.remove(snapshot);
+				}
+				return transaction(snapshot);
 			}
 			snapshot.invalidate();
+			setupSessions.remove(snapshot);
+			snapshot = context.pop();
 		}
 		return DummyContextSnapshotTransaction.INVALID;
 	}
 
 	public ContextSnapshotTransaction current() {
-		Deque<ContextSnapshot> stack = current.get();
-		if (stack.isEmpty()) {
+		return current(threadContext.get());
+	}
+
+	ContextSnapshotTransaction current(RecordingContext context) {
+		ContextSnapshot snapshot = context.recording();
+		if (snapshot == null) {
+			return DummyContextSnapshotTransaction.INVALID;
+		} else {
+			return transaction(snapshot);
+		}
+	}
+
+	private ContextSnapshotTransaction transaction(ContextSnapshot snapshot) {
+		if (memoryGuard.isSuspended()) {
+			snapshot.invalidate();
 			return DummyContextSnapshotTransaction.INVALID;
+		} else if (asynchronous) {
+			return new AsynchronousContextSnapshotTransaction(snapshotWorkers.queueFor(snapshot), facade, metrics, snapshot);
 		} else {
-			ContextSnapshot snapshot = stack.peek();
-			return new ValidContextSnapshotTransaction(snapshotExecutor, timeoutInMillis, facade, snapshot);
+			return new ValidContextSnapshotTransaction(snapshotWorkers.workerFor(snapshot), timeoutInMillis, facade, metrics, snapshot);
+		}
+	}
+
+	/**
+	 * In asynchronous mode objects are serialized some time after the recorded event. This method guards the serialization
+	 * task against objects that changed meanwhile: it invalidates (and counts) the snapshot if the shallow fingerprint of the
+	 * given objects changed before or during serialization, or if any serialized object changed during serialization.
+	 * 
+	 * The recorded thread only takes the shallow fingerprint of the given objects. Changes of objects referenced by them,
+	 * which happen after the recorded event but before serialization starts, are not detected.
+	 */
+	private SerializationTask unchanged(SerializationTask task, Object... objects) {
+		if (!asynchronous) {
+			return task;
+		}
+		long fingerprint = fingerprintAll(objects);
+		return (facade, session, snapshot) -> {
+			if (fingerprintAll(objects) != fingerprint) {
+				lose(snapshot);
+				return;
+			}
+			facade.track(session);
+			task.serialize(facade, session, snapshot);
+			if (fingerprintAll(objects) != fingerprint || facade.changed(session)) {
+				lose(snapshot);
+			}
+		};
+	}
+
+	/**
+	 * In incremental mode the objects captured on setup are fingerprinted while they are serialized, so the fingerprints match
+	 * the captured state even if the recorded thread changes the objects right after. The setup session is kept until expect
+	 * (see {@link #reusing(SerializationTask)}), or until the snapshot is invalidated by the serialization workers, by a
+	 * suspension or before its expect is recorded.
+	 */
+	private SerializationTask tracked(SerializationTask task) {
+		if (!incremental) {
+			return task;
+		}
+		return (facade, session, snapshot) -> {
+			facade.track(session);
+			task.serialize(facade, session, snapshot);
+			if (snapshot.isValid()) {
+				facade.retain(session);
+				setupSessions.put(snapshot, session);
+				if (!snapshot.isValid()) {
+					setupSessions.remove(snapshot);
+				}
+			}
+		};
+	}
+
+	/**
+	 * In incremental mode the expect session reuses the setup values of all objects that did not change since setup.
+	 */
+	private SerializationTask reusing(SerializationTask task) {
+		if (!incremental) {
+			return task;
+		}
+		return (facade, session, snapshot) -> {
+			SerializerSession setupSession = setupSessions.remove(snapshot);
+			if (setupSession != null) {
+				facade.reuse(setupSession, session);
+			}
+			task.serialize(facade, session, snapshot);
+		};
+	}
+
+	private void lose(ContextSnapshot snapshot) {
+		if (snapshot.isValid()) {
+			snapshot.invalidate();
+			lostSnapshots.incrementAndGet();
 		}
 	}
 
+	private static Object[] roots(Object self, Object[] args) {
+		Object[] roots = new Object[args.length + 1];
+		roots[0] = self;
+		System.arraycopy(args, 0, roots, 1, args.length);
+		return roots;
+	}
+
 	public Queue<ContextSnapshot> all() {
-		return current.get();
+		return all(threadContext.get());
+	}
+
+	Queue<ContextSnapshot> all(RecordingContext context) {
+		return context.snapshots();
 	}
 
 	public Optional<ContextSnapshot> peek() {
-		return Optional.ofNullable(current.get().peek());
+		return peek(threadContext.get());
+	}
+
+	Optional<ContextSnapshot> peek(RecordingContext context) {
+		return Optional.ofNullable(context.recording());
 	}
 
 	public void setupVariables(Class<?> selfClass, Object self, String signature, Object... args) {
-		boolean aquired = lock.acquire();
+		RecordingContext context = threadContext.get();
+		boolean aquired = context.acquire();
 		if (!aquired) {
 			return;
 		}
@@ -224,8 +413,12 @@ public class SnapshotManager {
 			if (!matches(self, signature)) {
 				return;
 			}
-			ClassLoader loader = selfClass.getClassLoader();
-			push(signature, loader).to((facade, session, snapshot) -> {
+			metrics.recordedCall(signature);
+			if (memoryGuard.isSuspended() || !methodContext.sample(signature)) {
+				skip(context, signature);
+				return;
+			}
+			push(context, signature, selfClass).to(tracked(unchanged((facade, session, snapshot) -> {
 
 				if (self != null) {
 					snapshot.setSetupThis(facade.serialize(self.getClass(), self, session));
@@ -234,19 +427,20 @@ public class SnapshotManager {
 				snapshot.setSetupGlobals(globalContext.globals(snapshot.getClassLoader()).stream()
 					.map(field -> serializedGlobal(session, field))
 					.toArray(SerializedField[]::new));
-			});
+			}, roots(self, args))));
 		} finally {
-			lock.release();
+			context.release();
 		}
 	}
 
 	public int inputVariables(Object object, String method, Type resultType, Type[] paramTypes) {
-		boolean aquired = lock.acquire();
+		RecordingContext context = threadContext.get();
+		boolean aquired = context.acquire();
 		if (!aquired) {
 			return 0;
 		}
 		try {
-			if (isNestedIO() || isInvalidStacktrace()) {
+			if (memoryGuard.isSuspended() || isNestedIO(context) || isLogging()) {
 				return 0;
 			}
 			Class<?> clazz = toClass(object);
@@ -254,17 +448,21 @@ public class SnapshotManager {
 
 			MethodSignature signature = new MethodSignature(clazz, resultType, method, paramTypes);
 			SerializedInput in = facade.serializeInput(id, signature);
-			for (ContextSnapshot snapshot : all()) {
+			for (ContextSnapshot snapshot : all(context)) {
+				if (!snapshot.isValid()) {
+					continue;
+				}
 				snapshot.addInput(in);
 			}
 			return in.id();
 		} finally {
-			lock.release();
+			context.release();
 		}
 	}
 
 	public void inputArguments(int id, Object... arguments) {
-		boolean aquired = lock.acquire();
+		RecordingContext context = threadContext.get();
+		boolean aquired = context.acquire();
 		if (!aquired) {
 			return;
 		}
@@ -272,18 +470,20 @@ public class SnapshotManager {
 			if (id == 0) {
 				return;
 			}
-			current().to((facade, session, snapshot) -> {
-				snapshot.streamInput().filter(in -> in.id() == id).forEach(in -> {
+			Optional<SerializedInput> pending = pendingInput(context, id);
+			current(context).to(unchanged((facade, session, snapshot) -> {
+				pending.ifPresent(in -> {
 					in.updateArguments(facade.serialize(in.getArgumentTypes(), arguments, session));
 				});
-			});
+			}, arguments));
 		} finally {
-			lock.release();
+			context.release();
 		}
 	}
 
 	public void inputResult(int id, Object result) {
-		boolean aquired = lock.acquire();
+		RecordingContext context = threadContext.get();
+		boolean aquired = context.acquire();
 		if (!aquired) {
 			return;
 		}
@@ -291,18 +491,20 @@ public class SnapshotManager {
 			if (id == 0) {
 				return;
 			}
-			current().to((facade, session, snapshot) -> {
-				snapshot.streamInput().filter(in -> in.id() == id).forEach(in -> {
+			Optional<SerializedInput> pending = inputReturned(context, id);
+			current(context).to(unchanged((facade, session, snapshot) -> {
+				pending.ifPresent(in -> {
 					in.updateResult(facade.serialize(in.getResultType(), result, session));
 				});
-			});
+			}, result));
 		} finally {
-			lock.release();
+			context.release();
 		}
 	}
 
 	public void inputVoidResult(int id) {
-		boolean aquired = lock.acquire();
+		RecordingContext context = threadContext.get();
+		boolean aquired = context.acquire();
 		if (!aquired) {
 			return;
 		}
@@ -310,23 +512,25 @@ public class SnapshotManager {
 			if (id == 0) {
 				return;
 			}
-			current().to((facade, session, snapshot) -> {
-				snapshot.streamInput().filter(in -> in.id() == id).forEach(in -> {
+			Optional<SerializedInput> pending = inputReturned(context, id);
+			current(context).to((facade, session, snapshot) -> {
+				pending.ifPresent(in -> {
 					in.updateResult(SerializedNull.VOID);
 				});
 			});
 		} finally {
-			lock.release();
+			context.release();
 		}
 	}
 
 	public int outputVariables(Object object, String method, Type resultType, Type[] paramTypes) {
-		boolean aquired = lock.acquire();
+		RecordingContext context = threadContext.get();
+		boolean aquired = context.acquire();
 		if (!aquired) {
 			return 0;
 		}
 		try {
-			if (isNestedIO() || isInvalidStacktrace()) {
+			if (memoryGuard.isSuspended() || isNestedIO(context) || isLogging()) {
 				return 0;
 			}
 			Class<?> clazz = toClass(object);
@@ -334,17 +538,21 @@ public class SnapshotManager {
 
 			MethodSignature signature = new MethodSignature(clazz, resultType, method, paramTypes);
 			SerializedOutput out = facade.serializeOutput(id, signature);
-			for (ContextSnapshot snapshot : all()) {
+			for (ContextSnapshot snapshot : all(context)) {
+				if (!snapshot.isValid()) {
+					continue;
+				}
 				snapshot.addOutput(out);
 			}
 			return out.id();
 		} finally {
-			lock.release();
+			context.release();
 		}
 	}
 
 	public void outputArguments(int id, Object... arguments) {
-		boolean aquired = lock.acquire();
+		RecordingContext context = threadContext.get();
+		boolean aquired = context.acquire();
 		if (!aquired) {
 			return;
 		}
@@ -352,18 +560,20 @@ public class SnapshotManager {
 			if (id == 0) {
 				return;
 			}
-			current().to((facade, session, snapshot) -> {
-				snapshot.streamOutput().filter(out -> out.id() == id).forEach(out -> {
+			Optional<SerializedOutput> pending = pendingOutput(context, id);
+			current(context).to(unchanged((facade, session, snapshot) -> {
+				pending.ifPresent(out -> {
 					out.updateArguments(facade.serialize(out.getArgumentTypes(), arguments, session));
 				});
-			});
+			}, arguments));
 		} finally {
-			lock.release();
+			context.release();
 		}
 	}
 
 	public void outputResult(int id, Object result) {
-		boolean aquired = lock.acquire();
+		RecordingContext context = threadContext.get();
+		boolean aquired = context.acquire();
 		if (!aquired) {
 			return;
 		}
@@ -371,18 +581,20 @@ public class SnapshotManager {
 			if (id == 0) {
 				return;
 			}
-			current().to((facade, session, snapshot) -> {
-				snapshot.streamOutput().filter(out -> out.id() == id).forEach(out -> {
+			Optional<SerializedOutput> pending = outputReturned(context, id);
+			current(context).to(unchanged((facade, session, snapshot) -> {
+				pending.ifPresent(out -> {
 					out.updateResult(facade.serialize(out.getResultType(), result, session));
 				});
-			});
+			}, result));
 		} finally {
-			lock.release();
+			context.release();
 		}
 	}
 
 	public void outputVoidResult(int id) {
-		boolean aquired = lock.acquire();
+		RecordingContext context = threadContext.get();
+		boolean aquired = context.acquire();
 		if (!aquired) {
 			return;
 		}
@@ -390,16 +602,59 @@ public class SnapshotManager {
 			if (id == 0) {
 				return;
 			}
-			current().to((facade, session, snapshot) -> {
-				snapshot.streamOutput().filter(out -> out.id() == id).forEach(out -> {
+			Optional<SerializedOutput> pending = outputReturned(context, id);
+			current(context).to((facade, session, snapshot) -> {
+				pending.ifPresent(out -> {
 					out.updateResult(SerializedNull.VOID);
 				});
 			});
 		} finally {
-			lock.release();
+			context.release();
 		}
 	}
 
+	private Optional<SerializedInput> pendingInput(RecordingContext context, int id) {
+		return peek(context).flatMap(snapshot -> snapshot.onPendingInput(id));
+	}
+
+	private Optional<SerializedOutput> pendingOutput(RecordingContext context, int id) {
+		return peek(context).flatMap(snapshot -> snapshot.onPendingOutput(id));
+	}
+
+	/**
+	 * marks the input interaction as returned and removes it from the pending interactions of all snapshots. The interaction is resolved
+	 * on the recorded thread, such that the pending interactions of a snapshot are never accessed concurrently.
+	 */
+	private Optional<SerializedInput> inputReturned(RecordingContext context, int id) {
+		Optional<SerializedInput> pending = pendingInput(context, id);
+		pending.ifPresent(in -> {
+			in.markReturned();
+			for (ContextSnapshot snapshot : all(context)) {
+				if (snapshot.isValid()) {
+					snapshot.completeInput(id);
+				}
+			}
+		});
+		return pending;
+	}
+
+	/**
+	 * marks the output interaction as returned and removes it from the pending interactions of all snapshots. The interaction is resolved
+	 * on the recorded thread, such that the pending interactions of a snapshot are never accessed concurrently.
+	 */
+	private Optional<SerializedOutput> outputReturned(RecordingContext context, int id) {
+		Optional<SerializedOutput> pending = pendingOutput(context, id);
+		pending.ifPresent(out -> {
+			out.markReturned();
+			for (ContextSnapshot snapshot : all(context)) {
+				if (snapshot.isValid()) {
+					snapshot.completeOutput(id);
+				}
+			}
+		});
+		return pending;
+	}
+
 	private Class<?> toClass(Object object) {
 		if (object instanceof Class<?>) {
 			return (Class<?>) object;
@@ -413,7 +668,8 @@ public class SnapshotManager {
 	}
 
 	public void expectVariables(Object self, String signature, Object result, Object... args) {
-		boolean aquired = lock.acquire();
+		RecordingContext context = threadContext.get();
+		boolean aquired = context.acquire();
 		if (!aquired) {
 			return;
 		}
@@ -421,7 +677,7 @@ public class SnapshotManager {
 			if (!matches(self, signature)) {
 				return;
 			}
-			pop(signature).to((facade, session, snapshot) -> {
+			pop(context, signature).to(reusing(unchanged((facade, session, snapshot) -> {
 				if (self != null) {
 					snapshot.setExpectThis(facade.serialize(self.getClass(), self, session));
 				}
@@ -430,14 +686,15 @@ public class SnapshotManager {
 				snapshot.setExpectGlobals(globalContext.globals(snapshot.getClassLoader()).stream()
 					.map(field -> serializedGlobal(session, field))
 					.toArray(SerializedField[]::new));
-			}).andConsume(this::consume);
+			}, roots(self, args)))).andConsume(this::consume);
 		} finally {
-			lock.release();
+			context.release();
 		}
 	}
 
 	public void expectVariables(Object self, String signature, Object... args) {
-		boolean aquired = lock.acquire();
+		RecordingContext context = threadContext.get();
+		boolean aquired = context.acquire();
 		if (!aquired) {
 			return;
 		}
@@ -445,7 +702,7 @@ public class SnapshotManager {
 			if (!matches(self, signature)) {
 				return;
 			}
-			pop(signature).to((facade, session, snapshot) -> {
+			pop(context, signature).to(reusing(unchanged((facade, session, snapshot) -> {
 				if (self != null) {
 					snapshot.setExpectThis(facade.serialize(self.getClass(), self, session));
 				}
@@ -453,14 +710,15 @@ public class SnapshotManager {
 				snapshot.setExpectGlobals(globalContext.globals(snapshot.getClassLoader()).stream()
 					.map(field -> serializedGlobal(session, field))
 					.toArray(SerializedField[]::new));
-			}).andConsume(this::consume);
+			}, roots(self, args)))).andConsume(this::consume);
 		} finally {
-			lock.release();
+			context.release();
 		}
 	}
 
 	public void throwVariables(Throwable throwable, Object self, String signature, Object... args) {
-		boolean aquired = lock.acquire();
+		RecordingContext context = threadContext.get();
+		boolean aquired = context.acquire();
 		if (!aquired) {
 			return;
 		}
@@ -468,7 +726,7 @@ public class SnapshotManager {
 			if (!matches(self, signature)) {
 				return;
 			}
-			pop(signature).to((facade, session, snapshot) -> {
+			pop(context, signature).to(reusing(unchanged((facade, session, snapshot) -> {
 				if (self != null) {
 					snapshot.setExpectThis(facade.serialize(self.getClass(), self, session));
 				}
@@ -477,43 +735,45 @@ public class SnapshotManager {
 				snapshot.setExpectGlobals(globalContext.globals(snapshot.getClassLoader()).stream()
 					.map(field -> serializedGlobal(session, field))
 					.toArray(SerializedField[]::new));
-			}).andConsume(this::consume);
+			}, roots(self, args)))).andConsume(this::consume);
 		} finally {
-			lock.release();
+			context.release();
 		}
 	}
 
 	protected void consume(ContextSnapshot snapshot) {
 		if (snapshot.isValid()) {
+			metrics.snapshotConsumed(snapshot.getKey());
 			if (snapshotConsumer != null) {
 				snapshotConsumer.accept(snapshot);
 			}
+		} else {
+			metrics.snapshotInvalidated(snapshot.getKey());
 		}
 	}
 
-	public boolean isInvalidStacktrace() {
-		for (StackTraceElement element : currentThread().getStackTrace()) {
-			if (STACKTRACE_VALIDATOR.isInvalid(element)) {
-				return true;
-			}
-		}
-		return false;
+	/**
+	 * Output of the logger is not recorded. This check replaces a scan of the current stack trace which was far too expensive
+	 * to be done on each input/output.
+	 */
+	public boolean isLogging() {
+		return Logger.isLogging();
 	}
 
 	public boolean isNestedIO() {
-		return peek()
+		return isNestedIO(threadContext.get());
+	}
+
+	boolean isNestedIO(RecordingContext context) {
+		return peek(context)
 			.map(snapshot -> {
-				boolean inputPending = snapshot.lastInputSatitisfies(in -> !in.isComplete());
-				boolean outputPending = snapshot.lastOutputSatitisfies(out -> !out.isComplete());
+				boolean inputPending = snapshot.lastInputSatitisfies(in -> !in.hasReturned());
+				boolean outputPending = snapshot.lastOutputSatitisfies(out -> !out.hasReturned());
 				return inputPending || outputPending;
 			})
 			.orElse(false);
 	}
 
-	private static Deque<ContextSnapshot> newStack() {
-		return new ArrayDeque<>();
-	}
-
 	private SerializedField serializedGlobal(SerializerSession session, Field field) {
 		Class<?> declaringClass = field.getDeclaringClass();
 		String name = field.getName();
@@ -561,13 +821,19 @@ public class SnapshotManager {
 		private ExecutorService snapshotExecutor;
 		private long timeoutInMillis;
 		private SerializerFacade facade;
+		private RecordingMetrics metrics;
 
 		private ContextSnapshot snapshot;
 
 		public ValidContextSnapshotTransaction(ExecutorService snapshotExecutor, long timeoutInMillis, SerializerFacade facade, ContextSnapshot snapshot) {
+			this(snapshotExecutor, timeoutInMillis, facade, new AgentMetrics(), snapshot);
+		}
+
+		public ValidContextSnapshotTransaction(ExecutorService snapshotExecutor, long timeoutInMillis, SerializerFacade facade, RecordingMetrics metrics, ContextSnapshot snapshot) {
 			this.snapshotExecutor = snapshotExecutor;
 			this.timeoutInMillis = timeoutInMillis;
 			this.facade = facade;
+			this.metrics = metrics;
 			this.snapshot = snapshot;
 		}
 
@@ -579,19 +845,28 @@ public class SnapshotManager {
 			if (!snapshot.isValid()) {
 				return this;
 			}
-			SerializerSession session = facade.newSession();
 			try {
 				Future<?> future = snapshotExecutor.submit(() -> {
-					task.serialize(facade, session, snapshot);
+					SerializerSession session = facade.newSession();
+					try {
+						long start = System.nanoTime();
+						task.serialize(facade, session, snapshot);
+						metrics.serialized(snapshot.getKey(), System.nanoTime() - start, session.visited());
+						metrics.profiled(snapshot.getKey(), session.getClassProfiles(), session.getSerializerProfiles());
+					} finally {
+						facade.release(session);
+					}
 				});
 				future.get(timeoutInMillis, TimeUnit.MILLISECONDS);
 				return this;
-			} catch (InterruptedException | ExecutionException | TimeoutException | CancellationException e) {
+			} catch (TimeoutException e) {
+				snapshot.invalidate();
+				metrics.snapshotTimedOut(snapshot.getKey());
+				Logger.error("failed serializing " + snapshot + ", timeout after " + timeoutInMillis + "ms", e);
+				return this;
+			} catch (InterruptedException | ExecutionException | CancellationException e) {
 				snapshot.invalidate();
-				String profile = session.dumpProfiles().stream()
-					.map(Profile::toString)
-					.collect(joining("\n\t", "\n\t", ""));
-				Logger.error("failed serializing " + snapshot + ", most time consuming types are:" + profile, e);
+				Logger.error("failed serializing " + snapshot, e);
 				return this;
 			}
 		}
@@ -602,26 +877,71 @@ public class SnapshotManager {
 		}
 	}
 
-	public interface SerializationTask {
-		void serialize(SerializerFacade facade, SerializerSession session, ContextSnapshot snapshot);
-	}
+	/**
+	 * A transaction that does not wait for serialization. The serialization task and the consumer are enqueued to the worker
+	 * of the snapshot, and are executed in order of submission. The recorded thread is never blocked, and no timeout is applied.
+	 * Serialization tasks that were queued beyond the queue capacity are serialized with a degraded session.
+	 */
+	public static class AsynchronousContextSnapshotTransaction implements ContextSnapshotTransaction {
 
-	private static class StackTraceValidator {
+		private SnapshotQueue snapshotQueue;
+		private SerializerFacade facade;
+		private RecordingMetrics metrics;
 
-		private Set<String> classNames;
+		private ContextSnapshot snapshot;
 
-		StackTraceValidator() {
-			classNames = new HashSet<>();
+		public AsynchronousContextSnapshotTransaction(SnapshotQueue snapshotQueue, SerializerFacade facade, RecordingMetrics metrics, ContextSnapshot snapshot) {
+			this.snapshotQueue = snapshotQueue;
+			this.facade = facade;
+			this.metrics = metrics;
+			this.snapshot = snapshot;
 		}
 
-		public boolean isInvalid(StackTraceElement element) {
-			return classNames.contains(element.getClassName());
+		@Override
+		public ContextSnapshotTransaction to(SerializationTask task) {
+			if (currentThread().getThreadGroup() == RECORDING) {
+				snapshot.invalidate();
+			}
+			if (!snapshot.isValid()) {
+				return this;
+			}
+			snapshotQueue.execute(snapshot, degraded -> {
+				if (!snapshot.isValid()) {
+					return;
+				}
+				SerializerSession session = degraded ? facade.newDegradedSession() : facade.newSession();
+				try {
+					long start = System.nanoTime();
+					task.serialize(facade, session, snapshot);
+					metrics.serialized(snapshot.getKey(), System.nanoTime() - start, session.visited());
+					metrics.profiled(snapshot.getKey(), session.getClassProfiles(), session.getSerializerProfiles());
+				} catch (RuntimeException e) {
+					snapshot.invalidate();
+					Logger.error("failed serializing " + snapshot, e);
+				} finally {
+					facade.release(session);
+				}
+			});
+			return this;
 		}
 
-		public StackTraceValidator invalidate(Class<?> clazz) {
-			classNames.add(clazz.getName());
-			return this;
+		@Override
+		public void andConsume(Consumer<ContextSnapshot> consumer) {
+			if (!snapshot.isValid()) {
+				consumer.accept(snapshot);
+				return;
+			}
+			snapshotQueue.execute(snapshot, () -> {
+				try {
+					consumer.accept(snapshot);
+				} catch (RuntimeException e) {
+					Logger.error("failed consuming " + snapshot, e);
+				}
+			});
 		}
+	}
 
+	public interface SerializationTask {
+		void serialize(SerializerFacade facade, SerializerSession session, ContextSnapshot snapshot);
 	}
 }
@@ -0,0 +1,209 @@
+package net.amygdalum.testrecorder;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import net.amygdalum.testrecorder.profile.OverflowPolicy;
+import net.amygdalum.testrecorder.types.ContextSnapshot;
+import net.amygdalum.testrecorder.util.Logger;
+
+/**
+ * Bounds the number of pending tasks on snapshots that are passed to an executor. If the capacity is exceeded, the
+ * {@link OverflowPolicy} decides whether the enqueuing thread is blocked, a snapshot is discarded or the task is queued as
+ * degraded task (which may do less work). Discarded snapshots are invalidated, so pending tasks on the same snapshot are
+ * skipped.
+ *
+ * Pending tasks are kept in the order they were queued. A task that starts running is only marked as dequeued (and removed as
+ * soon as all older tasks are dequeued), so dequeuing does not depend on the number of pending tasks.
+ */
+public class SnapshotQueue {
+
+	private Executor executor;
+	private int capacity;
+	private OverflowPolicy policy;
+	private Consumer<ContextSnapshot> onDiscard;
+
+	private Deque<Pending> pending;
+	private int count;
+	private long discarded;
+	private long degraded;
+
+	public SnapshotQueue(Executor executor, int capacity, OverflowPolicy policy) {
+		this.executor = executor;
+		this.capacity = Math.max(capacity, 1);
+		this.policy = policy;
+		this.pending = new ArrayDeque<>();
+		this.onDiscard = snapshot -> {
+		};
+	}
+
+	/**
+	 * @param onDiscard is notified of each snapshot that is invalidated by this queue (discarded or invalidated as pending)
+	 */
+	public synchronized void onDiscard(Consumer<ContextSnapshot> onDiscard) {
+		this.onDiscard = onDiscard;
+	}
+
+	public OverflowPolicy getPolicy() {
+		return policy;
+	}
+
+	public synchronized int size() {
+		return count;
+	}
+
+	/**
+	 * @return the number of snapshots discarded by this queue
+	 */
+	public synchronized long getDiscarded() {
+		return discarded;
+	}
+
+	/**
+	 * @return the number of tasks that were queued as degraded tasks because of overflow
+	 */
+	public synchronized long getDegraded() {
+		return degraded;
+	}
+
+	public void execute(ContextSnapshot snapshot, Runnable task) {
+		execute(snapshot, degraded -> task.run());
+	}
+
+	/**
+	 * enqueues a task that is told whether it was queued beyond the capacity of this queue (with {@link OverflowPolicy#DEGRADE}).
+	 * 
+	 * @param snapshot the snapshot the task works on
+	 * @param task the task
+	 */
+	public synchronized void execute(ContextSnapshot snapshot, Task task) {
+		boolean degrade = false;
+		while (count >= capacity && !degrade) {
+			switch (policy) {
+			case BLOCK:
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					discard(snapshot);
+					return;
+				}
+				break;
+			case DROP_OLDEST:
+				Pending oldest = pending.remove();
+				if (oldest.queued) {
+					oldest.queued = false;
+					count--;
+					discard(oldest.snapshot);
+					oldest.drop();
+				}
+				break;
+			case DEGRADE:
+				if (count < 2 * capacity) {
+					degrade = true;
+					degraded++;
+					break;
+				}
+				discard(snapshot);
+				return;
+			case DROP_NEWEST:
+			default:
+				discard(snapshot);
+				return;
+			}
+		}
+		Pending next = new Pending(snapshot, task, degrade);
+		pending.add(next);
+		count++;
+		executor.execute(next);
+	}
+
+	/**
+	 * invalidates the snapshots of all pending tasks and removes the tasks. Threads waiting for free capacity are released.
+	 * 
+	 * @return the number of invalidated snapshots
+	 */
+	public synchronized int invalidatePending() {
+		int invalidated = 0;
+		for (Pending next : pending) {
+			if (!next.queued) {
+				continue;
+			}
+			next.queued = false;
+			if (next.snapshot.isValid()) {
+				next.snapshot.invalidate();
+				onDiscard.accept(next.snapshot);
+				invalidated++;
+			}
+			next.drop();
+		}
+		pending.clear();
+		count = 0;
+		notifyAll();
+		return invalidated;
+	}
+
+	private synchronized boolean dequeue(Pending done) {
+		if (!done.queued) {
+			return false;
+		}
+		done.queued = false;
+		count--;
+		while (!pending.isEmpty() && !pending.peek().queued) {
+			pending.remove();
+		}
+		notifyAll();
+		return true;
+	}
+
+	private void discard(ContextSnapshot snapshot) {
+		if (snapshot.isValid()) {
+			snapshot.invalidate();
+			onDiscard.accept(snapshot);
+			discarded++;
+		}
+	}
+
+	private class Pending implements Runnable {
+
+		private ContextSnapshot snapshot;
+		private Task task;
+		private boolean degraded;
+		private boolean queued;
+
+		Pending(ContextSnapshot snapshot, Task task, boolean degraded) {
+			this.snapshot = snapshot;
+			this.task = task;
+			this.degraded = degraded;
+			this.queued = true;
+		}
+
+		void drop() {
+			snapshot = null;
+			task = null;
+		}
+
+		@Override
+		public void run() {
+			if (!dequeue(this)) {
+				return;
+			}
+			try {
+				task.run(degraded);
+			} catch (RuntimeException e) {
+				Logger.error("failed processing " + snapshot, e);
+			}
+		}
+
+	}
+
+	public interface Task {
+		/**
+		 * @param degraded true if the task was queued beyond the capacity, such a task should do as little work as possible
+		 */
+		void run(boolean degraded);
+	}
+
+}
@@ -0,0 +1,115 @@
+package net.amygdalum.testrecorder;
+
+import static java.lang.System.identityHashCode;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import net.amygdalum.testrecorder.profile.OverflowPolicy;
+import net.amygdalum.testrecorder.types.ContextSnapshot;
+
+/**
+ * A pool of single threaded serialization workers. Independent snapshots are spread over all workers, yet all serialization
+ * steps of one snapshot are bound to the same worker, such that setup, input/output and expect are serialized in order.
+ */
+public class SnapshotWorkers {
+
+	private ThreadPoolExecutor[] workers;
+	private SnapshotQueue[] queues;
+
+	public SnapshotWorkers(int size, long idleTime) {
+		this(size, idleTime, Integer.MAX_VALUE, OverflowPolicy.BLOCK);
+	}
+
+	public SnapshotWorkers(int size, long idleTime, int capacity, OverflowPolicy policy) {
+		this.workers = new ThreadPoolExecutor[Math.max(size, 1)];
+		this.queues = new SnapshotQueue[workers.length];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new ThreadPoolExecutor(0, 1, idleTime, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+				new TestrecorderThreadFactory("$snapshot-" + i));
+			queues[i] = new SnapshotQueue(workers[i], capacity, policy);
+		}
+	}
+
+	public int size() {
+		return workers.length;
+	}
+
+	/**
+	 * @param onDiscard is notified of each snapshot that is invalidated by the queues of the workers
+	 */
+	public void onDiscard(Consumer<ContextSnapshot> onDiscard) {
+		for (SnapshotQueue queue : queues) {
+			queue.onDiscard(onDiscard);
+		}
+	}
+
+	public ExecutorService workerFor(ContextSnapshot snapshot) {
+		return workers[lane(snapshot)];
+	}
+
+	/**
+	 * @param snapshot the snapshot to serialize
+	 * @return the bounded queue in front of the worker of this snapshot, tasks that should not block the recorded thread are
+	 * passed through this queue
+	 */
+	public SnapshotQueue queueFor(ContextSnapshot snapshot) {
+		return queues[lane(snapshot)];
+	}
+
+	private int lane(ContextSnapshot snapshot) {
+		int hash = identityHashCode(snapshot);
+		hash ^= hash >>> 16;
+		return (hash & Integer.MAX_VALUE) % workers.length;
+	}
+
+	/**
+	 * @return the number of tasks waiting for a worker
+	 */
+	public long queued() {
+		long queued = 0;
+		for (ThreadPoolExecutor worker : workers) {
+			queued += worker.getQueue().size();
+		}
+		return queued;
+	}
+
+	/**
+	 * invalidates the snapshots of all tasks that are pending in the queues of all workers and removes the tasks
+	 * 
+	 * @return the number of invalidated snapshots
+	 */
+	public int invalidatePending() {
+		int invalidated = 0;
+		for (SnapshotQueue queue : queues) {
+			invalidated += queue.invalidatePending();
+		}
+		return invalidated;
+	}
+
+	/**
+	 * @return the number of snapshots discarded by the queues of all workers
+	 */
+	public long getDiscarded() {
+		long discarded = 0;
+		for (SnapshotQueue queue : queues) {
+			discarded += queue.getDiscarded();
+		}
+		return discarded;
+	}
+
+	/**
+	 * @return the number of tasks the queues of all workers queued as degraded tasks because of overflow
+	 */
+	public long getDegraded() {
+		long degraded = 0;
+		for (SnapshotQueue queue : queues) {
+			degraded += queue.getDegraded();
+		}
+		return degraded;
+	}
+
+}
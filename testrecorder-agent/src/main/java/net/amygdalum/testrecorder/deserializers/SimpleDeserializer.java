@@ -33,6 +33,7 @@ import net.amygdalum.testrecorder.values.SerializedLiteral;
 import net.amygdalum.testrecorder.values.SerializedMap;
 import net.amygdalum.testrecorder.values.SerializedNull;
 import net.amygdalum.testrecorder.values.SerializedObject;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
 import net.amygdalum.testrecorder.values.SerializedSet;
 
 public class SimpleDeserializer implements RoleVisitor<Object> {
@@ -125,6 +126,13 @@ public class SimpleDeserializer implements RoleVisitor<Object> {
 				}
 			});
 			return array;
+		} else if (rt instanceof SerializedPrimitiveArray) {
+			SerializedPrimitiveArray value = (SerializedPrimitiveArray) rt;
+			Object rawArray = value.getArray();
+			Object array = fetch(value, () -> Array.newInstance(value.getComponentType(), Array.getLength(rawArray)), base -> {
+				System.arraycopy(rawArray, 0, base, 0, Array.getLength(rawArray));
+			});
+			return array;
 		} else if (rt instanceof SerializedNull) {
 			return null;
 		} else {
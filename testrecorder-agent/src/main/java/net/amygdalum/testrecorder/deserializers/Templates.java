@@ -51,6 +51,7 @@ public final class Templates {
 	private static final String CONTAINS_ENTRIES_MATCHER = "containsEntries(<if(keytype && valuetype)><keytype>, <valuetype><endif>)<entries : { entry | .entry(<entry.element1>, <entry.element2>)}>";
 	private static final String ARRAY_CONTAINING_MATCHER = "arrayContaining(<type>, <values; separator=\", \">)";
 	private static final String ARRAY_EMPTY_MATCHER = "emptyArray()";
+	private static final String AND_MORE_MATCHER = "<matcher>.andMore()";
 	private static final String PRIMITIVE_ARRAY_CONTAINING_MATCHER = "<type>ArrayContaining(<values; separator=\", \">)";
 	private static final String PRIMITIVE_ARRAY_EMPTY_MATCHER = "<type>EmptyArray()";
 
@@ -343,6 +344,13 @@ public final class Templates {
 		return matcher.render();
 	}
 
+	public static String andMoreMatcher(String matcher) {
+		ST andMore = new ST(AND_MORE_MATCHER);
+		andMore.add("matcher", matcher);
+
+		return andMore.render();
+	}
+
 	public static String arrayEmptyMatcher() {
 		ST matcher = new ST(ARRAY_EMPTY_MATCHER);
 
@@ -0,0 +1,53 @@
+package net.amygdalum.testrecorder.deserializers.builder;
+
+import static net.amygdalum.testrecorder.deserializers.Templates.arrayLiteral;
+import static net.amygdalum.testrecorder.deserializers.Templates.assignLocalVariableStatement;
+import static net.amygdalum.testrecorder.types.Computation.variable;
+import static net.amygdalum.testrecorder.util.Literals.asLiteral;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.amygdalum.testrecorder.deserializers.Deserializer;
+import net.amygdalum.testrecorder.types.Computation;
+import net.amygdalum.testrecorder.types.DeserializerContext;
+import net.amygdalum.testrecorder.types.TypeManager;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
+
+public class DefaultPrimitiveArrayAdaptor extends DefaultSetupGenerator<SerializedPrimitiveArray> implements SetupGenerator<SerializedPrimitiveArray> {
+
+	@Override
+	public Class<SerializedPrimitiveArray> getAdaptedClass() {
+		return SerializedPrimitiveArray.class;
+	}
+
+	@Override
+	public Computation tryDeserialize(SerializedPrimitiveArray value, Deserializer generator) {
+		DeserializerContext context = generator.getContext();
+		TypeManager types = context.getTypes();
+		types.registerTypes(value.getUsedTypes());
+
+		Type usedType = types.mostSpecialOf(value.getUsedTypes()).orElse(value.getType());
+
+		return context.forVariable(value, usedType, local -> {
+			Object array = value.getArray();
+			int length = Array.getLength(array);
+
+			List<String> elements = new ArrayList<>(length);
+			for (int i = 0; i < length; i++) {
+				elements.add(asLiteral(Array.get(array, i)));
+			}
+
+			List<String> statements = new ArrayList<>();
+
+			String arrayLiteral = arrayLiteral(types.getVariableTypeName(value.getType()), elements);
+
+			statements.add(assignLocalVariableStatement(types.getVariableTypeName(usedType), local.getName(), arrayLiteral));
+
+			return variable(local.getName(), local.getType(), statements);
+		});
+	}
+
+}
@@ -0,0 +1,72 @@
+package net.amygdalum.testrecorder.deserializers.builder;
+
+import static java.util.Collections.emptyList;
+import static net.amygdalum.testrecorder.deserializers.Templates.assignLocalVariableStatement;
+import static net.amygdalum.testrecorder.deserializers.Templates.callMethodStatement;
+import static net.amygdalum.testrecorder.deserializers.Templates.genericObject;
+import static net.amygdalum.testrecorder.deserializers.Templates.genericObjectConverter;
+import static net.amygdalum.testrecorder.types.Computation.expression;
+import static net.amygdalum.testrecorder.types.Computation.variable;
+
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import net.amygdalum.testrecorder.deserializers.Deserializer;
+import net.amygdalum.testrecorder.runtime.GenericObject;
+import net.amygdalum.testrecorder.types.Computation;
+import net.amygdalum.testrecorder.types.DeserializerContext;
+import net.amygdalum.testrecorder.types.TypeManager;
+import net.amygdalum.testrecorder.values.SerializedTruncated;
+
+/**
+ * replaces truncated values by facades, i.e. objects of the same class with default field values. Types that cannot be
+ * facaded (arrays, collections, maps, abstract types) are replaced by null.
+ */
+public class DefaultTruncatedAdaptor extends DefaultSetupGenerator<SerializedTruncated> implements SetupGenerator<SerializedTruncated> {
+
+	@Override
+	public Class<SerializedTruncated> getAdaptedClass() {
+		return SerializedTruncated.class;
+	}
+
+	@Override
+	public Computation tryDeserialize(SerializedTruncated value, Deserializer generator) {
+		DeserializerContext context = generator.getContext();
+		TypeManager types = context.getTypes();
+		Class<?> type = value.getType();
+		Type usedType = types.mostSpecialOf(value.getUsedTypes()).orElse(Object.class);
+		if (!isFacadable(type)) {
+			return expression("null", usedType);
+		}
+		types.registerTypes(type, GenericObject.class);
+		types.registerTypes(value.getUsedTypes());
+
+		return context.forVariable(value, usedType, local -> {
+			List<String> statements = new ArrayList<>();
+			if (local.isDefined() && !local.isReady()) {
+				String genericObject = genericObject(types.getRawClass(type), emptyList());
+				statements.add(callMethodStatement(types.getVariableTypeName(GenericObject.class), "define", local.getName(), genericObject));
+			} else {
+				Type effectiveResultType = types.wrapHidden(usedType);
+				String genericObject = genericObjectConverter(types.getRawClass(type), emptyList());
+				genericObject = context.adapt(genericObject, effectiveResultType, type);
+				statements.add(assignLocalVariableStatement(types.getRawTypeName(effectiveResultType), local.getName(), genericObject));
+			}
+			return variable(local.getName(), local.getType(), statements);
+		});
+	}
+
+	private static boolean isFacadable(Class<?> type) {
+		return !type.isArray()
+			&& !type.isInterface()
+			&& !type.isPrimitive()
+			&& !Modifier.isAbstract(type.getModifiers())
+			&& !Collection.class.isAssignableFrom(type)
+			&& !Map.class.isAssignableFrom(type);
+	}
+
+}
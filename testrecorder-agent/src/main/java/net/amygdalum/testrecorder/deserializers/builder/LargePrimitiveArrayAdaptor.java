@@ -22,6 +22,7 @@ import net.amygdalum.testrecorder.types.TypeManager;
 import net.amygdalum.testrecorder.util.FileSerializer;
 import net.amygdalum.testrecorder.values.SerializedArray;
 import net.amygdalum.testrecorder.values.SerializedLiteral;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
 
 public class LargePrimitiveArrayAdaptor implements SetupGenerator<SerializedArray> {
 
@@ -55,7 +56,7 @@ public class LargePrimitiveArrayAdaptor implements SetupGenerator<SerializedArra
 					LoadFromFile loadFromFile = hint.get();
 					types.registerType(FileSerializer.class);
 					Object object = unwrap(value);
-					String fileName = new FileSerializer(loadFromFile.writeTo()).store(object);
+					String fileName = new FileSerializer(loadFromFile.writeTo(), loadFromFile.compression()).store(object);
 					String base = newObject(types.getConstructorTypeName(FileSerializer.class), asLiteral(loadFromFile.readFrom()));
 					String result = callMethod(base, "load", asLiteral(fileName), types.getRawClass(value.getType()));
 					return expression(result, types.mostSpecialOf(value.getUsedTypes()).orElse(Object.class));
@@ -82,6 +83,8 @@ public class LargePrimitiveArrayAdaptor implements SetupGenerator<SerializedArra
 			return ((SerializedLiteral) value).getValue();
 		} else if (value instanceof SerializedArray) {
 			return unwrap((SerializedArray) value);
+		} else if (value instanceof SerializedPrimitiveArray) {
+			return ((SerializedPrimitiveArray) value).getArray();
 		} else {
 			throw new DeserializationException("failed deserializing: " + value);
 		}
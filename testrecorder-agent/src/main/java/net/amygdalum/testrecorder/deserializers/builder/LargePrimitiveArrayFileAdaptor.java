@@ -0,0 +1,61 @@
+package net.amygdalum.testrecorder.deserializers.builder;
+
+import static net.amygdalum.testrecorder.deserializers.Templates.callMethod;
+import static net.amygdalum.testrecorder.deserializers.Templates.newObject;
+import static net.amygdalum.testrecorder.types.Computation.expression;
+import static net.amygdalum.testrecorder.util.Literals.asLiteral;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Optional;
+
+import net.amygdalum.testrecorder.deserializers.Deserializer;
+import net.amygdalum.testrecorder.hints.LoadFromFile;
+import net.amygdalum.testrecorder.types.Computation;
+import net.amygdalum.testrecorder.types.DeserializationException;
+import net.amygdalum.testrecorder.types.DeserializerContext;
+import net.amygdalum.testrecorder.types.TypeManager;
+import net.amygdalum.testrecorder.util.FileSerializer;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
+
+/**
+ * stores primitive arrays with a {@link LoadFromFile} hint to a file, without converting the captured array.
+ */
+public class LargePrimitiveArrayFileAdaptor implements SetupGenerator<SerializedPrimitiveArray> {
+
+	@Override
+	public Class<SerializedPrimitiveArray> getAdaptedClass() {
+		return SerializedPrimitiveArray.class;
+	}
+
+	@Override
+	public Class<? extends SetupGenerator<SerializedPrimitiveArray>> parent() {
+		return DefaultPrimitiveArrayAdaptor.class;
+	}
+
+	@Override
+	public boolean matches(Type type) {
+		return true;
+	}
+
+	@Override
+	public Computation tryDeserialize(SerializedPrimitiveArray value, Deserializer generator) {
+		DeserializerContext context = generator.getContext();
+		TypeManager types = context.getTypes();
+		Optional<LoadFromFile> hint = context.getHint(value, LoadFromFile.class);
+		if (hint.isPresent()) {
+			try {
+				LoadFromFile loadFromFile = hint.get();
+				types.registerType(FileSerializer.class);
+				String fileName = new FileSerializer(loadFromFile.writeTo(), loadFromFile.compression()).store(value.getArray());
+				String base = newObject(types.getConstructorTypeName(FileSerializer.class), asLiteral(loadFromFile.readFrom()));
+				String result = callMethod(base, "load", asLiteral(fileName), types.getRawClass(value.getType()));
+				return expression(result, types.mostSpecialOf(value.getUsedTypes()).orElse(Object.class));
+			} catch (IOException e) {
+				throw new DeserializationException("failed deserializing: " + value, e);
+			}
+		}
+		throw new DeserializationException("failed deserializing: " + value);
+	}
+
+}
@@ -1,6 +1,7 @@
 package net.amygdalum.testrecorder.deserializers.matcher;
 
 import static java.util.stream.Collectors.toList;
+import static net.amygdalum.testrecorder.deserializers.Templates.andMoreMatcher;
 import static net.amygdalum.testrecorder.deserializers.Templates.arrayContainingMatcher;
 import static net.amygdalum.testrecorder.deserializers.Templates.arrayEmptyMatcher;
 import static net.amygdalum.testrecorder.deserializers.Templates.primitiveArrayContainingMatcher;
@@ -95,6 +96,9 @@ public class DefaultArrayAdaptor extends DefaultMatcherGenerator<SerializedArray
 					.toArray(String[]::new);
 
 				String arrayContainingMatcher = arrayContainingMatcher(name, elementValues);
+				if (value.isTruncated()) {
+					arrayContainingMatcher = andMoreMatcher(arrayContainingMatcher);
+				}
 				return expression(arrayContainingMatcher, parameterized(Matcher.class, null, wildcard()), elementComputations);
 			}
 		}
@@ -2,6 +2,7 @@ package net.amygdalum.testrecorder.deserializers.matcher;
 
 import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toList;
+import static net.amygdalum.testrecorder.deserializers.Templates.andMoreMatcher;
 import static net.amygdalum.testrecorder.deserializers.Templates.cast;
 import static net.amygdalum.testrecorder.deserializers.Templates.containsEntriesMatcher;
 import static net.amygdalum.testrecorder.deserializers.Templates.noEntriesMatcher;
@@ -71,6 +72,9 @@ public class DefaultMapAdaptor extends DefaultMatcherGenerator<SerializedMap> im
 				.collect(toList());
 
 			String containsEntriesMatcher = matchElements(context, value, entryValues);
+			if (value.isTruncated()) {
+				containsEntriesMatcher = andMoreMatcher(containsEntriesMatcher);
+			}
 			return expression(containsEntriesMatcher, parameterized(Matcher.class, null, wildcard()), entryStatements);
 		}
 	}
@@ -0,0 +1,54 @@
+package net.amygdalum.testrecorder.deserializers.matcher;
+
+import static net.amygdalum.testrecorder.deserializers.Templates.primitiveArrayContainingMatcher;
+import static net.amygdalum.testrecorder.deserializers.Templates.primitiveArrayEmptyMatcher;
+import static net.amygdalum.testrecorder.types.Computation.expression;
+import static net.amygdalum.testrecorder.util.Literals.asLiteral;
+import static net.amygdalum.testrecorder.util.Types.parameterized;
+import static net.amygdalum.testrecorder.util.Types.wildcard;
+
+import java.lang.reflect.Array;
+
+import org.hamcrest.Matcher;
+
+import net.amygdalum.testrecorder.deserializers.Deserializer;
+import net.amygdalum.testrecorder.runtime.PrimitiveArrayMatcher;
+import net.amygdalum.testrecorder.types.Computation;
+import net.amygdalum.testrecorder.types.DeserializerContext;
+import net.amygdalum.testrecorder.types.TypeManager;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
+
+public class DefaultPrimitiveArrayAdaptor extends DefaultMatcherGenerator<SerializedPrimitiveArray> implements MatcherGenerator<SerializedPrimitiveArray> {
+
+	@Override
+	public Class<SerializedPrimitiveArray> getAdaptedClass() {
+		return SerializedPrimitiveArray.class;
+	}
+
+	@Override
+	public Computation tryDeserialize(SerializedPrimitiveArray value, Deserializer generator) {
+		DeserializerContext context = generator.getContext();
+		TypeManager types = context.getTypes();
+
+		String name = value.getComponentType().getName();
+		Object array = value.getArray();
+		int length = Array.getLength(array);
+		if (length == 0) {
+			types.staticImport(PrimitiveArrayMatcher.class, name + "EmptyArray");
+
+			String arrayEmptyMatcher = primitiveArrayEmptyMatcher(name);
+			return expression(arrayEmptyMatcher, parameterized(Matcher.class, null, wildcard()));
+		} else {
+			types.staticImport(PrimitiveArrayMatcher.class, name + "ArrayContaining");
+
+			String[] elementValues = new String[length];
+			for (int i = 0; i < length; i++) {
+				elementValues[i] = asLiteral(Array.get(array, i));
+			}
+
+			String primitiveArrayContainingMatcher = primitiveArrayContainingMatcher(name, elementValues);
+			return expression(primitiveArrayContainingMatcher, parameterized(Matcher.class, null, wildcard()));
+		}
+	}
+
+}
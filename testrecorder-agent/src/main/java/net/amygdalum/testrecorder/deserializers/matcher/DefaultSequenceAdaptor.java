@@ -2,6 +2,7 @@ package net.amygdalum.testrecorder.deserializers.matcher;
 
 import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toList;
+import static net.amygdalum.testrecorder.deserializers.Templates.andMoreMatcher;
 import static net.amygdalum.testrecorder.deserializers.Templates.containsInOrderMatcher;
 import static net.amygdalum.testrecorder.deserializers.Templates.emptyMatcher;
 import static net.amygdalum.testrecorder.types.Computation.expression;
@@ -63,6 +64,9 @@ public class DefaultSequenceAdaptor extends DefaultMatcherGenerator<SerializedLi
 				.toArray(String[]::new);
 
 			String containsMatcher = matchElements(context, value, elementValues);
+			if (value.isTruncated()) {
+				containsMatcher = andMoreMatcher(containsMatcher);
+			}
 
 			return expression(containsMatcher, parameterized(Matcher.class, null, wildcard()), elementComputations);
 		}
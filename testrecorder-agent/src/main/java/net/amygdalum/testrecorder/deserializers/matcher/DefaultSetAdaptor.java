@@ -2,6 +2,7 @@ package net.amygdalum.testrecorder.deserializers.matcher;
 
 import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toList;
+import static net.amygdalum.testrecorder.deserializers.Templates.andMoreMatcher;
 import static net.amygdalum.testrecorder.deserializers.Templates.containsInAnyOrderMatcher;
 import static net.amygdalum.testrecorder.deserializers.Templates.emptyMatcher;
 import static net.amygdalum.testrecorder.types.Computation.expression;
@@ -62,6 +63,9 @@ public class DefaultSetAdaptor extends DefaultMatcherGenerator<SerializedSet> im
 				.toArray(String[]::new);
 
 			String containsInAnyOrderMatcher = matchElements(context, value, elementValues);
+			if (value.isTruncated()) {
+				containsInAnyOrderMatcher = andMoreMatcher(containsInAnyOrderMatcher);
+			}
 
 			return expression(containsInAnyOrderMatcher, parameterized(Matcher.class, null, wildcard()), elementComputations);
 		}
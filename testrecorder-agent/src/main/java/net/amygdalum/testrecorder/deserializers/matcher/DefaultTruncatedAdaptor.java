@@ -0,0 +1,37 @@
+package net.amygdalum.testrecorder.deserializers.matcher;
+
+import static java.util.Collections.emptyList;
+import static net.amygdalum.testrecorder.deserializers.Templates.callLocalMethod;
+import static net.amygdalum.testrecorder.types.Computation.expression;
+import static net.amygdalum.testrecorder.util.Types.parameterized;
+import static net.amygdalum.testrecorder.util.Types.wildcard;
+
+import org.hamcrest.CoreMatchers;
+import org.hamcrest.Matcher;
+
+import net.amygdalum.testrecorder.deserializers.Deserializer;
+import net.amygdalum.testrecorder.types.Computation;
+import net.amygdalum.testrecorder.types.DeserializerContext;
+import net.amygdalum.testrecorder.types.TypeManager;
+import net.amygdalum.testrecorder.values.SerializedTruncated;
+
+/**
+ * skips assertions on truncated values, their state was not captured.
+ */
+public class DefaultTruncatedAdaptor extends DefaultMatcherGenerator<SerializedTruncated> implements MatcherGenerator<SerializedTruncated> {
+
+	@Override
+	public Class<SerializedTruncated> getAdaptedClass() {
+		return SerializedTruncated.class;
+	}
+
+	@Override
+	public Computation tryDeserialize(SerializedTruncated value, Deserializer generator) {
+		DeserializerContext context = generator.getContext();
+		TypeManager types = context.getTypes();
+		types.staticImport(CoreMatchers.class, "anything");
+
+		return expression(callLocalMethod("anything"), parameterized(Matcher.class, null, wildcard()), emptyList());
+	}
+
+}
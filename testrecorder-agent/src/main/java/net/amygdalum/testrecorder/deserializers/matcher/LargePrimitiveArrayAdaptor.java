@@ -26,6 +26,7 @@ import net.amygdalum.testrecorder.types.TypeManager;
 import net.amygdalum.testrecorder.util.FileSerializer;
 import net.amygdalum.testrecorder.values.SerializedArray;
 import net.amygdalum.testrecorder.values.SerializedLiteral;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
 
 public class LargePrimitiveArrayAdaptor implements MatcherGenerator<SerializedArray> {
 
@@ -60,7 +61,7 @@ public class LargePrimitiveArrayAdaptor implements MatcherGenerator<SerializedAr
 					types.registerType(FileSerializer.class);
 					types.staticImport(CoreMatchers.class, "equalTo");
 					Object object = unwrap(value);
-					String fileName = new FileSerializer(loadFromFile.writeTo()).store(object);
+					String fileName = new FileSerializer(loadFromFile.writeTo(), loadFromFile.compression()).store(object);
 					String base = newObject(types.getConstructorTypeName(FileSerializer.class), asLiteral(loadFromFile.readFrom()));
 					String result = callMethod(base, "load", asLiteral(fileName), types.getRawClass(value.getType()));
 					String matcher = equalToMatcher(result);
@@ -88,6 +89,8 @@ public class LargePrimitiveArrayAdaptor implements MatcherGenerator<SerializedAr
 			return ((SerializedLiteral) value).getValue();
 		} else if (value instanceof SerializedArray) {
 			return unwrap((SerializedArray) value);
+		} else if (value instanceof SerializedPrimitiveArray) {
+			return ((SerializedPrimitiveArray) value).getArray();
 		} else {
 			throw new DeserializationException("failed deserializing: " + value);
 		}
@@ -27,6 +27,7 @@ import net.amygdalum.testrecorder.types.SerializedResult;
 import net.amygdalum.testrecorder.types.SerializedValue;
 import net.amygdalum.testrecorder.types.SerializedValueType;
 import net.amygdalum.testrecorder.types.TypeManager;
+import net.amygdalum.testrecorder.values.SerializedTruncated;
 
 public class MatcherGenerators implements DeserializerFactory {
 
@@ -69,7 +70,7 @@ public class MatcherGenerators implements DeserializerFactory {
 		private Computation generateField(SerializedField field) {
 			TypeManager types = context.getTypes();
 			SerializedValue fieldValue = field.getValue();
-			if (context.getHint(field, SkipChecks.class).isPresent()) {
+			if (context.getHint(field, SkipChecks.class).isPresent() || fieldValue instanceof SerializedTruncated) {
 				return null;
 			} else if (simpleAdaptor.isSimpleValue(fieldValue)) {
 				Type fieldType = field.getType();
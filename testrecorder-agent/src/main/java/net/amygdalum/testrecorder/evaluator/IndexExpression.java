@@ -8,6 +8,7 @@ import java.util.Optional;
 import net.amygdalum.testrecorder.types.SerializedValue;
 import net.amygdalum.testrecorder.values.SerializedArray;
 import net.amygdalum.testrecorder.values.SerializedList;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
 
 public class IndexExpression implements Expression {
 
@@ -26,6 +27,8 @@ public class IndexExpression implements Expression {
 	public Optional<SerializedValue> evaluate(SerializedValue base, Class<?> type) {
 		if (base instanceof SerializedArray) {
 			return applyIndexToArray(type, (SerializedArray) base);
+		} else if (base instanceof SerializedPrimitiveArray) {
+			return applyIndexToPrimitiveArray(type, (SerializedPrimitiveArray) base);
 		} else if (base instanceof SerializedList) {
 			return applyIndexToList(type, (SerializedList) base);
 		} else {
@@ -40,6 +43,13 @@ public class IndexExpression implements Expression {
 		return Optional.of(array.get(index));
 	}
 
+	private Optional<SerializedValue> applyIndexToPrimitiveArray(Class<?> type, SerializedPrimitiveArray array) {
+		if (!isApplicable(type, array.getComponentType(), array.size())) {
+			return Optional.empty();
+		}
+		return Optional.of(array.get(index));
+	}
+
 	private Optional<SerializedValue> applyIndexToList(Class<?> type, SerializedList list) {
 		if (!isApplicable(type, list.getComponentType(), list.size())) {
 			return Optional.empty();
@@ -0,0 +1,222 @@
+package net.amygdalum.testrecorder.generator;
+
+import static net.amygdalum.testrecorder.generator.TestGenerator.RECORDED_TEST;
+import static net.amygdalum.testrecorder.generator.TestGenerator.computePackage;
+import static net.amygdalum.testrecorder.generator.TestGenerator.initTemplate;
+import static net.amygdalum.testrecorder.generator.TestGenerator.testedClass;
+import static net.amygdalum.testrecorder.generator.TestGenerator.writeTest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.amygdalum.testrecorder.SnapshotJournal;
+import net.amygdalum.testrecorder.SnapshotJournalReader;
+import net.amygdalum.testrecorder.TestrecorderThreadFactory;
+import net.amygdalum.testrecorder.deserializers.Adaptors;
+import net.amygdalum.testrecorder.deserializers.CustomAnnotation;
+import net.amygdalum.testrecorder.deserializers.builder.SetupGenerator;
+import net.amygdalum.testrecorder.deserializers.builder.SetupGenerators;
+import net.amygdalum.testrecorder.deserializers.matcher.MatcherGenerator;
+import net.amygdalum.testrecorder.deserializers.matcher.MatcherGenerators;
+import net.amygdalum.testrecorder.profile.AgentConfiguration;
+import net.amygdalum.testrecorder.profile.ClassPathConfigurationLoader;
+import net.amygdalum.testrecorder.profile.DefaultPathConfigurationLoader;
+import net.amygdalum.testrecorder.profile.SnapshotConsumer;
+import net.amygdalum.testrecorder.types.ContextSnapshot;
+import net.amygdalum.testrecorder.util.ClassDescriptor;
+import net.amygdalum.testrecorder.util.Logger;
+
+/**
+ * Generates tests from snapshots that were recorded before, e.g. into a {@link SnapshotJournal}, outside of the recorded
+ * process.
+ *
+ * Snapshots of different tested classes are generated in parallel, snapshots of the same tested class are generated one after
+ * the other and in the order they were accepted (a {@link ClassGenerator} is not thread safe). All test files are written once,
+ * by {@link #writeResults(Path)}.
+ *
+ * Snapshots have to be accepted from one thread, e.g. the thread replaying a {@link SnapshotJournalReader}.
+ */
+public class OfflineTestGenerator implements SnapshotConsumer, Closeable {
+
+	private static final int PENDING_PER_THREAD = 64;
+
+	private ExecutorService executor;
+	private Semaphore pending;
+	private AtomicLong failed;
+
+	private Map<ClassDescriptor, Generation> generations;
+
+	private SetupGenerators setup;
+	private MatcherGenerators matcher;
+	private TestTemplate template;
+	private List<CustomAnnotation> annotations;
+
+	public OfflineTestGenerator(AgentConfiguration config, int threads) {
+		this(
+			config.loadOptionalConfiguration(TestGeneratorProfile.class).orElseGet(DefaultTestGeneratorProfile::new),
+			config.loadConfigurations(SetupGenerator.class),
+			config.loadConfigurations(MatcherGenerator.class),
+			threads);
+	}
+
+	@SuppressWarnings("rawtypes")
+	public OfflineTestGenerator(TestGeneratorProfile generatorProfile, List<SetupGenerator> setup, List<MatcherGenerator> matcher, int threads) {
+		this.executor = Executors.newFixedThreadPool(threads, new TestrecorderThreadFactory("$generate"));
+		this.pending = new Semaphore(threads * PENDING_PER_THREAD);
+		this.failed = new AtomicLong();
+
+		this.generations = new LinkedHashMap<>();
+
+		this.setup = new SetupGenerators(new Adaptors().load(setup));
+		this.matcher = new MatcherGenerators(new Adaptors().load(matcher));
+		this.template = initTemplate(generatorProfile.template());
+		this.annotations = generatorProfile.annotations();
+	}
+
+	/**
+	 * generates the tests of a journal
+	 *
+	 * usage: {@code OfflineTestGenerator <journal directory> <test directory> [threads]}
+	 *
+	 * The recorded classes and the configuration (e.g. custom setup or matcher generators) are loaded from the class path. Exits
+	 * with status 1 if the arguments do not match the usage.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (!generate(args)) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * @param args the arguments of {@link #main(String[])}
+	 * @return false if the arguments do not match the usage, true otherwise
+	 */
+	static boolean generate(String[] args) throws IOException {
+		if (args.length < 2 || args.length > 3) {
+			Logger.error("usage: " + OfflineTestGenerator.class.getName() + " <journal directory> <test directory> [threads]");
+			return false;
+		}
+		Path journal = Paths.get(args[0]);
+		Path dir = Paths.get(args[1]);
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+		AgentConfiguration config = new AgentConfiguration(new ClassPathConfigurationLoader(), new DefaultPathConfigurationLoader());
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+
+		try (OfflineTestGenerator generator = new OfflineTestGenerator(config, threads)) {
+			long start = System.currentTimeMillis();
+			int snapshots = new SnapshotJournalReader(journal, loader).replay(generator);
+			generator.writeResults(dir);
+			Logger.info("generated tests from " + snapshots + " snapshots (" + generator.getFailedSnapshots() + " failed) in " + (System.currentTimeMillis() - start) + "ms");
+		}
+		return true;
+	}
+
+	@Override
+	public void accept(ContextSnapshot snapshot) {
+		pending.acquireUninterruptibly();
+		try {
+			Generation generation = generations.computeIfAbsent(testedClass(snapshot), this::newGeneration);
+			generation.pipeline = generation.pipeline.handleAsync((result, error) -> {
+				generate(generation.generator, snapshot);
+				return null;
+			}, executor);
+		} catch (RuntimeException e) {
+			pending.release();
+			failed.incrementAndGet();
+			Logger.error("failed generating test for " + snapshot.getMethodName() + ": " + e.getClass().getSimpleName() + " " + e.getMessage(), e);
+		}
+	}
+
+	private void generate(ClassGenerator generator, ContextSnapshot snapshot) {
+		try {
+			generator.generate(snapshot);
+		} catch (RuntimeException e) {
+			failed.incrementAndGet();
+			Logger.error("failed generating test for " + snapshot.getMethodName() + ": " + e.getClass().getSimpleName() + " " + e.getMessage(), e);
+		} finally {
+			pending.release();
+		}
+	}
+
+	private Generation newGeneration(ClassDescriptor clazz) {
+		ClassGenerator generator = new ClassGenerator(setup, matcher, template, annotations, computePackage(clazz), clazz.getSimpleName() + RECORDED_TEST);
+		return new Generation(generator);
+	}
+
+	/**
+	 * @return the number of snapshots that could not be generated to tests
+	 */
+	public long getFailedSnapshots() {
+		return failed.get();
+	}
+
+	public Set<String> testsFor(Class<?> clazz) {
+		return testsFor(ClassDescriptor.of(clazz));
+	}
+
+	public Set<String> testsFor(ClassDescriptor clazz) {
+		await();
+		Generation generation = generations.get(clazz);
+		if (generation == null) {
+			return Collections.emptySet();
+		}
+		return generation.generator.getTests();
+	}
+
+	/**
+	 * renders and writes the tests of all accepted snapshots, one file per tested class
+	 *
+	 * @param dir the root directory of the test sources
+	 */
+	public void writeResults(Path dir) {
+		await();
+		List<CompletableFuture<Void>> writes = new ArrayList<>();
+		for (Map.Entry<ClassDescriptor, Generation> entry : generations.entrySet()) {
+			ClassDescriptor clazz = entry.getKey();
+			ClassGenerator generator = entry.getValue().generator;
+			writes.add(CompletableFuture.runAsync(() -> writeTest(dir, clazz, generator), executor));
+		}
+		CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).join();
+	}
+
+	public OfflineTestGenerator await() {
+		List<CompletableFuture<Void>> pipelines = new ArrayList<>();
+		for (Generation generation : generations.values()) {
+			pipelines.add(generation.pipeline);
+		}
+		CompletableFuture.allOf(pipelines.toArray(new CompletableFuture[0])).join();
+		return this;
+	}
+
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+
+	private static class Generation {
+
+		private ClassGenerator generator;
+		private CompletableFuture<Void> pipeline;
+
+		Generation(ClassGenerator generator) {
+			this.generator = generator;
+			this.pipeline = CompletableFuture.completedFuture(null);
+		}
+
+	}
+
+}
@@ -23,6 +23,8 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import net.amygdalum.testrecorder.AgentMetrics;
+import net.amygdalum.testrecorder.SnapshotQueue;
 import net.amygdalum.testrecorder.TestrecorderThreadFactory;
 import net.amygdalum.testrecorder.deserializers.Adaptors;
 import net.amygdalum.testrecorder.deserializers.CustomAnnotation;
@@ -32,6 +34,7 @@ import net.amygdalum.testrecorder.deserializers.matcher.MatcherGenerator;
 import net.amygdalum.testrecorder.deserializers.matcher.MatcherGenerators;
 import net.amygdalum.testrecorder.profile.AgentConfiguration;
 import net.amygdalum.testrecorder.profile.PerformanceProfile;
+import net.amygdalum.testrecorder.profile.RecordingMetrics;
 import net.amygdalum.testrecorder.profile.SnapshotConsumer;
 import net.amygdalum.testrecorder.types.ContextSnapshot;
 import net.amygdalum.testrecorder.util.ClassDescriptor;
@@ -45,6 +48,8 @@ public class ScheduledTestGenerator implements SnapshotConsumer {
 	private static final String RECORDED_TEST = "RecordedTest";
 
 	private ExecutorService executor;
+	private SnapshotQueue queue;
+	private RecordingMetrics metrics;
 
 	private volatile CompletableFuture<Void> pipeline;
 
@@ -93,12 +98,21 @@ public class ScheduledTestGenerator implements SnapshotConsumer {
 			config.loadConfiguration(PerformanceProfile.class),
 			config.loadOptionalConfiguration(TestGeneratorProfile.class).orElseGet(DefaultTestGeneratorProfile::new),
 			config.loadConfigurations(SetupGenerator.class),
-			config.loadConfigurations(MatcherGenerator.class));
+			config.loadConfigurations(MatcherGenerator.class),
+			AgentMetrics.of(config));
 	}
 
 	@SuppressWarnings("rawtypes")
 	public ScheduledTestGenerator(PerformanceProfile profile, TestGeneratorProfile generatorProfile, List<SetupGenerator> setup, List<MatcherGenerator> matcher) {
+		this(profile, generatorProfile, setup, matcher, new AgentMetrics());
+	}
+
+	@SuppressWarnings("rawtypes")
+	public ScheduledTestGenerator(PerformanceProfile profile, TestGeneratorProfile generatorProfile, List<SetupGenerator> setup, List<MatcherGenerator> matcher, RecordingMetrics metrics) {
 		this.executor = initExecutor(profile);
+		this.queue = new SnapshotQueue(this::schedule, profile.getQueueCapacity(), profile.getOverflowPolicy());
+		this.metrics = metrics;
+		this.metrics.gauge("consume.queue", () -> queue.size());
 
 		this.generators = synchronizedMap(new LinkedHashMap<>());
 		this.pipeline = CompletableFuture.runAsync(() -> {
@@ -135,6 +149,7 @@ public class ScheduledTestGenerator implements SnapshotConsumer {
 	@SuppressWarnings("rawtypes")
 	public void reload(PerformanceProfile profile, TestGeneratorProfile generatorProfile, List<SetupGenerator> setup, List<MatcherGenerator> matcher) {
 		this.executor = initExecutor(profile);
+		this.queue = new SnapshotQueue(this::schedule, profile.getQueueCapacity(), profile.getOverflowPolicy());
 
 		this.generators = synchronizedMap(new LinkedHashMap<>());
 		this.pipeline = this.pipeline.thenRunAsync(() -> {
@@ -184,28 +199,42 @@ public class ScheduledTestGenerator implements SnapshotConsumer {
 	}
 
 	@Override
-	public synchronized void accept(ContextSnapshot snapshot) {
-		pipeline = this.pipeline.thenRunAsync(() -> {
-			if (counterMaximum > 0 && counter >= counterMaximum) {
-				return;
-			}
-			generatorFor(snapshot).generate(snapshot);
-			counter++;
-			if (counterInterval > 0 && counter % counterInterval == 0) {
-				dumpResults();
-			}
+	public void accept(ContextSnapshot snapshot) {
+		queue.execute(snapshot, () -> {
+			try {
+				if (counterMaximum > 0 && counter >= counterMaximum) {
+					return;
+				}
+				long generationStart = System.nanoTime();
+				generatorFor(snapshot).generate(snapshot);
+				metrics.generated(snapshot.getKey(), System.nanoTime() - generationStart);
+				counter++;
+				if (counterInterval > 0 && counter % counterInterval == 0) {
+					dumpResults();
+				}
 
-			long oldStart = start;
-			start = System.currentTimeMillis();
-			if (timeInterval > 0 && start - oldStart >= timeInterval) {
-				dumpResults();
+				long oldStart = start;
+				start = System.currentTimeMillis();
+				if (timeInterval > 0 && start - oldStart >= timeInterval) {
+					dumpResults();
+				}
+			} catch (RuntimeException e) {
+				Logger.error("failed generating test for " + snapshot.getMethodName() + ": " + e.getClass().getSimpleName() + " " + e.getMessage(), e);
 			}
-		}, executor).exceptionally(e -> {
-			Logger.error("failed generating test for " + snapshot.getMethodName() + ": " + e.getClass().getSimpleName() + " " + e.getMessage(), e);
-			return null;
 		});
 	}
 
+	private synchronized void schedule(Runnable task) {
+		pipeline = this.pipeline.thenRunAsync(task, executor);
+	}
+
+	/**
+	 * @return the number of snapshots that were discarded because the generation queue was full
+	 */
+	public long getDiscardedSnapshots() {
+		return queue.getDiscarded();
+	}
+
 	private String computePackage(ClassDescriptor clazz) {
 		String pkg = clazz.getPackage();
 		if (pkg.startsWith("java.lang")) {
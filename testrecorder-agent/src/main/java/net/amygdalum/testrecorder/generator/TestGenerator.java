@@ -21,7 +21,9 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import net.amygdalum.testrecorder.AgentMetrics;
 import net.amygdalum.testrecorder.SnapshotManager;
+import net.amygdalum.testrecorder.SnapshotQueue;
 import net.amygdalum.testrecorder.TestrecorderThreadFactory;
 import net.amygdalum.testrecorder.deserializers.Adaptors;
 import net.amygdalum.testrecorder.deserializers.CustomAnnotation;
@@ -31,6 +33,7 @@ import net.amygdalum.testrecorder.deserializers.matcher.MatcherGenerator;
 import net.amygdalum.testrecorder.deserializers.matcher.MatcherGenerators;
 import net.amygdalum.testrecorder.profile.AgentConfiguration;
 import net.amygdalum.testrecorder.profile.PerformanceProfile;
+import net.amygdalum.testrecorder.profile.RecordingMetrics;
 import net.amygdalum.testrecorder.profile.SnapshotConsumer;
 import net.amygdalum.testrecorder.types.ContextSnapshot;
 import net.amygdalum.testrecorder.util.ClassDescriptor;
@@ -38,9 +41,11 @@ import net.amygdalum.testrecorder.util.Logger;
 
 public class TestGenerator implements SnapshotConsumer {
 
-	private static final String RECORDED_TEST = "RecordedTest";
+	static final String RECORDED_TEST = "RecordedTest";
 
 	private ExecutorService executor;
+	private SnapshotQueue queue;
+	private RecordingMetrics metrics;
 
 	private volatile CompletableFuture<Void> pipeline;
 
@@ -57,12 +62,21 @@ public class TestGenerator implements SnapshotConsumer {
 			config.loadConfiguration(PerformanceProfile.class),
 			config.loadOptionalConfiguration(TestGeneratorProfile.class).orElseGet(DefaultTestGeneratorProfile::new),
 			config.loadConfigurations(SetupGenerator.class),
-			config.loadConfigurations(MatcherGenerator.class));
+			config.loadConfigurations(MatcherGenerator.class),
+			AgentMetrics.of(config));
 	}
 
 	@SuppressWarnings("rawtypes")
 	public TestGenerator(PerformanceProfile profile, TestGeneratorProfile generatorProfile, List<SetupGenerator> setup, List<MatcherGenerator> matcher) {
+		this(profile, generatorProfile, setup, matcher, new AgentMetrics());
+	}
+
+	@SuppressWarnings("rawtypes")
+	public TestGenerator(PerformanceProfile profile, TestGeneratorProfile generatorProfile, List<SetupGenerator> setup, List<MatcherGenerator> matcher, RecordingMetrics metrics) {
 		this.executor = initExecutor(profile);
+		this.queue = new SnapshotQueue(this::schedule, profile.getQueueCapacity(), profile.getOverflowPolicy());
+		this.metrics = metrics;
+		this.metrics.gauge("consume.queue", () -> queue.size());
 
 		this.generators = synchronizedMap(new LinkedHashMap<>());
 		this.pipeline = CompletableFuture.runAsync(() -> {
@@ -75,7 +89,7 @@ public class TestGenerator implements SnapshotConsumer {
 		this.annotations = generatorProfile.annotations();
 	}
 
-	private TestTemplate initTemplate(Class<? extends TestTemplate> template) {
+	static TestTemplate initTemplate(Class<? extends TestTemplate> template) {
 		try {
 			return template.newInstance();
 		} catch (InstantiationException | IllegalAccessException e) {
@@ -94,6 +108,7 @@ public class TestGenerator implements SnapshotConsumer {
 	@SuppressWarnings("rawtypes")
 	public void reload(PerformanceProfile profile, TestGeneratorProfile generatorProfile, List<SetupGenerator> setup, List<MatcherGenerator> matcher) {
 		this.executor = initExecutor(profile);
+		this.queue = new SnapshotQueue(this::schedule, profile.getQueueCapacity(), profile.getOverflowPolicy());
 
 		this.generators = synchronizedMap(new LinkedHashMap<>());
 		this.pipeline = this.pipeline.thenRunAsync(() -> {
@@ -120,14 +135,30 @@ public class TestGenerator implements SnapshotConsumer {
 	}
 
 	@Override
-	public synchronized void accept(ContextSnapshot snapshot) {
-		pipeline = this.pipeline.thenRunAsync(() -> generatorFor(snapshot).generate(snapshot), executor).exceptionally(e -> {
-			Logger.error("failed generating test for " + snapshot.getMethodName() + ": " + e.getClass().getSimpleName() + " " + e.getMessage(), e);
-			return null;
+	public void accept(ContextSnapshot snapshot) {
+		queue.execute(snapshot, () -> {
+			try {
+				long start = System.nanoTime();
+				generatorFor(snapshot).generate(snapshot);
+				metrics.generated(snapshot.getKey(), System.nanoTime() - start);
+			} catch (RuntimeException e) {
+				Logger.error("failed generating test for " + snapshot.getMethodName() + ": " + e.getClass().getSimpleName() + " " + e.getMessage(), e);
+			}
 		});
 	}
 
-	private String computePackage(ClassDescriptor clazz) {
+	private synchronized void schedule(Runnable task) {
+		pipeline = this.pipeline.thenRunAsync(task, executor);
+	}
+
+	/**
+	 * @return the number of snapshots that were discarded because the generation queue was full
+	 */
+	public long getDiscardedSnapshots() {
+		return queue.getDiscarded();
+	}
+
+	static String computePackage(ClassDescriptor clazz) {
 		String pkg = clazz.getPackage();
 		if (pkg.startsWith("java.lang")) {
 			pkg = "test.java.lang" + pkg.substring("java.lang".length());
@@ -141,18 +172,21 @@ public class TestGenerator implements SnapshotConsumer {
 
 	public void writeResults(Path dir) {
 		for (ClassDescriptor clazz : generators.keySet()) {
+			writeTest(dir, clazz, generatorFor(clazz));
+		}
+	}
 
-			String rendered = renderTest(clazz);
+	static void writeTest(Path dir, ClassDescriptor clazz, ClassGenerator generator) {
+		String rendered = generator.render();
 
-			try {
-				Path testfile = locateTestFile(dir, clazz);
-				Logger.info("writing tests to " + testfile);
-				try (Writer writer = Files.newBufferedWriter(testfile, StandardCharsets.UTF_8, CREATE, WRITE, TRUNCATE_EXISTING)) {
-					writer.write(rendered);
-				}
-			} catch (IOException e) {
-				Logger.error("failed writing tests for " + rendered, e);
+		try {
+			Path testfile = locateTestFile(dir, clazz, generator);
+			Logger.info("writing tests to " + testfile);
+			try (Writer writer = Files.newBufferedWriter(testfile, StandardCharsets.UTF_8, CREATE, WRITE, TRUNCATE_EXISTING)) {
+				writer.write(rendered);
 			}
+		} catch (IOException e) {
+			Logger.error("failed writing tests for " + rendered, e);
 		}
 	}
 
@@ -163,9 +197,9 @@ public class TestGenerator implements SnapshotConsumer {
 		}, executor);
 	}
 
-	private Path locateTestFile(Path dir, ClassDescriptor clazz) throws IOException {
+	private static Path locateTestFile(Path dir, ClassDescriptor clazz, ClassGenerator generator) throws IOException {
 		String pkg = computePackage(clazz);
-		String className = generatorFor(clazz).getTestName();
+		String className = generator.getTestName();
 		Path testpackage = dir.resolve(pkg.replace('.', '/'));
 
 		Files.createDirectories(testpackage);
@@ -183,12 +217,15 @@ public class TestGenerator implements SnapshotConsumer {
 	}
 
 	public ClassGenerator generatorFor(ContextSnapshot snapshot) {
+		return generatorFor(testedClass(snapshot));
+	}
+
+	static ClassDescriptor testedClass(ContextSnapshot snapshot) {
 		Class<?> thisType = baseType(snapshot.getThisType());
 		while (thisType.getEnclosingClass() != null) {
 			thisType = thisType.getEnclosingClass();
 		}
-		ClassDescriptor baseType = ClassDescriptor.of(thisType);
-		return generatorFor(baseType);
+		return ClassDescriptor.of(thisType);
 	}
 
 	public ClassGenerator generatorFor(ClassDescriptor clazz) {
@@ -10,6 +10,10 @@ public class ClassDescription implements Classes {
 		this.className = className;
 	}
 
+	String getClassName() {
+		return className;
+	}
+
 	@Override
 	public boolean matches(Class<?> clazz) {
 		String className = Type.getInternalName(clazz);
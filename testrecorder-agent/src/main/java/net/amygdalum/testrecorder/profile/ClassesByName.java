@@ -17,6 +17,10 @@ public class ClassesByName implements Classes {
 		this.name = name;
 	}
 
+	String getName() {
+		return name;
+	}
+
 	@Override
 	public boolean matches(Class<?> type) {
 		return type.getName().equals(name)
@@ -10,6 +10,10 @@ public class ClassesByPackage implements Classes {
 		this.name = name;
 	}
 
+	String getName() {
+		return name;
+	}
+
 	@Override
 	public boolean matches(Class<?> type) {
 		return type.getName().startsWith(name);
@@ -0,0 +1,136 @@
+package net.amygdalum.testrecorder.profile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.objectweb.asm.Type;
+
+/**
+ * matches a list of {@link Classes} at once. The rules are compiled into hash sets for names and descriptions, and into a
+ * prefix trie for packages, only custom rules are tested one after the other. The verdict for a runtime class is computed
+ * once and then cached.
+ */
+public class ClassesIndex implements Classes {
+
+	private Set<String> names;
+	private Set<String> descriptions;
+	private PrefixTrie packages;
+	private List<Classes> others;
+
+	private ClassValue<Boolean> verdicts;
+
+	public ClassesIndex(List<Classes> classes) {
+		this.names = new HashSet<>();
+		this.descriptions = new HashSet<>();
+		this.packages = new PrefixTrie();
+		this.others = new ArrayList<>();
+		for (Classes rule : classes) {
+			if (rule instanceof ClassesByName) {
+				names.add(((ClassesByName) rule).getName());
+			} else if (rule instanceof ClassDescription) {
+				descriptions.add(((ClassDescription) rule).getClassName());
+			} else if (rule instanceof ClassesByPackage) {
+				packages.add(((ClassesByPackage) rule).getName());
+			} else if (rule instanceof ClassesIndex) {
+				ClassesIndex index = (ClassesIndex) rule;
+				names.addAll(index.names);
+				descriptions.addAll(index.descriptions);
+				packages.addAll(index.packages);
+				others.addAll(index.others);
+			} else {
+				others.add(rule);
+			}
+		}
+		this.verdicts = new ClassValue<Boolean>() {
+			@Override
+			protected Boolean computeValue(Class<?> type) {
+				return compute(type);
+			}
+		};
+	}
+
+	@Override
+	public boolean matches(Class<?> type) {
+		return verdicts.get(type);
+	}
+
+	private boolean compute(Class<?> type) {
+		String name = type.getName();
+		if (names.contains(name)
+			|| names.contains(type.getSimpleName())
+			|| descriptions.contains(Type.getInternalName(type))
+			|| packages.matchesPrefixOf(name)) {
+			return true;
+		}
+		for (Classes rule : others) {
+			if (rule.matches(type)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean matches(String className) {
+		String refName = Type.getObjectType(className).getClassName();
+		int lastDot = refName.lastIndexOf('.');
+		String simpleName = refName.substring(lastDot + 1);
+		if (names.contains(refName)
+			|| names.contains(simpleName)
+			|| descriptions.contains(className)
+			|| packages.matchesPrefixOf(refName)) {
+			return true;
+		}
+		for (Classes rule : others) {
+			if (rule.matches(className)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static class PrefixTrie {
+
+		private boolean terminal;
+		private Map<Character, PrefixTrie> children;
+
+		PrefixTrie() {
+			this.children = new HashMap<>();
+		}
+
+		void add(String prefix) {
+			PrefixTrie node = this;
+			for (int i = 0; i < prefix.length(); i++) {
+				node = node.children.computeIfAbsent(prefix.charAt(i), c -> new PrefixTrie());
+			}
+			node.terminal = true;
+		}
+
+		void addAll(PrefixTrie trie) {
+			terminal |= trie.terminal;
+			for (Map.Entry<Character, PrefixTrie> entry : trie.children.entrySet()) {
+				children.computeIfAbsent(entry.getKey(), c -> new PrefixTrie()).addAll(entry.getValue());
+			}
+		}
+
+		boolean matchesPrefixOf(String name) {
+			PrefixTrie node = this;
+			for (int i = 0; i < name.length(); i++) {
+				if (node.terminal) {
+					return true;
+				}
+				node = node.children.get(name.charAt(i));
+				if (node == null) {
+					return false;
+				}
+			}
+			return node.terminal;
+		}
+
+	}
+
+}
@@ -15,6 +15,7 @@ public class ConfigurableSerializationProfile implements SerializationProfile {
 	private List<Methods> inputs;
 	private List<Methods> outputs;
 	private List<Methods> recorded;
+	private List<Sampling> sampling;
 
 	private List<Classes> classes;
 
@@ -27,6 +28,7 @@ public class ConfigurableSerializationProfile implements SerializationProfile {
 		this.inputs = new ArrayList<>();
 		this.outputs = new ArrayList<>();
 		this.recorded = new ArrayList<>();
+		this.sampling = new ArrayList<>();
 		this.classes = new ArrayList<>();
 	}
 
@@ -39,6 +41,7 @@ public class ConfigurableSerializationProfile implements SerializationProfile {
 		this.inputs = new ArrayList<>(base.getInputs());
 		this.outputs = new ArrayList<>(base.getOutputs());
 		this.recorded = new ArrayList<>(base.getRecorded());
+		this.sampling = new ArrayList<>(base.getSampling());
 		this.classes = new ArrayList<>(base.getClasses());
 	}
 
@@ -95,6 +98,11 @@ public class ConfigurableSerializationProfile implements SerializationProfile {
 		return recorded;
 	}
 
+	@Override
+	public List<Sampling> getSampling() {
+		return sampling;
+	}
+
 	public static class Builder {
 
 		private ConfigurableSerializationProfile profile;
@@ -125,6 +133,15 @@ public class ConfigurableSerializationProfile implements SerializationProfile {
 			return this;
 		}
 
+		public Builder withSampling(Sampling... sampling) {
+			return withSampling(asList(sampling));
+		}
+
+		public Builder withSampling(List<Sampling> sampling) {
+			profile.sampling.addAll(sampling);
+			return this;
+		}
+
 		public Builder withFieldExclusions(Fields... fieldExclusions) {
 			return withFieldExclusions(asList(fieldExclusions));
 		}
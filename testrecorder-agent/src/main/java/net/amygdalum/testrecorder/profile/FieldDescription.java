@@ -16,6 +16,18 @@ public class FieldDescription implements Fields {
 		this.fieldDescriptor = fieldDescriptor;
 	}
 
+	String getClassName() {
+		return className;
+	}
+
+	String getFieldName() {
+		return fieldName;
+	}
+
+	String getFieldDescriptor() {
+		return fieldDescriptor;
+	}
+
 	@Override
 	public boolean matches(Field field) {
 		String className = Type.getInternalName(field.getDeclaringClass());
@@ -25,6 +25,14 @@ public class FieldsByName implements Fields {
 		}
 	}
 
+	String getClassName() {
+		return clazz;
+	}
+
+	String getName() {
+		return name;
+	}
+
 	@Override
 	public boolean matches(Field field) {
 		if (clazz == null) {
@@ -0,0 +1,110 @@
+package net.amygdalum.testrecorder.profile;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.objectweb.asm.Type;
+
+/**
+ * matches a list of {@link Fields} at once. The rules are compiled into hash sets for (qualified) names and descriptions,
+ * only custom rules are tested one after the other. The verdicts for the fields of a runtime class are computed once for all
+ * declared fields of the class and then cached.
+ */
+public class FieldsIndex implements Fields {
+
+	private Set<String> names;
+	private Set<String> qualifiedNames;
+	private Set<String> descriptions;
+	private List<Fields> others;
+
+	private ClassValue<Set<String>> verdicts;
+
+	public FieldsIndex(List<Fields> fields) {
+		this.names = new HashSet<>();
+		this.qualifiedNames = new HashSet<>();
+		this.descriptions = new HashSet<>();
+		this.others = new ArrayList<>();
+		for (Fields rule : fields) {
+			if (rule instanceof FieldsByName) {
+				FieldsByName byName = (FieldsByName) rule;
+				if (byName.getClassName() == null) {
+					names.add(byName.getName());
+				} else {
+					qualifiedNames.add(qualifiedName(byName.getClassName(), byName.getName()));
+				}
+			} else if (rule instanceof FieldDescription) {
+				FieldDescription description = (FieldDescription) rule;
+				descriptions.add(description(description.getClassName(), description.getFieldName(), description.getFieldDescriptor()));
+			} else if (rule instanceof FieldsIndex) {
+				FieldsIndex index = (FieldsIndex) rule;
+				names.addAll(index.names);
+				qualifiedNames.addAll(index.qualifiedNames);
+				descriptions.addAll(index.descriptions);
+				others.addAll(index.others);
+			} else {
+				others.add(rule);
+			}
+		}
+		this.verdicts = new ClassValue<Set<String>>() {
+			@Override
+			protected Set<String> computeValue(Class<?> type) {
+				Set<String> matching = new HashSet<>();
+				for (Field field : type.getDeclaredFields()) {
+					if (compute(field)) {
+						matching.add(field.getName());
+					}
+				}
+				return matching;
+			}
+		};
+	}
+
+	private static String qualifiedName(String className, String fieldName) {
+		return className + '.' + fieldName;
+	}
+
+	private static String description(String className, String fieldName, String fieldDescriptor) {
+		return className + '.' + fieldName + ':' + fieldDescriptor;
+	}
+
+	@Override
+	public boolean matches(Field field) {
+		return verdicts.get(field.getDeclaringClass()).contains(field.getName());
+	}
+
+	private boolean compute(Field field) {
+		String fieldName = field.getName();
+		Class<?> declaringClass = field.getDeclaringClass();
+		if (names.contains(fieldName)
+			|| qualifiedNames.contains(qualifiedName(declaringClass.getName(), fieldName))
+			|| descriptions.contains(description(Type.getInternalName(declaringClass), fieldName, Type.getDescriptor(field.getType())))) {
+			return true;
+		}
+		for (Fields rule : others) {
+			if (rule.matches(field)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean matches(String className, String fieldName, String fieldDescriptor) {
+		String refName = Type.getObjectType(className).getClassName();
+		if (names.contains(fieldName)
+			|| qualifiedNames.contains(qualifiedName(refName, fieldName))
+			|| descriptions.contains(description(className, fieldName, fieldDescriptor))) {
+			return true;
+		}
+		for (Fields rule : others) {
+			if (rule.matches(className, fieldName, fieldDescriptor)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,25 @@
+package net.amygdalum.testrecorder.profile;
+
+/**
+ * specifies what happens to a snapshot that should be queued while the queue is already at its capacity.
+ */
+public enum OverflowPolicy {
+	/**
+	 * the thread that enqueues waits until the queue has free capacity
+	 */
+	BLOCK,
+	/**
+	 * the new snapshot is discarded
+	 */
+	DROP_NEWEST,
+	/**
+	 * the oldest pending snapshot is discarded in favor of the new one
+	 */
+	DROP_OLDEST,
+	/**
+	 * the new snapshot is queued anyway, but is serialized with the reduced budget of {@link PerformanceProfile#getDegradedMaxDepth()}
+	 * and {@link PerformanceProfile#getDegradedMaxObjects()}. The enqueuing thread is never blocked, if the queue holds twice its
+	 * capacity the new snapshot is discarded.
+	 */
+	DEGRADE;
+}
@@ -10,4 +10,147 @@ public interface PerformanceProfile {
 
 	long getIdleTime();
 
+	/**
+	 * Configuring {@link #getSerializationWorkers()} enables serializing independent snapshots in parallel. Each snapshot
+	 * is bound to one worker, so the serialization steps of a single snapshot keep their order.
+	 * 
+	 * @return the number of threads serializing snapshots (at least 1)
+	 */
+	default int getSerializationWorkers() {
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Configuring {@link #isAsynchronous()} enables non-blocking recording. The recorded thread only enqueues the
+	 * serialization of a snapshot and continues immediately. Serialization and consumption of snapshots is completed by the
+	 * serialization workers. Snapshots of objects that are modified before they could be serialized are dropped.
+	 * 
+	 * @return true if recording should never block the recorded thread, false if recording should wait for serialization
+	 */
+	default boolean isAsynchronous() {
+		return false;
+	}
+
+	/**
+	 * Configuring {@link #getQueueCapacity()} bounds the memory held by snapshots waiting to be processed. It applies to
+	 * the pending tasks of each serialization worker in asynchronous mode and to the pending snapshots of test generators.
+	 * 
+	 * @return the maximum number of pending entries per queue
+	 */
+	default int getQueueCapacity() {
+		return 10_000;
+	}
+
+	/**
+	 * Configuring {@link #getOverflowPolicy()} decides how a queue behaves if {@link #getQueueCapacity()} is exceeded.
+	 * 
+	 * @return the policy for queues that are full
+	 */
+	default OverflowPolicy getOverflowPolicy() {
+		return OverflowPolicy.BLOCK;
+	}
+
+	/**
+	 * Configuring {@link #getMemoryThreshold()} suspends recording if the heap usage after garbage collection exceeds the given
+	 * fraction of the maximum heap. Pending and started snapshots are invalidated on suspension.
+	 * 
+	 * @return the fraction of the maximum heap (between 0 and 1) that suspends recording, 0 disables suspension
+	 */
+	default double getMemoryThreshold() {
+		return 0.9;
+	}
+
+	/**
+	 * Configuring {@link #getMemoryCooldown()} decides how long recording stays suspended after the memory threshold was
+	 * exceeded. Recording is resumed after this time, if the heap usage dropped below the threshold.
+	 * 
+	 * @return the minimum time of a suspension in milliseconds
+	 */
+	default long getMemoryCooldown() {
+		return 10_000;
+	}
+
+	/**
+	 * Configuring {@link #getMaxDepth()} bounds the depth of captured object graphs. Objects that are farther away from the
+	 * serialized value are captured as truncated.
+	 * 
+	 * @return the maximum number of references between a serialized value and a captured object, 0 disables the limit
+	 */
+	default int getMaxDepth() {
+		return 10_000;
+	}
+
+	/**
+	 * Configuring {@link #getMaxElements()} bounds the number of captured elements of collections, maps and arrays. Of larger
+	 * ones only the first elements are captured, the generated tests set up only these elements and match them as a part of
+	 * the recorded value. Primitive arrays are always captured completely (large ones may be stored to files).
+	 * 
+	 * @return the maximum number of captured elements (or entries) of a collection, map or array, 0 disables the limit
+	 */
+	default int getMaxElements() {
+		return 0;
+	}
+
+	/**
+	 * Configuring {@link #getMaxObjects()} bounds the number of objects captured for one serialization step (setup or expect)
+	 * of a snapshot. Objects beyond this budget are captured as truncated.
+	 * 
+	 * @return the maximum number of captured objects per serialization step, 0 disables the limit
+	 */
+	default int getMaxObjects() {
+		return 1_000_000;
+	}
+
+	/**
+	 * Configuring {@link #getDegradedMaxDepth()} bounds the depth of object graphs captured for snapshots that are queued beyond
+	 * the queue capacity (with {@link OverflowPolicy#DEGRADE}). It replaces {@link #getMaxDepth()} if it is smaller.
+	 * 
+	 * @return the maximum number of references between a serialized value and a captured object of a degraded snapshot
+	 */
+	default int getDegradedMaxDepth() {
+		return 2;
+	}
+
+	/**
+	 * Configuring {@link #getDegradedMaxObjects()} bounds the number of objects captured for snapshots that are queued beyond
+	 * the queue capacity (with {@link OverflowPolicy#DEGRADE}). It replaces {@link #getMaxObjects()} if it is smaller.
+	 * 
+	 * @return the maximum number of captured objects per serialization step of a degraded snapshot
+	 */
+	default int getDegradedMaxObjects() {
+		return 100;
+	}
+
+	/**
+	 * Configuring {@link #getTraversalWorkers()} enables parallel traversal of large object graphs. Large levels of the object
+	 * graph are split across these workers, custom serializers must then only modify their own serialized value when
+	 * populating it.
+	 * 
+	 * @return the number of additional threads traversing an object graph, 0 disables parallel traversal
+	 */
+	default int getTraversalWorkers() {
+		return 0;
+	}
+
+	/**
+	 * Configuring {@link #getParallelThreshold()} decides which parts of an object graph are worth a parallel traversal. Smaller
+	 * levels of the object graph are traversed by the serializing thread alone.
+	 * 
+	 * @return the minimum number of objects at one level of an object graph that are traversed in parallel
+	 */
+	default int getParallelThreshold() {
+		return 10_000;
+	}
+
+	/**
+	 * Configuring {@link #isIncrementalExpect()} enables change tracking between setup and expect of a snapshot. The objects
+	 * captured on setup are fingerprinted, objects that did not change (and do not reference changed objects) are not captured
+	 * again on expect, their setup values are reused.
+	 * 
+	 * @return true if expect should reuse the setup values of unchanged objects, false if expect should capture all objects
+	 */
+	default boolean isIncrementalExpect() {
+		return false;
+	}
+
 }
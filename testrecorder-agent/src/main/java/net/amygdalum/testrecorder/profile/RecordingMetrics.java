@@ -0,0 +1,83 @@
+package net.amygdalum.testrecorder.profile;
+
+import static net.amygdalum.testrecorder.extensionpoint.ExtensionStrategy.EXTENDING;
+
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import net.amygdalum.testrecorder.extensionpoint.ExtensionPoint;
+import net.amygdalum.testrecorder.types.Profile;
+
+/**
+ * Receives the events of the recording pipeline, e.g. to forward them to a monitoring system. Events are reported on the
+ * recorded threads and on the serialization and generation threads, so implementations must be thread safe and should
+ * return quickly.
+ *
+ * Methods are identified by the signature of the recorded method.
+ */
+@ExtensionPoint(strategy = EXTENDING)
+public interface RecordingMetrics {
+
+	/**
+	 * a call of a recorded method was intercepted (whether it is sampled or not)
+	 */
+	void recordedCall(String method);
+
+	/**
+	 * a snapshot of a recorded method was started
+	 */
+	void snapshotStarted(String method);
+
+	/**
+	 * a snapshot was completed, but turned out to be invalid (e.g. because it was modified concurrently or could not be
+	 * serialized)
+	 */
+	void snapshotInvalidated(String method);
+
+	/**
+	 * a serialization step of a snapshot did not complete in time
+	 */
+	void snapshotTimedOut(String method);
+
+	/**
+	 * a valid snapshot was passed to the snapshot consumer
+	 */
+	void snapshotConsumed(String method);
+
+	/**
+	 * a serialization step of a snapshot was completed
+	 *
+	 * @param method the recorded method
+	 * @param durationInNanos the time spent serializing
+	 * @param visitedObjects the number of objects visited during serialization
+	 */
+	void serialized(String method, long durationInNanos, int visitedObjects);
+
+	/**
+	 * a serialization step of a snapshot was profiled. The profiles belong to the serializing session and must not be
+	 * retained after this call.
+	 *
+	 * @param method the recorded method
+	 * @param classProfiles the profiles of all serialized classes
+	 * @param serializerProfiles the profiles of all called serializers (by serializer class)
+	 */
+	default void profiled(String method, Map<Class<?>, Profile> classProfiles, Map<Class<?>, Profile> serializerProfiles) {
+	}
+
+	/**
+	 * a test was generated from a snapshot
+	 *
+	 * @param method the recorded method
+	 * @param durationInNanos the time spent generating the test
+	 */
+	void generated(String method, long durationInNanos);
+
+	/**
+	 * registers a value that may be polled at any time, e.g. the depth of a queue
+	 *
+	 * @param name the name of the value
+	 * @param value the supplier of the current value
+	 */
+	void gauge(String name, LongSupplier value);
+
+}
@@ -0,0 +1,13 @@
+package net.amygdalum.testrecorder.profile;
+
+/**
+ * decides whether an invocation of a recorded method should be recorded. Samplers are called concurrently from all recorded
+ * threads and must be thread safe.
+ */
+public interface Sampler {
+
+	Sampler ALL = () -> true;
+
+	boolean sample();
+
+}
@@ -0,0 +1,57 @@
+package net.amygdalum.testrecorder.profile;
+
+/**
+ * used to restrict recording of methods to a sample of their invocations. Each recorded method matching a sampling gets its
+ * own {@link Sampler}, so the sampling rate applies per method and not per sampling specification.
+ */
+public interface Sampling {
+
+	/**
+	 * defines matching with compile time method specifications.
+	 * 
+	 * @param className the internal name of the class (e.g. java/lang/String for java.lang.String)
+	 * @param methodName the name of the method (e.g getBytes)
+	 * @param methodDescriptor the method descriptor of the method (e.g. (Ljava/nio/Charset;)[B; for byte[] getBytes(Charset charset))
+	 * @return true if the compile time description of the method is covered by this sampling, false otherwise
+	 */
+	boolean matches(String className, String methodName, String methodDescriptor);
+
+	/**
+	 * @return a new sampler deciding on the invocations of one recorded method
+	 */
+	Sampler newSampler();
+
+	/**
+	 * samples every n-th invocation of the given methods
+	 * 
+	 * @param methods the methods to sample
+	 * @param n the sampling interval (1 records every invocation)
+	 * @return a sampling that records the first invocation and then each n-th invocation
+	 */
+	static Sampling everyNth(Methods methods, int n) {
+		return new SamplingEveryNth(methods, n);
+	}
+
+	/**
+	 * samples each invocation of the given methods with a given probability
+	 * 
+	 * @param methods the methods to sample
+	 * @param probability the probability of recording an invocation (between 0.0 and 1.0)
+	 * @return a sampling that records invocations randomly
+	 */
+	static Sampling withProbability(Methods methods, double probability) {
+		return new SamplingWithProbability(methods, probability);
+	}
+
+	/**
+	 * limits the rate of recorded invocations of the given methods (token bucket with a capacity of one second)
+	 * 
+	 * @param methods the methods to sample
+	 * @param maxPerSecond the maximum number of recorded invocations per second
+	 * @return a sampling that records invocations as long as the rate limit is not exceeded
+	 */
+	static Sampling maxPerSecond(Methods methods, int maxPerSecond) {
+		return new SamplingMaxPerSecond(methods, maxPerSecond);
+	}
+
+}
@@ -0,0 +1,29 @@
+package net.amygdalum.testrecorder.profile;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SamplingEveryNth implements Sampling {
+
+	private Methods methods;
+	private int n;
+
+	public SamplingEveryNth(Methods methods, int n) {
+		if (n < 1) {
+			throw new IllegalArgumentException("sampling interval should be positive, but was: " + n);
+		}
+		this.methods = methods;
+		this.n = n;
+	}
+
+	@Override
+	public boolean matches(String className, String methodName, String methodDescriptor) {
+		return methods.matches(className, methodName, methodDescriptor);
+	}
+
+	@Override
+	public Sampler newSampler() {
+		AtomicLong invocations = new AtomicLong();
+		return () -> invocations.getAndIncrement() % n == 0;
+	}
+
+}
@@ -0,0 +1,64 @@
+package net.amygdalum.testrecorder.profile;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SamplingMaxPerSecond implements Sampling {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private Methods methods;
+	private int maxPerSecond;
+
+	public SamplingMaxPerSecond(Methods methods, int maxPerSecond) {
+		if (maxPerSecond < 1) {
+			throw new IllegalArgumentException("rate limit should be positive, but was: " + maxPerSecond);
+		}
+		this.methods = methods;
+		this.maxPerSecond = maxPerSecond;
+	}
+
+	@Override
+	public boolean matches(String className, String methodName, String methodDescriptor) {
+		return methods.matches(className, methodName, methodDescriptor);
+	}
+
+	@Override
+	public Sampler newSampler() {
+		return new TokenBucket(SECOND / maxPerSecond, SECOND);
+	}
+
+	/**
+	 * A lock free token bucket. Instead of counting tokens it tracks the point in time up to which tokens have been drawn.
+	 * Each sample moves this point by the cost of one token, samples that would move it into the future are rejected.
+	 */
+	static class TokenBucket implements Sampler {
+
+		private long interval;
+		private long capacity;
+		private AtomicLong drawn;
+
+		TokenBucket(long interval, long capacity) {
+			this.interval = interval;
+			this.capacity = capacity;
+			this.drawn = new AtomicLong(System.nanoTime() - capacity);
+		}
+
+		@Override
+		public boolean sample() {
+			long now = System.nanoTime();
+			while (true) {
+				long current = drawn.get();
+				long next = Math.max(current, now - capacity) + interval;
+				if (next - now > 0) {
+					return false;
+				}
+				if (drawn.compareAndSet(current, next)) {
+					return true;
+				}
+			}
+		}
+
+	}
+
+}
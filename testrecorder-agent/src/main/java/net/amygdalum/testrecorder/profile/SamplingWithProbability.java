@@ -0,0 +1,28 @@
+package net.amygdalum.testrecorder.profile;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+public class SamplingWithProbability implements Sampling {
+
+	private Methods methods;
+	private double probability;
+
+	public SamplingWithProbability(Methods methods, double probability) {
+		if (probability < 0d || probability > 1d) {
+			throw new IllegalArgumentException("sampling probability should be between 0 and 1, but was: " + probability);
+		}
+		this.methods = methods;
+		this.probability = probability;
+	}
+
+	@Override
+	public boolean matches(String className, String methodName, String methodDescriptor) {
+		return methods.matches(className, methodName, methodDescriptor);
+	}
+
+	@Override
+	public Sampler newSampler() {
+		return () -> ThreadLocalRandom.current().nextDouble() < probability;
+	}
+
+}
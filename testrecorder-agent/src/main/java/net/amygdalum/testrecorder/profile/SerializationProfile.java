@@ -1,5 +1,6 @@
 package net.amygdalum.testrecorder.profile;
 
+import static java.util.Collections.emptyList;
 import static net.amygdalum.testrecorder.extensionpoint.ExtensionStrategy.OVERRIDING;
 
 import java.util.List;
@@ -101,4 +102,18 @@ public interface SerializationProfile {
 	 */
 	List<Methods> getRecorded();
 
+	/**
+	 * Configuring {@link #getSampling()} enables to restrict recording of recorded methods to a sample of their invocations.
+	 * The first matching sampling of a method decides which invocations are recorded, methods without matching sampling
+	 * are recorded on each invocation.
+	 * 
+	 * {@link net.amygdalum.testrecorder.profile.Sampling} provides some default samplings to put into this list.
+	 *  
+	 * @return a list of Samplings describing which invocations of recorded methods should be recorded (by default empty, i.e.
+	 * all invocations are recorded).
+	 */
+	default List<Sampling> getSampling() {
+		return emptyList();
+	}
+
 }
@@ -10,7 +10,9 @@ import static net.amygdalum.testrecorder.values.SerializedNull.nullInstance;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Type;
+import java.util.stream.Stream;
 
+import net.amygdalum.testrecorder.types.ClassLayout.LayoutField;
 import net.amygdalum.testrecorder.types.FieldSignature;
 import net.amygdalum.testrecorder.types.SerializationException;
 import net.amygdalum.testrecorder.types.SerializedField;
@@ -40,6 +42,14 @@ public abstract class AbstractCompositeSerializer {
 		return new SerializedField(signature, serializedValue);
 	}
 
+	public SerializedField resolvedFieldOf(SerializerSession session, Object object, LayoutField field) {
+		Type type = field.getType();
+		Object value = fieldOf(object, field);
+		SerializedValue serializedValue = resolvedValueOf(session, type, value);
+
+		return new SerializedField(field.getSignature(), serializedValue);
+	}
+
 	public SerializedValue resolvedValueOf(SerializerSession session, Type type, Object value) {
 		SerializedValue serializedValue = session.ref(value, type);
 		if (serializedValue != null) {
@@ -63,6 +73,25 @@ public abstract class AbstractCompositeSerializer {
 		}
 	}
 
+	/**
+	 * limits the elements (or entries) of a collection, map or array to the number of elements captured in the session
+	 */
+	public <T> Stream<T> captured(Stream<T> elements, SerializerSession session) {
+		int maxElements = session.maxElements();
+		if (maxElements <= 0) {
+			return elements;
+		}
+		return elements.limit(maxElements);
+	}
+
+	/**
+	 * @return true if a collection, map or array of the given size has more elements than captured in the session
+	 */
+	public boolean truncates(int size, SerializerSession session) {
+		int maxElements = session.maxElements();
+		return maxElements > 0 && size > maxElements;
+	}
+
 	public Object fieldOf(Object object, Class<?> type, String name) {
 		try {
 			Field field = type.getDeclaredField(name);
@@ -80,4 +109,12 @@ public abstract class AbstractCompositeSerializer {
 		}
 	}
 
+	public Object fieldOf(Object object, LayoutField field) {
+		try {
+			return field.get(object);
+		} catch (ReflectiveOperationException | IllegalArgumentException e) {
+			throw new SerializationException(e);
+		}
+	}
+
 }
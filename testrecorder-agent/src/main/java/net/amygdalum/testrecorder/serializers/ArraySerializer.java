@@ -24,7 +24,8 @@ public class ArraySerializer extends AbstractCompositeSerializer implements Seri
 			return Stream.empty();
 		}
 		Builder<Object> components = Stream.builder();
-		for (int i = 0; i < Array.getLength(object); i++) {
+		int length = Array.getLength(object);
+		for (int i = 0; i < length && !truncates(i + 1, session); i++) {
 			Object component = Array.get(object, i);
 			components.add(component);
 		}
@@ -44,10 +45,14 @@ public class ArraySerializer extends AbstractCompositeSerializer implements Seri
 	@Override
 	public void populate(SerializedArray serializedObject, Object object, SerializerSession session) {
 		Class<?> type = object.getClass().getComponentType();
-		for (int i = 0; i < Array.getLength(object); i++) {
+		int length = Array.getLength(object);
+		for (int i = 0; i < length && !truncates(i + 1, session); i++) {
 			Object component = Array.get(object, i);
 			serializedObject.add(resolvedValueOf(session, type, component));
 		}
+		if (truncates(length, session)) {
+			serializedObject.truncate();
+		}
 	}
 
 }
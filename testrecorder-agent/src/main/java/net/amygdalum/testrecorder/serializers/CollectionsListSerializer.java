@@ -33,7 +33,7 @@ public class CollectionsListSerializer extends HiddenInnerClassSerializer<Serial
 	
 	@Override
 	public Stream<?> components(Object object, SerializerSession session) {
-		return ((List<?>) object).stream();
+		return captured(((List<?>) object).stream(), session);
 	}
 
 	@Override
@@ -43,21 +43,24 @@ public class CollectionsListSerializer extends HiddenInnerClassSerializer<Serial
 
 	@Override
 	public void populate(SerializedList serializedObject, Object object, SerializerSession session) {
-		Type componentType = computeComponentType(serializedObject, object);
+		Type componentType = computeComponentType(serializedObject, object, session);
 
-		for (Object element : (List<?>) object) {
-			serializedObject.add(resolvedValueOf(session, componentType, element));
+		List<?> elements = (List<?>) object;
+		captured(elements.stream(), session)
+			.forEach(element -> serializedObject.add(resolvedValueOf(session, componentType, element)));
+		if (truncates(elements.size(), session)) {
+			serializedObject.truncate();
 		}
 		serializedObject.useAs(parameterized(List.class, null, componentType));
 	}
 
-	private Type computeComponentType(SerializedList serializedObject, Object object) {
+	private Type computeComponentType(SerializedList serializedObject, Object object, SerializerSession session) {
 		if (object.getClass().getSimpleName().contains("Checked")) {
 			return getTypeField(object);
 		}
 		Stream<Type> definedTypes = Arrays.stream(serializedObject.getUsedTypes())
 			.map(type -> typeArgument(type, 0).orElse(Object.class));
-		Stream<Type> elementTypes = ((List<?>) object).stream()
+		Stream<Type> elementTypes = captured(((List<?>) object).stream(), session)
 			.filter(Objects::nonNull)
 			.map(element -> element.getClass());
 		Stream<Type> usedTypes = Stream.concat(definedTypes, elementTypes);
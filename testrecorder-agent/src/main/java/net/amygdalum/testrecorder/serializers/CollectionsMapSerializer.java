@@ -34,7 +34,7 @@ public class CollectionsMapSerializer extends HiddenInnerClassSerializer<Seriali
 
 	@Override
 	public Stream<?> components(Object object, SerializerSession session) {
-		return ((Map<?, ?>) object).entrySet().stream()
+		return captured(((Map<?, ?>) object).entrySet().stream(), session)
 			.flatMap(entry -> Stream.of(entry.getKey(), entry.getValue()));
 	}
 
@@ -45,33 +45,37 @@ public class CollectionsMapSerializer extends HiddenInnerClassSerializer<Seriali
 
 	@Override
 	public void populate(SerializedMap serializedObject, Object object, SerializerSession session) {
-		Type[] componentTypes = computeComponentType(serializedObject, object);
+		Type[] componentTypes = computeComponentType(serializedObject, object, session);
 		Type keyType = componentTypes[0];
 		Type valueType = componentTypes[1];
 
-		for (Map.Entry<?, ?> element : ((Map<?, ?>) object).entrySet()) {
+		Map<?, ?> entries = (Map<?, ?>) object;
+		captured(entries.entrySet().stream(), session).forEach(element -> {
 			Object key = element.getKey();
 			Object value = element.getValue();
 			serializedObject.put(resolvedValueOf(session, keyType, key), resolvedValueOf(session, valueType, value));
+		});
+		if (truncates(entries.size(), session)) {
+			serializedObject.truncate();
 		}
 		Type newType = parameterized(Map.class, null, componentTypes);
 		serializedObject.useAs(newType);
 	}
 
-	private Type[] computeComponentType(SerializedMap serializedObject, Object object) {
+	private Type[] computeComponentType(SerializedMap serializedObject, Object object, SerializerSession session) {
 		if (object.getClass().getSimpleName().contains("Checked")) {
 			return new Type[] { getKeyTypeField(object), getValueTypeField(object) };
 		}
 		Stream<Type> keyDefinedTypes = Arrays.stream(serializedObject.getUsedTypes())
 			.map(type -> typeArgument(type, 0).orElse(Object.class));
-		Stream<Type> keyElementTypes = ((Map<?, ?>) object).keySet().stream()
+		Stream<Type> keyElementTypes = captured(((Map<?, ?>) object).keySet().stream(), session)
 			.filter(Objects::nonNull)
 			.map(element -> element.getClass());
 		Stream<Type> keyTypes = Stream.concat(keyDefinedTypes, keyElementTypes);
 
 		Stream<Type> valueDefinedTypes = Arrays.stream(serializedObject.getUsedTypes())
 			.map(type -> typeArgument(type, 1).orElse(Object.class));
-		Stream<Type> valueElementTypes = ((Map<?, ?>) object).values().stream()
+		Stream<Type> valueElementTypes = captured(((Map<?, ?>) object).values().stream(), session)
 			.filter(Objects::nonNull)
 			.map(element -> element.getClass());
 		Stream<Type> valueTypes = Stream.concat(valueDefinedTypes, valueElementTypes);
@@ -34,7 +34,7 @@ public class CollectionsSetSerializer extends HiddenInnerClassSerializer<Seriali
 
 	@Override
 	public Stream<?> components(Object object, SerializerSession session) {
-		return ((Set<?>) object).stream();
+		return captured(((Set<?>) object).stream(), session);
 	}
 
 	@Override
@@ -44,21 +44,24 @@ public class CollectionsSetSerializer extends HiddenInnerClassSerializer<Seriali
 
 	@Override
 	public void populate(SerializedSet serializedObject, Object object, SerializerSession session) {
-		Type componentType = computeComponentType(serializedObject, object);
+		Type componentType = computeComponentType(serializedObject, object, session);
 
-		for (Object element : (Set<?>) object) {
-			serializedObject.add(resolvedValueOf(session, componentType, element));
+		Set<?> elements = (Set<?>) object;
+		captured(elements.stream(), session)
+			.forEach(element -> serializedObject.add(resolvedValueOf(session, componentType, element)));
+		if (truncates(elements.size(), session)) {
+			serializedObject.truncate();
 		}
 		serializedObject.useAs(parameterized(Set.class, null, componentType));
 	}
 
-	private Type computeComponentType(SerializedSet serializedObject, Object object) {
+	private Type computeComponentType(SerializedSet serializedObject, Object object, SerializerSession session) {
 		if (object.getClass().getSimpleName().contains("Checked")) {
 			return getTypeField(object);
 		}
 		Stream<Type> definedTypes = Arrays.stream(serializedObject.getUsedTypes())
 			.map(type -> typeArgument(type, 0).orElse(Object.class));
-		Stream<Type> elementTypes = ((Set<?>) object).stream()
+		Stream<Type> elementTypes = captured(((Set<?>) object).stream(), session)
 			.filter(Objects::nonNull)
 			.map(element -> element.getClass());
 		Stream<Type> usedTypes = Stream.concat(definedTypes, elementTypes);
@@ -25,7 +25,7 @@ public class DefaultDequeSerializer extends AbstractCompositeSerializer implemen
 
 	@Override
 	public Stream<?> components(Object object, SerializerSession session) {
-		return ((Deque<?>) object).stream();
+		return captured(((Deque<?>) object).stream(), session);
 	}
 
 	@Override
@@ -35,8 +35,11 @@ public class DefaultDequeSerializer extends AbstractCompositeSerializer implemen
 
 	@Override
 	public void populate(SerializedList serializedObject, Object object, SerializerSession session) {
-		for (Object element : (Deque<?>) object) {
-			serializedObject.add(resolvedValueOf(session, serializedObject.getComponentType(), element));
+		Deque<?> elements = (Deque<?>) object;
+		captured(elements.stream(), session)
+			.forEach(element -> serializedObject.add(resolvedValueOf(session, serializedObject.getComponentType(), element)));
+		if (truncates(elements.size(), session)) {
+			serializedObject.truncate();
 		}
 	}
 
@@ -24,7 +24,7 @@ public class DefaultListSerializer extends AbstractCompositeSerializer implement
 
 	@Override
 	public Stream<?> components(Object object, SerializerSession session) {
-		return ((List<?>) object).stream();
+		return captured(((List<?>) object).stream(), session);
 	}
 
 	@Override
@@ -34,8 +34,11 @@ public class DefaultListSerializer extends AbstractCompositeSerializer implement
 
 	@Override
 	public void populate(SerializedList serializedObject, Object object, SerializerSession session) {
-		for (Object element : (List<?>) object) {
-			serializedObject.add(resolvedValueOf(session, serializedObject.getComponentType(), element));
+		List<?> elements = (List<?>) object;
+		captured(elements.stream(), session)
+			.forEach(element -> serializedObject.add(resolvedValueOf(session, serializedObject.getComponentType(), element)));
+		if (truncates(elements.size(), session)) {
+			serializedObject.truncate();
 		}
 	}
 
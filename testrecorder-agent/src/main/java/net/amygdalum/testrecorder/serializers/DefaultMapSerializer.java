@@ -25,7 +25,7 @@ public class DefaultMapSerializer extends AbstractCompositeSerializer implements
 
 	@Override
 	public Stream<?> components(Object object, SerializerSession session) {
-		return ((Map<?, ?>) object).entrySet().stream()
+		return captured(((Map<?, ?>) object).entrySet().stream(), session)
 			.flatMap(entry -> Stream.of(entry.getKey(), entry.getValue()));
 	}
 
@@ -36,10 +36,14 @@ public class DefaultMapSerializer extends AbstractCompositeSerializer implements
 
 	@Override
 	public void populate(SerializedMap serializedObject, Object object, SerializerSession session) {
-		for (Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+		Map<?, ?> entries = (Map<?, ?>) object;
+		captured(entries.entrySet().stream(), session).forEach(entry -> {
 			Object key = entry.getKey();
 			Object value = entry.getValue();
 			serializedObject.put(resolvedValueOf(session, serializedObject.getMapKeyType(), key), resolvedValueOf(session, serializedObject.getMapValueType(), value));
+		});
+		if (truncates(entries.size(), session)) {
+			serializedObject.truncate();
 		}
 	}
 
@@ -28,7 +28,7 @@ public class DefaultQueueSerializer extends AbstractCompositeSerializer implemen
 
 	@Override
 	public Stream<?> components(Object object, SerializerSession session) {
-		return ((Queue<?>) object).stream();
+		return captured(((Queue<?>) object).stream(), session);
 	}
 
 	@Override
@@ -38,8 +38,11 @@ public class DefaultQueueSerializer extends AbstractCompositeSerializer implemen
 
 	@Override
 	public void populate(SerializedList serializedObject, Object object, SerializerSession session) {
-		for (Object element : (Queue<?>) object) {
-			serializedObject.add(resolvedValueOf(session, serializedObject.getComponentType(), element));
+		Queue<?> elements = (Queue<?>) object;
+		captured(elements.stream(), session)
+			.forEach(element -> serializedObject.add(resolvedValueOf(session, serializedObject.getComponentType(), element)));
+		if (truncates(elements.size(), session)) {
+			serializedObject.truncate();
 		}
 	}
 
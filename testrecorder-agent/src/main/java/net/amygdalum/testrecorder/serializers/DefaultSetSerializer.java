@@ -25,7 +25,7 @@ public class DefaultSetSerializer extends AbstractCompositeSerializer implements
 
 	@Override
 	public Stream<?> components(Object object, SerializerSession session) {
-		return ((Set<?>) object).stream();
+		return captured(((Set<?>) object).stream(), session);
 	}
 
 	@Override
@@ -35,8 +35,11 @@ public class DefaultSetSerializer extends AbstractCompositeSerializer implements
 
 	@Override
 	public void populate(SerializedSet serializedObject, Object object, SerializerSession session) {
-		for (Object element : (Set<?>) object) {
-			serializedObject.add(resolvedValueOf(session, serializedObject.getComponentType(), element));
+		Set<?> elements = (Set<?>) object;
+		captured(elements.stream(), session)
+			.forEach(element -> serializedObject.add(resolvedValueOf(session, serializedObject.getComponentType(), element)));
+		if (truncates(elements.size(), session)) {
+			serializedObject.truncate();
 		}
 	}
 
@@ -2,14 +2,13 @@ package net.amygdalum.testrecorder.serializers;
 
 import static java.util.Collections.emptyList;
 import static net.amygdalum.testrecorder.util.Types.baseType;
-import static net.amygdalum.testrecorder.util.Types.isPrimitive;
 import static net.amygdalum.testrecorder.values.SerializedNull.nullInstance;
 
-import java.lang.reflect.Field;
 import java.util.List;
 import java.util.stream.Stream;
 import java.util.stream.Stream.Builder;
 
+import net.amygdalum.testrecorder.types.ClassLayout.LayoutField;
 import net.amygdalum.testrecorder.types.SerializedReferenceType;
 import net.amygdalum.testrecorder.types.Serializer;
 import net.amygdalum.testrecorder.types.SerializerSession;
@@ -29,16 +28,8 @@ public class GenericSerializer extends AbstractCompositeSerializer implements Se
 	public Stream<?> components(Object object, SerializerSession session) {
 		Builder<Object> components = Stream.builder();
 		if (!session.facades(object)) {
-			Class<?> objectClass = object.getClass();
-			while (objectClass != Object.class && !session.excludes(objectClass)) {
-				for (Field f : objectClass.getDeclaredFields()) {
-					if (!session.excludes(f) && !session.facades(f)) {
-						if (!isPrimitive(f.getType())) {
-							components.add(fieldOf(object, f));
-						}
-					}
-				}
-				objectClass = objectClass.getSuperclass();
+			for (LayoutField f : session.layout(object.getClass()).getReferenceFields()) {
+				components.add(fieldOf(object, f));
 			}
 		}
 		return components.build();
@@ -59,14 +50,8 @@ public class GenericSerializer extends AbstractCompositeSerializer implements Se
 			return;
 		}
 		SerializedObject serializedObject = (SerializedObject) serializedValue;
-		Class<?> objectClass = object.getClass();
-		while (objectClass != Object.class && !session.excludes(objectClass)) {
-			for (Field f : objectClass.getDeclaredFields()) {
-				if (!session.excludes(f)) {
-					serializedObject.addField(resolvedFieldOf(session, object, f));
-				}
-			}
-			objectClass = objectClass.getSuperclass();
+		for (LayoutField f : session.layout(object.getClass()).getFields()) {
+			serializedObject.addField(resolvedFieldOf(session, object, f));
 		}
 	}
 
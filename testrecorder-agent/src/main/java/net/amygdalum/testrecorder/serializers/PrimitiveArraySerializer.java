@@ -0,0 +1,37 @@
+package net.amygdalum.testrecorder.serializers;
+
+import static java.util.Collections.emptyList;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import net.amygdalum.testrecorder.types.Serializer;
+import net.amygdalum.testrecorder.types.SerializerSession;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
+
+public class PrimitiveArraySerializer implements Serializer<SerializedPrimitiveArray> {
+
+	public PrimitiveArraySerializer() {
+	}
+
+	@Override
+	public Stream<?> components(Object object, SerializerSession session) {
+		return Stream.empty();
+	}
+
+	@Override
+	public List<Class<?>> getMatchingClasses() {
+		return emptyList();
+	}
+
+	@Override
+	public SerializedPrimitiveArray generate(Class<?> type, SerializerSession session) {
+		return new SerializedPrimitiveArray(type);
+	}
+
+	@Override
+	public void populate(SerializedPrimitiveArray serializedObject, Object object, SerializerSession session) {
+		serializedObject.setArray(object);
+	}
+
+}
@@ -20,4 +20,49 @@ public interface SerializerFacade {
 
 	SerializerSession newSession();
 
+	/**
+	 * returns a new session that captures objects with a reduced budget. Such sessions are used for snapshots that are
+	 * serialized while the serialization workers are overloaded.
+	 */
+	SerializerSession newDegradedSession();
+
+	/**
+	 * returns a session that is no longer used. The facade may reset it and return it from one of the next calls to
+	 * {@link #newSession()}, so neither the session nor its state may be used after release.
+	 *
+	 * @param session a session that was created by this facade
+	 */
+	void release(SerializerSession session);
+
+	/**
+	 * keeps the state of all objects recorded while serializing in the given session, such that a later session may reuse the
+	 * values of objects that did not change (see {@link #reuse(SerializerSession, SerializerSession)})
+	 *
+	 * @param session a session that was tracked (see {@link #track(SerializerSession)}) and is completely serialized
+	 */
+	void retain(SerializerSession session);
+
+	/**
+	 * lets the given session reuse the values of the previous session for all objects that did not change since they were
+	 * serialized in the previous session
+	 *
+	 * @param previous a session that was retained before
+	 * @param session a new session
+	 */
+	void reuse(SerializerSession previous, SerializerSession session);
+
+	/**
+	 * makes the given session record the state of each object when it is serialized, such that changes of the serialized
+	 * objects can be detected afterwards (see {@link #changed(SerializerSession)})
+	 *
+	 * @param session a new session
+	 */
+	void track(SerializerSession session);
+
+	/**
+	 * @param session a tracked session (see {@link #track(SerializerSession)})
+	 * @return true if any object serialized in the given session changed since it was serialized
+	 */
+	boolean changed(SerializerSession session);
+
 }
@@ -13,6 +13,7 @@ public abstract class AbstractSerializedInteraction implements SerializedInterac
 	protected MethodSignature signature;
 	protected SerializedResult result;
 	protected SerializedArgument[] arguments;
+	protected transient boolean returned;
 
 	public AbstractSerializedInteraction(int id, MethodSignature signature) {
 		this.id = id;
@@ -40,6 +41,18 @@ public abstract class AbstractSerializedInteraction implements SerializedInterac
 		return true;
 	}
 
+	/**
+	 * marks this interaction as returned, i.e. the interaction call has completed on the recorded thread.
+	 * Serializing the arguments and the result may yet be pending.
+	 */
+	public void markReturned() {
+		this.returned = true;
+	}
+
+	public boolean hasReturned() {
+		return returned;
+	}
+
 	@Override
 	public boolean hasResult() {
 		return signature.resultType != null
@@ -52,6 +65,10 @@ public abstract class AbstractSerializedInteraction implements SerializedInterac
 		return id;
 	}
 
+	public MethodSignature getSignature() {
+		return signature;
+	}
+
 	@Override
 	public Class<?> getDeclaringClass() {
 		return signature.declaringClass;
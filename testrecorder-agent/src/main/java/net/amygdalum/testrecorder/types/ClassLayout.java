@@ -0,0 +1,145 @@
+package net.amygdalum.testrecorder.types;
+
+import static java.util.Collections.unmodifiableList;
+import static net.amygdalum.testrecorder.util.Reflections.accessing;
+import static net.amygdalum.testrecorder.util.Types.serializableOf;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import net.amygdalum.testrecorder.util.Types;
+
+/**
+ * The fields of a class that are relevant to serialization, computed once per class and serialization profile:
+ * <ul>
+ * <li>the included fields (declared in the class and its super classes up to the first excluded class, and not excluded themselves)</li>
+ * <li>the included fields of reference type (i.e. the components of an object)</li>
+ * <li>the facaded fields (declared in the class and all its super classes)</li>
+ * </ul>
+ * All fields are accessible without further access checks.
+ */
+public class ClassLayout {
+
+	private Class<?> type;
+	private boolean facade;
+	private List<LayoutField> fields;
+	private List<LayoutField> referenceFields;
+	private List<LayoutField> facadeFields;
+
+	private ClassLayout(Class<?> type, boolean facade, List<LayoutField> fields, List<LayoutField> referenceFields, List<LayoutField> facadeFields) {
+		this.type = type;
+		this.facade = facade;
+		this.fields = unmodifiableList(fields);
+		this.referenceFields = unmodifiableList(referenceFields);
+		this.facadeFields = unmodifiableList(facadeFields);
+	}
+
+	public static ClassLayout of(Class<?> type, Predicate<Class<?>> excludedClass, Predicate<Field> excludedField, Predicate<Class<?>> facadedClass, Predicate<Field> facadedField) {
+		List<LayoutField> fields = new ArrayList<>();
+		List<LayoutField> referenceFields = new ArrayList<>();
+		List<LayoutField> facadeFields = new ArrayList<>();
+		boolean included = true;
+		Class<?> current = type;
+		while (current != null && current != Object.class) {
+			included &= !excludedClass.test(current);
+			for (Field field : current.getDeclaredFields()) {
+				LayoutField layoutField = null;
+				if (included && !excludedField.test(field)) {
+					layoutField = new LayoutField(field);
+					fields.add(layoutField);
+					if (!layoutField.isPrimitive()) {
+						referenceFields.add(layoutField);
+					}
+				}
+				if (facadedField.test(field)) {
+					facadeFields.add(layoutField != null ? layoutField : new LayoutField(field));
+				}
+			}
+			current = current.getSuperclass();
+		}
+		return new ClassLayout(type, facadedClass.test(type), fields, referenceFields, facadeFields);
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * @return true if instances of this class should be facaded
+	 */
+	public boolean isFacade() {
+		return facade;
+	}
+
+	public List<LayoutField> getFields() {
+		return fields;
+	}
+
+	public List<LayoutField> getReferenceFields() {
+		return referenceFields;
+	}
+
+	public List<LayoutField> getFacadeFields() {
+		return facadeFields;
+	}
+
+	public static class LayoutField {
+
+		private Field field;
+		private Type type;
+		private boolean primitive;
+		private boolean accessible;
+
+		public LayoutField(Field field) {
+			this.field = field;
+			this.type = serializableOf(field.getGenericType());
+			this.primitive = Types.isPrimitive(field.getType());
+			this.accessible = makeAccessible(field);
+		}
+
+		private static boolean makeAccessible(Field field) {
+			try {
+				field.setAccessible(true);
+				return true;
+			} catch (SecurityException e) {
+				return false;
+			}
+		}
+
+		public Field getField() {
+			return field;
+		}
+
+		public String getName() {
+			return field.getName();
+		}
+
+		public Class<?> getDeclaringClass() {
+			return field.getDeclaringClass();
+		}
+
+		public Type getType() {
+			return type;
+		}
+
+		public boolean isPrimitive() {
+			return primitive;
+		}
+
+		public FieldSignature getSignature() {
+			return new FieldSignature(field.getDeclaringClass(), type, field.getName());
+		}
+
+		public Object get(Object object) throws ReflectiveOperationException {
+			if (accessible) {
+				return field.get(object);
+			}
+			return accessing(field).call(f -> f.get(object));
+		}
+
+	}
+
+}
@@ -6,6 +6,8 @@ import java.lang.reflect.Type;
 import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
@@ -37,6 +39,12 @@ public class ContextSnapshot implements Serializable {
 	private Deque<SerializedInput> setupInput;
 	private Deque<SerializedOutput> expectOutput;
 
+	/**
+	 * interactions that are not yet completed, only needed while recording (and created on the first interaction)
+	 */
+	private transient Map<Integer, SerializedInput> pendingInput;
+	private transient Map<Integer, SerializedOutput> pendingOutput;
+
 	private ContextSnapshot() {
 		this.valid = false;
 		this.setupInput = new ArrayDeque<>();
@@ -56,6 +64,10 @@ public class ContextSnapshot implements Serializable {
 		return signature.getClassLoader();
 	}
 
+	public VirtualMethodSignature getSignature() {
+		return signature;
+	}
+
 	public String getKey() {
 		return key;
 	}
@@ -246,6 +258,33 @@ public class ContextSnapshot implements Serializable {
 
 	public void addInput(SerializedInput input) {
 		setupInput.add(input);
+		if (pendingInput == null) {
+			pendingInput = new HashMap<>();
+		}
+		pendingInput.put(input.id(), input);
+	}
+
+	/**
+	 * @param id the id of a recorded input interaction
+	 * @return the input interaction with the given id, if it was not yet completed
+	 */
+	public Optional<SerializedInput> onPendingInput(int id) {
+		if (pendingInput == null) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(pendingInput.get(id));
+	}
+
+	/**
+	 * removes the input interaction with the given id from the pending interactions. The interaction is kept in the setup input.
+	 * 
+	 * @param id the id of a recorded input interaction
+	 */
+	public void completeInput(int id) {
+		if (pendingInput == null) {
+			return;
+		}
+		pendingInput.remove(id);
 	}
 
 	public Queue<SerializedInput> getSetupInput() {
@@ -268,6 +307,33 @@ public class ContextSnapshot implements Serializable {
 
 	public void addOutput(SerializedOutput output) {
 		expectOutput.add(output);
+		if (pendingOutput == null) {
+			pendingOutput = new HashMap<>();
+		}
+		pendingOutput.put(output.id(), output);
+	}
+
+	/**
+	 * @param id the id of a recorded output interaction
+	 * @return the output interaction with the given id, if it was not yet completed
+	 */
+	public Optional<SerializedOutput> onPendingOutput(int id) {
+		if (pendingOutput == null) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(pendingOutput.get(id));
+	}
+
+	/**
+	 * removes the output interaction with the given id from the pending interactions. The interaction is kept in the expected output.
+	 * 
+	 * @param id the id of a recorded output interaction
+	 */
+	public void completeOutput(int id) {
+		if (pendingOutput == null) {
+			return;
+		}
+		pendingOutput.remove(id);
 	}
 
 	public Queue<SerializedOutput> getExpectOutput() {
@@ -1,59 +1,73 @@
 package net.amygdalum.testrecorder.types;
 
-public class Profile implements Comparable<Profile> {
+/**
+ * The accumulated cost of serializer calls, e.g. of all calls on objects of one class or of all calls of one serializer.
+ * Durations are measured with {@link System#nanoTime()}.
+ *
+ * A profile is not thread safe, it should only be updated by one thread at a time.
+ */
+public class Profile {
 
-	public long start;
-	public long duration;
-	public Class<?> type;
+	private long calls;
+	private long totalNanos;
+	private long maxNanos;
+	private long objects;
+	private long components;
 
-	private Profile(Class<?> type) {
-		this.type = type;
-		this.duration = Long.MAX_VALUE;
+	public Profile() {
 	}
 
-	public static Profile start(Class<?> type) {
-		Profile serialization = new Profile(type);
-		serialization.start = System.currentTimeMillis();
-		return serialization;
+	/**
+	 * records one call of a serializer
+	 *
+	 * @param durationInNanos the time spent in the call
+	 * @param objects the number of objects serialized by this call
+	 * @param components the number of components (fields or elements) visited by this call
+	 */
+	public void record(long durationInNanos, int objects, int components) {
+		this.calls++;
+		this.totalNanos += durationInNanos;
+		this.maxNanos = Math.max(maxNanos, durationInNanos);
+		this.objects += objects;
+		this.components += components;
 	}
 
-	public Profile stop() {
-		this.duration = System.currentTimeMillis() - start;
-		return this;
+	/**
+	 * adds all calls recorded by another profile to this profile
+	 *
+	 * @param profile the profile to add
+	 */
+	public void add(Profile profile) {
+		this.calls += profile.calls;
+		this.totalNanos += profile.totalNanos;
+		this.maxNanos = Math.max(maxNanos, profile.maxNanos);
+		this.objects += profile.objects;
+		this.components += profile.components;
 	}
 
-	@Override
-	public int hashCode() {
-		return type.hashCode();
+	public long getCalls() {
+		return calls;
 	}
 
-	@Override
-	public int compareTo(Profile that) {
-		int compare = Long.compare(that.duration, this.duration);
-		if (compare == 0) {
-			compare = Long.compare(this.start, that.start);
-		}
-		return compare;
+	public long getTotalNanos() {
+		return totalNanos;
 	}
 
-	@Override
-	public boolean equals(Object obj) {
-		if (this == obj) {
-			return true;
-		}
-		if (obj == null) {
-			return false;
-		}
-		if (getClass() != obj.getClass()) {
-			return false;
-		}
-		Profile that = (Profile) obj;
-		return this.type.equals(that.type);
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	public long getObjects() {
+		return objects;
+	}
+
+	public long getComponents() {
+		return components;
 	}
 
 	@Override
 	public String toString() {
-		return type.getName() + ":" + (duration == Long.MAX_VALUE ? "timeout" : duration);
+		return "calls=" + calls + ", total=" + totalNanos + "ns, max=" + maxNanos + "ns, objects=" + objects + ", components=" + components;
 	}
 
 }
@@ -2,14 +2,10 @@ package net.amygdalum.testrecorder.types;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Type;
-import java.util.List;
+import java.util.Map;
 
 public interface SerializerSession {
 
-	Profile log(Type type);
-
-	List<Profile> dumpProfiles();
-
 	AnalyzedObject analyze(Object object);
 
 	SerializedValue find(Object component);
@@ -24,5 +20,40 @@ public interface SerializerSession {
 
 	boolean facades(Object object);
 
+	/**
+	 * @return the fields of the given class that are relevant to serialization in this session
+	 */
+	ClassLayout layout(Class<?> clazz);
+
+	/**
+	 * @return the number of objects that were resolved in this session
+	 */
+	int visited();
+
+	/**
+	 * @return the maximum number of elements (or entries) captured of a collection, map or array, 0 if not limited
+	 */
+	int maxElements();
+
+	/**
+	 * records a call of a serializer on an object of the given class
+	 *
+	 * @param type the concrete class of the serialized object
+	 * @param serializer the called serializer
+	 * @param durationInNanos the time spent in the call
+	 * @param objects the number of objects serialized by this call
+	 * @param components the number of components (fields or elements) visited by this call
+	 */
+	void profile(Class<?> type, Serializer<?> serializer, long durationInNanos, int objects, int components);
+
+	/**
+	 * @return the profiles of all classes serialized in this session
+	 */
+	Map<Class<?>, Profile> getClassProfiles();
+
+	/**
+	 * @return the profiles of all serializers (by serializer class) called in this session
+	 */
+	Map<Class<?>, Profile> getSerializerProfiles();
 
 }
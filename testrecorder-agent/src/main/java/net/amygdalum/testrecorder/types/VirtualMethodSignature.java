@@ -1,11 +1,13 @@
 package net.amygdalum.testrecorder.types;
 
+import static java.util.Collections.newSetFromMap;
+
 import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.amygdalum.testrecorder.util.Types;
 
@@ -13,7 +15,7 @@ public class VirtualMethodSignature implements Serializable {
 
 	public static final VirtualMethodSignature NULL = new VirtualMethodSignature() {
 		@Override
-		public synchronized boolean validIn(Class<?> clazz) {
+		public boolean validIn(Class<?> clazz) {
 			return false;
 		}
 		
@@ -30,15 +32,15 @@ public class VirtualMethodSignature implements Serializable {
 	private Set<Class<?>> invalid;
 
 	private VirtualMethodSignature() {
-		this.valid = new HashSet<>();
-		this.invalid = new HashSet<>();
+		this.valid = newSetFromMap(new ConcurrentHashMap<>());
+		this.invalid = newSetFromMap(new ConcurrentHashMap<>());
 	}
 
 	public VirtualMethodSignature(MethodSignature signature) {
 		this.signature = signature;
 
-		this.valid = new HashSet<>();
-		this.invalid = new HashSet<>();
+		this.valid = newSetFromMap(new ConcurrentHashMap<>());
+		this.invalid = newSetFromMap(new ConcurrentHashMap<>());
 	}
 
 	public static VirtualMethodSignature fromDescriptor(Method method) {
@@ -54,7 +56,7 @@ public class VirtualMethodSignature implements Serializable {
 		return signature.getClassLoader();
 	}
 
-	public synchronized boolean validIn(Class<?> clazz) {
+	public boolean validIn(Class<?> clazz) {
 		if (valid.contains(clazz)) {
 			return true;
 		} else if (invalid.contains(clazz)) {
@@ -22,6 +22,7 @@ public class SerializedArray extends AbstractSerializedReferenceType implements
 
 	private Type componentType;
 	private List<SerializedValue> array;
+	private boolean truncated;
 
 	public SerializedArray(Class<?> type) {
 		super(type);
@@ -40,6 +41,24 @@ public class SerializedArray extends AbstractSerializedReferenceType implements
 		return componentType;
 	}
 
+	void setComponentType(Type componentType) {
+		this.componentType = componentType;
+	}
+
+	/**
+	 * @return true if only the first elements of the original array were captured
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * marks this array as truncated, i.e. it contains only the first elements of the original array
+	 */
+	public void truncate() {
+		this.truncated = true;
+	}
+
 	public Class<?> getRawType() {
 		return baseType(getComponentType());
 	}
@@ -30,6 +30,7 @@ public class SerializedList extends AbstractSerializedReferenceType implements S
 
 	private Type componentType;
 	private List<SerializedValue> list;
+	private boolean truncated;
 
 	public SerializedList(Class<?> type) {
 		super(type);
@@ -48,6 +49,24 @@ public class SerializedList extends AbstractSerializedReferenceType implements S
 		return componentType;
 	}
 
+	void setComponentType(Type componentType) {
+		this.componentType = componentType;
+	}
+
+	/**
+	 * @return true if only the first elements of the original collection were captured
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * marks this collection as truncated, i.e. it contains only the first elements of the original collection
+	 */
+	public void truncate() {
+		this.truncated = true;
+	}
+
 	private Stream<Type> getComponentTypeCandidates() {
 		return Arrays.stream(getUsedTypes())
 			.filter(type -> typeArguments(type).count() == 1)
@@ -4,22 +4,26 @@ import static java.util.Collections.emptyList;
 import static net.amygdalum.testrecorder.util.Types.baseType;
 
 import java.lang.reflect.Type;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import net.amygdalum.testrecorder.types.RoleVisitor;
 import net.amygdalum.testrecorder.types.SerializedValue;
 import net.amygdalum.testrecorder.types.SerializedValueType;
+import net.amygdalum.testrecorder.util.InternPool;
 
 /**
  * Serializing to SerializedLiteral is only valid for primitive types and non-null Strings. For this use the factory method 
  * {@link #literal(Type, Object)}
+ * 
+ * Literals are immutable, so equal literals are shared across all serializations. The literal pool is bounded and only weakly
+ * references its literals.
  */
 public class SerializedLiteral extends AbstractSerializedValue implements SerializedValueType {
 
-    private static final Map<Object, SerializedLiteral> KNOWN_PRIMITIVE_LITERALS = new HashMap<>();
-    private static final Map<Object, SerializedLiteral> KNOWN_LITERALS = new HashMap<>();
+    private static final int POOL_CAPACITY = 1 << 16;
+
+    private static final InternPool<Object, SerializedLiteral> KNOWN_PRIMITIVE_LITERALS = new InternPool<>(POOL_CAPACITY);
+    private static final InternPool<Object, SerializedLiteral> KNOWN_LITERALS = new InternPool<>(POOL_CAPACITY);
 
     private Object value;
 
@@ -34,9 +38,9 @@ public class SerializedLiteral extends AbstractSerializedValue implements Serial
 
     public static SerializedLiteral literal(Type type, Object value) {
         if (baseType(type).isPrimitive()) {
-            return KNOWN_PRIMITIVE_LITERALS.computeIfAbsent(value, val -> new SerializedLiteral(baseType(type), val));
+            return KNOWN_PRIMITIVE_LITERALS.intern(value, val -> new SerializedLiteral(baseType(type), val));
         } else {
-            return KNOWN_LITERALS.computeIfAbsent(value, val -> new SerializedLiteral(baseType(type), val));
+            return KNOWN_LITERALS.intern(value, val -> new SerializedLiteral(baseType(type), val));
         }
     }
 
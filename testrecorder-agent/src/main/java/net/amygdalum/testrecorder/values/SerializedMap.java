@@ -33,6 +33,7 @@ public class SerializedMap extends AbstractSerializedReferenceType implements Se
 	private Type keyType;
 	private Type valueType;
 	private Map<SerializedValue, SerializedValue> map;
+	private boolean truncated;
 
 	public SerializedMap(Class<?> type) {
 		super(type);
@@ -57,6 +58,25 @@ public class SerializedMap extends AbstractSerializedReferenceType implements Se
 		return valueType;
 	}
 
+	void setMapTypes(Type keyType, Type valueType) {
+		this.keyType = keyType;
+		this.valueType = valueType;
+	}
+
+	/**
+	 * @return true if only the first entries of the original map were captured
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * marks this map as truncated, i.e. it contains only the first entries of the original map
+	 */
+	public void truncate() {
+		this.truncated = true;
+	}
+
 	private Stream<Type> getKeyTypeCandidates() {
 		return Arrays.stream(getUsedTypes())
 			.filter(type -> typeArguments(type).count() == 2)
@@ -0,0 +1,91 @@
+package net.amygdalum.testrecorder.values;
+
+import static java.util.Collections.emptyList;
+
+import java.lang.reflect.Array;
+import java.util.List;
+
+import net.amygdalum.testrecorder.types.ReferenceTypeVisitor;
+import net.amygdalum.testrecorder.types.RoleVisitor;
+import net.amygdalum.testrecorder.types.SerializedAggregateType;
+import net.amygdalum.testrecorder.types.SerializedValue;
+
+/**
+ * Serializing to SerializedPrimitiveArray is restricted to arrays with a primitive component type. In contrast to
+ * {@link SerializedArray} the elements are not wrapped into {@link SerializedLiteral}s, the value keeps a copy of the
+ * original array.
+ *
+ * Primitive elements cannot reference other values, so the elements are not reported as {@link #elements()}.
+ */
+public class SerializedPrimitiveArray extends AbstractSerializedReferenceType implements SerializedAggregateType {
+
+	private Class<?> componentType;
+	private Object array;
+
+	public SerializedPrimitiveArray(Class<?> type) {
+		super(type);
+		this.componentType = type.getComponentType();
+		this.array = Array.newInstance(componentType, 0);
+	}
+
+	@Override
+	public List<SerializedValue> elements() {
+		return emptyList();
+	}
+
+	public Class<?> getComponentType() {
+		return componentType;
+	}
+
+	/**
+	 * @return the captured array (not a copy), callers must not modify it
+	 */
+	public Object getArray() {
+		return array;
+	}
+
+	/**
+	 * captures a copy of the given array
+	 *
+	 * @param array an array with the component type of this value
+	 */
+	public void setArray(Object array) {
+		int length = Array.getLength(array);
+		Object copy = Array.newInstance(componentType, length);
+		System.arraycopy(array, 0, copy, 0, length);
+		this.array = copy;
+	}
+
+	@Override
+	public List<SerializedValue> referencedValues() {
+		return emptyList();
+	}
+
+	@Override
+	public <T> T accept(RoleVisitor<T> visitor) {
+		return visitor.visitReferenceType(this);
+	}
+
+	@Override
+	public <T> T accept(ReferenceTypeVisitor<T> visitor) {
+		return visitor.visitAggregateType(this);
+	}
+
+	/**
+	 * @param index the index of the element
+	 * @return the element at the given index, wrapped as literal
+	 */
+	public SerializedValue get(int index) {
+		return SerializedLiteral.literal(componentType, Array.get(array, index));
+	}
+
+	public int size() {
+		return Array.getLength(array);
+	}
+
+	@Override
+	public String toString() {
+		return ValuePrinter.print(this);
+	}
+
+}
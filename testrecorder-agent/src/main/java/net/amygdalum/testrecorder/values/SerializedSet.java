@@ -31,6 +31,7 @@ public class SerializedSet extends AbstractSerializedReferenceType implements Se
 
 	private Type componentType;
 	private Set<SerializedValue> set;
+	private boolean truncated;
 
 	public SerializedSet(Class<?> type) {
 		super(type);
@@ -47,6 +48,24 @@ public class SerializedSet extends AbstractSerializedReferenceType implements Se
 		return componentType;
 	}
 
+	void setComponentType(Type componentType) {
+		this.componentType = componentType;
+	}
+
+	/**
+	 * @return true if only the first elements of the original collection were captured
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * marks this collection as truncated, i.e. it contains only the first elements of the original collection
+	 */
+	public void truncate() {
+		this.truncated = true;
+	}
+
 	private Stream<Type> getComponentTypeCandidates() {
 		return Arrays.stream(getUsedTypes())
 			.filter(type -> typeArguments(type).count() == 1)
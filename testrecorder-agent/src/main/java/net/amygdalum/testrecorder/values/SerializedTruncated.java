@@ -0,0 +1,46 @@
+package net.amygdalum.testrecorder.values;
+
+import static java.util.Collections.emptyList;
+
+import java.util.List;
+
+import net.amygdalum.testrecorder.types.ReferenceTypeVisitor;
+import net.amygdalum.testrecorder.types.RoleVisitor;
+import net.amygdalum.testrecorder.types.SerializedImmutableType;
+import net.amygdalum.testrecorder.types.SerializedValue;
+
+/**
+ * Serializing to SerializedTruncated marks an object that was not captured because the capture budget (depth or objects) was
+ * exhausted. It only knows the type of the original object, not its state. Collections beyond the element budget are not
+ * truncated this way, they keep their first elements and are marked as truncated themselves.
+ *
+ * Setup generators should replace it by a facade (i.e. an object without state), matcher generators should skip assertions
+ * on it.
+ */
+public class SerializedTruncated extends AbstractSerializedReferenceType implements SerializedImmutableType {
+
+	public SerializedTruncated(Class<?> type) {
+		super(type);
+	}
+
+	@Override
+	public List<SerializedValue> referencedValues() {
+		return emptyList();
+	}
+
+	@Override
+	public <T> T accept(RoleVisitor<T> visitor) {
+		return visitor.visitReferenceType(this);
+	}
+
+	@Override
+	public <T> T accept(ReferenceTypeVisitor<T> visitor) {
+		return visitor.visitImmutableType(this);
+	}
+
+	@Override
+	public String toString() {
+		return ValuePrinter.print(this);
+	}
+
+}
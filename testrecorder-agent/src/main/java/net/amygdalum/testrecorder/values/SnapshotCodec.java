@@ -0,0 +1,1360 @@
+package net.amygdalum.testrecorder.values;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.GenericDeclaration;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.amygdalum.testrecorder.types.AbstractSerializedInteraction;
+import net.amygdalum.testrecorder.types.ContextSnapshot;
+import net.amygdalum.testrecorder.types.FieldSignature;
+import net.amygdalum.testrecorder.types.MethodSignature;
+import net.amygdalum.testrecorder.types.SerializedArgument;
+import net.amygdalum.testrecorder.types.SerializedField;
+import net.amygdalum.testrecorder.types.SerializedInput;
+import net.amygdalum.testrecorder.types.SerializedOutput;
+import net.amygdalum.testrecorder.types.SerializedResult;
+import net.amygdalum.testrecorder.types.SerializedValue;
+import net.amygdalum.testrecorder.types.VirtualMethodSignature;
+import net.amygdalum.testrecorder.util.SerializableTypeVariable;
+import net.amygdalum.testrecorder.util.Types;
+
+/**
+ * A compact binary format for {@link ContextSnapshot}s and graphs of {@link SerializedValue}s, an alternative to java
+ * serialization which repeats class descriptors and is verbose on {@link Type}s.
+ *
+ * An encoding starts with a magic number and a format version. Strings, types, signatures and values are written once, the
+ * first occurrence defines a new table entry and each later occurrence is written as a varint reference to this entry (so
+ * shared and cyclic values are preserved). Primitive arrays are written as raw bulk data.
+ *
+ * Values that are not known to this codec are embedded with java serialization. A codec is not thread safe.
+ */
+public class SnapshotCodec {
+
+	public static final int MAGIC = 0x54525342;
+	public static final int VERSION = 2;
+
+	private static final int NULL_REF = 0;
+	private static final int NEW_REF = 1;
+
+	private static final byte LITERAL = 0;
+	private static final byte NULL = 1;
+	private static final byte VOID = 2;
+	private static final byte OBJECT = 3;
+	private static final byte ARRAY = 4;
+	private static final byte PRIMITIVE_ARRAY = 5;
+	private static final byte LIST = 6;
+	private static final byte SET = 7;
+	private static final byte MAP = 8;
+	private static final byte ENUM = 9;
+	private static final byte IMMUTABLE = 10;
+	private static final byte LAMBDA = 11;
+	private static final byte PROXY = 12;
+	private static final byte TRUNCATED = 13;
+	private static final byte SERIALIZED = 14;
+
+	private static final byte CLASS = 0;
+	private static final byte PARAMETERIZED = 1;
+	private static final byte GENERIC_ARRAY = 2;
+	private static final byte WILDCARD = 3;
+	private static final byte TYPE_VARIABLE = 4;
+
+	private static final byte NO_DECLARATION = 0;
+	private static final byte CLASS_DECLARATION = 1;
+	private static final byte METHOD_DECLARATION = 2;
+	private static final byte CONSTRUCTOR_DECLARATION = 3;
+
+	private static final byte PLAIN_NULL = 0;
+	private static final byte PLAIN_BOOLEAN = 1;
+	private static final byte PLAIN_BYTE = 2;
+	private static final byte PLAIN_SHORT = 3;
+	private static final byte PLAIN_CHAR = 4;
+	private static final byte PLAIN_INT = 5;
+	private static final byte PLAIN_LONG = 6;
+	private static final byte PLAIN_FLOAT = 7;
+	private static final byte PLAIN_DOUBLE = 8;
+	private static final byte PLAIN_STRING = 9;
+	private static final byte PLAIN_CLASS = 10;
+	private static final byte PLAIN_BIG_INTEGER = 11;
+	private static final byte PLAIN_BIG_DECIMAL = 12;
+	private static final byte PLAIN_SERIALIZED = 13;
+
+	private static final byte NO_SIGNATURE = 0;
+	private static final byte NULL_SIGNATURE = 1;
+	private static final byte METHOD_SIGNATURE = 2;
+
+	private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+
+	static {
+		for (Class<?> primitive : new Class<?>[] { boolean.class, byte.class, short.class, char.class, int.class, long.class, float.class, double.class, void.class }) {
+			PRIMITIVES.put(primitive.getName(), primitive);
+		}
+	}
+
+	private ClassLoader loader;
+
+	public SnapshotCodec() {
+		this(SnapshotCodec.class.getClassLoader());
+	}
+
+	/**
+	 * @param loader the class loader resolving the classes of decoded snapshots
+	 */
+	public SnapshotCodec(ClassLoader loader) {
+		this.loader = loader;
+	}
+
+	public byte[] encode(ContextSnapshot snapshot) throws IOException {
+		Encoder encoder = new Encoder();
+		encoder.writeHeader();
+		encoder.writeSnapshot(snapshot);
+		return encoder.toByteArray();
+	}
+
+	public ContextSnapshot decode(byte[] bytes) throws IOException {
+		Decoder decoder = new Decoder(bytes);
+		decoder.readHeader();
+		return decoder.readSnapshot();
+	}
+
+	/**
+	 * decodes only the time and the key of an encoded snapshot. Neither the signature nor the values of the snapshot are
+	 * decoded, so this does not load any recorded class.
+	 *
+	 * @param bytes the encoded snapshot
+	 * @return a snapshot with time and key, but without signature and values
+	 * @throws IOException if the bytes are not an encoded snapshot
+	 */
+	public ContextSnapshot decodeHeader(byte[] bytes) throws IOException {
+		Decoder decoder = new Decoder(bytes);
+		decoder.readHeader();
+		decoder.readBoolean();
+		long time = decoder.readVarLong();
+		String key = decoder.readString();
+		return new ContextSnapshot(time, key, null);
+	}
+
+	public byte[] encodeValue(SerializedValue value) throws IOException {
+		Encoder encoder = new Encoder();
+		encoder.writeHeader();
+		encoder.writeValue(value);
+		return encoder.toByteArray();
+	}
+
+	public SerializedValue decodeValue(byte[] bytes) throws IOException {
+		Decoder decoder = new Decoder(bytes);
+		decoder.readHeader();
+		return decoder.readValue();
+	}
+
+	private static class Encoder {
+
+		private byte[] buffer;
+		private int pos;
+
+		private Map<String, Integer> strings;
+		private Map<Type, Integer> types;
+		private Map<Object, Integer> signatures;
+		private Map<SerializedValue, Integer> values;
+
+		Encoder() {
+			this.buffer = new byte[256];
+			this.strings = new HashMap<>();
+			this.types = new HashMap<>();
+			this.signatures = new HashMap<>();
+			this.values = new IdentityHashMap<>();
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(buffer, pos);
+		}
+
+		void writeHeader() {
+			writeFixedInt(MAGIC);
+			writeVarInt(VERSION);
+		}
+
+		void writeSnapshot(ContextSnapshot snapshot) throws IOException {
+			writeBoolean(snapshot.isValid());
+			writeVarLong(snapshot.getTime());
+			writeString(snapshot.getKey());
+			VirtualMethodSignature signature = snapshot.getSignature();
+			if (signature == null) {
+				writeByte(NO_SIGNATURE);
+			} else if (signature == VirtualMethodSignature.NULL) {
+				writeByte(NULL_SIGNATURE);
+			} else {
+				writeByte(METHOD_SIGNATURE);
+				writeMethodSignature(signature.signature);
+			}
+
+			writeValue(snapshot.getSetupThis());
+			writeArguments(snapshot.getSetupArgs());
+			writeFields(snapshot.getSetupGlobals());
+
+			writeValue(snapshot.getExpectThis());
+			SerializedResult expectResult = snapshot.getExpectResult();
+			writeValue(expectResult == null ? null : expectResult.getValue());
+			writeValue(snapshot.getExpectException());
+			writeArguments(snapshot.getExpectArgs());
+			writeFields(snapshot.getExpectGlobals());
+
+			writeVarInt(snapshot.getSetupInput().size());
+			for (SerializedInput input : snapshot.getSetupInput()) {
+				writeInteraction(input, snapshot.onPendingInput(input.id()).isPresent());
+			}
+			writeVarInt(snapshot.getExpectOutput().size());
+			for (SerializedOutput output : snapshot.getExpectOutput()) {
+				writeInteraction(output, snapshot.onPendingOutput(output.id()).isPresent());
+			}
+		}
+
+		private void writeArguments(SerializedArgument[] arguments) throws IOException {
+			if (arguments == null) {
+				writeVarInt(0);
+				return;
+			}
+			writeVarInt(arguments.length + 1);
+			for (SerializedArgument argument : arguments) {
+				writeValue(argument.getValue());
+			}
+		}
+
+		private void writeFields(SerializedField[] fields) throws IOException {
+			if (fields == null) {
+				writeVarInt(0);
+				return;
+			}
+			writeVarInt(fields.length + 1);
+			for (SerializedField field : fields) {
+				writeField(field);
+			}
+		}
+
+		private void writeField(SerializedField field) throws IOException {
+			writeFieldSignature(field.getSignature());
+			writeValue(field.getValue());
+		}
+
+		private void writeInteraction(AbstractSerializedInteraction interaction, boolean pending) throws IOException {
+			writeZigZag(interaction.getId());
+			writeMethodSignature(interaction.getSignature());
+			writeBoolean(pending);
+			SerializedResult result = interaction.getResult();
+			writeValue(result == null ? null : result.getValue());
+			writeArguments(interaction.getArguments());
+		}
+
+		void writeValue(SerializedValue value) throws IOException {
+			if (value == null) {
+				writeVarInt(NULL_REF);
+				return;
+			}
+			Integer ref = values.get(value);
+			if (ref != null) {
+				writeVarInt(ref + 2);
+				return;
+			}
+			values.put(value, values.size());
+			writeVarInt(NEW_REF);
+
+			if (value instanceof SerializedLiteral) {
+				writeByte(LITERAL);
+				writeType(value.getType());
+				writePlain(((SerializedLiteral) value).getValue());
+			} else if (value == SerializedNull.VOID) {
+				writeByte(VOID);
+			} else if (value instanceof SerializedNull) {
+				writeByte(NULL);
+				writeReference((SerializedNull) value);
+			} else if (value instanceof SerializedObject) {
+				SerializedObject object = (SerializedObject) value;
+				writeByte(OBJECT);
+				writeReference(object);
+				List<SerializedField> fields = object.getFields();
+				writeVarInt(fields.size());
+				for (SerializedField field : fields) {
+					writeField(field);
+				}
+			} else if (value instanceof SerializedArray) {
+				SerializedArray array = (SerializedArray) value;
+				writeByte(ARRAY);
+				writeReference(array);
+				writeType(array.getComponentType());
+				writeValues(array.getArrayAsList());
+				writeBoolean(array.isTruncated());
+			} else if (value instanceof SerializedPrimitiveArray) {
+				SerializedPrimitiveArray array = (SerializedPrimitiveArray) value;
+				writeByte(PRIMITIVE_ARRAY);
+				writeReference(array);
+				writePrimitiveArray(array.getComponentType(), array.getArray());
+			} else if (value instanceof SerializedList) {
+				SerializedList list = (SerializedList) value;
+				writeByte(LIST);
+				writeReference(list);
+				writeType(list.getComponentType());
+				writeValues(list);
+				writeBoolean(list.isTruncated());
+			} else if (value instanceof SerializedSet) {
+				SerializedSet set = (SerializedSet) value;
+				writeByte(SET);
+				writeReference(set);
+				writeType(set.getComponentType());
+				writeValues(set);
+				writeBoolean(set.isTruncated());
+			} else if (value instanceof SerializedMap) {
+				SerializedMap map = (SerializedMap) value;
+				writeByte(MAP);
+				writeReference(map);
+				writeType(map.getMapKeyType());
+				writeType(map.getMapValueType());
+				writeVarInt(map.size());
+				for (Map.Entry<SerializedValue, SerializedValue> entry : map.entrySet()) {
+					writeValue(entry.getKey());
+					writeValue(entry.getValue());
+				}
+				writeBoolean(map.isTruncated());
+			} else if (value instanceof SerializedEnum) {
+				SerializedEnum enumValue = (SerializedEnum) value;
+				writeByte(ENUM);
+				writeReference(enumValue);
+				writeString(enumValue.getName());
+			} else if (value instanceof SerializedImmutable<?>) {
+				SerializedImmutable<?> immutable = (SerializedImmutable<?>) value;
+				writeByte(IMMUTABLE);
+				writeReference(immutable);
+				writePlain(immutable.getValue());
+			} else if (value instanceof SerializedLambdaObject) {
+				SerializedLambdaObject lambda = (SerializedLambdaObject) value;
+				writeByte(LAMBDA);
+				writeReference(lambda);
+				writeLambdaSignature(lambda.getSignature());
+				List<SerializedValue> capturedArguments = lambda.getCapturedArguments();
+				if (capturedArguments == null) {
+					writeVarInt(0);
+				} else {
+					writeVarInt(capturedArguments.size() + 1);
+					for (SerializedValue capturedArgument : capturedArguments) {
+						writeValue(capturedArgument);
+					}
+				}
+			} else if (value instanceof SerializedProxy) {
+				SerializedProxy proxy = (SerializedProxy) value;
+				writeByte(PROXY);
+				writeReference(proxy);
+				List<SerializedImmutable<Class<?>>> interfaces = proxy.getInterfaces();
+				if (interfaces == null) {
+					writeVarInt(0);
+				} else {
+					writeVarInt(interfaces.size() + 1);
+					for (SerializedImmutable<Class<?>> interfaceValue : interfaces) {
+						writeValue(interfaceValue);
+					}
+				}
+				writeValue(proxy.getInvocationHandler());
+				List<SerializedField> fields = proxy.getFields();
+				writeVarInt(fields.size());
+				for (SerializedField field : fields) {
+					writeField(field);
+				}
+			} else if (value instanceof SerializedTruncated) {
+				writeByte(TRUNCATED);
+				writeReference((SerializedTruncated) value);
+			} else {
+				writeByte(SERIALIZED);
+				writeSerialized(value);
+			}
+		}
+
+		private void writeReference(AbstractSerializedReferenceType value) {
+			writeType(value.getType());
+			writeZigZag(value.getId());
+			Type[] usedTypes = value.getUsedTypes();
+			writeVarInt(usedTypes.length);
+			for (Type usedType : usedTypes) {
+				writeType(usedType);
+			}
+		}
+
+		private void writeValues(Iterable<SerializedValue> elements) throws IOException {
+			List<SerializedValue> list = new ArrayList<>();
+			for (SerializedValue element : elements) {
+				list.add(element);
+			}
+			writeVarInt(list.size());
+			for (SerializedValue element : list) {
+				writeValue(element);
+			}
+		}
+
+		private void writePrimitiveArray(Class<?> componentType, Object array) {
+			if (componentType == boolean.class) {
+				boolean[] booleans = (boolean[]) array;
+				writeVarInt(booleans.length);
+				ensure(booleans.length);
+				for (boolean b : booleans) {
+					buffer[pos++] = b ? (byte) 1 : (byte) 0;
+				}
+			} else if (componentType == byte.class) {
+				byte[] bytes = (byte[]) array;
+				writeVarInt(bytes.length);
+				writeBytes(bytes);
+			} else if (componentType == short.class) {
+				short[] shorts = (short[]) array;
+				writeVarInt(shorts.length);
+				bulk(shorts.length * Short.BYTES).asShortBuffer().put(shorts);
+			} else if (componentType == char.class) {
+				char[] chars = (char[]) array;
+				writeVarInt(chars.length);
+				bulk(chars.length * Character.BYTES).asCharBuffer().put(chars);
+			} else if (componentType == int.class) {
+				int[] ints = (int[]) array;
+				writeVarInt(ints.length);
+				bulk(ints.length * Integer.BYTES).asIntBuffer().put(ints);
+			} else if (componentType == long.class) {
+				long[] longs = (long[]) array;
+				writeVarInt(longs.length);
+				bulk(longs.length * Long.BYTES).asLongBuffer().put(longs);
+			} else if (componentType == float.class) {
+				float[] floats = (float[]) array;
+				writeVarInt(floats.length);
+				bulk(floats.length * Float.BYTES).asFloatBuffer().put(floats);
+			} else if (componentType == double.class) {
+				double[] doubles = (double[]) array;
+				writeVarInt(doubles.length);
+				bulk(doubles.length * Double.BYTES).asDoubleBuffer().put(doubles);
+			}
+		}
+
+		private ByteBuffer bulk(int length) {
+			ensure(length);
+			ByteBuffer bulk = ByteBuffer.wrap(buffer, pos, length).slice();
+			pos += length;
+			return bulk;
+		}
+
+		private void writeLambdaSignature(LambdaSignature signature) {
+			if (signature == null) {
+				writeBoolean(false);
+				return;
+			}
+			writeBoolean(true);
+			writeString(signature.getCapturingClass());
+			writeString(signature.getInstantiatedMethodType());
+			writeString(signature.getFunctionalInterfaceClass());
+			writeString(signature.getFunctionalInterfaceMethodName());
+			writeString(signature.getFunctionalInterfaceMethodSignature());
+			writeString(signature.getImplClass());
+			writeZigZag(signature.getImplMethodKind());
+			writeString(signature.getImplMethodName());
+			writeString(signature.getImplMethodSignature());
+		}
+
+		private void writePlain(Object value) throws IOException {
+			if (value == null) {
+				writeByte(PLAIN_NULL);
+			} else if (value instanceof Boolean) {
+				writeByte(PLAIN_BOOLEAN);
+				writeBoolean((Boolean) value);
+			} else if (value instanceof Byte) {
+				writeByte(PLAIN_BYTE);
+				writeByte((Byte) value);
+			} else if (value instanceof Short) {
+				writeByte(PLAIN_SHORT);
+				writeZigZag((Short) value);
+			} else if (value instanceof Character) {
+				writeByte(PLAIN_CHAR);
+				writeVarInt((Character) value);
+			} else if (value instanceof Integer) {
+				writeByte(PLAIN_INT);
+				writeZigZag((Integer) value);
+			} else if (value instanceof Long) {
+				writeByte(PLAIN_LONG);
+				writeVarLong(((Long) value << 1) ^ ((Long) value >> 63));
+			} else if (value instanceof Float) {
+				writeByte(PLAIN_FLOAT);
+				writeFixedInt(Float.floatToRawIntBits((Float) value));
+			} else if (value instanceof Double) {
+				writeByte(PLAIN_DOUBLE);
+				writeFixedLong(Double.doubleToRawLongBits((Double) value));
+			} else if (value instanceof String) {
+				writeByte(PLAIN_STRING);
+				writeString((String) value);
+			} else if (value instanceof Class<?>) {
+				writeByte(PLAIN_CLASS);
+				writeType((Class<?>) value);
+			} else if (value.getClass() == BigInteger.class) {
+				writeByte(PLAIN_BIG_INTEGER);
+				writeByteArray(((BigInteger) value).toByteArray());
+			} else if (value.getClass() == BigDecimal.class) {
+				writeByte(PLAIN_BIG_DECIMAL);
+				writeByteArray(((BigDecimal) value).unscaledValue().toByteArray());
+				writeZigZag(((BigDecimal) value).scale());
+			} else {
+				writeByte(PLAIN_SERIALIZED);
+				writeSerialized(value);
+			}
+		}
+
+		private void writeSerialized(Object value) throws IOException {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+				out.writeObject(value);
+			}
+			writeByteArray(bytes.toByteArray());
+		}
+
+		private void writeMethodSignature(MethodSignature signature) {
+			Integer ref = signatures.get(signature);
+			if (ref != null) {
+				writeVarInt(ref + 2);
+				return;
+			}
+			signatures.put(signature, signatures.size());
+			writeVarInt(NEW_REF);
+			writeType(signature.declaringClass);
+			writeType(signature.resultType);
+			writeString(signature.methodName);
+			writeTypes(signature.argumentTypes);
+		}
+
+		private void writeFieldSignature(FieldSignature signature) {
+			Integer ref = signatures.get(signature);
+			if (ref != null) {
+				writeVarInt(ref + 2);
+				return;
+			}
+			signatures.put(signature, signatures.size());
+			writeVarInt(NEW_REF);
+			writeType(signature.declaringClass);
+			writeType(signature.type);
+			writeString(signature.fieldName);
+		}
+
+		private void writeTypes(Type[] types) {
+			writeVarInt(types.length);
+			for (Type type : types) {
+				writeType(type);
+			}
+		}
+
+		private void writeType(Type type) {
+			if (type == null) {
+				writeVarInt(NULL_REF);
+				return;
+			}
+			Integer ref = types.get(type);
+			if (ref != null) {
+				writeVarInt(ref + 2);
+				return;
+			}
+			types.put(type, types.size());
+			writeVarInt(NEW_REF);
+			if (type instanceof Class<?>) {
+				writeByte(CLASS);
+				writeString(((Class<?>) type).getName());
+			} else if (type instanceof ParameterizedType) {
+				ParameterizedType parameterizedType = (ParameterizedType) type;
+				writeByte(PARAMETERIZED);
+				writeType(parameterizedType.getRawType());
+				writeType(parameterizedType.getOwnerType());
+				writeTypes(parameterizedType.getActualTypeArguments());
+			} else if (type instanceof GenericArrayType) {
+				writeByte(GENERIC_ARRAY);
+				writeType(((GenericArrayType) type).getGenericComponentType());
+			} else if (type instanceof WildcardType) {
+				WildcardType wildcardType = (WildcardType) type;
+				writeByte(WILDCARD);
+				writeTypes(wildcardType.getUpperBounds());
+				writeTypes(wildcardType.getLowerBounds());
+			} else if (type instanceof TypeVariable<?>) {
+				TypeVariable<?> typeVariable = (TypeVariable<?>) type;
+				writeByte(TYPE_VARIABLE);
+				writeString(typeVariable.getName());
+				writeDeclaration(typeVariable.getGenericDeclaration());
+				writeTypes(typeVariable.getBounds());
+			} else {
+				throw new IllegalArgumentException("cannot encode type " + type.getTypeName());
+			}
+		}
+
+		private void writeDeclaration(GenericDeclaration declaration) {
+			if (declaration instanceof Class<?>) {
+				writeByte(CLASS_DECLARATION);
+				writeType((Class<?>) declaration);
+			} else if (declaration instanceof Method) {
+				Method method = (Method) declaration;
+				writeByte(METHOD_DECLARATION);
+				writeType(method.getDeclaringClass());
+				writeString(method.getName());
+				writeTypes(method.getParameterTypes());
+			} else if (declaration instanceof Constructor<?>) {
+				Constructor<?> constructor = (Constructor<?>) declaration;
+				writeByte(CONSTRUCTOR_DECLARATION);
+				writeType(constructor.getDeclaringClass());
+				writeTypes(constructor.getParameterTypes());
+			} else {
+				writeByte(NO_DECLARATION);
+			}
+		}
+
+		private void writeString(String string) {
+			if (string == null) {
+				writeVarInt(NULL_REF);
+				return;
+			}
+			Integer ref = strings.get(string);
+			if (ref != null) {
+				writeVarInt(ref + 2);
+				return;
+			}
+			strings.put(string, strings.size());
+			writeVarInt(NEW_REF);
+			writeByteArray(string.getBytes(UTF_8));
+		}
+
+		private void writeByteArray(byte[] bytes) {
+			writeVarInt(bytes.length);
+			writeBytes(bytes);
+		}
+
+		private void writeBytes(byte[] bytes) {
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, buffer, pos, bytes.length);
+			pos += bytes.length;
+		}
+
+		private void writeBoolean(boolean value) {
+			writeByte(value ? (byte) 1 : (byte) 0);
+		}
+
+		private void writeByte(byte value) {
+			ensure(1);
+			buffer[pos++] = value;
+		}
+
+		private void writeFixedInt(int value) {
+			ensure(Integer.BYTES);
+			buffer[pos++] = (byte) (value >>> 24);
+			buffer[pos++] = (byte) (value >>> 16);
+			buffer[pos++] = (byte) (value >>> 8);
+			buffer[pos++] = (byte) value;
+		}
+
+		private void writeFixedLong(long value) {
+			writeFixedInt((int) (value >>> 32));
+			writeFixedInt((int) value);
+		}
+
+		private void writeZigZag(int value) {
+			writeVarInt((value << 1) ^ (value >> 31));
+		}
+
+		private void writeVarInt(int value) {
+			ensure(5);
+			while ((value & ~0x7f) != 0) {
+				buffer[pos++] = (byte) ((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			buffer[pos++] = (byte) value;
+		}
+
+		private void writeVarLong(long value) {
+			ensure(10);
+			while ((value & ~0x7fL) != 0) {
+				buffer[pos++] = (byte) ((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			buffer[pos++] = (byte) value;
+		}
+
+		private void ensure(int length) {
+			if (pos + length > buffer.length) {
+				buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, pos + length));
+			}
+		}
+
+	}
+
+	private class Decoder {
+
+		private byte[] buffer;
+		private int pos;
+
+		private List<String> strings;
+		private List<Type> types;
+		private List<Object> signatures;
+		private List<SerializedValue> values;
+
+		Decoder(byte[] buffer) {
+			this.buffer = buffer;
+			this.strings = new ArrayList<>();
+			this.types = new ArrayList<>();
+			this.signatures = new ArrayList<>();
+			this.values = new ArrayList<>();
+		}
+
+		void readHeader() throws IOException {
+			if (readFixedInt() != MAGIC) {
+				throw new IOException("no snapshot encoding");
+			}
+			int version = readVarInt();
+			if (version != VERSION) {
+				throw new IOException("unsupported snapshot encoding version " + version);
+			}
+		}
+
+		ContextSnapshot readSnapshot() throws IOException {
+			boolean valid = readBoolean();
+			long time = readVarLong();
+			String key = readString();
+			VirtualMethodSignature signature;
+			byte signatureKind = readByte();
+			if (signatureKind == NULL_SIGNATURE) {
+				signature = VirtualMethodSignature.NULL;
+			} else if (signatureKind == METHOD_SIGNATURE) {
+				signature = new VirtualMethodSignature(readMethodSignature());
+			} else {
+				signature = null;
+			}
+			ContextSnapshot snapshot = new ContextSnapshot(time, key, signature);
+
+			snapshot.setSetupThis(readValue());
+			SerializedValue[] setupArgs = readArguments();
+			if (setupArgs != null) {
+				snapshot.setSetupArgs(setupArgs);
+			}
+			SerializedField[] setupGlobals = readFields();
+			if (setupGlobals != null) {
+				snapshot.setSetupGlobals(setupGlobals);
+			}
+
+			snapshot.setExpectThis(readValue());
+			SerializedValue expectResult = readValue();
+			if (expectResult != null) {
+				snapshot.setExpectResult(expectResult);
+			}
+			snapshot.setExpectException(readValue());
+			SerializedValue[] expectArgs = readArguments();
+			if (expectArgs != null) {
+				snapshot.setExpectArgs(expectArgs);
+			}
+			SerializedField[] expectGlobals = readFields();
+			if (expectGlobals != null) {
+				snapshot.setExpectGlobals(expectGlobals);
+			}
+
+			int inputs = readVarInt();
+			for (int i = 0; i < inputs; i++) {
+				SerializedInput input = new SerializedInput(readZigZag(), readMethodSignature());
+				boolean pending = readBoolean();
+				input.updateResult(readValue());
+				SerializedValue[] arguments = readArguments();
+				input.updateArguments(arguments);
+				snapshot.addInput(input);
+				if (!pending) {
+					snapshot.completeInput(input.id());
+				}
+			}
+			int outputs = readVarInt();
+			for (int i = 0; i < outputs; i++) {
+				SerializedOutput output = new SerializedOutput(readZigZag(), readMethodSignature());
+				boolean pending = readBoolean();
+				output.updateResult(readValue());
+				SerializedValue[] arguments = readArguments();
+				output.updateArguments(arguments);
+				snapshot.addOutput(output);
+				if (!pending) {
+					snapshot.completeOutput(output.id());
+				}
+			}
+			if (!valid) {
+				snapshot.invalidate();
+			}
+			return snapshot;
+		}
+
+		private SerializedValue[] readArguments() throws IOException {
+			int length = readVarInt() - 1;
+			if (length < 0) {
+				return null;
+			}
+			SerializedValue[] arguments = new SerializedValue[length];
+			for (int i = 0; i < length; i++) {
+				arguments[i] = readValue();
+			}
+			return arguments;
+		}
+
+		private SerializedField[] readFields() throws IOException {
+			int length = readVarInt() - 1;
+			if (length < 0) {
+				return null;
+			}
+			SerializedField[] fields = new SerializedField[length];
+			for (int i = 0; i < length; i++) {
+				fields[i] = readField();
+			}
+			return fields;
+		}
+
+		private SerializedField readField() throws IOException {
+			FieldSignature signature = readFieldSignature();
+			SerializedValue value = readValue();
+			return new SerializedField(signature, value);
+		}
+
+		@SuppressWarnings("unchecked")
+		SerializedValue readValue() throws IOException {
+			int ref = readVarInt();
+			if (ref == NULL_REF) {
+				return null;
+			} else if (ref != NEW_REF) {
+				return lookup(values, ref);
+			}
+			int index = values.size();
+			values.add(null);
+			byte tag = readByte();
+			switch (tag) {
+			case LITERAL: {
+				Type type = readType();
+				SerializedLiteral literal = SerializedLiteral.literal(type, readPlain());
+				values.set(index, literal);
+				return literal;
+			}
+			case VOID:
+				values.set(index, SerializedNull.VOID);
+				return SerializedNull.VOID;
+			case NULL: {
+				readType();
+				SerializedNull value = SerializedNull.nullInstance();
+				readReference(index, value);
+				return value;
+			}
+			case OBJECT: {
+				SerializedObject object = new SerializedObject(readClass());
+				readReference(index, object);
+				int fields = readVarInt();
+				for (int i = 0; i < fields; i++) {
+					object.addField(readField());
+				}
+				return object;
+			}
+			case ARRAY: {
+				SerializedArray array = new SerializedArray(readClass());
+				readReference(index, array);
+				Type componentType = readType();
+				int length = readVarInt();
+				for (int i = 0; i < length; i++) {
+					array.add(readValue());
+				}
+				if (readBoolean()) {
+					array.truncate();
+				}
+				array.setComponentType(componentType);
+				return array;
+			}
+			case PRIMITIVE_ARRAY: {
+				SerializedPrimitiveArray array = new SerializedPrimitiveArray(readClass());
+				readReference(index, array);
+				array.setArray(readPrimitiveArray(array.getComponentType()));
+				return array;
+			}
+			case LIST: {
+				SerializedList list = new SerializedList(readClass());
+				readReference(index, list);
+				Type componentType = readType();
+				int size = readVarInt();
+				for (int i = 0; i < size; i++) {
+					list.add(readValue());
+				}
+				if (readBoolean()) {
+					list.truncate();
+				}
+				list.setComponentType(componentType);
+				return list;
+			}
+			case SET: {
+				SerializedSet set = new SerializedSet(readClass());
+				readReference(index, set);
+				Type componentType = readType();
+				int size = readVarInt();
+				for (int i = 0; i < size; i++) {
+					set.add(readValue());
+				}
+				if (readBoolean()) {
+					set.truncate();
+				}
+				set.setComponentType(componentType);
+				return set;
+			}
+			case MAP: {
+				SerializedMap map = new SerializedMap(readClass());
+				readReference(index, map);
+				Type keyType = readType();
+				Type valueType = readType();
+				int size = readVarInt();
+				for (int i = 0; i < size; i++) {
+					SerializedValue key = readValue();
+					SerializedValue value = readValue();
+					map.put(key, value);
+				}
+				if (readBoolean()) {
+					map.truncate();
+				}
+				map.setMapTypes(keyType, valueType);
+				return map;
+			}
+			case ENUM: {
+				SerializedEnum enumValue = new SerializedEnum(readClass());
+				readReference(index, enumValue);
+				enumValue.setName(readString());
+				return enumValue;
+			}
+			case IMMUTABLE: {
+				SerializedImmutable<Object> immutable = new SerializedImmutable<>(readClass());
+				readReference(index, immutable);
+				immutable.setValue(readPlain());
+				return immutable;
+			}
+			case LAMBDA: {
+				SerializedLambdaObject lambda = new SerializedLambdaObject(readClass());
+				readReference(index, lambda);
+				lambda.setSignature(readLambdaSignature());
+				int size = readVarInt() - 1;
+				if (size >= 0) {
+					List<SerializedValue> capturedArguments = new ArrayList<>(size);
+					for (int i = 0; i < size; i++) {
+						capturedArguments.add(readValue());
+					}
+					lambda.setCapturedArguments(capturedArguments);
+				}
+				return lambda;
+			}
+			case PROXY: {
+				SerializedProxy proxy = new SerializedProxy(readType());
+				readReference(index, proxy);
+				int size = readVarInt() - 1;
+				if (size >= 0) {
+					List<SerializedImmutable<Class<?>>> interfaces = new ArrayList<>(size);
+					for (int i = 0; i < size; i++) {
+						interfaces.add((SerializedImmutable<Class<?>>) readValue());
+					}
+					proxy.setInterfaces(interfaces);
+				}
+				proxy.setInvocationHandler(readValue());
+				int fields = readVarInt();
+				for (int i = 0; i < fields; i++) {
+					proxy.addField(readField());
+				}
+				return proxy;
+			}
+			case TRUNCATED: {
+				SerializedTruncated truncated = new SerializedTruncated(readClass());
+				readReference(index, truncated);
+				return truncated;
+			}
+			case SERIALIZED: {
+				SerializedValue value = (SerializedValue) readSerialized();
+				values.set(index, value);
+				return value;
+			}
+			default:
+				throw new IOException("unknown value tag " + tag);
+			}
+		}
+
+		private void readReference(int index, AbstractSerializedReferenceType value) throws IOException {
+			values.set(index, value);
+			value.setId(readZigZag());
+			int length = readVarInt();
+			Type[] usedTypes = new Type[length];
+			for (int i = 0; i < length; i++) {
+				usedTypes[i] = readType();
+			}
+			if (length == 1 && usedTypes[0] == value.getType()) {
+				return;
+			}
+			for (Type usedType : usedTypes) {
+				value.useAs(usedType);
+			}
+		}
+
+		private Object readPrimitiveArray(Class<?> componentType) throws IOException {
+			int length = readVarInt();
+			if (componentType == boolean.class) {
+				boolean[] booleans = new boolean[length];
+				for (int i = 0; i < length; i++) {
+					booleans[i] = readBoolean();
+				}
+				return booleans;
+			} else if (componentType == byte.class) {
+				return readBytes(length);
+			} else if (componentType == short.class) {
+				short[] shorts = new short[length];
+				bulk(length * Short.BYTES).asShortBuffer().get(shorts);
+				return shorts;
+			} else if (componentType == char.class) {
+				char[] chars = new char[length];
+				bulk(length * Character.BYTES).asCharBuffer().get(chars);
+				return chars;
+			} else if (componentType == int.class) {
+				int[] ints = new int[length];
+				bulk(length * Integer.BYTES).asIntBuffer().get(ints);
+				return ints;
+			} else if (componentType == long.class) {
+				long[] longs = new long[length];
+				bulk(length * Long.BYTES).asLongBuffer().get(longs);
+				return longs;
+			} else if (componentType == float.class) {
+				float[] floats = new float[length];
+				bulk(length * Float.BYTES).asFloatBuffer().get(floats);
+				return floats;
+			} else if (componentType == double.class) {
+				double[] doubles = new double[length];
+				bulk(length * Double.BYTES).asDoubleBuffer().get(doubles);
+				return doubles;
+			} else {
+				throw new IOException("no primitive component type " + componentType);
+			}
+		}
+
+		private ByteBuffer bulk(int length) throws IOException {
+			require(length);
+			ByteBuffer bulk = ByteBuffer.wrap(buffer, pos, length).slice();
+			pos += length;
+			return bulk;
+		}
+
+		private LambdaSignature readLambdaSignature() throws IOException {
+			if (!readBoolean()) {
+				return null;
+			}
+			String capturingClass = readString();
+			String instantiatedMethodType = readString();
+			String functionalInterfaceClass = readString();
+			String functionalInterfaceMethodName = readString();
+			String functionalInterfaceMethodSignature = readString();
+			String implClass = readString();
+			int implMethodKind = readZigZag();
+			String implMethodName = readString();
+			String implMethodSignature = readString();
+			return new LambdaSignature()
+				.withCapturingClass(capturingClass)
+				.withInstantiatedMethodType(instantiatedMethodType)
+				.withFunctionalInterface(functionalInterfaceClass, functionalInterfaceMethodName, functionalInterfaceMethodSignature)
+				.withImplMethod(implClass, implMethodKind, implMethodName, implMethodSignature);
+		}
+
+		private Object readPlain() throws IOException {
+			byte tag = readByte();
+			switch (tag) {
+			case PLAIN_NULL:
+				return null;
+			case PLAIN_BOOLEAN:
+				return readBoolean();
+			case PLAIN_BYTE:
+				return readByte();
+			case PLAIN_SHORT:
+				return (short) readZigZag();
+			case PLAIN_CHAR:
+				return (char) readVarInt();
+			case PLAIN_INT:
+				return readZigZag();
+			case PLAIN_LONG: {
+				long value = readVarLong();
+				return (value >>> 1) ^ -(value & 1);
+			}
+			case PLAIN_FLOAT:
+				return Float.intBitsToFloat(readFixedInt());
+			case PLAIN_DOUBLE:
+				return Double.longBitsToDouble(readFixedLong());
+			case PLAIN_STRING:
+				return readString();
+			case PLAIN_CLASS:
+				return readType();
+			case PLAIN_BIG_INTEGER:
+				return new BigInteger(readByteArray());
+			case PLAIN_BIG_DECIMAL: {
+				BigInteger unscaled = new BigInteger(readByteArray());
+				return new BigDecimal(unscaled, readZigZag());
+			}
+			case PLAIN_SERIALIZED:
+				return readSerialized();
+			default:
+				throw new IOException("unknown plain tag " + tag);
+			}
+		}
+
+		private Object readSerialized() throws IOException {
+			byte[] bytes = readByteArray();
+			try (ObjectInputStream in = new ClassLoaderObjectInputStream(new ByteArrayInputStream(bytes), loader)) {
+				return in.readObject();
+			} catch (ClassNotFoundException e) {
+				throw new IOException(e);
+			}
+		}
+
+		private MethodSignature readMethodSignature() throws IOException {
+			int ref = readVarInt();
+			if (ref != NEW_REF) {
+				return (MethodSignature) lookup(signatures, ref);
+			}
+			int index = signatures.size();
+			signatures.add(null);
+			Class<?> declaringClass = readClass();
+			Type resultType = readType();
+			String methodName = readString();
+			Type[] argumentTypes = readTypes();
+			MethodSignature signature = new MethodSignature(declaringClass, resultType, methodName, argumentTypes);
+			signatures.set(index, signature);
+			return signature;
+		}
+
+		private FieldSignature readFieldSignature() throws IOException {
+			int ref = readVarInt();
+			if (ref != NEW_REF) {
+				return (FieldSignature) lookup(signatures, ref);
+			}
+			int index = signatures.size();
+			signatures.add(null);
+			Class<?> declaringClass = readClass();
+			Type type = readType();
+			String fieldName = readString();
+			FieldSignature signature = new FieldSignature(declaringClass, type, fieldName);
+			signatures.set(index, signature);
+			return signature;
+		}
+
+		private Class<?> readClass() throws IOException {
+			return (Class<?>) readType();
+		}
+
+		private Type[] readTypes() throws IOException {
+			int length = readVarInt();
+			Type[] types = new Type[length];
+			for (int i = 0; i < length; i++) {
+				types[i] = readType();
+			}
+			return types;
+		}
+
+		private Type readType() throws IOException {
+			int ref = readVarInt();
+			if (ref == NULL_REF) {
+				return null;
+			} else if (ref != NEW_REF) {
+				return lookup(types, ref);
+			}
+			int index = types.size();
+			types.add(null);
+			byte tag = readByte();
+			Type type;
+			switch (tag) {
+			case CLASS:
+				type = classOf(readString());
+				break;
+			case PARAMETERIZED: {
+				Type raw = readType();
+				Type owner = readType();
+				type = Types.parameterized(raw, owner, readTypes());
+				break;
+			}
+			case GENERIC_ARRAY:
+				type = Types.genericArray(readType());
+				break;
+			case WILDCARD: {
+				Type[] upperBounds = readTypes();
+				type = Types.wildcard(upperBounds, readTypes());
+				break;
+			}
+			case TYPE_VARIABLE: {
+				String name = readString();
+				SerializableTypeVariable<?> typeVariable = Types.typeVariable(name, readDeclaration());
+				types.set(index, typeVariable);
+				typeVariable.boundedBy(readTypes());
+				return typeVariable;
+			}
+			default:
+				throw new IOException("unknown type tag " + tag);
+			}
+			types.set(index, type);
+			return type;
+		}
+
+		private GenericDeclaration readDeclaration() throws IOException {
+			byte tag = readByte();
+			try {
+				switch (tag) {
+				case CLASS_DECLARATION:
+					return readClass();
+				case METHOD_DECLARATION: {
+					Class<?> declaringClass = readClass();
+					String name = readString();
+					return declaringClass.getDeclaredMethod(name, classesOf(readTypes()));
+				}
+				case CONSTRUCTOR_DECLARATION: {
+					Class<?> declaringClass = readClass();
+					return declaringClass.getDeclaredConstructor(classesOf(readTypes()));
+				}
+				default:
+					return null;
+				}
+			} catch (NoSuchMethodException e) {
+				throw new IOException(e);
+			}
+		}
+
+		private Class<?>[] classesOf(Type[] types) {
+			return Arrays.stream(types)
+				.map(type -> (Class<?>) type)
+				.toArray(Class[]::new);
+		}
+
+		private Class<?> classOf(String name) throws IOException {
+			Class<?> primitive = PRIMITIVES.get(name);
+			if (primitive != null) {
+				return primitive;
+			}
+			try {
+				return Class.forName(name, false, loader);
+			} catch (ClassNotFoundException e) {
+				throw new IOException(e);
+			}
+		}
+
+		private String readString() throws IOException {
+			int ref = readVarInt();
+			if (ref == NULL_REF) {
+				return null;
+			} else if (ref != NEW_REF) {
+				return lookup(strings, ref);
+			}
+			String string = new String(readByteArray(), UTF_8);
+			strings.add(string);
+			return string;
+		}
+
+		private <T> T lookup(List<T> table, int ref) throws IOException {
+			int index = ref - 2;
+			if (index < 0 || index >= table.size()) {
+				throw new IOException("illegal reference " + ref);
+			}
+			return table.get(index);
+		}
+
+		private byte[] readByteArray() throws IOException {
+			return readBytes(readVarInt());
+		}
+
+		private byte[] readBytes(int length) throws IOException {
+			require(length);
+			byte[] bytes = Arrays.copyOfRange(buffer, pos, pos + length);
+			pos += length;
+			return bytes;
+		}
+
+		private boolean readBoolean() throws IOException {
+			return readByte() != 0;
+		}
+
+		private byte readByte() throws IOException {
+			require(1);
+			return buffer[pos++];
+		}
+
+		private int readFixedInt() throws IOException {
+			require(Integer.BYTES);
+			return (buffer[pos++] & 0xff) << 24
+				| (buffer[pos++] & 0xff) << 16
+				| (buffer[pos++] & 0xff) << 8
+				| (buffer[pos++] & 0xff);
+		}
+
+		private long readFixedLong() throws IOException {
+			long high = readFixedInt() & 0xffffffffL;
+			long low = readFixedInt() & 0xffffffffL;
+			return high << 32 | low;
+		}
+
+		private int readZigZag() throws IOException {
+			int value = readVarInt();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		private int readVarInt() throws IOException {
+			int value = 0;
+			for (int shift = 0; shift < 32; shift += 7) {
+				byte b = readByte();
+				value |= (b & 0x7f) << shift;
+				if (b >= 0) {
+					return value;
+				}
+			}
+			throw new IOException("malformed varint");
+		}
+
+		private long readVarLong() throws IOException {
+			long value = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				byte b = readByte();
+				value |= (long) (b & 0x7f) << shift;
+				if (b >= 0) {
+					return value;
+				}
+			}
+			throw new IOException("malformed varlong");
+		}
+
+		private void require(int length) throws IOException {
+			if (length < 0 || pos + length > buffer.length) {
+				throw new EOFException("truncated snapshot encoding");
+			}
+		}
+
+	}
+
+	private static class ClassLoaderObjectInputStream extends ObjectInputStream {
+
+		private ClassLoader loader;
+
+		ClassLoaderObjectInputStream(InputStream in, ClassLoader loader) throws IOException {
+			super(in);
+			this.loader = loader;
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			try {
+				return Class.forName(desc.getName(), false, loader);
+			} catch (ClassNotFoundException e) {
+				return super.resolveClass(desc);
+			}
+		}
+
+	}
+
+}
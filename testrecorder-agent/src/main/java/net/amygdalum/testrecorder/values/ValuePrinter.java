@@ -2,8 +2,10 @@ package net.amygdalum.testrecorder.values;
 
 import static java.util.stream.Collectors.joining;
 
+import java.lang.reflect.Array;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import net.amygdalum.testrecorder.types.RoleVisitor;
@@ -66,10 +68,15 @@ public class ValuePrinter implements RoleVisitor<String> {
 		} else if (rt instanceof SerializedArray) {
 			SerializedArray value = (SerializedArray) rt;
 			return printArray(value);
+		} else if (rt instanceof SerializedPrimitiveArray) {
+			SerializedPrimitiveArray value = (SerializedPrimitiveArray) rt;
+			return printPrimitiveArray(value);
 		} else if (rt == SerializedNull.VOID) {
 			return "void";
 		} else if (rt instanceof SerializedNull) {
 			return "null";
+		} else if (rt instanceof SerializedTruncated) {
+			return rt.getType().getTypeName() + "/" + System.identityHashCode(rt) + " {...}";
 		} else {
 			return "?";
 		}
@@ -111,6 +118,13 @@ public class ValuePrinter implements RoleVisitor<String> {
 			.collect(joining(", ", "<", ">"));
 	}
 
+	private String printPrimitiveArray(SerializedPrimitiveArray value) {
+		Object array = value.getArray();
+		return IntStream.range(0, Array.getLength(array))
+			.mapToObj(i -> String.valueOf(Array.get(array, i)))
+			.collect(joining(", ", "<", ">"));
+	}
+
 	@Override
 	public String visitImmutableType(SerializedImmutableType rt) {
 		if (rt instanceof SerializedImmutable<?>) {
@@ -0,0 +1,173 @@
+package net.amygdalum.testrecorder;
+
+import static java.util.Collections.emptyMap;
+import static net.amygdalum.testrecorder.TestAgentConfiguration.defaultConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.profile.AgentConfiguration;
+import net.amygdalum.testrecorder.profile.RecordingMetrics;
+import net.amygdalum.testrecorder.serializers.GenericSerializer;
+import net.amygdalum.testrecorder.types.Profile;
+
+public class AgentMetricsTest {
+
+	@Test
+	public void testSnapshotCounters() throws Exception {
+		AgentMetrics metrics = new AgentMetrics();
+
+		metrics.recordedCall("m()V");
+		metrics.recordedCall("m()V");
+		metrics.snapshotStarted("m()V");
+		metrics.snapshotStarted("m()V");
+		metrics.snapshotInvalidated("m()V");
+		metrics.snapshotTimedOut("m()V");
+		metrics.snapshotConsumed("m()V");
+
+		assertThat(metrics.getRecordedCalls()).isEqualTo(2);
+		assertThat(metrics.getSnapshotsStarted()).isEqualTo(2);
+		assertThat(metrics.getSnapshotsInvalidated()).isEqualTo(1);
+		assertThat(metrics.getSnapshotsTimedOut()).isEqualTo(1);
+		assertThat(metrics.getSnapshotsConsumed()).isEqualTo(1);
+	}
+
+	@Test
+	public void testSerialized() throws Exception {
+		AgentMetrics metrics = new AgentMetrics();
+
+		metrics.serialized("m()V", 100, 2);
+		metrics.serialized("m()V", 300, 4);
+		metrics.serialized("n()V", 50, 6);
+
+		assertThat(metrics.getSerializationLatency()).containsOnlyKeys("m()V", "n()V");
+		assertThat(metrics.getSerializationLatency().get("m()V").getCount()).isEqualTo(2);
+		assertThat(metrics.getSerializationLatency().get("m()V").getMean()).isEqualTo(200d);
+		assertThat(metrics.getSerializationLatency().get("m()V").getMax()).isEqualTo(300);
+		assertThat(metrics.getVisitedObjects().getCount()).isEqualTo(3);
+		assertThat(metrics.getVisitedObjects().getMax()).isEqualTo(6);
+	}
+
+	@Test
+	public void testProfiled() throws Exception {
+		AgentMetrics metrics = new AgentMetrics();
+
+		metrics.profiled("m()V", profiles(String.class, 100, Integer.class, 300), profiles(GenericSerializer.class, 400));
+		metrics.profiled("n()V", profiles(String.class, 500), profiles(GenericSerializer.class, 500));
+
+		assertThat(metrics.getClassProfiles()).containsOnlyKeys("java.lang.String", "java.lang.Integer");
+		assertThat(metrics.getClassProfiles().keySet()).containsExactly("java.lang.String", "java.lang.Integer");
+		assertThat(metrics.getClassProfiles().get("java.lang.String").getCalls()).isEqualTo(2);
+		assertThat(metrics.getClassProfiles().get("java.lang.String").getTotalNanos()).isEqualTo(600);
+		assertThat(metrics.getClassProfiles().get("java.lang.String").getMaxNanos()).isEqualTo(500);
+		assertThat(metrics.getSerializerProfiles()).containsOnlyKeys(GenericSerializer.class.getName());
+		assertThat(metrics.getSerializerProfiles().get(GenericSerializer.class.getName()).getTotalNanos()).isEqualTo(900);
+	}
+
+	private static Map<Class<?>, Profile> profiles(Object... typesAndDurations) {
+		Map<Class<?>, Profile> profiles = new LinkedHashMap<>();
+		for (int i = 0; i < typesAndDurations.length; i += 2) {
+			Profile profile = new Profile();
+			profile.record((Integer) typesAndDurations[i + 1], 1, 0);
+			profiles.put((Class<?>) typesAndDurations[i], profile);
+		}
+		return profiles;
+	}
+
+	@Test
+	public void testGenerated() throws Exception {
+		AgentMetrics metrics = new AgentMetrics();
+
+		metrics.generated("m()V", 10);
+		metrics.generated("m()V", 30);
+
+		assertThat(metrics.getGenerationLatency().getCount()).isEqualTo(2);
+		assertThat(metrics.getGenerationLatency().getTotal()).isEqualTo(40);
+	}
+
+	@Test
+	public void testGauges() throws Exception {
+		AgentMetrics metrics = new AgentMetrics();
+		AtomicLong depth = new AtomicLong();
+
+		metrics.gauge("queue", depth::get);
+		depth.set(42);
+
+		assertThat(metrics.getGauges()).containsEntry("queue", 42l);
+	}
+
+	@Test
+	public void testForwardsToConfiguredMetrics() throws Exception {
+		RecordingMetrics failing = mock(RecordingMetrics.class);
+		doThrow(new RuntimeException()).when(failing).recordedCall(any());
+		RecordingMetrics sink = mock(RecordingMetrics.class);
+		AgentConfiguration config = defaultConfig()
+			.loading(RecordingMetrics.class, args -> failing)
+			.loading(RecordingMetrics.class, args -> sink);
+		AgentMetrics metrics = AgentMetrics.of(config);
+		LongSupplier gauge = () -> 1;
+
+		metrics.recordedCall("m()V");
+		metrics.snapshotStarted("m()V");
+		metrics.snapshotInvalidated("m()V");
+		metrics.snapshotTimedOut("m()V");
+		metrics.snapshotConsumed("m()V");
+		metrics.serialized("m()V", 100, 2);
+		metrics.profiled("m()V", emptyMap(), emptyMap());
+		metrics.generated("m()V", 10);
+		metrics.gauge("queue", gauge);
+
+		verify(sink).recordedCall("m()V");
+		verify(sink).snapshotStarted("m()V");
+		verify(sink).snapshotInvalidated("m()V");
+		verify(sink).snapshotTimedOut("m()V");
+		verify(sink).snapshotConsumed("m()V");
+		verify(sink).serialized("m()V", 100, 2);
+		verify(sink).profiled("m()V", emptyMap(), emptyMap());
+		verify(sink).generated("m()V", 10);
+		verify(sink).gauge("queue", gauge);
+		assertThat(metrics.getRecordedCalls()).isEqualTo(1);
+	}
+
+	@Test
+	public void testOfIsSharedPerConfiguration() throws Exception {
+		AgentConfiguration config = defaultConfig();
+
+		assertThat(AgentMetrics.of(config)).isSameAs(AgentMetrics.of(config));
+		assertThat(AgentMetrics.of(config)).isNotSameAs(AgentMetrics.of(defaultConfig()));
+	}
+
+	@Test
+	public void testOfRegistersMXBean() throws Exception {
+		AgentMetrics metrics = AgentMetrics.of(defaultConfig());
+		metrics.recordedCall("m()V");
+		metrics.serialized("m()V", 100, 2);
+		metrics.profiled("m()V", profiles(String.class, 100), emptyMap());
+		metrics.gauge("queue", () -> 3);
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(AgentMetrics.OBJECT_NAME);
+
+		assertThat(server.getAttribute(name, "RecordedCalls")).isEqualTo(1l);
+		assertThat(((CompositeData) server.getAttribute(name, "VisitedObjects")).get("max")).isEqualTo(2l);
+		assertThat(((TabularData) server.getAttribute(name, "SerializationLatency")).size()).isEqualTo(1);
+		assertThat(((TabularData) server.getAttribute(name, "Gauges")).size()).isEqualTo(1);
+		assertThat(((TabularData) server.getAttribute(name, "ClassProfiles")).size()).isEqualTo(1);
+	}
+
+}
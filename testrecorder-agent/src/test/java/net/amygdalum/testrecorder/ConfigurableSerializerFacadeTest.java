@@ -8,20 +8,32 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import net.amygdalum.testrecorder.profile.PerformanceProfile;
 import net.amygdalum.testrecorder.serializers.GenericSerializer;
 import net.amygdalum.testrecorder.types.OverrideSerializer;
 import net.amygdalum.testrecorder.types.SerializedValue;
 import net.amygdalum.testrecorder.types.Serializer;
 import net.amygdalum.testrecorder.types.SerializerSession;
+import net.amygdalum.testrecorder.util.testobjects.Complex;
+import net.amygdalum.testrecorder.util.testobjects.ContainingList;
+import net.amygdalum.testrecorder.util.testobjects.Simple;
 import net.amygdalum.testrecorder.values.ASerializedValue;
 import net.amygdalum.testrecorder.values.SerializedNull;
+import net.amygdalum.testrecorder.values.SerializedArray;
+import net.amygdalum.testrecorder.values.SerializedList;
+import net.amygdalum.testrecorder.values.SerializedMap;
 import net.amygdalum.testrecorder.values.SerializedObject;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
+import net.amygdalum.testrecorder.values.SerializedTruncated;
 
 public class ConfigurableSerializerFacadeTest {
 
@@ -139,6 +151,381 @@ public class ConfigurableSerializerFacadeTest {
 		assertThat(serialize).containsExactly(literal(String.class, "str"));
 	}
 
+	@Test
+	public void testSerializeBeyondMaxDepth() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig()
+			.withDefaultValue(PerformanceProfile.class, () -> new BudgetProfile(1, 0, 0)));
+
+		SerializedArray result = (SerializedArray) facade.serialize(Complex[].class, new Complex[] { new Complex() }, facade.newSession());
+		SerializedObject complex = (SerializedObject) result.getArray()[0];
+
+		assertThat(complex.getField("simple").get().getValue())
+			.isInstanceOf(SerializedTruncated.class)
+			.returns(Simple.class, SerializedValue::getType);
+	}
+
+	@Test
+	public void testSerializeBeyondMaxElements() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig()
+			.withDefaultValue(PerformanceProfile.class, () -> new BudgetProfile(0, 2, 0)));
+
+		Map<String, String> entries = new LinkedHashMap<>();
+		entries.put("a", "1");
+		entries.put("b", "2");
+		entries.put("c", "3");
+
+		SerializedList complete = (SerializedList) facade.serialize(List.class, asList("a", "b"), facade.newSession());
+		SerializedList list = (SerializedList) facade.serialize(List.class, asList("a", "b", "c"), facade.newSession());
+		SerializedArray array = (SerializedArray) facade.serialize(Simple[].class, new Simple[] { new Simple("a"), new Simple("b"), new Simple("c") }, facade.newSession());
+		SerializedMap map = (SerializedMap) facade.serialize(Map.class, entries, facade.newSession());
+
+		assertThat(complete).containsExactly(literal("a"), literal("b"));
+		assertThat(complete.isTruncated()).isFalse();
+		assertThat(list).containsExactly(literal("a"), literal("b"));
+		assertThat(list.isTruncated()).isTrue();
+		assertThat(array.getArray()).hasSize(2);
+		assertThat(array.isTruncated()).isTrue();
+		assertThat(map.keySet()).containsExactly(literal("a"), literal("b"));
+		assertThat(map.isTruncated()).isTrue();
+	}
+
+	@Test
+	public void testSerializeBeyondMaxElementsCapturesPrimitiveArrays() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig()
+			.withDefaultValue(PerformanceProfile.class, () -> new BudgetProfile(0, 2, 0)));
+
+		SerializedPrimitiveArray array = (SerializedPrimitiveArray) facade.serialize(int[].class, new int[] { 1, 2, 3 }, facade.newSession());
+
+		assertThat(array.getArray()).isEqualTo(new int[] { 1, 2, 3 });
+	}
+
+	@Test
+	public void testSerializeBeyondMaxObjects() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig()
+			.withDefaultValue(PerformanceProfile.class, () -> new BudgetProfile(0, 0, 2)));
+		SerializerSession session = facade.newSession();
+
+		SerializedObject result = (SerializedObject) facade.serialize(Complex.class, new Complex(), session);
+
+		assertThat(result.getField("simple").get().getValue()).isInstanceOf(SerializedObject.class);
+		assertThat(facade.serialize(Simple.class, new Simple(), session)).isInstanceOf(SerializedTruncated.class);
+	}
+
+	@Test
+	public void testSerializeDegraded() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig());
+		Complex[][] nested = new Complex[][] { { new Complex() } };
+
+		SerializedArray result = (SerializedArray) facade.serialize(Complex[][].class, nested, facade.newSession());
+		SerializedArray degraded = (SerializedArray) facade.serialize(Complex[][].class, nested, facade.newDegradedSession());
+
+		SerializedObject complex = (SerializedObject) ((SerializedArray) result.getArray()[0]).getArray()[0];
+		SerializedObject degradedComplex = (SerializedObject) ((SerializedArray) degraded.getArray()[0]).getArray()[0];
+		assertThat(complex.getField("simple").get().getValue()).isInstanceOf(SerializedObject.class);
+		assertThat(degradedComplex.getField("simple").get().getValue()).isInstanceOf(SerializedTruncated.class);
+	}
+
+	@Test
+	public void testChangedAfterTracking() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig());
+		ContainingList nested = new ContainingList(new ArrayList<>(asList("a")));
+		List<Object> list = new ArrayList<>(asList(nested));
+		SerializerSession session = facade.newSession();
+		facade.track(session);
+
+		facade.serialize(List.class, list, session);
+		boolean unchanged = facade.changed(session);
+		nested.getList().add("b");
+		boolean changed = facade.changed(session);
+
+		assertThat(unchanged).isFalse();
+		assertThat(changed).isTrue();
+	}
+
+	@Test
+	public void testChangedAfterTrackingInParallel() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig()
+			.withDefaultValue(PerformanceProfile.class, () -> new ParallelProfile(3, 2)));
+		ContainingList nested = new ContainingList(new ArrayList<>(asList("a")));
+		List<Object> list = new ArrayList<>(asList(nested, new Complex("b"), new Complex("c")));
+		SerializerSession session = facade.newSession();
+		facade.track(session);
+
+		facade.serialize(List.class, list, session);
+		boolean unchanged = facade.changed(session);
+		nested.getList().add("b");
+		boolean changed = facade.changed(session);
+
+		assertThat(unchanged).isFalse();
+		assertThat(changed).isTrue();
+	}
+
+	@Test
+	public void testChangedWithoutTracking() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig());
+		List<Object> list = new ArrayList<>(asList("a"));
+		SerializerSession session = facade.newSession();
+
+		facade.serialize(List.class, list, session);
+		list.add("b");
+
+		assertThat(facade.changed(session)).isFalse();
+	}
+
+	@Test
+	public void testSerializeWithoutBudget() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig()
+			.withDefaultValue(PerformanceProfile.class, () -> new BudgetProfile(0, 0, 0)));
+
+		SerializedObject result = (SerializedObject) facade.serialize(Complex.class, new Complex(), facade.newSession());
+
+		assertThat(result.getField("simple").get().getValue()).isInstanceOf(SerializedObject.class);
+	}
+
+	@Test
+	public void testSerializeInParallel() throws Exception {
+		ConfigurableSerializerFacade sequentialFacade = new ConfigurableSerializerFacade(defaultConfig());
+		ConfigurableSerializerFacade parallelFacade = new ConfigurableSerializerFacade(defaultConfig()
+			.withDefaultValue(PerformanceProfile.class, () -> new ParallelProfile(3, 2)));
+		Simple shared = new Simple("shared");
+		List<Object> objects = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			objects.add(i % 2 == 0 ? new Complex("simple" + i) : shared);
+		}
+
+		SerializedList sequential = (SerializedList) sequentialFacade.serialize(List.class, objects, sequentialFacade.newSession());
+		SerializedList parallel = (SerializedList) parallelFacade.serialize(List.class, objects, parallelFacade.newSession());
+
+		assertThat(parallel.size()).isEqualTo(100);
+		assertThat(parallel.get(1)).isSameAs(parallel.get(3));
+		assertThat(withoutIds(parallel)).isEqualTo(withoutIds(sequential));
+		assertThat(parallel.get(0).getUsedTypes()).containsExactly(sequential.get(0).getUsedTypes());
+	}
+
+	@Test
+	public void testSerializeInParallelWithinBudget() throws Exception {
+		ConfigurableSerializerFacade sequentialFacade = new ConfigurableSerializerFacade(defaultConfig()
+			.withDefaultValue(PerformanceProfile.class, () -> new BudgetProfile(0, 0, 4)));
+		ConfigurableSerializerFacade parallelFacade = new ConfigurableSerializerFacade(defaultConfig()
+			.withDefaultValue(PerformanceProfile.class, () -> new ParallelProfile(3, 1) {
+				@Override
+				public int getMaxObjects() {
+					return 4;
+				}
+			}));
+		List<Object> objects = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			objects.add(new Complex("simple" + i));
+		}
+		SerializerSession session = parallelFacade.newSession();
+
+		SerializedList sequential = (SerializedList) sequentialFacade.serialize(List.class, objects, sequentialFacade.newSession());
+		SerializedList parallel = (SerializedList) parallelFacade.serialize(List.class, objects, session);
+
+		assertThat(parallel.get(2)).isInstanceOf(SerializedObject.class);
+		assertThat(parallel.get(3)).isInstanceOf(SerializedTruncated.class);
+		assertThat(((SerializedObject) parallel.get(0)).getField("simple").get().getValue()).isInstanceOf(SerializedTruncated.class);
+		assertThat(session.getClassProfiles().get(Complex.class).getObjects()).isEqualTo(3);
+		assertThat(withoutIds(parallel)).isEqualTo(withoutIds(sequential));
+	}
+
+	@Test
+	public void testSerializeInParallelBeyondMaxDepth() throws Exception {
+		ConfigurableSerializerFacade sequentialFacade = new ConfigurableSerializerFacade(defaultConfig()
+			.withDefaultValue(PerformanceProfile.class, () -> new BudgetProfile(1, 0, 0)));
+		ConfigurableSerializerFacade parallelFacade = new ConfigurableSerializerFacade(defaultConfig()
+			.withDefaultValue(PerformanceProfile.class, () -> new ParallelProfile(3, 1) {
+				@Override
+				public int getMaxDepth() {
+					return 1;
+				}
+			}));
+		List<Object> objects = asList(new Complex("a"), new Complex("b"));
+
+		SerializedList sequential = (SerializedList) sequentialFacade.serialize(List.class, objects, sequentialFacade.newSession());
+		SerializedList parallel = (SerializedList) parallelFacade.serialize(List.class, objects, parallelFacade.newSession());
+
+		assertThat(((SerializedObject) parallel.get(0)).getField("simple").get().getValue()).isInstanceOf(SerializedTruncated.class);
+		assertThat(withoutIds(parallel)).isEqualTo(withoutIds(sequential));
+	}
+
+	@Test
+	public void testSerializeInParallelBelowThreshold() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig()
+			.withDefaultValue(PerformanceProfile.class, () -> new ParallelProfile(3, 1000)));
+
+		SerializedObject result = (SerializedObject) facade.serialize(Complex.class, new Complex(), facade.newSession());
+
+		assertThat(result.getField("simple").get().getValue()).isInstanceOf(SerializedObject.class);
+	}
+
+	@Test
+	public void testSerializeProfiles() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig());
+		SerializerSession session = facade.newSession();
+
+		facade.serialize(Complex.class, new Complex("a"), session);
+
+		assertThat(session.getClassProfiles()).containsOnlyKeys(Complex.class, Simple.class);
+		assertThat(session.getClassProfiles().get(Complex.class).getObjects()).isEqualTo(1);
+		assertThat(session.getClassProfiles().get(Complex.class).getComponents()).isEqualTo(1);
+		assertThat(session.getClassProfiles().get(Complex.class).getCalls()).isEqualTo(2);
+		assertThat(session.getClassProfiles().get(Complex.class).getTotalNanos()).isGreaterThan(0);
+		assertThat(session.getSerializerProfiles()).containsOnlyKeys(GenericSerializer.class);
+		assertThat(session.getSerializerProfiles().get(GenericSerializer.class).getObjects()).isEqualTo(2);
+	}
+
+	@Test
+	public void testSerializeInParallelProfiles() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig()
+			.withDefaultValue(PerformanceProfile.class, () -> new ParallelProfile(3, 2)));
+		List<Object> objects = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			objects.add(new Complex("simple" + i));
+		}
+		SerializerSession session = facade.newSession();
+
+		facade.serialize(List.class, objects, session);
+
+		assertThat(session.getClassProfiles()).containsOnlyKeys(ArrayList.class, Complex.class, Simple.class);
+		assertThat(session.getClassProfiles().get(Complex.class).getObjects()).isEqualTo(100);
+		assertThat(session.getClassProfiles().get(Complex.class).getCalls()).isEqualTo(200);
+		assertThat(session.getClassProfiles().get(ArrayList.class).getComponents()).isEqualTo(100);
+	}
+
+	@Test
+	public void testSerializeReusingUnchanged() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig());
+		List<Object> objects = new ArrayList<>(asList(new Complex("a"), new Complex("b")));
+		SerializerSession setupSession = facade.newSession();
+		facade.track(setupSession);
+		SerializedList setup = (SerializedList) facade.serialize(List.class, objects, setupSession);
+		facade.retain(setupSession);
+
+		SerializerSession expectSession = facade.newSession();
+		facade.reuse(setupSession, expectSession);
+		SerializedList expect = (SerializedList) facade.serialize(List.class, objects, expectSession);
+
+		assertThat(expect).isSameAs(setup);
+		assertThat(expectSession.visited()).isEqualTo(0);
+	}
+
+	@Test
+	public void testSerializeReusingUnchangedOnChangedReferences() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig());
+		List<Object> inner = new ArrayList<>(asList(new Complex("b")));
+		List<Object> objects = new ArrayList<>(asList(new Complex("a"), inner));
+		SerializerSession setupSession = facade.newSession();
+		facade.track(setupSession);
+		SerializedList setup = (SerializedList) facade.serialize(List.class, objects, setupSession);
+		facade.retain(setupSession);
+
+		inner.set(0, new Complex("c"));
+		SerializerSession expectSession = facade.newSession();
+		facade.reuse(setupSession, expectSession);
+		SerializedList expect = (SerializedList) facade.serialize(List.class, objects, expectSession);
+
+		assertThat(expect).isNotSameAs(setup);
+		assertThat(expect.get(0)).isSameAs(setup.get(0));
+		assertThat(expect.get(1)).isNotSameAs(setup.get(1));
+		assertThat(expect.get(1).toString()).contains("c");
+		assertThat(setup.get(1).toString()).contains("b");
+	}
+
+	@Test
+	public void testSerializeReusingUnchangedKeepsUsage() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig());
+		List<Object> objects = new ArrayList<>(asList(new Complex("a")));
+		SerializerSession setupSession = facade.newSession();
+		facade.track(setupSession);
+		SerializedList setup = (SerializedList) facade.serialize(ArrayList.class, objects, setupSession);
+		facade.retain(setupSession);
+
+		SerializerSession expectSession = facade.newSession();
+		facade.reuse(setupSession, expectSession);
+		SerializedList expect = (SerializedList) facade.serialize(List.class, objects, expectSession);
+
+		assertThat(expect).isSameAs(setup);
+		assertThat(setup.getUsedTypes()).containsExactly(ArrayList.class);
+	}
+
+	@Test
+	public void testSerializeReusingOnChangesAfterSerialization() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig());
+		List<Object> inner = new ArrayList<>(asList("b"));
+		List<Object> objects = new ArrayList<>(asList(new Complex("a"), inner));
+		SerializerSession setupSession = facade.newSession();
+		facade.track(setupSession);
+		SerializedList setup = (SerializedList) facade.serialize(List.class, objects, setupSession);
+
+		inner.add("c");
+		facade.retain(setupSession);
+		SerializerSession expectSession = facade.newSession();
+		facade.reuse(setupSession, expectSession);
+		SerializedList expect = (SerializedList) facade.serialize(List.class, objects, expectSession);
+
+		assertThat(expect).isNotSameAs(setup);
+		assertThat(expect.get(0)).isSameAs(setup.get(0));
+		assertThat((SerializedList) expect.get(1)).hasSize(2);
+		assertThat((SerializedList) setup.get(1)).hasSize(1);
+	}
+
+	@Test
+	public void testSerializeReusingWithoutFingerprint() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig());
+		List<Object> objects = new ArrayList<>(asList(new Complex("a"), new Complex("b")));
+		SerializerSession setupSession = facade.newSession();
+		SerializedList setup = (SerializedList) facade.serialize(List.class, objects, setupSession);
+
+		SerializerSession expectSession = facade.newSession();
+		facade.reuse(setupSession, expectSession);
+		SerializedList expect = (SerializedList) facade.serialize(List.class, objects, expectSession);
+
+		assertThat(expect).isNotSameAs(setup);
+		assertThat(expect.get(0)).isNotSameAs(setup.get(0));
+	}
+
+	@Test
+	public void testNewSessionReusesReleasedSession() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig());
+		Complex object = new Complex("a");
+		SerializerSession session = facade.newSession();
+		facade.serialize(Complex.class, object, session);
+
+		facade.release(session);
+		SerializerSession pooledSession = facade.newSession();
+
+		assertThat(pooledSession).isSameAs(session);
+		assertThat(pooledSession.visited()).isEqualTo(0);
+		assertThat(pooledSession.find(object)).isNull();
+		assertThat(facade.newSession()).isNotSameAs(session);
+	}
+
+	@Test
+	public void testNewSessionDoesNotReuseRetainedSession() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig());
+		Complex object = new Complex("a");
+		SerializerSession session = facade.newSession();
+		facade.track(session);
+		facade.serialize(Complex.class, object, session);
+		facade.retain(session);
+
+		facade.release(session);
+
+		assertThat(facade.newSession()).isNotSameAs(session);
+		assertThat(session.find(object)).isNotNull();
+	}
+
+	@Test
+	public void testNewSessionDoesNotReuseForeignSession() throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig());
+		SerializerSession session = new DefaultSerializerSession();
+
+		facade.release(session);
+
+		assertThat(facade.newSession()).isNotSameAs(session);
+	}
+
 	public static class OtherClass {
 
 	}
@@ -201,4 +588,60 @@ public class ConfigurableSerializerFacadeTest {
 
 	}
 
+
+	private static String withoutIds(SerializedValue value) {
+		return value.toString().replaceAll("/\\d+", "");
+	}
+
+	private static class ParallelProfile extends DefaultPerformanceProfile {
+
+		private int traversalWorkers;
+		private int parallelThreshold;
+
+		ParallelProfile(int traversalWorkers, int parallelThreshold) {
+			this.traversalWorkers = traversalWorkers;
+			this.parallelThreshold = parallelThreshold;
+		}
+
+		@Override
+		public int getTraversalWorkers() {
+			return traversalWorkers;
+		}
+
+		@Override
+		public int getParallelThreshold() {
+			return parallelThreshold;
+		}
+
+	}
+
+	private static class BudgetProfile extends DefaultPerformanceProfile {
+
+		private int maxDepth;
+		private int maxElements;
+		private int maxObjects;
+
+		BudgetProfile(int maxDepth, int maxElements, int maxObjects) {
+			this.maxDepth = maxDepth;
+			this.maxElements = maxElements;
+			this.maxObjects = maxObjects;
+		}
+
+		@Override
+		public int getMaxDepth() {
+			return maxDepth;
+		}
+
+		@Override
+		public int getMaxElements() {
+			return maxElements;
+		}
+
+		@Override
+		public int getMaxObjects() {
+			return maxObjects;
+		}
+
+	}
+
 }
@@ -0,0 +1,54 @@
+package net.amygdalum.testrecorder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.profile.Sampler;
+import net.amygdalum.testrecorder.types.ContextSnapshot;
+import net.amygdalum.testrecorder.types.VirtualMethodSignature;
+import net.amygdalum.testrecorder.util.testobjects.Bean;
+
+public class ContextSnapshotFactoryTest {
+
+	@Test
+	public void testSignature() throws Exception {
+		ContextSnapshotFactory factory = new ContextSnapshotFactory("key", "net/amygdalum/testrecorder/util/testobjects/Bean", "setAttribute", "(Ljava/lang/String;)V");
+
+		VirtualMethodSignature signature = factory.signature(Bean.class);
+
+		assertThat(signature.signature.methodName).isEqualTo("setAttribute");
+		assertThat(signature.signature.declaringClass).isSameAs(Bean.class);
+		assertThat(factory.signature(Bean.class)).isSameAs(signature);
+	}
+
+	@Test
+	public void testSignatureOnNull() throws Exception {
+		assertThat(ContextSnapshotFactory.NULL.signature(Bean.class)).isSameAs(VirtualMethodSignature.NULL);
+	}
+
+	@Test
+	public void testCreateSnapshot() throws Exception {
+		ContextSnapshotFactory factory = new ContextSnapshotFactory("key", "net/amygdalum/testrecorder/util/testobjects/Bean", "setAttribute", "(Ljava/lang/String;)V");
+
+		ContextSnapshot snapshot1 = factory.createSnapshot(Bean.class);
+		ContextSnapshot snapshot2 = factory.createSnapshot(Bean.class);
+
+		assertThat(snapshot1).isNotSameAs(snapshot2);
+		assertThat(snapshot1.getKey()).isEqualTo("key");
+		assertThat(snapshot1.isValid()).isTrue();
+		assertThat(snapshot1.getMethodName()).isEqualTo("setAttribute");
+	}
+
+	@Test
+	public void testSample() throws Exception {
+		ContextSnapshotFactory factory = new ContextSnapshotFactory("key", "net/amygdalum/testrecorder/util/testobjects/Bean", "setAttribute", "(Ljava/lang/String;)V", () -> false);
+
+		assertThat(factory.sample()).isFalse();
+		assertThat(factory.skippedSnapshot().isValid()).isFalse();
+		assertThat(factory.skippedSnapshot().matches("key")).isTrue();
+		assertThat(ContextSnapshotFactory.NULL.sample()).isTrue();
+		assertThat(Sampler.ALL.sample()).isTrue();
+	}
+
+}
@@ -4,6 +4,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import org.junit.jupiter.api.Test;
 
+import net.amygdalum.testrecorder.profile.OverflowPolicy;
+
 public class DefaultPerformanceProfileTest {
 
 	@Test
@@ -11,6 +13,20 @@ public class DefaultPerformanceProfileTest {
     	DefaultPerformanceProfile config = new DefaultPerformanceProfile();
         assertThat(config.getTimeoutInMillis()).isEqualTo(100_000l);
         assertThat(config.getIdleTime()).isEqualTo(10_000l);
+        assertThat(config.getSerializationWorkers()).isGreaterThanOrEqualTo(1);
+        assertThat(config.isAsynchronous()).isFalse();
+        assertThat(config.getQueueCapacity()).isEqualTo(10_000);
+        assertThat(config.getOverflowPolicy()).isEqualTo(OverflowPolicy.BLOCK);
+        assertThat(config.getMemoryThreshold()).isEqualTo(0.9);
+        assertThat(config.getMemoryCooldown()).isEqualTo(10_000l);
+        assertThat(config.getMaxDepth()).isEqualTo(10_000);
+        assertThat(config.getMaxElements()).isEqualTo(0);
+        assertThat(config.getMaxObjects()).isEqualTo(1_000_000);
+        assertThat(config.getDegradedMaxDepth()).isEqualTo(2);
+        assertThat(config.getDegradedMaxObjects()).isEqualTo(100);
+        assertThat(config.getTraversalWorkers()).isEqualTo(0);
+        assertThat(config.getParallelThreshold()).isEqualTo(10_000);
+        assertThat(config.isIncrementalExpect()).isFalse();
     }
 
 }
@@ -22,6 +22,7 @@ public class DefaultSerializationProfileTest {
         assertThat(config.getOutputs()).isEmpty();
         assertThat(config.getGlobalFields()).isEmpty();
         assertThat(config.getClasses()).isEmpty();
+        assertThat(config.getSampling()).isEmpty();
     }
 
 }
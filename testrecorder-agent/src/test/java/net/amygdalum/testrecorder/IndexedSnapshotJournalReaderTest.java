@@ -0,0 +1,218 @@
+package net.amygdalum.testrecorder;
+
+import static java.util.stream.Collectors.toList;
+import static net.amygdalum.testrecorder.values.SerializedLiteral.literal;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.IndexedSnapshotJournalReader.Entry;
+import net.amygdalum.testrecorder.types.ContextSnapshot;
+import net.amygdalum.testrecorder.types.MethodSignature;
+import net.amygdalum.testrecorder.types.VirtualMethodSignature;
+import net.amygdalum.testrecorder.values.SerializedLiteral;
+
+public class IndexedSnapshotJournalReaderTest {
+
+	private Path dir;
+
+	@BeforeEach
+	void before() throws Exception {
+		dir = Files.createTempDirectory("journal");
+	}
+
+	@AfterEach
+	void after() throws Exception {
+		try (Stream<Path> files = Files.walk(dir)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).collect(toList())) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	@Test
+	void testEntries() throws Exception {
+		SnapshotJournal journal = journal(dir);
+		journal.accept(snapshot(3, "length", "first"));
+		journal.accept(snapshot(1, "isEmpty", "second"));
+		journal.accept(snapshot(2, "length", "third"));
+		journal.close();
+
+		try (IndexedSnapshotJournalReader reader = new IndexedSnapshotJournalReader(dir)) {
+			assertThat(reader.entries()).extracting(Entry::getTime).containsExactly(3L, 1L, 2L);
+			assertThat(reader.entries()).extracting(Entry::getKey).containsExactly("length", "isEmpty", "length");
+			assertThat(reader.entries().get(2).getSegment()).isEqualTo(dir.resolve(SnapshotJournal.segmentName(0)));
+			assertThat(value(reader.entries().get(2))).isEqualTo("third");
+		}
+	}
+
+	@Test
+	void testEntriesByKey() throws Exception {
+		SnapshotJournal journal = journal(dir);
+		journal.accept(snapshot(3, "length", "first"));
+		journal.accept(snapshot(1, "isEmpty", "second"));
+		journal.accept(snapshot(2, "length", "third"));
+		journal.close();
+
+		try (IndexedSnapshotJournalReader reader = new IndexedSnapshotJournalReader(dir)) {
+			assertThat(reader.keys()).containsExactly("length", "isEmpty");
+			assertThat(reader.entries("length")).extracting(this::value).containsExactly("first", "third");
+			assertThat(reader.entries("isEmpty")).extracting(this::value).containsExactly("second");
+			assertThat(reader.entries("hashCode")).isEmpty();
+		}
+	}
+
+	@Test
+	void testEntriesByTime() throws Exception {
+		SnapshotJournal journal = journal(dir);
+		for (int i = 10; i > 0; i--) {
+			journal.accept(snapshot(i, "length", "v" + i));
+		}
+		journal.close();
+
+		try (IndexedSnapshotJournalReader reader = new IndexedSnapshotJournalReader(dir)) {
+			assertThat(reader.entries(3, 5)).extracting(Entry::getTime).containsExactly(3L, 4L, 5L);
+			assertThat(reader.entries(8, Long.MAX_VALUE)).extracting(this::value).containsExactly("v8", "v9", "v10");
+			assertThat(reader.entries(Long.MIN_VALUE, 0)).isEmpty();
+			assertThat(reader.entries(5, 4)).isEmpty();
+		}
+	}
+
+	@Test
+	void testEntriesOfSeveralSegments() throws Exception {
+		SnapshotJournal journal = journal(dir);
+		journal.segmentSize = 1;
+		journal.accept(snapshot(1, "length", "first"));
+		journal.accept(snapshot(2, "length", "second"));
+		journal.accept(snapshot(3, "length", "third"));
+		journal.close();
+
+		try (IndexedSnapshotJournalReader reader = new IndexedSnapshotJournalReader(dir)) {
+			assertThat(reader.entries()).extracting(entry -> entry.getSegment().getFileName().toString())
+				.containsExactly("snapshots-00000000.journal", "snapshots-00000001.journal", "snapshots-00000002.journal");
+			assertThat(reader.entries()).extracting(this::value).containsExactly("first", "second", "third");
+		}
+	}
+
+	@Test
+	void testEntriesOfUnindexedSegment() throws Exception {
+		SnapshotJournal journal = journal(dir);
+		journal.accept(snapshot(1, "length", "first"));
+		journal.accept(snapshot(2, "isEmpty", "second"));
+		journal.flush();
+
+		try (IndexedSnapshotJournalReader reader = new IndexedSnapshotJournalReader(dir)) {
+			assertThat(reader.entries()).extracting(Entry::getKey).containsExactly("length", "isEmpty");
+			assertThat(reader.entries()).extracting(this::value).containsExactly("first", "second");
+		}
+
+		journal.close();
+	}
+
+	@Test
+	void testEntriesOfCompressedSegments() throws Exception {
+		SnapshotJournal journal = journal(dir);
+		journal.compression = Deflater.DEFAULT_COMPRESSION;
+		journal.accept(snapshot(1, "length", "first"));
+		journal.accept(snapshot(2, "isEmpty", "second"));
+		journal.close();
+		journal.accept(snapshot(3, "length", "third"));
+		journal.flush();
+
+		try (IndexedSnapshotJournalReader reader = new IndexedSnapshotJournalReader(dir)) {
+			assertThat(reader.entries()).extracting(Entry::getKey).containsExactly("length", "isEmpty", "length");
+			assertThat(reader.entries("isEmpty")).extracting(this::value).containsExactly("second");
+			assertThat(reader.entries()).extracting(this::value).containsExactly("first", "second", "third");
+		}
+
+		journal.close();
+	}
+
+	@Test
+	void testEntriesOfSegmentWithTornIndex() throws Exception {
+		SnapshotJournal journal = journal(dir);
+		journal.accept(snapshot(1, "length", "first"));
+		journal.accept(snapshot(2, "isEmpty", "second"));
+		journal.close();
+
+		Path segment = dir.resolve(SnapshotJournal.segmentName(0));
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			file.setLength(file.length() - 3);
+		}
+
+		try (IndexedSnapshotJournalReader reader = new IndexedSnapshotJournalReader(dir)) {
+			assertThat(reader.entries()).extracting(this::value).containsExactly("first", "second");
+		}
+	}
+
+	@Test
+	void testSnapshotOfCorruptRecord() throws Exception {
+		SnapshotJournal journal = journal(dir);
+		journal.accept(snapshot(1, "length", "first"));
+		journal.accept(snapshot(2, "length", "second"));
+		journal.close();
+
+		long offset;
+		try (IndexedSnapshotJournalReader reader = new IndexedSnapshotJournalReader(dir)) {
+			offset = reader.entries().get(1).getOffset();
+		}
+		Path segment = dir.resolve(SnapshotJournal.segmentName(0));
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			file.seek(offset + SnapshotJournal.RECORD_HEADER_SIZE + 1);
+			int next = file.read();
+			file.seek(offset + SnapshotJournal.RECORD_HEADER_SIZE + 1);
+			file.write(next ^ 0xff);
+		}
+
+		try (IndexedSnapshotJournalReader reader = new IndexedSnapshotJournalReader(dir)) {
+			assertThat(value(reader.entries().get(0))).isEqualTo("first");
+			assertThatThrownBy(() -> reader.entries().get(1).snapshot()).isInstanceOf(IOException.class);
+		}
+	}
+
+	@Test
+	void testSnapshotAfterClose() throws Exception {
+		SnapshotJournal journal = journal(dir);
+		journal.accept(snapshot(1, "length", "first"));
+		journal.close();
+
+		IndexedSnapshotJournalReader reader = new IndexedSnapshotJournalReader(dir);
+		Entry entry = reader.entries().get(0);
+		reader.close();
+
+		assertThatThrownBy(() -> entry.snapshot()).isInstanceOf(IOException.class);
+		assertThat(reader.entries()).isEmpty();
+	}
+
+	private String value(Entry entry) {
+		try {
+			return (String) ((SerializedLiteral) entry.snapshot().getSetupThis()).getValue();
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	private SnapshotJournal journal(Path dir) {
+		SnapshotJournal journal = new SnapshotJournal(dir);
+		journal.closeOnShutdown(false);
+		return journal;
+	}
+
+	private ContextSnapshot snapshot(long time, String key, String value) {
+		ContextSnapshot snapshot = new ContextSnapshot(time, key, new VirtualMethodSignature(new MethodSignature(String.class, int.class, "length", new Class[0])));
+		snapshot.setSetupThis(literal(value));
+		return snapshot;
+	}
+
+}
@@ -0,0 +1,164 @@
+package net.amygdalum.testrecorder;
+
+import static java.lang.management.MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED;
+import static java.lang.management.MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED;
+import static java.lang.management.MemoryType.HEAP;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.Notification;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+
+import org.junit.jupiter.api.Test;
+
+public class MemoryGuardTest {
+
+	@Test
+	public void testDisabled() throws Exception {
+		MemoryGuard memoryGuard = MemoryGuard.disabled();
+
+		assertThat(memoryGuard.isEnabled()).isFalse();
+		assertThat(memoryGuard.isSuspended()).isFalse();
+		assertThat(memoryGuard.getEpoch()).isEqualTo(0);
+	}
+
+	@Test
+	public void testEnabled() throws Exception {
+		MemoryGuard memoryGuard = new MemoryGuard(0.99, 10_000, () -> {
+		});
+		try {
+			assertThat(memoryGuard.isEnabled()).isTrue();
+			assertThat(memoryGuard.getThreshold()).isEqualTo(0.99);
+			assertThat(memoryGuard.isSuspended()).isFalse();
+		} finally {
+			memoryGuard.close();
+		}
+		assertThat(memoryGuard.isEnabled()).isFalse();
+	}
+
+	@Test
+	public void testSuspend() throws Exception {
+		AtomicInteger suspensions = new AtomicInteger();
+		MemoryGuard memoryGuard = new MemoryGuard(0, 10_000, suspensions::incrementAndGet);
+
+		memoryGuard.suspend();
+		memoryGuard.suspend();
+
+		assertThat(memoryGuard.isSuspended()).isTrue();
+		assertThat(memoryGuard.getEpoch()).isEqualTo(1);
+		assertThat(suspensions.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testResumeAfterCooldown() throws Exception {
+		AtomicInteger suspensions = new AtomicInteger();
+		MemoryGuard memoryGuard = new MemoryGuard(0, 0, suspensions::incrementAndGet);
+
+		memoryGuard.suspend();
+
+		assertThat(memoryGuard.isSuspended()).isFalse();
+
+		memoryGuard.suspend();
+
+		assertThat(memoryGuard.getEpoch()).isEqualTo(2);
+		assertThat(suspensions.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void testHandleNotification() throws Exception {
+		MemoryPoolMXBean pool = guardablePool();
+		MemoryGuard memoryGuard = new MemoryGuard(0.5, 10_000, () -> {
+		});
+		try {
+			long max = pool.getUsage().getMax();
+
+			memoryGuard.handleNotification(new Notification("other", this, 1));
+			memoryGuard.handleNotification(notification(MEMORY_THRESHOLD_EXCEEDED, pool.getName(), max));
+			memoryGuard.handleNotification(notification(MEMORY_COLLECTION_THRESHOLD_EXCEEDED, "other pool", max));
+			memoryGuard.handleNotification(notification(MEMORY_COLLECTION_THRESHOLD_EXCEEDED, pool.getName(), max / 4));
+
+			assertThat(memoryGuard.isSuspended()).isFalse();
+
+			memoryGuard.handleNotification(notification(MEMORY_COLLECTION_THRESHOLD_EXCEEDED, pool.getName(), max));
+
+			assertThat(memoryGuard.isSuspended()).isTrue();
+		} finally {
+			memoryGuard.close();
+		}
+	}
+
+	@Test
+	public void testCloseResetsThresholds() throws Exception {
+		MemoryPoolMXBean pool = guardablePool();
+		long threshold = pool.getCollectionUsageThreshold();
+		pool.setCollectionUsageThreshold(0);
+		try {
+			MemoryGuard memoryGuard = new MemoryGuard(0.99, 10_000, () -> {
+			});
+
+			assertThat(pool.getCollectionUsageThreshold()).isEqualTo((long) (0.99 * pool.getUsage().getMax()));
+
+			memoryGuard.close();
+
+			assertThat(pool.getCollectionUsageThreshold()).isEqualTo(0);
+		} finally {
+			pool.setCollectionUsageThreshold(threshold);
+		}
+	}
+
+	@Test
+	public void testKeepsThresholdsOfApplication() throws Exception {
+		MemoryPoolMXBean pool = guardablePool();
+		long threshold = pool.getCollectionUsageThreshold();
+		long applicationThreshold = pool.getUsage().getMax() / 2;
+		pool.setCollectionUsageThreshold(applicationThreshold);
+		try {
+			MemoryGuard memoryGuard = new MemoryGuard(0.99, 10_000, () -> {
+			});
+
+			assertThat(pool.getCollectionUsageThreshold()).isEqualTo(applicationThreshold);
+
+			memoryGuard.handleNotification(notification(MEMORY_COLLECTION_THRESHOLD_EXCEEDED, pool.getName(), applicationThreshold));
+			memoryGuard.close();
+
+			assertThat(memoryGuard.isSuspended()).isFalse();
+			assertThat(pool.getCollectionUsageThreshold()).isEqualTo(applicationThreshold);
+		} finally {
+			pool.setCollectionUsageThreshold(threshold);
+		}
+	}
+
+	private static MemoryPoolMXBean guardablePool() {
+		return ManagementFactory.getMemoryPoolMXBeans().stream()
+			.filter(pool -> pool.getType() == HEAP)
+			.filter(pool -> pool.isCollectionUsageThresholdSupported())
+			.filter(pool -> pool.getUsage().getMax() > 0)
+			.findFirst()
+			.orElseThrow(() -> new AssertionError("no heap pool supporting collection usage thresholds"));
+	}
+
+	private Notification notification(String type, String poolName, long used) throws Exception {
+		CompositeData usage = (CompositeData) ManagementFactory.getPlatformMBeanServer()
+			.getAttribute(ManagementFactory.getMemoryMXBean().getObjectName(), "HeapMemoryUsage");
+		CompositeType usageType = usage.getCompositeType();
+		CompositeData usedUsage = new CompositeDataSupport(usageType,
+			new String[] { "init", "used", "committed", "max" },
+			new Object[] { 0L, used, used, used });
+		String[] names = new String[] { "poolName", "usage", "count" };
+		CompositeType infoType = new CompositeType(MemoryNotificationInfo.class.getName(), "memory notification", names, names,
+			new OpenType<?>[] { SimpleType.STRING, usageType, SimpleType.LONG });
+
+		Notification notification = new Notification(type, this, 1);
+		notification.setUserData(new CompositeDataSupport(infoType, names, new Object[] { poolName, usedUsage, 1L }));
+		return notification;
+	}
+
+}
@@ -0,0 +1,113 @@
+package net.amygdalum.testrecorder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.types.ContextSnapshot;
+import net.amygdalum.testrecorder.types.VirtualMethodSignature;
+
+public class RecordingContextTest {
+
+	@Test
+	public void testAcquireRelease() throws Exception {
+		RecordingContext context = new RecordingContext();
+
+		assertThat(context.locked()).isFalse();
+		assertThat(context.acquire()).isTrue();
+		assertThat(context.locked()).isTrue();
+		assertThat(context.acquire()).isFalse();
+
+		context.release();
+
+		assertThat(context.locked()).isFalse();
+		assertThat(context.acquire()).isTrue();
+	}
+
+	@Test
+	public void testAcquireInvalidatesSnapshotsOfEarlierEpoch() throws Exception {
+		MemoryGuard memoryGuard = new MemoryGuard(0, 10_000, () -> {
+		});
+		RecordingContext context = new RecordingContext(memoryGuard);
+		ContextSnapshot started = snapshot("1");
+		context.push(started);
+
+		memoryGuard.suspend();
+		context.acquire();
+		context.release();
+
+		assertThat(started.isValid()).isFalse();
+
+		ContextSnapshot next = snapshot("2");
+		context.push(next);
+		context.acquire();
+
+		assertThat(next.isValid()).isTrue();
+	}
+
+	@Test
+	public void testPushPop() throws Exception {
+		RecordingContext context = new RecordingContext();
+		ContextSnapshot snapshot1 = snapshot("1");
+		ContextSnapshot snapshot2 = snapshot("2");
+
+		context.push(snapshot1);
+		context.push(snapshot2);
+
+		assertThat(context.snapshots()).containsExactly(snapshot2, snapshot1);
+		assertThat(context.pop()).isSameAs(snapshot2);
+		assertThat(context.pop()).isSameAs(snapshot1);
+		assertThat(context.pop()).isNull();
+	}
+
+	@Test
+	public void testRecordingSkipsInvalid() throws Exception {
+		RecordingContext context = new RecordingContext();
+		ContextSnapshot valid = snapshot("valid");
+		ContextSnapshot invalid = snapshot("invalid");
+		invalid.invalidate();
+
+		assertThat(context.recording()).isNull();
+
+		context.push(valid);
+		context.push(invalid);
+
+		assertThat(context.recording()).isSameAs(valid);
+	}
+
+	@Test
+	public void testReleaseCompactsEmptyDeepStack() throws Exception {
+		RecordingContext context = new RecordingContext();
+		context.acquire();
+		for (int i = 0; i < 100; i++) {
+			context.push(snapshot("" + i));
+		}
+		context.release();
+		Object deepStack = context.snapshots();
+
+		context.acquire();
+		while (context.pop() != null) {
+		}
+		context.release();
+
+		assertThat(context.snapshots()).isEmpty();
+		assertThat(context.snapshots()).isNotSameAs(deepStack);
+	}
+
+	@Test
+	public void testReleaseKeepsShallowStack() throws Exception {
+		RecordingContext context = new RecordingContext();
+		Object stack = context.snapshots();
+		context.acquire();
+		context.push(snapshot("1"));
+		context.pop();
+		context.release();
+
+		assertThat(context.snapshots()).isSameAs(stack);
+	}
+
+	private ContextSnapshot snapshot(String key) {
+		return new ContextSnapshot(0, key, VirtualMethodSignature.NULL);
+	}
+
+}
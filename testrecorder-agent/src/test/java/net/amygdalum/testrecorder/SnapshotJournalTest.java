@@ -0,0 +1,339 @@
+package net.amygdalum.testrecorder;
+
+import static java.util.stream.Collectors.toList;
+import static net.amygdalum.testrecorder.values.SerializedLiteral.literal;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.types.ContextSnapshot;
+import net.amygdalum.testrecorder.types.MethodSignature;
+import net.amygdalum.testrecorder.types.VirtualMethodSignature;
+import net.amygdalum.testrecorder.values.SerializedList;
+import net.amygdalum.testrecorder.values.SerializedLiteral;
+
+public class SnapshotJournalTest {
+
+	private Path dir;
+
+	@BeforeEach
+	void before() throws Exception {
+		dir = Files.createTempDirectory("journal");
+	}
+
+	@AfterEach
+	void after() throws Exception {
+		try (Stream<Path> files = Files.walk(dir)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).collect(toList())) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	@Test
+	void testAcceptAndReplay() throws Exception {
+		SnapshotJournal journal = journal(dir);
+
+		journal.accept(snapshot("first"));
+		journal.accept(snapshot("second"));
+		journal.accept(snapshot("third"));
+		journal.close();
+
+		List<ContextSnapshot> snapshots = new ArrayList<>();
+		int count = new SnapshotJournalReader(dir).replay(snapshots::add);
+
+		assertThat(count).isEqualTo(3);
+		assertThat(snapshots).extracting(ContextSnapshot::getKey).containsExactly("first", "second", "third");
+		assertThat(snapshots).extracting(snapshot -> ((SerializedLiteral) snapshot.getSetupThis()).getValue()).containsExactly("first", "second", "third");
+		assertThat(snapshots.get(0).getDeclaringClass()).isEqualTo(String.class);
+		assertThat(journal.getLostSnapshots()).isEqualTo(0);
+	}
+
+	@Test
+	void testAcceptBeforeSync() throws Exception {
+		SnapshotJournal journal = journal(dir);
+		journal.syncEvery = 1000;
+		journal.syncInterval = Long.MAX_VALUE;
+
+		journal.accept(snapshot("unsynced"));
+
+		List<ContextSnapshot> snapshots = new ArrayList<>();
+		new SnapshotJournalReader(dir).replay(snapshots::add);
+
+		assertThat(snapshots).extracting(ContextSnapshot::getKey).containsExactly("unsynced");
+
+		journal.close();
+	}
+
+	@Test
+	void testAcceptSyncsInBackground() throws Exception {
+		CountDownLatch synced = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<Thread> syncThreads = new CopyOnWriteArrayList<>();
+		SnapshotJournal journal = new SnapshotJournal(dir) {
+			@Override
+			void force(FileChannel channel) throws IOException {
+				syncThreads.add(Thread.currentThread());
+				synced.countDown();
+				try {
+					release.await(1, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.force(channel);
+			}
+		};
+		journal.closeOnShutdown(false);
+		journal.syncEvery = 1;
+
+		journal.accept(snapshot("first"));
+		journal.accept(snapshot("second"));
+
+		assertThat(synced.await(1, TimeUnit.SECONDS)).isTrue();
+		assertThat(syncThreads).doesNotContain(Thread.currentThread());
+		release.countDown();
+		journal.close();
+
+		List<ContextSnapshot> snapshots = new ArrayList<>();
+		new SnapshotJournalReader(dir).replay(snapshots::add);
+
+		assertThat(snapshots).extracting(ContextSnapshot::getKey).containsExactly("first", "second");
+	}
+
+	@Test
+	void testAcceptRollsSegments() throws Exception {
+		SnapshotJournal journal = journal(dir);
+		journal.segmentSize = 1;
+
+		journal.accept(snapshot("first"));
+		journal.accept(snapshot("second"));
+		journal.accept(snapshot("third"));
+		journal.close();
+
+		SnapshotJournalReader reader = new SnapshotJournalReader(dir);
+		List<ContextSnapshot> snapshots = new ArrayList<>();
+		reader.replay(snapshots::add);
+
+		assertThat(reader.segments()).extracting(segment -> segment.getFileName().toString())
+			.containsExactly("snapshots-00000000.journal", "snapshots-00000001.journal", "snapshots-00000002.journal");
+		assertThat(snapshots).extracting(ContextSnapshot::getKey).containsExactly("first", "second", "third");
+	}
+
+	@Test
+	void testAcceptCompressed() throws Exception {
+		SnapshotJournal journal = journal(dir);
+		journal.compression = Deflater.BEST_SPEED;
+		journal.segmentSize = 100;
+
+		for (int i = 0; i < 10; i++) {
+			journal.accept(snapshot("snapshot" + i));
+		}
+		journal.close();
+
+		SnapshotJournalReader reader = new SnapshotJournalReader(dir);
+		List<ContextSnapshot> snapshots = new ArrayList<>();
+		int count = reader.replay(snapshots::add);
+
+		assertThat(count).isEqualTo(10);
+		assertThat(reader.segments().size()).isGreaterThan(1);
+		assertThat(snapshots).extracting(snapshot -> ((SerializedLiteral) snapshot.getSetupThis()).getValue())
+			.containsExactly("snapshot0", "snapshot1", "snapshot2", "snapshot3", "snapshot4", "snapshot5", "snapshot6", "snapshot7", "snapshot8", "snapshot9");
+	}
+
+	@Test
+	void testAcceptContinuesExistingJournal() throws Exception {
+		SnapshotJournal journal1 = journal(dir);
+		journal1.accept(snapshot("first"));
+		journal1.close();
+		SnapshotJournal journal2 = journal(dir);
+		journal2.accept(snapshot("second"));
+		journal2.close();
+		journal2.accept(snapshot("third"));
+		journal2.close();
+
+		SnapshotJournalReader reader = new SnapshotJournalReader(dir);
+		List<ContextSnapshot> snapshots = new ArrayList<>();
+		reader.replay(snapshots::add);
+
+		assertThat(reader.segments()).hasSize(3);
+		assertThat(snapshots).extracting(ContextSnapshot::getKey).containsExactly("first", "second", "third");
+	}
+
+	@Test
+	void testAcceptOnFailure() throws Exception {
+		Path file = dir.resolve("file");
+		Files.createFile(file);
+		SnapshotJournal journal = journal(file);
+
+		journal.accept(snapshot("lost"));
+
+		assertThat(journal.getLostSnapshots()).isEqualTo(1);
+	}
+
+	@Test
+	void testAcceptAfterFailedWrite() throws Exception {
+		AtomicInteger writes = new AtomicInteger();
+		SnapshotJournal journal = new SnapshotJournal(dir) {
+			@Override
+			void write(ByteBuffer bytes) throws IOException {
+				if (writes.incrementAndGet() == 2) {
+					throw new IOException("disk full");
+				}
+				super.write(bytes);
+			}
+		};
+		journal.closeOnShutdown(false);
+		journal.compression = Deflater.BEST_SPEED;
+
+		journal.accept(snapshot("lost"));
+		journal.accept(snapshot("second"));
+		journal.accept(snapshot("third"));
+		journal.close();
+
+		List<ContextSnapshot> snapshots = new ArrayList<>();
+		new SnapshotJournalReader(dir).replay(snapshots::add);
+
+		assertThat(journal.getLostSnapshots()).isEqualTo(1);
+		assertThat(snapshots).extracting(snapshot -> ((SerializedLiteral) snapshot.getSetupThis()).getValue()).containsExactly("second", "third");
+		try (IndexedSnapshotJournalReader reader = new IndexedSnapshotJournalReader(dir)) {
+			assertThat(reader.entries()).extracting(entry -> ((SerializedLiteral) entry.snapshot().getSetupThis()).getValue()).containsExactly("second", "third");
+		}
+	}
+
+	@Test
+	void testAcceptOnDeepGraph() throws Exception {
+		SnapshotJournal journal = journal(dir);
+		SerializedList deep = new SerializedList(List.class);
+		SerializedList current = deep;
+		for (int i = 0; i < 100_000; i++) {
+			SerializedList next = new SerializedList(List.class);
+			current.add(next);
+			current = next;
+		}
+		ContextSnapshot snapshot = snapshot("lost");
+		snapshot.setSetupThis(deep);
+
+		journal.accept(snapshot);
+		journal.accept(snapshot("second"));
+		journal.close();
+
+		List<ContextSnapshot> snapshots = new ArrayList<>();
+		new SnapshotJournalReader(dir).replay(snapshots::add);
+
+		assertThat(journal.getLostSnapshots()).isEqualTo(1);
+		assertThat(snapshots).extracting(ContextSnapshot::getKey).containsExactly("second");
+	}
+
+	@Test
+	void testReplaySkipsIncompleteRecord() throws Exception {
+		SnapshotJournal journal = journal(dir);
+		journal.accept(snapshot("first"));
+		journal.accept(snapshot("second"));
+		journal.flush();
+		SnapshotJournal next = journal(dir);
+		next.accept(snapshot("third"));
+		next.close();
+
+		Path segment = dir.resolve(SnapshotJournal.segmentName(0));
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			file.setLength(file.length() - 3);
+		}
+
+		List<ContextSnapshot> snapshots = new ArrayList<>();
+		int count = new SnapshotJournalReader(dir).replay(snapshots::add);
+
+		assertThat(count).isEqualTo(2);
+		assertThat(snapshots).extracting(ContextSnapshot::getKey).containsExactly("first", "third");
+	}
+
+	@Test
+	void testReplaySkipsCorruptRecord() throws Exception {
+		SnapshotJournal journal = journal(dir);
+		journal.accept(snapshot("first"));
+		journal.accept(snapshot("second"));
+		journal.flush();
+
+		Path segment = dir.resolve(SnapshotJournal.segmentName(0));
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			file.seek(file.length() - 1);
+			int last = file.read();
+			file.seek(file.length() - 1);
+			file.write(last ^ 0xff);
+		}
+
+		List<ContextSnapshot> snapshots = new ArrayList<>();
+		int count = new SnapshotJournalReader(dir).replay(snapshots::add);
+
+		assertThat(count).isEqualTo(1);
+		assertThat(snapshots).extracting(ContextSnapshot::getKey).containsExactly("first");
+	}
+
+	@Test
+	void testReplaySkipsForeignFiles() throws Exception {
+		Files.write(dir.resolve("snapshots-00000000.journal"), new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+		Files.write(dir.resolve("other.txt"), new byte[] {1, 2, 3});
+		SnapshotJournal journal = journal(dir);
+		journal.accept(snapshot("first"));
+		journal.close();
+
+		SnapshotJournalReader reader = new SnapshotJournalReader(dir);
+		List<ContextSnapshot> snapshots = new ArrayList<>();
+		reader.replay(snapshots::add);
+
+		assertThat(reader.segments()).extracting(segment -> segment.getFileName().toString())
+			.containsExactly("snapshots-00000000.journal", "snapshots-00000001.journal");
+		assertThat(snapshots).extracting(ContextSnapshot::getKey).containsExactly("first");
+	}
+
+	@Test
+	void testReplaySkipsIndex() throws Exception {
+		SnapshotJournal journal = journal(dir);
+		journal.accept(snapshot("first"));
+		journal.close();
+		journal.accept(snapshot("second"));
+		journal.close();
+
+		List<ContextSnapshot> snapshots = new ArrayList<>();
+		int count = new SnapshotJournalReader(dir).replay(snapshots::add);
+
+		assertThat(count).isEqualTo(2);
+		assertThat(snapshots).extracting(ContextSnapshot::getKey).containsExactly("first", "second");
+	}
+
+	@Test
+	void testSegmentNumber() throws Exception {
+		assertThat(SnapshotJournal.segmentNumber(dir.resolve(SnapshotJournal.segmentName(42)))).isEqualTo(42);
+		assertThat(SnapshotJournal.segmentNumber(dir.resolve("snapshots.journal"))).isEqualTo(-1);
+	}
+
+	private SnapshotJournal journal(Path dir) {
+		SnapshotJournal journal = new SnapshotJournal(dir);
+		journal.closeOnShutdown(false);
+		return journal;
+	}
+
+	private ContextSnapshot snapshot(String key) {
+		ContextSnapshot snapshot = new ContextSnapshot(0, key, new VirtualMethodSignature(new MethodSignature(String.class, int.class, "length", new Class[0])));
+		snapshot.setSetupThis(literal(key));
+		return snapshot;
+	}
+
+}
@@ -1,5 +1,6 @@
 package net.amygdalum.testrecorder;
 
+import static java.util.Arrays.asList;
 import static net.amygdalum.testrecorder.SnapshotManager.DummyContextSnapshotTransaction.INVALID;
 import static net.amygdalum.testrecorder.TestAgentConfiguration.defaultConfig;
 import static net.amygdalum.testrecorder.values.SerializedLiteral.literal;
@@ -8,19 +9,26 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.only;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.lang.reflect.Type;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -30,18 +38,29 @@ import net.amygdalum.testrecorder.SnapshotManager.ContextSnapshotTransaction;
 import net.amygdalum.testrecorder.SnapshotManager.DummyContextSnapshotTransaction;
 import net.amygdalum.testrecorder.SnapshotManager.SerializationTask;
 import net.amygdalum.testrecorder.SnapshotManager.ValidContextSnapshotTransaction;
+import net.amygdalum.testrecorder.bridge.BridgedSnapshotManager;
 import net.amygdalum.testrecorder.profile.AgentConfiguration;
+import net.amygdalum.testrecorder.profile.ConfigurableSerializationProfile;
+import net.amygdalum.testrecorder.profile.Methods;
+import net.amygdalum.testrecorder.profile.PerformanceProfile;
+import net.amygdalum.testrecorder.profile.RecordingMetrics;
+import net.amygdalum.testrecorder.profile.Sampling;
+import net.amygdalum.testrecorder.profile.SerializationProfile;
 import net.amygdalum.testrecorder.profile.SnapshotConsumer;
+import net.amygdalum.testrecorder.serializers.DefaultListSerializer;
 import net.amygdalum.testrecorder.serializers.SerializerFacade;
 import net.amygdalum.testrecorder.types.ContextSnapshot;
 import net.amygdalum.testrecorder.types.FieldSignature;
 import net.amygdalum.testrecorder.types.SerializedArgument;
 import net.amygdalum.testrecorder.types.SerializedField;
+import net.amygdalum.testrecorder.types.Serializer;
+import net.amygdalum.testrecorder.types.SerializerSession;
 import net.amygdalum.testrecorder.types.VirtualMethodSignature;
-import net.amygdalum.testrecorder.util.CircularityLock;
 import net.amygdalum.testrecorder.util.testobjects.Bean;
+import net.amygdalum.testrecorder.util.testobjects.ContainingList;
 import net.amygdalum.testrecorder.util.testobjects.Overridden;
 import net.amygdalum.testrecorder.util.testobjects.Overriding;
+import net.amygdalum.testrecorder.values.SerializedList;
 import net.amygdalum.testrecorder.values.SerializedObject;
 
 public class SnapshotManagerTest {
@@ -94,22 +113,22 @@ public class SnapshotManagerTest {
 	@Test
 	public void testSetupVariablesLocking() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		xray(snapshotManager).to(OpenSnapshotManager.class).getLock().acquire();
+		xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().acquire();
 
 		snapshotManager.setupVariables(Bean.class, new Bean(), "setAttribute(Ljava/lang/String;)V", "mystr");
 
-		verify(snapshotManager, never()).push("setAttribute(Ljava/lang/String;)V", Bean.class.getClassLoader());
+		verify(snapshotManager, never()).push(any(), eq("setAttribute(Ljava/lang/String;)V"), eq(Bean.class));
 		verify(snapshotManager, only()).setupVariables(any(), any(), any(), any());
 	}
 
 	@Test
 	public void testSetupVariablesExceptionReleasesLock() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		doThrow(new RuntimeException("setupVariables")).when(snapshotManager).push(any(),any());
+		doThrow(new RuntimeException("setupVariables")).when(snapshotManager).push(any(), any(), any());
 
 		assertThatCode(() -> snapshotManager.setupVariables(Bean.class, new Bean(), "setAttribute(Ljava/lang/String;)V", "mystr"))
 			.hasMessage("setupVariables");
-		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getLock().locked();
+		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().locked();
 		assertThat(locked).isFalse();
 	}
 
@@ -143,7 +162,7 @@ public class SnapshotManagerTest {
 		snapshotManager.registerRecordedMethod("method(L)V", "net/amygdalum/testrecorder/util/testobjects/Overridden", "method", "(I)I");
 		Overriding self = new Overriding();
 
-		ContextSnapshotTransaction pushed = snapshotManager.push("method(L)V", self.getClass().getClassLoader());
+		ContextSnapshotTransaction pushed = snapshotManager.push("method(L)V", self.getClass());
 
 		snapshotManager.expectVariables(self, "method(L)V", new Object[] { 1 });
 
@@ -159,22 +178,22 @@ public class SnapshotManagerTest {
 	@Test
 	public void testExpectVariablesLocking() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		xray(snapshotManager).to(OpenSnapshotManager.class).getLock().acquire();
+		xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().acquire();
 
 		snapshotManager.expectVariables(new Bean(), "setAttribute(Ljava/lang/String;)V", new Object[] { "mystr" });
 
-		verify(snapshotManager, never()).pop("setAttribute(Ljava/lang/String;)V");
+		verify(snapshotManager, never()).pop(any(), eq("setAttribute(Ljava/lang/String;)V"));
 		verify(snapshotManager, only()).expectVariables(any(), any(), any());
 	}
 
 	@Test
 	public void testExpectVariablesExceptionReleasesLock() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		doThrow(new RuntimeException("expectVariables")).when(snapshotManager).pop(any());
+		doThrow(new RuntimeException("expectVariables")).when(snapshotManager).pop(any(), any());
 
 		assertThatCode(() -> snapshotManager.expectVariables(new Bean(), "setAttribute(Ljava/lang/String;)V", new Object[] { "mystr" }))
 			.hasMessage("expectVariables");
-		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getLock().locked();
+		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().locked();
 		assertThat(locked).isFalse();
 	}
 
@@ -206,7 +225,7 @@ public class SnapshotManagerTest {
 		snapshotManager.registerRecordedMethod("method(I)I", "net/amygdalum/testrecorder/util/testobjects/Overridden", "method", "(I)I");
 		Overriding self = new Overriding();
 
-		ContextSnapshotTransaction pushed = snapshotManager.push("method(L)V", self.getClass().getClassLoader());
+		ContextSnapshotTransaction pushed = snapshotManager.push("method(L)V", self.getClass());
 
 		snapshotManager.expectVariables(self, "method(I)I", 1, new Object[] { 1 });
 
@@ -222,22 +241,22 @@ public class SnapshotManagerTest {
 	@Test
 	public void testExpectVariablesWithResultLocking() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		xray(snapshotManager).to(OpenSnapshotManager.class).getLock().acquire();
+		xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().acquire();
 
 		snapshotManager.expectVariables(new Bean(), "getAttribute()Ljava/lang/String;", "myresult", new Object[0]);
 
-		verify(snapshotManager, never()).pop("getAttribute()Ljava/lang/String;");
+		verify(snapshotManager, never()).pop(any(), eq("getAttribute()Ljava/lang/String;"));
 		verify(snapshotManager, only()).expectVariables(any(), any(), any(), any());
 	}
 
 	@Test
 	public void testExpectVariablesWithResultExceptionReleasesLock() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		doThrow(new RuntimeException("expectVariablesWithResult")).when(snapshotManager).pop(any());
+		doThrow(new RuntimeException("expectVariablesWithResult")).when(snapshotManager).pop(any(), any());
 
 		assertThatCode(() -> snapshotManager.expectVariables(new Bean(), "getAttribute()Ljava/lang/String;", "myresult", new Object[0]))
 			.hasMessage("expectVariablesWithResult");
-		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getLock().locked();
+		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().locked();
 		assertThat(locked).isFalse();
 	}
 
@@ -274,7 +293,7 @@ public class SnapshotManagerTest {
 		snapshotManager.registerRecordedMethod("method(I)I", "net/amygdalum/testrecorder/util/testobjects/Overridden", "method", "(I)I");
 		Overriding self = new Overriding();
 
-		ContextSnapshotTransaction pushed = snapshotManager.push("method(I)I", self.getClass().getClassLoader());
+		ContextSnapshotTransaction pushed = snapshotManager.push("method(I)I", self.getClass());
 
 		snapshotManager.throwVariables(new RuntimeException("thrown by test"), self, "method(I)I", new Object[] { 1 });
 
@@ -292,22 +311,22 @@ public class SnapshotManagerTest {
 	@Test
 	public void testThrowVariablesLocking() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		xray(snapshotManager).to(OpenSnapshotManager.class).getLock().acquire();
+		xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().acquire();
 
 		snapshotManager.throwVariables(new RuntimeException(), new Bean(), "setAttribute(Ljava/lang/String;)V", new Object[] { "mystr" });
 
-		verify(snapshotManager, never()).pop("setAttribute(Ljava/lang/String;)V");
+		verify(snapshotManager, never()).pop(any(), eq("setAttribute(Ljava/lang/String;)V"));
 		verify(snapshotManager, only()).throwVariables(any(), any(), any(), any());
 	}
 
 	@Test
 	public void testThrowVariablesExceptionReleasesLock() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		doThrow(new RuntimeException("throwVariables")).when(snapshotManager).pop(any());
+		doThrow(new RuntimeException("throwVariables")).when(snapshotManager).pop(any(), any());
 
 		assertThatCode(() -> snapshotManager.throwVariables(new RuntimeException(), new Bean(), "setAttribute(Ljava/lang/String;)V", new Object[] { "mystr" }))
 			.hasMessage("throwVariables");
-		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getLock().locked();
+		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().locked();
 		assertThat(locked).isFalse();
 	}
 
@@ -315,7 +334,7 @@ public class SnapshotManagerTest {
 	public void testPushPop() throws Exception {
 		snapshotManager.registerRecordedMethod("signature", "net/amygdalum/testrecorder/util/testobjects/Bean", "setAttribute", "(Ljava/lang/String;)V");
 
-		snapshotManager.push("signature", Bean.class.getClassLoader());
+		snapshotManager.push("signature", Bean.class);
 
 		Optional<ContextSnapshot> snapshot = snapshotManager.peek();
 
@@ -346,9 +365,9 @@ public class SnapshotManagerTest {
 		snapshotManager.registerRecordedMethod("signature1", "net/amygdalum/testrecorder/util/testobjects/Bean", "setAttribute", "(Ljava/lang/String;)V");
 		snapshotManager.registerRecordedMethod("signature2", "net/amygdalum/testrecorder/util/testobjects/Bean", "setAttribute", "(Ljava/lang/String;)V");
 		snapshotManager.registerRecordedMethod("signature3", "net/amygdalum/testrecorder/util/testobjects/Bean", "setAttribute", "(Ljava/lang/String;)V");
-		snapshotManager.push("signature1", Bean.class.getClassLoader());
-		ContextSnapshotTransaction snapshot2 = snapshotManager.push("signature2", Bean.class.getClassLoader());
-		ContextSnapshotTransaction snapshot3 = snapshotManager.push("signature3", Bean.class.getClassLoader());
+		snapshotManager.push("signature1", Bean.class);
+		ContextSnapshotTransaction snapshot2 = snapshotManager.push("signature2", Bean.class);
+		ContextSnapshotTransaction snapshot3 = snapshotManager.push("signature3", Bean.class);
 
 		snapshotManager.pop("signature1").andConsume(snapshot -> {
 			assertThat(snapshot).isNotNull();
@@ -364,8 +383,8 @@ public class SnapshotManagerTest {
 		snapshotManager.registerRecordedMethod("signature1", "net/amygdalum/testrecorder/util/testobjects/Bean", "setAttribute", "(Ljava/lang/String;)V");
 		snapshotManager.registerRecordedMethod("signature2", "net/amygdalum/testrecorder/util/testobjects/Bean", "getAttribute", "()Ljava/lang/String;");
 
-		snapshotManager.push("signature1", Bean.class.getClassLoader());
-		snapshotManager.push("signature2", Bean.class.getClassLoader());
+		snapshotManager.push("signature1", Bean.class);
+		snapshotManager.push("signature2", Bean.class);
 
 		assertThat(snapshotManager.all()).hasSize(2);
 		assertThat(snapshotManager.peek())
@@ -373,186 +392,224 @@ public class SnapshotManagerTest {
 			.satisfies(snapshot -> assertThat(snapshot.get().getMethodName()).isEqualTo("getAttribute"));
 	}
 
+	@Test
+	public void testInputInteractions() throws Exception {
+		Bean self = new Bean();
+		snapshotManager.setupVariables(self.getClass(), self, "getAttribute()Ljava/lang/String;");
+		ContextSnapshot snapshot = snapshotManager.peek().get();
+
+		for (int i = 0; i < 3; i++) {
+			int id = snapshotManager.inputVariables(self, "getAttribute", String.class, new Type[0]);
+			snapshotManager.inputArguments(id);
+			snapshotManager.inputResult(id, "result" + i);
+
+			assertThat(snapshot.onPendingInput(id)).isNotPresent();
+		}
+
+		assertThat(snapshot.getSetupInput())
+			.extracting(in -> in.getResult().getValue())
+			.containsExactly(literal("result0"), literal("result1"), literal("result2"));
+	}
+
+	@Test
+	public void testOutputInteractions() throws Exception {
+		Bean self = new Bean();
+		snapshotManager.setupVariables(self.getClass(), self, "getAttribute()Ljava/lang/String;");
+		ContextSnapshot snapshot = snapshotManager.peek().get();
+
+		for (int i = 0; i < 3; i++) {
+			int id = snapshotManager.outputVariables(self, "setAttribute", void.class, new Type[] { String.class });
+			snapshotManager.outputArguments(id, "arg" + i);
+			snapshotManager.outputVoidResult(id);
+
+			assertThat(snapshot.onPendingOutput(id)).isNotPresent();
+		}
+
+		assertThat(snapshot.getExpectOutput())
+			.extracting(out -> out.getArguments()[0].getValue())
+			.containsExactly(literal("arg0"), literal("arg1"), literal("arg2"));
+	}
+
 	@Test
 	public void testInputVariablesLocking() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		xray(snapshotManager).to(OpenSnapshotManager.class).getLock().acquire();
+		xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().acquire();
 
 		snapshotManager.inputVariables(new Bean(), "getAttribute", String.class, new Class[0]);
 
-		verify(snapshotManager, never()).all();
+		verify(snapshotManager, never()).all(any());
 		verify(snapshotManager, only()).inputVariables(any(), any(), any(), any());
 	}
 
 	@Test
 	public void testInputVariablesExceptionReleasesLock() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		doThrow(new RuntimeException("input variables")).when(snapshotManager).all();
+		doThrow(new RuntimeException("input variables")).when(snapshotManager).all(any());
 
 		assertThatCode(() -> snapshotManager.inputVariables(new Bean(), "getAttribute", String.class, new Class[0]))
 			.hasMessage("input variables");
 
-		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getLock().locked();
+		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().locked();
 		assertThat(locked).isFalse();
 	}
 
 	@Test
 	public void testInputArgumentsLocking() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		xray(snapshotManager).to(OpenSnapshotManager.class).getLock().acquire();
+		xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().acquire();
 
 		snapshotManager.inputArguments(42);
 
-		verify(snapshotManager, never()).current();
+		verify(snapshotManager, never()).current(any());
 		verify(snapshotManager, only()).inputArguments(anyInt(), any());
 	}
 
 	@Test
 	public void testInputArgumentsExceptionReleasesLock() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		doThrow(new RuntimeException("input arguments")).when(snapshotManager).current();
+		doThrow(new RuntimeException("input arguments")).when(snapshotManager).current(any());
 
 		assertThatCode(() -> snapshotManager.inputArguments(42))
 			.hasMessage("input arguments");
 
-		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getLock().locked();
+		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().locked();
 		assertThat(locked).isFalse();
 	}
 
 	@Test
 	public void testInputResultLocking() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		xray(snapshotManager).to(OpenSnapshotManager.class).getLock().acquire();
+		xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().acquire();
 
 		snapshotManager.inputResult(42, "mystr");
 
-		verify(snapshotManager, never()).current();
+		verify(snapshotManager, never()).current(any());
 		verify(snapshotManager, only()).inputResult(anyInt(), any());
 	}
 
 	@Test
 	public void testInputResultExceptionReleasesLock() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		doThrow(new RuntimeException("input result")).when(snapshotManager).current();
+		doThrow(new RuntimeException("input result")).when(snapshotManager).current(any());
 
 		assertThatCode(() -> snapshotManager.inputResult(42, "mystr"))
 			.hasMessage("input result");
 
-		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getLock().locked();
+		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().locked();
 		assertThat(locked).isFalse();
 	}
 
 	@Test
 	public void testInputVoidResultLocking() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		xray(snapshotManager).to(OpenSnapshotManager.class).getLock().acquire();
+		xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().acquire();
 
 		snapshotManager.inputVoidResult(42);
 
-		verify(snapshotManager, never()).current();
+		verify(snapshotManager, never()).current(any());
 		verify(snapshotManager, only()).inputVoidResult(anyInt());
 	}
 
 	@Test
 	public void testInputVoidResultExceptionReleasesLock() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		doThrow(new RuntimeException("input void result")).when(snapshotManager).current();
+		doThrow(new RuntimeException("input void result")).when(snapshotManager).current(any());
 
 		assertThatCode(() -> snapshotManager.inputVoidResult(42))
 			.hasMessage("input void result");
 
-		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getLock().locked();
+		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().locked();
 		assertThat(locked).isFalse();
 	}
 
 	@Test
 	public void testOutputVariablesLocking() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		xray(snapshotManager).to(OpenSnapshotManager.class).getLock().acquire();
+		xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().acquire();
 
 		snapshotManager.outputVariables(new Bean(), "setAttribute", void.class, new Type[] { String.class });
 
-		verify(snapshotManager, never()).all();
+		verify(snapshotManager, never()).all(any());
 	}
 
 	@Test
 	public void testOutputVaraiblesExceptionReleasesLock() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		doThrow(new RuntimeException("output variables")).when(snapshotManager).all();
+		doThrow(new RuntimeException("output variables")).when(snapshotManager).all(any());
 
 		assertThatCode(() -> snapshotManager.outputVariables(new Bean(), "setAttribute", void.class, new Type[] { String.class }))
 			.hasMessage("output variables");
 
-		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getLock().locked();
+		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().locked();
 		assertThat(locked).isFalse();
 	}
 
 	@Test
 	public void testOutputArgumentsLocking() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		xray(snapshotManager).to(OpenSnapshotManager.class).getLock().acquire();
+		xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().acquire();
 
 		snapshotManager.outputArguments(42);
 
-		verify(snapshotManager, never()).current();
+		verify(snapshotManager, never()).current(any());
 		verify(snapshotManager, only()).outputArguments(anyInt(), any());
 	}
 
 	@Test
 	public void testOutputArgumentsExceptionReleasesLock() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		doThrow(new RuntimeException("output arguments")).when(snapshotManager).current();
+		doThrow(new RuntimeException("output arguments")).when(snapshotManager).current(any());
 
 		assertThatCode(() -> snapshotManager.outputArguments(42))
 			.hasMessage("output arguments");
 
-		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getLock().locked();
+		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().locked();
 		assertThat(locked).isFalse();
 	}
 
 	@Test
 	public void testOutputResultLocking() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		xray(snapshotManager).to(OpenSnapshotManager.class).getLock().acquire();
+		xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().acquire();
 
 		snapshotManager.outputResult(42, "mystr");
 
-		verify(snapshotManager, never()).current();
+		verify(snapshotManager, never()).current(any());
 		verify(snapshotManager, only()).outputResult(anyInt(), any());
 	}
 
 	@Test
 	public void testOutputResultExceptionReleasesLock() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		doThrow(new RuntimeException("output result")).when(snapshotManager).current();
+		doThrow(new RuntimeException("output result")).when(snapshotManager).current(any());
 
 		assertThatCode(() -> snapshotManager.outputResult(42, "mystr"))
 			.hasMessage("output result");
 
-		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getLock().locked();
+		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().locked();
 		assertThat(locked).isFalse();
 	}
 
 	@Test
 	public void testOutputVoidResultLocking() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		xray(snapshotManager).to(OpenSnapshotManager.class).getLock().acquire();
+		xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().acquire();
 
 		snapshotManager.outputVoidResult(42);
 
-		verify(snapshotManager, never()).current();
+		verify(snapshotManager, never()).current(any());
 		verify(snapshotManager, only()).outputVoidResult(anyInt());
 	}
 
 	@Test
 	public void testOutputVoidResultExceptionReleasesLock() throws Exception {
 		SnapshotManager snapshotManager = spy(this.snapshotManager);
-		doThrow(new RuntimeException("output void result")).when(snapshotManager).current();
+		doThrow(new RuntimeException("output void result")).when(snapshotManager).current(any());
 
 		assertThatCode(() -> snapshotManager.outputVoidResult(42))
 			.hasMessage("output void result");
 
-		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getLock().locked();
+		boolean locked = xray(snapshotManager).to(OpenSnapshotManager.class).getThreadContext().get().locked();
 		assertThat(locked).isFalse();
 	}
 
@@ -577,7 +634,6 @@ public class SnapshotManagerTest {
 	public void testValidContextSnapshotTransactionWithBrokenSnapshot() throws Exception {
 		ContextSnapshot snapshot = new ContextSnapshot(0, "key", VirtualMethodSignature.NULL);
 		SerializerFacade facade = Mockito.mock(SerializerFacade.class, Mockito.RETURNS_DEEP_STUBS);
-		when(facade.newSession().dumpProfiles()).thenReturn(Collections.emptyList());
 		ExecutorService executor = Executors.newSingleThreadScheduledExecutor();
 		ValidContextSnapshotTransaction transaction = new SnapshotManager.ValidContextSnapshotTransaction(executor, 1_000, facade, snapshot);
 		SerializationTask task = Mockito.mock(SerializationTask.class);
@@ -624,8 +680,438 @@ public class SnapshotManagerTest {
 		assertThat(snapshot.isValid()).isTrue();
 	}
 
+	@Test
+	public void testAsynchronousSetupAndExpectVariables() throws Exception {
+		SnapshotManager snapshotManager = asynchronousSnapshotManager();
+		Bean self = new Bean();
+		snapshotManager.setupVariables(self.getClass(), self, "setAttribute(Ljava/lang/String;)V", "mystr");
+		ContextSnapshot snapshot = snapshotManager.peek().get();
+
+		snapshotManager.expectVariables(self, "setAttribute(Ljava/lang/String;)V", new Object[] { "mystr" });
+
+		verify(consumer, timeout(1_000)).accept(snapshot);
+		assertThat(snapshot.getSetupArgs())
+			.extracting(SerializedArgument::getValue)
+			.contains(literal("mystr"));
+		assertThat(snapshot.getExpectArgs())
+			.extracting(SerializedArgument::getValue)
+			.contains(literal("mystr"));
+		assertThat(snapshotManager.getLostSnapshots()).isEqualTo(0);
+	}
+
+	@Test
+	public void testAsynchronousSetupVariablesDoesNotBlock() throws Exception {
+		SnapshotManager snapshotManager = asynchronousSnapshotManager();
+		CountDownLatch blocked = blockWorker(snapshotManager);
+		try {
+			Bean self = new Bean();
+
+			snapshotManager.setupVariables(self.getClass(), self, "setAttribute(Ljava/lang/String;)V", "mystr");
+
+			ContextSnapshot snapshot = snapshotManager.peek().get();
+			assertThat(snapshot.getSetupArgs()).isNull();
+		} finally {
+			blocked.countDown();
+		}
+	}
+
+	@Test
+	public void testAsynchronousSetupVariablesOnChangedObject() throws Exception {
+		SnapshotManager snapshotManager = asynchronousSnapshotManager();
+		CountDownLatch blocked = blockWorker(snapshotManager);
+		Bean self = new Bean();
+		snapshotManager.setupVariables(self.getClass(), self, "setAttribute(Ljava/lang/String;)V", "mystr");
+		ContextSnapshot snapshot = snapshotManager.peek().get();
+
+		self.setAttribute("changed before serialization");
+		blocked.countDown();
+		snapshotManager.expectVariables(self, "setAttribute(Ljava/lang/String;)V", new Object[] { "mystr" });
+
+		verify(consumer, after(200).never()).accept(any());
+		assertThat(snapshot.isValid()).isFalse();
+		assertThat(snapshotManager.getLostSnapshots()).isEqualTo(1);
+	}
+
+	@Test
+	public void testAsynchronousSetupVariablesOnNestedCollectionChangedDuringSerialization() throws Exception {
+		AgentConfiguration config = defaultConfig()
+			.loading(PerformanceProfile.class, args -> new AsynchronousPerformanceProfile())
+			.loading(Serializer.class, args -> new ChangingListSerializer())
+			.withDefaultValue(SnapshotConsumer.class, () -> consumer);
+		SnapshotManager snapshotManager = new SnapshotManager(config);
+		snapshotManager.registerRecordedMethod("getList()Ljava/util/List;", "net/amygdalum/testrecorder/util/testobjects/ContainingList", "getList", "()Ljava/util/List;");
+		ContainingList self = new ContainingList(new ArrayList<>(asList("a")));
+		snapshotManager.setupVariables(self.getClass(), self, "getList()Ljava/util/List;");
+		ContextSnapshot snapshot = snapshotManager.peek().get();
+
+		snapshotManager.expectVariables(self, "getList()Ljava/util/List;", self.getList(), new Object[0]);
+
+		verify(consumer, after(200).never()).accept(any());
+		assertThat(snapshot.isValid()).isFalse();
+		assertThat(snapshotManager.getLostSnapshots()).isEqualTo(1);
+	}
+
+	@Test
+	public void testSampledSetupAndExpectVariables() throws Exception {
+		SnapshotManager snapshotManager = sampledSnapshotManager(Sampling.everyNth(Methods.byName("setAttribute"), 2));
+		Bean self = new Bean();
+
+		for (int i = 0; i < 3; i++) {
+			snapshotManager.setupVariables(self.getClass(), self, "setAttribute(Ljava/lang/String;)V", "mystr");
+			snapshotManager.expectVariables(self, "setAttribute(Ljava/lang/String;)V", new Object[] { "mystr" });
+
+			assertThat(snapshotManager.all()).isEmpty();
+		}
+
+		verify(consumer, times(2)).accept(any());
+	}
+
+	@Test
+	public void testSkippedSetupVariablesKeepsEnclosingSnapshot() throws Exception {
+		SnapshotManager snapshotManager = sampledSnapshotManager(Sampling.withProbability(Methods.byName("setAttribute"), 0));
+		Bean self = new Bean();
+		snapshotManager.setupVariables(self.getClass(), self, "getAttribute()Ljava/lang/String;");
+		ContextSnapshot enclosing = snapshotManager.peek().get();
+
+		snapshotManager.setupVariables(self.getClass(), self, "setAttribute(Ljava/lang/String;)V", "mystr");
+
+		assertThat(snapshotManager.peek()).contains(enclosing);
+
+		snapshotManager.expectVariables(self, "setAttribute(Ljava/lang/String;)V", new Object[] { "mystr" });
+		snapshotManager.expectVariables(self, "getAttribute()Ljava/lang/String;", "result", new Object[0]);
+
+		verify(consumer, only()).accept(enclosing);
+		assertThat(enclosing.isValid()).isTrue();
+		assertThat(snapshotManager.all()).isEmpty();
+	}
+
+	@Test
+	public void testMetrics() throws Exception {
+		AgentMetrics metrics = (AgentMetrics) xray(snapshotManager).to(OpenSnapshotManager.class).getMetrics();
+		Bean self = new Bean();
+
+		snapshotManager.setupVariables(self.getClass(), self, "setAttribute(Ljava/lang/String;)V", "mystr");
+		snapshotManager.expectVariables(self, "setAttribute(Ljava/lang/String;)V", new Object[] { "mystr" });
+
+		assertThat(metrics.getRecordedCalls()).isEqualTo(1);
+		assertThat(metrics.getSnapshotsStarted()).isEqualTo(1);
+		assertThat(metrics.getSnapshotsConsumed()).isEqualTo(1);
+		assertThat(metrics.getSnapshotsInvalidated()).isEqualTo(0);
+		assertThat(metrics.getSerializationLatency().get("setAttribute(Ljava/lang/String;)V").getCount()).isEqualTo(2);
+		assertThat(metrics.getGauges()).containsKey("snapshot.queue");
+	}
+
+	@Test
+	public void testMetricsOnSkippedSnapshots() throws Exception {
+		SnapshotManager snapshotManager = sampledSnapshotManager(Sampling.withProbability(Methods.byName("setAttribute"), 0));
+		AgentMetrics metrics = (AgentMetrics) xray(snapshotManager).to(OpenSnapshotManager.class).getMetrics();
+		Bean self = new Bean();
+
+		snapshotManager.setupVariables(self.getClass(), self, "setAttribute(Ljava/lang/String;)V", "mystr");
+		snapshotManager.expectVariables(self, "setAttribute(Ljava/lang/String;)V", new Object[] { "mystr" });
+
+		assertThat(metrics.getRecordedCalls()).isEqualTo(1);
+		assertThat(metrics.getSnapshotsStarted()).isEqualTo(0);
+		assertThat(metrics.getSnapshotsConsumed()).isEqualTo(0);
+		assertThat(metrics.getSnapshotsInvalidated()).isEqualTo(0);
+	}
+
+	@Test
+	public void testSuspendedSetupVariablesIsSkipped() throws Exception {
+		xray(snapshotManager).to(OpenSnapshotManager.class).getMemoryGuard().suspend();
+		Bean self = new Bean();
+
+		snapshotManager.setupVariables(self.getClass(), self, "setAttribute(Ljava/lang/String;)V", "mystr");
+
+		assertThat(snapshotManager.isSuspended()).isTrue();
+		assertThat(snapshotManager.peek()).isNotPresent();
+
+		snapshotManager.expectVariables(self, "setAttribute(Ljava/lang/String;)V", new Object[] { "mystr" });
+
+		verify(consumer, never()).accept(any());
+		assertThat(snapshotManager.all()).isEmpty();
+	}
+
+	@Test
+	public void testSuspendedInputVariablesIsSkipped() throws Exception {
+		Bean self = new Bean();
+		snapshotManager.setupVariables(self.getClass(), self, "setAttribute(Ljava/lang/String;)V", "mystr");
+		xray(snapshotManager).to(OpenSnapshotManager.class).getMemoryGuard().suspend();
+
+		int id = snapshotManager.inputVariables(self, "getAttribute", String.class, new Type[0]);
+
+		assertThat(id).isEqualTo(0);
+	}
+
+	@Test
+	public void testSuspensionInvalidatesStartedSnapshots() throws Exception {
+		Bean self = new Bean();
+		snapshotManager.setupVariables(self.getClass(), self, "setAttribute(Ljava/lang/String;)V", "mystr");
+		ContextSnapshot snapshot = snapshotManager.peek().get();
+
+		xray(snapshotManager).to(OpenSnapshotManager.class).getMemoryGuard().suspend();
+		snapshotManager.expectVariables(self, "setAttribute(Ljava/lang/String;)V", new Object[] { "mystr" });
+
+		verify(consumer, never()).accept(any());
+		assertThat(snapshot.isValid()).isFalse();
+		assertThat(snapshotManager.all()).isEmpty();
+	}
+
+	@Test
+	public void testSuspensionInvalidatesPendingSnapshots() throws Exception {
+		SnapshotManager snapshotManager = asynchronousSnapshotManager();
+		CountDownLatch blocked = blockWorker(snapshotManager);
+		Bean self = new Bean();
+		snapshotManager.setupVariables(self.getClass(), self, "setAttribute(Ljava/lang/String;)V", "mystr");
+		ContextSnapshot snapshot = snapshotManager.peek().get();
+		snapshotManager.expectVariables(self, "setAttribute(Ljava/lang/String;)V", new Object[] { "mystr" });
+
+		xray(snapshotManager).to(OpenSnapshotManager.class).getMemoryGuard().suspend();
+		blocked.countDown();
+
+		verify(consumer, after(200).never()).accept(any());
+		assertThat(snapshot.isValid()).isFalse();
+	}
+
+	@Test
+	public void testIncrementalExpectVariablesOnUnchangedObject() throws Exception {
+		SnapshotManager snapshotManager = incrementalSnapshotManager();
+		Bean self = new Bean();
+		self.setAttribute("unchanged");
+		snapshotManager.setupVariables(self.getClass(), self, "getAttribute()Ljava/lang/String;");
+		ContextSnapshot snapshot = snapshotManager.peek().get();
+
+		snapshotManager.expectVariables(self, "getAttribute()Ljava/lang/String;", "unchanged", new Object[0]);
+
+		verify(consumer).accept(snapshot);
+		assertThat(snapshot.getExpectThis()).isSameAs(snapshot.getSetupThis());
+		assertThat(snapshot.getExpectResult().getValue()).isEqualTo(literal("unchanged"));
+	}
+
+	@Test
+	public void testIncrementalExpectVariablesOnChangedObject() throws Exception {
+		SnapshotManager snapshotManager = incrementalSnapshotManager();
+		Bean self = new Bean();
+		self.setAttribute("unchanged");
+		snapshotManager.setupVariables(self.getClass(), self, "setAttribute(Ljava/lang/String;)V", "changed");
+		ContextSnapshot snapshot = snapshotManager.peek().get();
+
+		self.setAttribute("changed");
+		snapshotManager.expectVariables(self, "setAttribute(Ljava/lang/String;)V", new Object[] { "changed" });
+
+		verify(consumer).accept(snapshot);
+		assertThat(snapshot.getExpectThis()).isNotSameAs(snapshot.getSetupThis());
+		assertThat(((SerializedObject) snapshot.getExpectThis()).getField("attribute").get().getValue()).isEqualTo(literal("changed"));
+		assertThat(((SerializedObject) snapshot.getSetupThis()).getField("attribute").get().getValue()).isEqualTo(literal("unchanged"));
+	}
+
+	@Test
+	public void testIncrementalSetupVariablesOnSuspension() throws Exception {
+		SnapshotManager snapshotManager = incrementalSnapshotManager();
+		Bean self = new Bean();
+		snapshotManager.setupVariables(self.getClass(), self, "getAttribute()Ljava/lang/String;");
+		Map<ContextSnapshot, SerializerSession> setupSessions = xray(snapshotManager).to(OpenSnapshotManager.class).getSetupSessions();
+		assertThat(setupSessions).hasSize(1);
+
+		xray(snapshotManager).to(OpenSnapshotManager.class).getMemoryGuard().suspend();
+
+		assertThat(setupSessions).isEmpty();
+	}
+
+	@Test
+	public void testIncrementalExpectVariablesOnInvalidatedSnapshot() throws Exception {
+		SnapshotManager snapshotManager = incrementalSnapshotManager();
+		Bean self = new Bean();
+		snapshotManager.setupVariables(self.getClass(), self, "getAttribute()Ljava/lang/String;");
+		ContextSnapshot snapshot = snapshotManager.peek().get();
+		Map<ContextSnapshot, SerializerSession> setupSessions = xray(snapshotManager).to(OpenSnapshotManager.class).getSetupSessions();
+
+		snapshot.invalidate();
+		snapshotManager.expectVariables(self, "getAttribute()Ljava/lang/String;", null, new Object[0]);
+
+		assertThat(setupSessions).isEmpty();
+	}
+
+	@Test
+	public void testAsynchronousIncrementalExpectVariablesOnUnchangedObject() throws Exception {
+		SnapshotManager snapshotManager = asynchronousIncrementalSnapshotManager();
+		Bean self = new Bean();
+		self.setAttribute("unchanged");
+		snapshotManager.setupVariables(self.getClass(), self, "getAttribute()Ljava/lang/String;");
+		ContextSnapshot snapshot = snapshotManager.peek().get();
+
+		snapshotManager.expectVariables(self, "getAttribute()Ljava/lang/String;", "unchanged", new Object[0]);
+
+		verify(consumer, timeout(1_000)).accept(snapshot);
+		assertThat(snapshot.getExpectThis()).isSameAs(snapshot.getSetupThis());
+		assertThat(snapshot.getExpectResult().getValue()).isEqualTo(literal("unchanged"));
+	}
+
+	@Test
+	public void testAsynchronousIncrementalExpectVariablesOnObjectChangedAfterSetupSerialization() throws Exception {
+		SnapshotManager snapshotManager = asynchronousIncrementalSnapshotManager();
+		SnapshotWorkers workers = xray(snapshotManager).to(OpenSnapshotManager.class).getSnapshotWorkers();
+		Bean self = new Bean();
+		self.setAttribute("unchanged");
+		snapshotManager.setupVariables(self.getClass(), self, "setAttribute(Ljava/lang/String;)V", "changed");
+		ContextSnapshot snapshot = snapshotManager.peek().get();
+		workers.workerFor(snapshot).submit(() -> null).get();
+
+		self.setAttribute("changed");
+		snapshotManager.expectVariables(self, "setAttribute(Ljava/lang/String;)V", new Object[] { "changed" });
+
+		verify(consumer, timeout(1_000)).accept(snapshot);
+		assertThat(snapshot.getExpectThis()).isNotSameAs(snapshot.getSetupThis());
+		assertThat(((SerializedObject) snapshot.getExpectThis()).getField("attribute").get().getValue()).isEqualTo(literal("changed"));
+		assertThat(((SerializedObject) snapshot.getSetupThis()).getField("attribute").get().getValue()).isEqualTo(literal("unchanged"));
+	}
+
+	@Test
+	public void testClose() throws Exception {
+		SnapshotManager snapshotManager = guardedSnapshotManager();
+		MemoryGuard memoryGuard = xray(snapshotManager).to(OpenSnapshotManager.class).getMemoryGuard();
+		assertThat(memoryGuard.isEnabled()).isTrue();
+
+		snapshotManager.close();
+
+		assertThat(memoryGuard.isEnabled()).isFalse();
+	}
+
+	@Test
+	public void testInitClosesPreviousManager() throws Exception {
+		SnapshotManager saved = SnapshotManager.MANAGER;
+		SnapshotManager.MANAGER = null;
+		try {
+			AgentConfiguration config = defaultConfig()
+				.loading(PerformanceProfile.class, args -> new GuardedPerformanceProfile());
+			SnapshotManager previous = SnapshotManager.init(config);
+			MemoryGuard memoryGuard = xray(previous).to(OpenSnapshotManager.class).getMemoryGuard();
+
+			SnapshotManager.init(config);
+
+			assertThat(memoryGuard.isEnabled()).isFalse();
+		} finally {
+			SnapshotManager.MANAGER.close();
+			SnapshotManager.MANAGER = saved;
+			BridgedSnapshotManager.MANAGER = saved;
+		}
+	}
+
+	private SnapshotManager sampledSnapshotManager(Sampling sampling) {
+		AgentConfiguration config = defaultConfig()
+			.loading(SerializationProfile.class, args -> ConfigurableSerializationProfile.builder(new DefaultSerializationProfile())
+				.withSampling(sampling)
+				.build())
+			.withDefaultValue(SnapshotConsumer.class, () -> consumer);
+		SnapshotManager snapshotManager = new SnapshotManager(config);
+		snapshotManager.registerRecordedMethod("getAttribute()Ljava/lang/String;", "net/amygdalum/testrecorder/util/testobjects/Bean", "getAttribute", "()Ljava/lang/String;");
+		snapshotManager.registerRecordedMethod("setAttribute(Ljava/lang/String;)V", "net/amygdalum/testrecorder/util/testobjects/Bean", "setAttribute", "(Ljava/lang/String;)V");
+		return snapshotManager;
+	}
+
+	private SnapshotManager asynchronousSnapshotManager() {
+		AgentConfiguration config = defaultConfig()
+			.loading(PerformanceProfile.class, args -> new AsynchronousPerformanceProfile())
+			.withDefaultValue(SnapshotConsumer.class, () -> consumer);
+		SnapshotManager snapshotManager = new SnapshotManager(config);
+		snapshotManager.registerRecordedMethod("setAttribute(Ljava/lang/String;)V", "net/amygdalum/testrecorder/util/testobjects/Bean", "setAttribute", "(Ljava/lang/String;)V");
+		return snapshotManager;
+	}
+
+	private SnapshotManager incrementalSnapshotManager() {
+		AgentConfiguration config = defaultConfig()
+			.loading(PerformanceProfile.class, args -> new IncrementalPerformanceProfile())
+			.withDefaultValue(SnapshotConsumer.class, () -> consumer);
+		SnapshotManager snapshotManager = new SnapshotManager(config);
+		snapshotManager.registerRecordedMethod("getAttribute()Ljava/lang/String;", "net/amygdalum/testrecorder/util/testobjects/Bean", "getAttribute", "()Ljava/lang/String;");
+		snapshotManager.registerRecordedMethod("setAttribute(Ljava/lang/String;)V", "net/amygdalum/testrecorder/util/testobjects/Bean", "setAttribute", "(Ljava/lang/String;)V");
+		return snapshotManager;
+	}
+
+	private SnapshotManager asynchronousIncrementalSnapshotManager() {
+		AgentConfiguration config = defaultConfig()
+			.loading(PerformanceProfile.class, args -> new AsynchronousIncrementalPerformanceProfile())
+			.withDefaultValue(SnapshotConsumer.class, () -> consumer);
+		SnapshotManager snapshotManager = new SnapshotManager(config);
+		snapshotManager.registerRecordedMethod("getAttribute()Ljava/lang/String;", "net/amygdalum/testrecorder/util/testobjects/Bean", "getAttribute", "()Ljava/lang/String;");
+		snapshotManager.registerRecordedMethod("setAttribute(Ljava/lang/String;)V", "net/amygdalum/testrecorder/util/testobjects/Bean", "setAttribute", "(Ljava/lang/String;)V");
+		return snapshotManager;
+	}
+
+	private SnapshotManager guardedSnapshotManager() {
+		AgentConfiguration config = defaultConfig()
+			.loading(PerformanceProfile.class, args -> new GuardedPerformanceProfile())
+			.withDefaultValue(SnapshotConsumer.class, () -> consumer);
+		return new SnapshotManager(config);
+	}
+
+	private CountDownLatch blockWorker(SnapshotManager snapshotManager) {
+		CountDownLatch blocked = new CountDownLatch(1);
+		SnapshotWorkers workers = xray(snapshotManager).to(OpenSnapshotManager.class).getSnapshotWorkers();
+		workers.workerFor(ContextSnapshot.INVALID).submit(() -> blocked.await(1, TimeUnit.SECONDS));
+		return blocked;
+	}
+
+	/**
+	 * changes each list after populating its value, like a concurrent change during serialization
+	 */
+	public static class ChangingListSerializer extends DefaultListSerializer {
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public void populate(SerializedList serializedObject, Object object, SerializerSession session) {
+			super.populate(serializedObject, object, session);
+			((List<Object>) object).add("changed during serialization");
+		}
+	}
+
+	public static class AsynchronousPerformanceProfile extends DefaultPerformanceProfile {
+
+		@Override
+		public int getSerializationWorkers() {
+			return 1;
+		}
+
+		@Override
+		public boolean isAsynchronous() {
+			return true;
+		}
+	}
+
+	public static class IncrementalPerformanceProfile extends DefaultPerformanceProfile {
+
+		@Override
+		public boolean isIncrementalExpect() {
+			return true;
+		}
+	}
+
+	public static class AsynchronousIncrementalPerformanceProfile extends AsynchronousPerformanceProfile {
+
+		@Override
+		public boolean isIncrementalExpect() {
+			return true;
+		}
+	}
+
+	public static class GuardedPerformanceProfile extends DefaultPerformanceProfile {
+
+		@Override
+		public double getMemoryThreshold() {
+			return 0.99;
+		}
+	}
+
 	interface OpenSnapshotManager {
-		CircularityLock getLock();
+		ThreadLocal<RecordingContext> getThreadContext();
+
+		SnapshotWorkers getSnapshotWorkers();
+
+		MemoryGuard getMemoryGuard();
+
+		Map<ContextSnapshot, SerializerSession> getSetupSessions();
+
+		RecordingMetrics getMetrics();
 	}
 
 }
@@ -0,0 +1,234 @@
+package net.amygdalum.testrecorder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.profile.OverflowPolicy;
+import net.amygdalum.testrecorder.types.ContextSnapshot;
+import net.amygdalum.testrecorder.types.VirtualMethodSignature;
+
+public class SnapshotQueueTest {
+
+	private List<Runnable> scheduled;
+
+	@BeforeEach
+	void before() throws Exception {
+		scheduled = new ArrayList<>();
+	}
+
+	@Test
+	void testExecuteWithinCapacity() throws Exception {
+		SnapshotQueue queue = new SnapshotQueue(Runnable::run, 2, OverflowPolicy.DROP_NEWEST);
+		List<String> steps = new ArrayList<>();
+
+		queue.execute(snapshot(), () -> steps.add("first"));
+		queue.execute(snapshot(), () -> steps.add("second"));
+		queue.execute(snapshot(), () -> steps.add("third"));
+
+		assertThat(steps).containsExactly("first", "second", "third");
+		assertThat(queue.size()).isEqualTo(0);
+		assertThat(queue.getDiscarded()).isEqualTo(0);
+	}
+
+	@Test
+	void testDropNewest() throws Exception {
+		SnapshotQueue queue = new SnapshotQueue(scheduled::add, 2, OverflowPolicy.DROP_NEWEST);
+		List<String> steps = new ArrayList<>();
+		ContextSnapshot first = snapshot();
+		ContextSnapshot second = snapshot();
+		ContextSnapshot third = snapshot();
+
+		queue.execute(first, () -> steps.add("first"));
+		queue.execute(second, () -> steps.add("second"));
+		queue.execute(third, () -> steps.add("third"));
+		scheduled.forEach(Runnable::run);
+
+		assertThat(steps).containsExactly("first", "second");
+		assertThat(first.isValid()).isTrue();
+		assertThat(second.isValid()).isTrue();
+		assertThat(third.isValid()).isFalse();
+		assertThat(queue.getDiscarded()).isEqualTo(1);
+	}
+
+	@Test
+	void testDropOldest() throws Exception {
+		SnapshotQueue queue = new SnapshotQueue(scheduled::add, 2, OverflowPolicy.DROP_OLDEST);
+		List<String> steps = new ArrayList<>();
+		ContextSnapshot first = snapshot();
+		ContextSnapshot second = snapshot();
+		ContextSnapshot third = snapshot();
+
+		queue.execute(first, () -> steps.add("first"));
+		queue.execute(second, () -> steps.add("second"));
+		queue.execute(third, () -> steps.add("third"));
+		scheduled.forEach(Runnable::run);
+
+		assertThat(steps).containsExactly("second", "third");
+		assertThat(first.isValid()).isFalse();
+		assertThat(second.isValid()).isTrue();
+		assertThat(third.isValid()).isTrue();
+		assertThat(queue.getDiscarded()).isEqualTo(1);
+	}
+
+	@Test
+	void testDropOldestAfterOutOfOrderExecution() throws Exception {
+		SnapshotQueue queue = new SnapshotQueue(scheduled::add, 2, OverflowPolicy.DROP_OLDEST);
+		List<String> steps = new ArrayList<>();
+		ContextSnapshot first = snapshot();
+		ContextSnapshot second = snapshot();
+		ContextSnapshot third = snapshot();
+		ContextSnapshot fourth = snapshot();
+
+		queue.execute(first, () -> steps.add("first"));
+		queue.execute(second, () -> steps.add("second"));
+		scheduled.get(1).run();
+		queue.execute(third, () -> steps.add("third"));
+		queue.execute(fourth, () -> steps.add("fourth"));
+		scheduled.forEach(Runnable::run);
+
+		assertThat(steps).containsExactly("second", "third", "fourth");
+		assertThat(first.isValid()).isFalse();
+		assertThat(queue.size()).isEqualTo(0);
+		assertThat(queue.getDiscarded()).isEqualTo(1);
+	}
+
+	@Test
+	void testOnDiscard() throws Exception {
+		SnapshotQueue queue = new SnapshotQueue(scheduled::add, 1, OverflowPolicy.DROP_OLDEST);
+		List<ContextSnapshot> discarded = new ArrayList<>();
+		queue.onDiscard(discarded::add);
+		ContextSnapshot first = snapshot();
+		ContextSnapshot second = snapshot();
+		ContextSnapshot third = snapshot();
+
+		queue.execute(first, () -> {
+		});
+		queue.execute(second, () -> {
+		});
+		queue.execute(third, () -> {
+		});
+		queue.invalidatePending();
+
+		assertThat(discarded).containsExactly(first, second, third);
+	}
+
+	@Test
+	void testDiscardCountsSnapshotsOnce() throws Exception {
+		SnapshotQueue queue = new SnapshotQueue(scheduled::add, 1, OverflowPolicy.DROP_NEWEST);
+		ContextSnapshot first = snapshot();
+		ContextSnapshot second = snapshot();
+
+		queue.execute(first, () -> {
+		});
+		queue.execute(second, () -> {
+		});
+		queue.execute(second, () -> {
+		});
+
+		assertThat(queue.getDiscarded()).isEqualTo(1);
+	}
+
+	@Test
+	void testDegrade() throws Exception {
+		SnapshotQueue queue = new SnapshotQueue(scheduled::add, 1, OverflowPolicy.DEGRADE);
+		List<String> steps = new ArrayList<>();
+		ContextSnapshot first = snapshot();
+		ContextSnapshot second = snapshot();
+		ContextSnapshot third = snapshot();
+
+		queue.execute(first, degraded -> steps.add("first" + (degraded ? " degraded" : "")));
+		queue.execute(second, degraded -> steps.add("second" + (degraded ? " degraded" : "")));
+		queue.execute(third, degraded -> steps.add("third" + (degraded ? " degraded" : "")));
+		scheduled.forEach(Runnable::run);
+
+		assertThat(steps).containsExactly("first", "second degraded");
+		assertThat(first.isValid()).isTrue();
+		assertThat(second.isValid()).isTrue();
+		assertThat(third.isValid()).isFalse();
+		assertThat(queue.getDegraded()).isEqualTo(1);
+		assertThat(queue.getDiscarded()).isEqualTo(1);
+	}
+
+	@Test
+	void testFailingTaskDoesNotBlockQueue() throws Exception {
+		SnapshotQueue queue = new SnapshotQueue(Runnable::run, 1, OverflowPolicy.BLOCK);
+		List<String> steps = new ArrayList<>();
+
+		queue.execute(snapshot(), () -> {
+			throw new IllegalStateException();
+		});
+		queue.execute(snapshot(), () -> steps.add("next"));
+
+		assertThat(steps).containsExactly("next");
+		assertThat(queue.size()).isEqualTo(0);
+	}
+
+	@Nested
+	class Concurrent {
+
+		private ExecutorService worker;
+		private ExecutorService producer;
+
+		@BeforeEach
+		void before() throws Exception {
+			worker = Executors.newSingleThreadExecutor();
+			producer = Executors.newSingleThreadExecutor();
+		}
+
+		@AfterEach
+		void after() throws Exception {
+			worker.shutdownNow();
+			producer.shutdownNow();
+		}
+
+		@Test
+		void testBlock() throws Exception {
+			SnapshotQueue queue = new SnapshotQueue(worker, 1, OverflowPolicy.BLOCK);
+			CountDownLatch release = new CountDownLatch(1);
+			List<String> steps = new ArrayList<>();
+
+			CountDownLatch running = new CountDownLatch(1);
+			queue.execute(snapshot(), () -> {
+				running.countDown();
+				await(release);
+			});
+			running.await();
+			queue.execute(snapshot(), () -> steps.add("waiting"));
+			Future<?> blocked = producer.submit(() -> queue.execute(snapshot(), () -> steps.add("blocked")));
+
+			Thread.sleep(100);
+			assertThat(blocked.isDone()).isFalse();
+
+			release.countDown();
+			blocked.get();
+			worker.submit(() -> null).get();
+
+			assertThat(steps).containsExactly("waiting", "blocked");
+			assertThat(queue.getDiscarded()).isEqualTo(0);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static ContextSnapshot snapshot() {
+		return new ContextSnapshot(0, "key", VirtualMethodSignature.NULL);
+	}
+
+}
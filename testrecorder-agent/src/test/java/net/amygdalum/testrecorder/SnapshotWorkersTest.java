@@ -0,0 +1,81 @@
+package net.amygdalum.testrecorder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.profile.OverflowPolicy;
+import net.amygdalum.testrecorder.types.ContextSnapshot;
+import net.amygdalum.testrecorder.types.VirtualMethodSignature;
+
+public class SnapshotWorkersTest {
+
+	@Test
+	public void testSize() throws Exception {
+		assertThat(new SnapshotWorkers(4, 1_000).size()).isEqualTo(4);
+		assertThat(new SnapshotWorkers(0, 1_000).size()).isEqualTo(1);
+	}
+
+	@Test
+	public void testWorkerForIsStableForSnapshot() throws Exception {
+		SnapshotWorkers workers = new SnapshotWorkers(4, 1_000);
+		ContextSnapshot snapshot = new ContextSnapshot(0, "key", VirtualMethodSignature.NULL);
+
+		assertThat(workers.workerFor(snapshot)).isSameAs(workers.workerFor(snapshot));
+	}
+
+	@Test
+	public void testWorkerForKeepsOrderOfSnapshot() throws Exception {
+		SnapshotWorkers workers = new SnapshotWorkers(4, 1_000);
+		ContextSnapshot snapshot = new ContextSnapshot(0, "key", VirtualMethodSignature.NULL);
+		List<Integer> steps = new ArrayList<>();
+
+		for (int i = 0; i < 100; i++) {
+			int step = i;
+			workers.workerFor(snapshot).submit(() -> steps.add(step));
+		}
+		workers.workerFor(snapshot).submit(() -> null).get();
+
+		assertThat(steps).hasSize(100).isSorted();
+	}
+
+	@Test
+	public void testQueueForIsStableForSnapshot() throws Exception {
+		SnapshotWorkers workers = new SnapshotWorkers(4, 1_000, 10, OverflowPolicy.DROP_NEWEST);
+		ContextSnapshot snapshot = new ContextSnapshot(0, "key", VirtualMethodSignature.NULL);
+
+		assertThat(workers.queueFor(snapshot)).isSameAs(workers.queueFor(snapshot));
+		assertThat(workers.queueFor(snapshot).getPolicy()).isEqualTo(OverflowPolicy.DROP_NEWEST);
+	}
+
+	@Test
+	public void testQueueForRunsOnWorkerOfSnapshot() throws Exception {
+		SnapshotWorkers workers = new SnapshotWorkers(4, 1_000, 10, OverflowPolicy.BLOCK);
+		ContextSnapshot snapshot = new ContextSnapshot(0, "key", VirtualMethodSignature.NULL);
+		List<Integer> steps = new ArrayList<>();
+
+		for (int i = 0; i < 100; i++) {
+			int step = i;
+			workers.queueFor(snapshot).execute(snapshot, () -> steps.add(step));
+		}
+		workers.workerFor(snapshot).submit(() -> null).get();
+
+		assertThat(steps).hasSize(100).isSorted();
+		assertThat(workers.getDiscarded()).isEqualTo(0);
+	}
+
+	@Test
+	public void testWorkersRunInRecordingThreadGroup() throws Exception {
+		SnapshotWorkers workers = new SnapshotWorkers(2, 1_000);
+		ExecutorService worker = workers.workerFor(new ContextSnapshot(0, "key", VirtualMethodSignature.NULL));
+
+		ThreadGroup group = worker.submit(() -> Thread.currentThread().getThreadGroup()).get();
+
+		assertThat(group).isSameAs(TestrecorderThreadFactory.RECORDING);
+	}
+
+}
@@ -0,0 +1,90 @@
+package net.amygdalum.testrecorder.benchmarks;
+
+import static net.amygdalum.testrecorder.TestAgentConfiguration.defaultConfig;
+
+import java.lang.reflect.Type;
+
+import net.amygdalum.testrecorder.SnapshotManager;
+import net.amygdalum.testrecorder.util.Logger;
+import net.amygdalum.testrecorder.util.testobjects.Bean;
+
+/**
+ * Measures the check whether the logger is active (done by instrumented io methods to skip recording io of the logger) at a
+ * realistic stack depth: the formerly used scan of the stack trace for logger frames compared to the per-thread flag of the
+ * {@link Logger}. Both are measured alone and as part of recording a single input call.
+ * 
+ * This is not a unit test, run it with the test classpath, e.g. from the IDE.
+ */
+public class IOOverheadBenchmark {
+
+	private static final int WARMUP = 20_000;
+	private static final int ITERATIONS = 200_000;
+	private static final int STACK_DEPTH = 64;
+
+	public static void main(String[] args) throws Exception {
+		SnapshotManager manager = new SnapshotManager(defaultConfig());
+		Bean bean = new Bean();
+
+		Runnable stacktraceScan = () -> isLoggerOnStack();
+		Runnable flag = () -> Logger.isLogging();
+		Runnable ioWithStacktraceScan = () -> {
+			if (!isLoggerOnStack()) {
+				io(manager, bean);
+			}
+		};
+		Runnable ioWithFlag = () -> {
+			if (!Logger.isLogging()) {
+				io(manager, bean);
+			}
+		};
+
+		for (int round = 0; round < 3; round++) {
+			System.out.println("round " + round);
+			System.out.println("  check with stacktrace scan (before):   " + atDepth(STACK_DEPTH, () -> measure(stacktraceScan)) + " ns/call");
+			System.out.println("  check with flag (after):               " + atDepth(STACK_DEPTH, () -> measure(flag)) + " ns/call");
+			System.out.println("  io call with stacktrace scan (before): " + atDepth(STACK_DEPTH, () -> measure(ioWithStacktraceScan)) + " ns/call");
+			System.out.println("  io call with flag (after):             " + atDepth(STACK_DEPTH, () -> measure(ioWithFlag)) + " ns/call");
+		}
+	}
+
+	/**
+	 * records an input call, the snapshot manager itself checks the flag (once more) as it does for any instrumented io method
+	 */
+	private static void io(SnapshotManager manager, Bean bean) {
+		int id = manager.inputVariables(bean, "getAttribute", String.class, new Type[0]);
+		manager.inputArguments(id);
+		manager.inputResult(id, "result");
+	}
+
+	private static boolean isLoggerOnStack() {
+		for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
+			if (element.getClassName().equals(Logger.class.getName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static long atDepth(int depth, Measurement measurement) {
+		if (depth == 0) {
+			return measurement.run();
+		}
+		return atDepth(depth - 1, measurement);
+	}
+
+	private static long measure(Runnable runnable) {
+		for (int i = 0; i < WARMUP; i++) {
+			runnable.run();
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			runnable.run();
+		}
+		return (System.nanoTime() - start) / ITERATIONS;
+	}
+
+	interface Measurement {
+		long run();
+	}
+
+}
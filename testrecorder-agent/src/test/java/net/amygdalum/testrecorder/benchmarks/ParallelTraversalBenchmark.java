@@ -0,0 +1,94 @@
+package net.amygdalum.testrecorder.benchmarks;
+
+import static net.amygdalum.testrecorder.TestAgentConfiguration.defaultConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.amygdalum.testrecorder.ConfigurableSerializerFacade;
+import net.amygdalum.testrecorder.DefaultPerformanceProfile;
+import net.amygdalum.testrecorder.profile.PerformanceProfile;
+
+/**
+ * Measures the throughput of serializing a large collection sequentially and with parallel traversal.
+ * 
+ * This is not a unit test, run it with the test classpath, e.g. from the IDE.
+ */
+public class ParallelTraversalBenchmark {
+
+	private static final int ELEMENTS = 100_000;
+	private static final long DURATION = TimeUnit.SECONDS.toMillis(5);
+
+	public static void main(String[] args) throws Exception {
+		int workers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors() - 1;
+		ConfigurableSerializerFacade sequential = new ConfigurableSerializerFacade(defaultConfig()
+			.withDefaultValue(PerformanceProfile.class, () -> new ParallelProfile(0)));
+		ConfigurableSerializerFacade parallel = new ConfigurableSerializerFacade(defaultConfig()
+			.withDefaultValue(PerformanceProfile.class, () -> new ParallelProfile(workers)));
+		Object graph = graph();
+
+		for (int round = 0; round < 3; round++) {
+			System.out.println("round " + round + " sequential: " + DURATION / run(sequential, graph) + " ms/serialization of " + ELEMENTS + " elements");
+			System.out.println("round " + round + " parallel (" + workers + " workers): " + DURATION / run(parallel, graph) + " ms/serialization of " + ELEMENTS + " elements");
+		}
+	}
+
+	private static Object graph() {
+		List<Element> elements = new ArrayList<>();
+		for (int i = 0; i < ELEMENTS; i++) {
+			elements.add(new Element(i));
+		}
+		return elements;
+	}
+
+	private static long run(ConfigurableSerializerFacade facade, Object graph) {
+		long serializations = 0;
+		long end = System.currentTimeMillis() + DURATION;
+		while (serializations == 0 || System.currentTimeMillis() < end) {
+			facade.serialize(List.class, graph, facade.newSession());
+			serializations++;
+		}
+		return serializations;
+	}
+
+	@SuppressWarnings("unused")
+	private static class Element {
+		private int id;
+		private String name;
+		private Detail detail;
+
+		Element(int id) {
+			this.id = id;
+			this.name = "element" + id;
+			this.detail = new Detail(id);
+		}
+	}
+
+	@SuppressWarnings("unused")
+	private static class Detail {
+		private long created;
+		private double weight;
+
+		Detail(int id) {
+			this.created = id * 1000L;
+			this.weight = id / 3.0;
+		}
+	}
+
+	private static class ParallelProfile extends DefaultPerformanceProfile {
+
+		private int workers;
+
+		ParallelProfile(int workers) {
+			this.workers = workers;
+		}
+
+		@Override
+		public int getTraversalWorkers() {
+			return workers;
+		}
+
+	}
+
+}
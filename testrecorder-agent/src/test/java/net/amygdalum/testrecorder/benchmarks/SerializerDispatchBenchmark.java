@@ -0,0 +1,128 @@
+package net.amygdalum.testrecorder.benchmarks;
+
+import static net.amygdalum.testrecorder.TestAgentConfiguration.defaultConfig;
+
+import java.util.concurrent.TimeUnit;
+
+import net.amygdalum.testrecorder.ConfigurableSerializerFacade;
+
+/**
+ * Measures the throughput of serializing an object graph of many user defined classes (where the serializer is not
+ * registered by class, but resolved by dispatch).
+ * 
+ * This is not a unit test, run it with the test classpath, e.g. from the IDE.
+ */
+public class SerializerDispatchBenchmark {
+
+	private static final int NODES = 10_000;
+	private static final long DURATION = TimeUnit.SECONDS.toMillis(3);
+
+	public static void main(String[] args) throws Exception {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig());
+		Object graph = graph();
+
+		for (int round = 0; round < 5; round++) {
+			long serializations = run(facade, graph);
+			System.out.println("round " + round + ": " + serializations * 1000 / DURATION + " serializations/s of " + NODES + " nodes");
+		}
+	}
+
+	private static Object graph() {
+		Node first = null;
+		for (int i = 0; i < NODES; i++) {
+			first = node(i, first);
+		}
+		return first;
+	}
+
+	private static Node node(int i, Node next) {
+		switch (i % 8) {
+		case 0:
+			return new Node0(next);
+		case 1:
+			return new Node1(next);
+		case 2:
+			return new Node2(next);
+		case 3:
+			return new Node3(next);
+		case 4:
+			return new Node4(next);
+		case 5:
+			return new Node5(next);
+		case 6:
+			return new Node6(next);
+		default:
+			return new Node7(next);
+		}
+	}
+
+	private static long run(ConfigurableSerializerFacade facade, Object graph) {
+		long serializations = 0;
+		long end = System.currentTimeMillis() + DURATION;
+		while (System.currentTimeMillis() < end) {
+			facade.serialize(Node.class, graph, facade.newSession());
+			serializations++;
+		}
+		return serializations;
+	}
+
+	@SuppressWarnings("unused")
+	private abstract static class Node {
+		private Node next;
+		private int value;
+
+		Node(Node next) {
+			this.next = next;
+			this.value = next == null ? 0 : next.value + 1;
+		}
+	}
+
+	private static class Node0 extends Node {
+		Node0(Node next) {
+			super(next);
+		}
+	}
+
+	private static class Node1 extends Node {
+		Node1(Node next) {
+			super(next);
+		}
+	}
+
+	private static class Node2 extends Node {
+		Node2(Node next) {
+			super(next);
+		}
+	}
+
+	private static class Node3 extends Node {
+		Node3(Node next) {
+			super(next);
+		}
+	}
+
+	private static class Node4 extends Node {
+		Node4(Node next) {
+			super(next);
+		}
+	}
+
+	private static class Node5 extends Node {
+		Node5(Node next) {
+			super(next);
+		}
+	}
+
+	private static class Node6 extends Node {
+		Node6(Node next) {
+			super(next);
+		}
+	}
+
+	private static class Node7 extends Node {
+		Node7(Node next) {
+			super(next);
+		}
+	}
+
+}
@@ -0,0 +1,59 @@
+package net.amygdalum.testrecorder.benchmarks;
+
+import static net.amygdalum.testrecorder.TestAgentConfiguration.defaultConfig;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.amygdalum.testrecorder.SnapshotManager;
+import net.amygdalum.testrecorder.profile.SnapshotConsumer;
+import net.amygdalum.testrecorder.util.testobjects.Bean;
+
+/**
+ * Measures the throughput of recorded invocations (setupVariables followed by expectVariables) of many concurrent threads.
+ * 
+ * This is not a unit test, run it with the test classpath, e.g. from the IDE.
+ */
+public class SetupVariablesBenchmark {
+
+	private static final int THREADS = 32;
+	private static final long DURATION = TimeUnit.SECONDS.toMillis(3);
+	private static final String SIGNATURE = "setAttribute(Ljava/lang/String;)V";
+
+	public static void main(String[] args) throws Exception {
+		SnapshotManager manager = new SnapshotManager(defaultConfig()
+			.withDefaultValue(SnapshotConsumer.class, () -> snapshot -> {
+			}));
+		manager.registerRecordedMethod(SIGNATURE, "net/amygdalum/testrecorder/util/testobjects/Bean", "setAttribute", "(Ljava/lang/String;)V");
+
+		for (int round = 0; round < 3; round++) {
+			long invocations = run(manager);
+			System.out.println("round " + round + ": " + invocations * 1000 / DURATION + " invocations/s with " + THREADS + " threads");
+		}
+	}
+
+	private static long run(SnapshotManager manager) throws InterruptedException {
+		AtomicBoolean running = new AtomicBoolean(true);
+		LongAdder invocations = new LongAdder();
+		CountDownLatch done = new CountDownLatch(THREADS);
+		for (int i = 0; i < THREADS; i++) {
+			Thread thread = new Thread(() -> {
+				Bean bean = new Bean();
+				while (running.get()) {
+					manager.setupVariables(Bean.class, bean, SIGNATURE, "value");
+					manager.expectVariables(bean, SIGNATURE, new Object[] { "value" });
+					invocations.increment();
+				}
+				done.countDown();
+			});
+			thread.start();
+		}
+		Thread.sleep(DURATION);
+		running.set(false);
+		done.await();
+		return invocations.sum();
+	}
+
+}
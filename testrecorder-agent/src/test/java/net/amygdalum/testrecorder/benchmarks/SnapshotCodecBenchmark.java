@@ -0,0 +1,104 @@
+package net.amygdalum.testrecorder.benchmarks;
+
+import static net.amygdalum.testrecorder.TestAgentConfiguration.defaultConfig;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import net.amygdalum.testrecorder.ConfigurableSerializerFacade;
+import net.amygdalum.testrecorder.types.ContextSnapshot;
+import net.amygdalum.testrecorder.types.MethodSignature;
+import net.amygdalum.testrecorder.types.SerializerSession;
+import net.amygdalum.testrecorder.types.VirtualMethodSignature;
+import net.amygdalum.testrecorder.util.testobjects.Bean;
+import net.amygdalum.testrecorder.util.testobjects.Complex;
+import net.amygdalum.testrecorder.values.SnapshotCodec;
+
+/**
+ * Compares the size and the encoding/decoding throughput of the {@link SnapshotCodec} with java serialization, on a snapshot
+ * of a medium sized object graph.
+ *
+ * This is not a unit test, run it with the test classpath, e.g. from the IDE.
+ */
+public class SnapshotCodecBenchmark {
+
+	private static final int OBJECTS = 1_000;
+	private static final long DURATION = TimeUnit.SECONDS.toMillis(2);
+
+	public static void main(String[] args) throws Exception {
+		ContextSnapshot snapshot = snapshot();
+		SnapshotCodec codec = new SnapshotCodec();
+
+		byte[] encoded = codec.encode(snapshot);
+		byte[] serialized = serialize(snapshot);
+		System.out.println("size: codec " + encoded.length + " bytes, java serialization " + serialized.length + " bytes");
+
+		for (int round = 0; round < 3; round++) {
+			System.out.println("round " + round + ":");
+			System.out.println("  encode codec:     " + run(() -> codec.encode(snapshot)) + " snapshots/s");
+			System.out.println("  encode java:      " + run(() -> serialize(snapshot)) + " snapshots/s");
+			System.out.println("  decode codec:     " + run(() -> codec.decode(encoded)) + " snapshots/s");
+			System.out.println("  decode java:      " + run(() -> deserialize(serialized)) + " snapshots/s");
+		}
+	}
+
+	private static ContextSnapshot snapshot() {
+		ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig());
+		SerializerSession session = facade.newSession();
+		List<Object> graph = new ArrayList<>();
+		for (int i = 0; i < OBJECTS; i++) {
+			Bean bean = new Bean();
+			bean.setAttribute("attribute" + i % 100);
+			Map<String, Object> map = new HashMap<>();
+			map.put("bean", bean);
+			map.put("complex", new Complex());
+			map.put("ints", new int[] { i, i + 1, i + 2, i + 3 });
+			graph.add(map);
+		}
+		ContextSnapshot snapshot = new ContextSnapshot(0, "key", new VirtualMethodSignature(new MethodSignature(Bean.class, void.class, "setAttribute", new Type[] { String.class })));
+		snapshot.setSetupThis(facade.serialize(List.class, graph, session));
+		snapshot.setSetupArgs(facade.serialize(String.class, "value", session));
+		snapshot.setExpectThis(facade.serialize(List.class, graph, session));
+		snapshot.setExpectArgs(facade.serialize(String.class, "value", session));
+		return snapshot;
+	}
+
+	private static byte[] serialize(ContextSnapshot snapshot) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(snapshot);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static ContextSnapshot deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return (ContextSnapshot) in.readObject();
+		}
+	}
+
+	private static long run(Operation operation) throws Exception {
+		long operations = 0;
+		long start = System.currentTimeMillis();
+		long end = start + DURATION;
+		while (System.currentTimeMillis() < end) {
+			operation.run();
+			operations++;
+		}
+		return operations * 1000 / (System.currentTimeMillis() - start);
+	}
+
+	interface Operation {
+		void run() throws Exception;
+	}
+
+}
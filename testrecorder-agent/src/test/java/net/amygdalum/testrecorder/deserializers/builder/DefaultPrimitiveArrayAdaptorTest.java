@@ -0,0 +1,82 @@
+package net.amygdalum.testrecorder.deserializers.builder;
+
+import static net.amygdalum.testrecorder.TestAgentConfiguration.defaultConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.deserializers.Adaptors;
+import net.amygdalum.testrecorder.deserializers.DefaultDeserializerContext;
+import net.amygdalum.testrecorder.deserializers.Deserializer;
+import net.amygdalum.testrecorder.profile.AgentConfiguration;
+import net.amygdalum.testrecorder.types.Computation;
+import net.amygdalum.testrecorder.types.DeserializerContext;
+import net.amygdalum.testrecorder.values.SerializedArray;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
+
+public class DefaultPrimitiveArrayAdaptorTest {
+
+	private AgentConfiguration config;
+	private DefaultPrimitiveArrayAdaptor adaptor;
+	private DeserializerContext context;
+
+	@BeforeEach
+	public void before() throws Exception {
+		config = defaultConfig();
+		adaptor = new DefaultPrimitiveArrayAdaptor();
+		context = new DefaultDeserializerContext();
+	}
+
+	@Test
+	public void testParentNull() throws Exception {
+		assertThat(adaptor.parent()).isNull();
+	}
+
+	@Test
+	public void testMatchesAnyArray() throws Exception {
+		assertThat(adaptor.matches(int[].class)).isTrue();
+		assertThat(adaptor.matches(char[].class)).isTrue();
+	}
+
+	@Test
+	public void testTryDeserialize() throws Exception {
+		SerializedPrimitiveArray value = new SerializedPrimitiveArray(int[].class);
+		value.setArray(new int[] { 0, 8, 15 });
+		Deserializer generator = generator();
+
+		Computation result = adaptor.tryDeserialize(value, generator);
+
+		assertThat(result.getStatements().toString()).contains("int[] intArray1 = new int[]{0, 8, 15}");
+		assertThat(result.getValue()).isEqualTo("intArray1");
+	}
+
+	@Test
+	public void testTryDeserializeLiterals() throws Exception {
+		SerializedPrimitiveArray value = new SerializedPrimitiveArray(byte[].class);
+		value.setArray(new byte[] { 1, 2 });
+		Deserializer generator = generator();
+
+		Computation result = adaptor.tryDeserialize(value, generator);
+
+		assertThat(result.getStatements().toString()).contains("byte[] byteArray1 = new byte[]{(byte) 1, (byte) 2}");
+	}
+
+	@Test
+	public void testTryDeserializeNested() throws Exception {
+		SerializedPrimitiveArray element = new SerializedPrimitiveArray(int[].class);
+		element.setArray(new int[] { 0, 8, 15 });
+		SerializedArray value = new SerializedArray(int[][].class);
+		value.add(element);
+		Deserializer generator = generator();
+
+		Computation result = value.accept(generator);
+
+		assertThat(result.getStatements().toString()).contains("int[] intArray1 = new int[]{0, 8, 15}", "int[][] intArrayArray1 = new int[][]{intArray1}");
+	}
+
+	private Deserializer generator() {
+		return new SetupGenerators(new Adaptors().load(config.loadConfigurations(SetupGenerator.class))).newGenerator(context);
+	}
+
+}
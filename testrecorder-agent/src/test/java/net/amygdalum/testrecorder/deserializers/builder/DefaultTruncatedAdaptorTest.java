@@ -0,0 +1,76 @@
+package net.amygdalum.testrecorder.deserializers.builder;
+
+import static net.amygdalum.testrecorder.TestAgentConfiguration.defaultConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.deserializers.Adaptors;
+import net.amygdalum.testrecorder.deserializers.DefaultDeserializerContext;
+import net.amygdalum.testrecorder.deserializers.Deserializer;
+import net.amygdalum.testrecorder.profile.AgentConfiguration;
+import net.amygdalum.testrecorder.types.Computation;
+import net.amygdalum.testrecorder.types.DeserializerContext;
+import net.amygdalum.testrecorder.util.testobjects.Simple;
+import net.amygdalum.testrecorder.values.SerializedTruncated;
+
+public class DefaultTruncatedAdaptorTest {
+
+	private AgentConfiguration config;
+	private DefaultTruncatedAdaptor adaptor;
+	private DeserializerContext context;
+
+	@BeforeEach
+	public void before() throws Exception {
+		config = defaultConfig();
+		adaptor = new DefaultTruncatedAdaptor();
+		context = new DefaultDeserializerContext();
+	}
+
+	@Test
+	public void testParentNull() throws Exception {
+		assertThat(adaptor.parent()).isNull();
+	}
+
+	@Test
+	public void testMatchesAny() throws Exception {
+		assertThat(adaptor.matches(Object.class)).isTrue();
+		assertThat(adaptor.matches(new Object() {
+		}.getClass())).isTrue();
+	}
+
+	@Test
+	public void testTryDeserializeObject() throws Exception {
+		SerializedTruncated value = new SerializedTruncated(Simple.class);
+		value.useAs(Simple.class);
+		Deserializer generator = generator();
+
+		Computation result = adaptor.tryDeserialize(value, generator);
+
+		assertThat(result.getStatements().toString()).containsSubsequence(
+			"Simple simple1 = new GenericObject",
+			".as(Simple.class)");
+		assertThat(result.getValue()).isEqualTo("simple1");
+	}
+
+	@Test
+	public void testTryDeserializeCollection() throws Exception {
+		SerializedTruncated value = new SerializedTruncated(ArrayList.class);
+		value.useAs(List.class);
+		Deserializer generator = generator();
+
+		Computation result = adaptor.tryDeserialize(value, generator);
+
+		assertThat(result.getStatements()).isEmpty();
+		assertThat(result.getValue()).isEqualTo("null");
+	}
+
+	private Deserializer generator() {
+		return new SetupGenerators(new Adaptors().load(config.loadConfigurations(SetupGenerator.class))).newGenerator(context);
+	}
+
+}
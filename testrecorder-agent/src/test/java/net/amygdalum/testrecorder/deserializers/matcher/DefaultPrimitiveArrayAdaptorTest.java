@@ -0,0 +1,82 @@
+package net.amygdalum.testrecorder.deserializers.matcher;
+
+import static net.amygdalum.testrecorder.TestAgentConfiguration.defaultConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.deserializers.Adaptors;
+import net.amygdalum.testrecorder.deserializers.DefaultDeserializerContext;
+import net.amygdalum.testrecorder.deserializers.Deserializer;
+import net.amygdalum.testrecorder.profile.AgentConfiguration;
+import net.amygdalum.testrecorder.types.Computation;
+import net.amygdalum.testrecorder.types.DeserializerContext;
+import net.amygdalum.testrecorder.values.SerializedArray;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
+
+public class DefaultPrimitiveArrayAdaptorTest {
+
+	private AgentConfiguration config;
+	private DefaultPrimitiveArrayAdaptor adaptor;
+	private DeserializerContext context;
+
+	@BeforeEach
+	public void before() throws Exception {
+		config = defaultConfig();
+		adaptor = new DefaultPrimitiveArrayAdaptor();
+		context = new DefaultDeserializerContext();
+	}
+
+	@Test
+	public void testParentNull() throws Exception {
+		assertThat(adaptor.parent()).isNull();
+	}
+
+	@Test
+	public void testMatchesAnyArray() throws Exception {
+		assertThat(adaptor.matches(int[].class)).isTrue();
+		assertThat(adaptor.matches(char[].class)).isTrue();
+	}
+
+	@Test
+	public void testTryDeserialize() throws Exception {
+		SerializedPrimitiveArray value = new SerializedPrimitiveArray(int[].class);
+		value.setArray(new int[] { 0, 8, 15 });
+		Deserializer generator = generator();
+
+		Computation result = adaptor.tryDeserialize(value, generator);
+
+		assertThat(result.getStatements()).isEmpty();
+		assertThat(result.getValue()).isEqualTo("intArrayContaining(0, 8, 15)");
+	}
+
+	@Test
+	public void testTryDeserializeEmpty() throws Exception {
+		SerializedPrimitiveArray value = new SerializedPrimitiveArray(int[].class);
+		Deserializer generator = generator();
+
+		Computation result = adaptor.tryDeserialize(value, generator);
+
+		assertThat(result.getStatements()).isEmpty();
+		assertThat(result.getValue()).isEqualTo("intEmptyArray()");
+	}
+
+	@Test
+	public void testTryDeserializeNested() throws Exception {
+		SerializedPrimitiveArray element = new SerializedPrimitiveArray(char[].class);
+		element.setArray(new char[] { 'a', 'b' });
+		SerializedArray value = new SerializedArray(char[][].class);
+		value.add(element);
+		Deserializer generator = generator();
+
+		Computation result = value.accept(generator);
+
+		assertThat(result.getValue()).contains("charArrayContaining('a', 'b')");
+	}
+
+	private Deserializer generator() {
+		return new MatcherGenerators(new Adaptors().load(config.loadConfigurations(MatcherGenerator.class))).newGenerator(context);
+	}
+
+}
@@ -90,6 +90,22 @@ public class DefaultSequenceAdaptorTest {
 			+ "equalTo(new BigInteger(\"15\")))");
 	}
 
+	@Test
+	public void testTryDeserializeTruncatedList() throws Exception {
+		SerializedList value = new SerializedList(List.class);
+		value.useAs(parameterized(List.class, null, BigInteger.class));
+		value.add(new SerializedImmutable<>(BigInteger.class).withValue(BigInteger.valueOf(0)));
+		value.truncate();
+		Deserializer generator = generator();
+
+		Computation result = adaptor.tryDeserialize(value, generator);
+
+		assertThat(result.getValue()).isEqualTo(""
+			+ "containsInOrder(BigInteger.class, "
+			+ "equalTo(new BigInteger(\"0\")))"
+			+ ".andMore()");
+	}
+
 	@Test
 	public void testTryDeserializeRawList() throws Exception {
 		SerializedList value = new SerializedList(List.class);
@@ -0,0 +1,74 @@
+package net.amygdalum.testrecorder.deserializers.matcher;
+
+import static net.amygdalum.testrecorder.TestAgentConfiguration.defaultConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.deserializers.Adaptors;
+import net.amygdalum.testrecorder.deserializers.DefaultDeserializerContext;
+import net.amygdalum.testrecorder.deserializers.Deserializer;
+import net.amygdalum.testrecorder.profile.AgentConfiguration;
+import net.amygdalum.testrecorder.types.Computation;
+import net.amygdalum.testrecorder.types.DeserializerContext;
+import net.amygdalum.testrecorder.types.FieldSignature;
+import net.amygdalum.testrecorder.types.SerializedField;
+import net.amygdalum.testrecorder.util.testobjects.Complex;
+import net.amygdalum.testrecorder.util.testobjects.Simple;
+import net.amygdalum.testrecorder.values.SerializedTruncated;
+
+public class DefaultTruncatedAdaptorTest {
+
+	private AgentConfiguration config;
+	private DefaultTruncatedAdaptor adaptor;
+	private DeserializerContext context;
+
+	@BeforeEach
+	public void before() throws Exception {
+		config = defaultConfig();
+		adaptor = new DefaultTruncatedAdaptor();
+		context = new DefaultDeserializerContext();
+	}
+
+	@Test
+	public void testParentNull() throws Exception {
+		assertThat(adaptor.parent()).isNull();
+	}
+
+	@Test
+	public void testMatchesAny() throws Exception {
+		assertThat(adaptor.matches(Object.class)).isTrue();
+		assertThat(adaptor.matches(new Object() {
+		}.getClass())).isTrue();
+	}
+
+	@Test
+	public void testTryDeserialize() throws Exception {
+		SerializedTruncated value = new SerializedTruncated(Simple.class);
+		value.useAs(Simple.class);
+		Deserializer generator = generator();
+
+		Computation result = adaptor.tryDeserialize(value, generator);
+
+		assertThat(result.getStatements()).isEmpty();
+		assertThat(result.getValue()).isEqualTo("anything()");
+	}
+
+	@Test
+	public void testSkipsTruncatedField() throws Exception {
+		SerializedTruncated value = new SerializedTruncated(Simple.class);
+		value.useAs(Simple.class);
+		SerializedField field = new SerializedField(new FieldSignature(Complex.class, Simple.class, "simple"), value);
+		Deserializer generator = generator();
+
+		Computation result = field.accept(generator);
+
+		assertThat(result).isNull();
+	}
+
+	private Deserializer generator() {
+		return new MatcherGenerators(new Adaptors().load(config.loadConfigurations(MatcherGenerator.class))).newGenerator(context);
+	}
+
+}
@@ -0,0 +1,179 @@
+package net.amygdalum.testrecorder.generator;
+
+import static net.amygdalum.testrecorder.TestAgentConfiguration.defaultConfig;
+import static net.amygdalum.testrecorder.values.SerializedLiteral.literal;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import net.amygdalum.testrecorder.SnapshotJournal;
+import net.amygdalum.testrecorder.SnapshotJournalReader;
+import net.amygdalum.testrecorder.types.ContextSnapshot;
+import net.amygdalum.testrecorder.types.FieldSignature;
+import net.amygdalum.testrecorder.types.MethodSignature;
+import net.amygdalum.testrecorder.types.SerializedField;
+import net.amygdalum.testrecorder.types.VirtualMethodSignature;
+import net.amygdalum.testrecorder.util.TemporaryFolder;
+import net.amygdalum.testrecorder.util.TemporaryFolderExtension;
+import net.amygdalum.testrecorder.values.SerializedObject;
+
+@ExtendWith(TemporaryFolderExtension.class)
+public class OfflineTestGeneratorTest {
+
+	private OfflineTestGenerator generator;
+
+	@BeforeEach
+	void before() throws Exception {
+		generator = new OfflineTestGenerator(defaultConfig(), 2);
+	}
+
+	@AfterEach
+	void after() throws Exception {
+		generator.close();
+	}
+
+	@Nested
+	class testAccept {
+		@Test
+		void onCommon() throws Exception {
+			generator.accept(myClassSnapshot(12, 16));
+			generator.accept(myClassSnapshot(13, 17));
+			generator.accept(stringSnapshot("astring"));
+
+			generator.await();
+
+			assertThat(generator.testsFor(OfflineTestGeneratorTest.class))
+				.hasSize(2)
+				.anySatisfy(test -> assertThat(test).containsSubsequence("int field = 12;", "intMethod(16);", "equalTo(28)"))
+				.anySatisfy(test -> assertThat(test).containsSubsequence("int field = 13;", "intMethod(17);", "equalTo(30)"));
+			assertThat(generator.testsFor(String.class)).hasSize(1);
+			assertThat(generator.getFailedSnapshots()).isEqualTo(0);
+		}
+
+		@Test
+		void keepsOrderPerClass() throws Exception {
+			for (int i = 0; i < 100; i++) {
+				generator.accept(myClassSnapshot(i, 1));
+				generator.accept(stringSnapshot("s" + i));
+			}
+
+			generator.await();
+
+			assertThat(generator.testsFor(OfflineTestGeneratorTest.class)).hasSize(100);
+			assertThat(generator.testsFor(String.class)).hasSize(100);
+		}
+	}
+
+	@Test
+	void testTestsForUnknownClass() throws Exception {
+		assertThat(generator.testsFor(Integer.class)).isEmpty();
+	}
+
+	@Test
+	void testWriteResults(TemporaryFolder folder) throws Exception {
+		generator.accept(myClassSnapshot(12, 16));
+		generator.accept(stringSnapshot("astring"));
+
+		generator.writeResults(folder.getRoot());
+
+		assertThat(Files.exists(folder.resolve("net/amygdalum/testrecorder/generator/OfflineTestGeneratorTestRecordedTest.java"))).isTrue();
+		assertThat(Files.exists(folder.resolve("test/java/lang/StringRecordedTest.java"))).isTrue();
+	}
+
+	@Test
+	void testReplayJournal(TemporaryFolder folder) throws Exception {
+		Path journalDir = Files.createDirectories(folder.resolve("journal"));
+		writeJournal(journalDir);
+
+		int snapshots = new SnapshotJournalReader(journalDir).replay(generator);
+
+		assertThat(snapshots).isEqualTo(3);
+		assertThat(generator.testsFor(OfflineTestGeneratorTest.class)).hasSize(2);
+		assertThat(generator.testsFor(String.class)).hasSize(1);
+	}
+
+	@Test
+	void testMain(TemporaryFolder folder) throws Exception {
+		Path journalDir = Files.createDirectories(folder.resolve("journal"));
+		Path testDir = folder.resolve("tests");
+		writeJournal(journalDir);
+
+		OfflineTestGenerator.main(new String[] { journalDir.toString(), testDir.toString(), "2" });
+
+		Path testFile = testDir.resolve("net/amygdalum/testrecorder/generator/OfflineTestGeneratorTestRecordedTest.java");
+		assertThat(new String(Files.readAllBytes(testFile), StandardCharsets.UTF_8))
+			.containsSubsequence("intMethod(16);", "intMethod(17);");
+		assertThat(Files.exists(testDir.resolve("test/java/lang/StringRecordedTest.java"))).isTrue();
+	}
+
+	@Test
+	void testMainWithWrongArguments(TemporaryFolder folder) throws Exception {
+		assertThat(OfflineTestGenerator.generate(new String[] { folder.getRoot().toString() })).isFalse();
+		assertThat(folder.getRoot().toFile().list()).isEmpty();
+	}
+
+	private void writeJournal(Path dir) throws Exception {
+		SnapshotJournal journal = new SnapshotJournal(dir);
+		journal.accept(myClassSnapshot(12, 16));
+		journal.accept(stringSnapshot("astring"));
+		journal.accept(myClassSnapshot(13, 17));
+		journal.close();
+	}
+
+	private ContextSnapshot myClassSnapshot(int value, int arg) {
+		ContextSnapshot snapshot = contextSnapshot(MyClass.class, int.class, "intMethod", int.class);
+		FieldSignature field = new FieldSignature(MyClass.class, int.class, "field");
+		snapshot.setSetupThis(objectOf(MyClass.class, new SerializedField(field, literal(int.class, value))));
+		snapshot.setSetupArgs(literal(int.class, arg));
+		snapshot.setSetupGlobals(new SerializedField[0]);
+		snapshot.setExpectThis(objectOf(MyClass.class, new SerializedField(field, literal(int.class, value))));
+		snapshot.setExpectArgs(literal(int.class, arg));
+		snapshot.setExpectResult(literal(int.class, value + arg));
+		snapshot.setExpectGlobals(new SerializedField[0]);
+		return snapshot;
+	}
+
+	private ContextSnapshot stringSnapshot(String value) {
+		ContextSnapshot snapshot = contextSnapshot(String.class, String.class, "toString");
+		snapshot.setSetupThis(literal(String.class, value));
+		snapshot.setSetupArgs();
+		snapshot.setSetupGlobals(new SerializedField[0]);
+		snapshot.setExpectThis(literal(String.class, value));
+		snapshot.setExpectArgs();
+		snapshot.setExpectResult(literal(String.class, value));
+		snapshot.setExpectGlobals(new SerializedField[0]);
+		return snapshot;
+	}
+
+	private ContextSnapshot contextSnapshot(Class<?> declaringClass, Type resultType, String methodName, Type... argumentTypes) {
+		return new ContextSnapshot(0, "key", new VirtualMethodSignature(new MethodSignature(declaringClass, resultType, methodName, argumentTypes)));
+	}
+
+	private SerializedObject objectOf(Class<MyClass> type, SerializedField... fields) {
+		SerializedObject setupThis = new SerializedObject(type);
+		for (SerializedField field : fields) {
+			setupThis.addField(field);
+		}
+		return setupThis;
+	}
+
+	@SuppressWarnings("unused")
+	private static class MyClass {
+
+		private int field;
+
+		public int intMethod(int arg) {
+			return field + arg;
+		}
+	}
+
+}
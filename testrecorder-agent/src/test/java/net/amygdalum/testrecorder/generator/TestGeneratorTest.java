@@ -285,6 +285,29 @@ public class TestGeneratorTest {
 			"int field = 9;");
 	}
 
+	@Test
+	void testRenderCodeOnReusedValues() throws Exception {
+		FieldSignature field = new FieldSignature(MyClass.class, int.class, "field");
+		SerializedObject self = objectOf(MyClass.class, new SerializedField(field, literal(int.class, 12)));
+		ContextSnapshot snapshot = contextSnapshot(MyClass.class, int.class, "intMethod", int.class);
+		snapshot.setSetupThis(self);
+		snapshot.setSetupArgs(literal(int.class, 16));
+		snapshot.setSetupGlobals(new SerializedField[0]);
+		snapshot.setExpectThis(self);
+		snapshot.setExpectArgs(literal(int.class, 16));
+		snapshot.setExpectResult(literal(int.class, 28));
+		snapshot.setExpectGlobals(new SerializedField[0]);
+
+		testGenerator.accept(snapshot);
+
+		testGenerator.await();
+		assertThat(testGenerator.renderTest(TestGeneratorTest.class).getTestCode()).containsSubsequence(
+			"int field = 12;",
+			"intMethod(16);",
+			"equalTo(28)",
+			"int field = 12;");
+	}
+
 	@Test
 	void testComputeClassName() throws Exception {
 		assertThat(testGenerator.computeClassName(ClassDescriptor.of(MyClass.class))).isEqualTo("MyClassRecordedTest");
@@ -0,0 +1,88 @@
+package net.amygdalum.testrecorder.profile;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.util.testobjects.Complex;
+import net.amygdalum.testrecorder.util.testobjects.Simple;
+
+public class ClassesIndexTest {
+
+	@Nested
+	class testMatches {
+		@Test
+		public void onEmpty() throws Exception {
+			ClassesIndex index = new ClassesIndex(emptyList());
+
+			assertThat(index.matches(Simple.class)).isFalse();
+			assertThat(index.matches("net/amygdalum/testrecorder/util/testobjects/Simple")).isFalse();
+		}
+
+		@Test
+		public void onReflectiveClass() throws Exception {
+			assertThat(new ClassesIndex(asList(Classes.byName("Simple"))).matches(Simple.class)).isTrue();
+			assertThat(new ClassesIndex(asList(Classes.byName("net.amygdalum.testrecorder.util.testobjects.Simple"))).matches(Simple.class)).isTrue();
+			assertThat(new ClassesIndex(asList(Classes.byDescription(Simple.class))).matches(Simple.class)).isTrue();
+			assertThat(new ClassesIndex(asList(Classes.byPackage("net.amygdalum.testrecorder.util"))).matches(Simple.class)).isTrue();
+			assertThat(new ClassesIndex(asList(Classes.byPackage("net.amygdalum.testrecorder.util.testobj"))).matches(Simple.class)).isTrue();
+			assertThat(new ClassesIndex(asList(Classes.byPackage(""))).matches(Simple.class)).isTrue();
+			assertThat(new ClassesIndex(asList(new SimpleClasses())).matches(Simple.class)).isTrue();
+
+			ClassesIndex index = new ClassesIndex(asList(
+				Classes.byName("Complex"),
+				Classes.byDescription(String.class),
+				Classes.byPackage("net.amygdalum.testrecorder.util.scenarios"),
+				Classes.byPackage("net.amygdalum.testrecorder.util.testobjects.Simple."),
+				new SimpleClasses()));
+			assertThat(index.matches(Simple.class)).isTrue();
+			assertThat(index.matches(Complex.class)).isTrue();
+			assertThat(index.matches(String.class)).isTrue();
+			assertThat(index.matches(Integer.class)).isFalse();
+		}
+
+		@Test
+		public void onClassDescriptor() throws Exception {
+			assertThat(new ClassesIndex(asList(Classes.byName("Simple"))).matches("net/amygdalum/testrecorder/util/testobjects/Simple")).isTrue();
+			assertThat(new ClassesIndex(asList(Classes.byDescription(Simple.class))).matches("net/amygdalum/testrecorder/util/testobjects/Simple")).isTrue();
+			assertThat(new ClassesIndex(asList(Classes.byPackage("net.amygdalum.testrecorder.util"))).matches("net/amygdalum/testrecorder/util/testobjects/Simple")).isTrue();
+			assertThat(new ClassesIndex(asList(new SimpleClasses())).matches("net/amygdalum/testrecorder/util/testobjects/Simple")).isTrue();
+
+			ClassesIndex index = new ClassesIndex(asList(
+				Classes.byName("Complex"),
+				Classes.byPackage("net.amygdalum.testrecorder.util.scenarios")));
+			assertThat(index.matches("net/amygdalum/testrecorder/util/testobjects/Simple")).isFalse();
+			assertThat(index.matches("net/amygdalum/testrecorder/util/testobjects/Complex")).isTrue();
+			assertThat(index.matches("net/amygdalum/testrecorder/util/scenarios/Any")).isTrue();
+		}
+
+		@Test
+		public void onNestedIndex() throws Exception {
+			ClassesIndex index = new ClassesIndex(asList(
+				new ClassesIndex(asList(Classes.byName("Complex"), Classes.byPackage("java.lang"))),
+				new ClassesIndex(asList(new SimpleClasses()))));
+
+			assertThat(index.matches(Simple.class)).isTrue();
+			assertThat(index.matches(Complex.class)).isTrue();
+			assertThat(index.matches(Integer.class)).isTrue();
+			assertThat(index.matches(ClassesIndexTest.class)).isFalse();
+		}
+	}
+
+	private static class SimpleClasses implements Classes {
+
+		@Override
+		public boolean matches(Class<?> type) {
+			return type == Simple.class;
+		}
+
+		@Override
+		public boolean matches(String className) {
+			return className.equals("net/amygdalum/testrecorder/util/testobjects/Simple");
+		}
+
+	}
+}
@@ -21,6 +21,7 @@ public class ConfigurableSerializationProfileTest {
 				.withGlobalFields(Fields.byName("global"))
 				.withInputs(Methods.byName("input"))
 				.withOutputs(Methods.byName("output"))
+				.withSampling(Sampling.everyNth(Methods.byName("sampled"), 2))
 				.build();
 
 			assertThat(profile.getClasses())
@@ -50,6 +51,9 @@ public class ConfigurableSerializationProfileTest {
 			assertThat(profile.getOutputs())
 				.allMatch(m -> m.matches("AnyName", "output", "Any()"))
 				.noneMatch(m -> m.matches("AnyName", "other", "Any()"));
+			assertThat(profile.getSampling())
+				.allMatch(m -> m.matches("AnyName", "sampled", "Any()"))
+				.noneMatch(m -> m.matches("AnyName", "other", "Any()"));
 		}
 
 		@Test
@@ -64,6 +68,7 @@ public class ConfigurableSerializationProfileTest {
 				.withGlobalFields(Fields.byName("global"))
 				.withInputs(Methods.byName("input"))
 				.withOutputs(Methods.byName("output"))
+				.withSampling(Sampling.everyNth(Methods.byName("sampled"), 2))
 				.build();
 
 			ConfigurableSerializationProfile profile = ConfigurableSerializationProfile.builder(baseprofile).build();
@@ -95,6 +100,9 @@ public class ConfigurableSerializationProfileTest {
 			assertThat(profile.getOutputs())
 				.allMatch(m -> m.matches("AnyName", "output", "Any()"))
 				.noneMatch(m -> m.matches("AnyName", "other", "Any()"));
+			assertThat(profile.getSampling())
+				.allMatch(m -> m.matches("AnyName", "sampled", "Any()"))
+				.noneMatch(m -> m.matches("AnyName", "other", "Any()"));
 		}
 	}
 }
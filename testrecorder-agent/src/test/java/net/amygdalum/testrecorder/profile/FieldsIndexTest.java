@@ -0,0 +1,64 @@
+package net.amygdalum.testrecorder.profile;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Field;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.util.testobjects.Complex;
+import net.amygdalum.testrecorder.util.testobjects.Simple;
+import net.amygdalum.testrecorder.util.testobjects.SimpleMisleadingFieldName;
+
+public class FieldsIndexTest {
+
+	@Nested
+	class testMatches {
+		@Test
+		public void onEmpty() throws Exception {
+			FieldsIndex index = new FieldsIndex(emptyList());
+
+			assertThat(index.matches(Simple.class.getDeclaredField("str"))).isFalse();
+			assertThat(index.matches("net/amygdalum/testrecorder/util/testobjects/Simple", "str", "Ljava/lang/String;")).isFalse();
+		}
+
+		@Test
+		public void onReflectiveField() throws Exception {
+			Field simpleStr = Simple.class.getDeclaredField("str");
+			Field misleadingStr = SimpleMisleadingFieldName.class.getDeclaredField("str");
+			Field complexSimple = Complex.class.getDeclaredField("simple");
+
+			FieldsIndex byName = new FieldsIndex(asList(Fields.byName("str")));
+			assertThat(byName.matches(simpleStr)).isTrue();
+			assertThat(byName.matches(misleadingStr)).isTrue();
+			assertThat(byName.matches(complexSimple)).isFalse();
+
+			FieldsIndex byQualifiedName = new FieldsIndex(asList(Fields.byName("net.amygdalum.testrecorder.util.testobjects.Simple.str")));
+			assertThat(byQualifiedName.matches(simpleStr)).isTrue();
+			assertThat(byQualifiedName.matches(misleadingStr)).isFalse();
+
+			FieldsIndex byDescription = new FieldsIndex(asList(Fields.byDescription(complexSimple)));
+			assertThat(byDescription.matches(complexSimple)).isTrue();
+			assertThat(byDescription.matches(simpleStr)).isFalse();
+
+			FieldsIndex custom = new FieldsIndex(asList(new ExcludeStatic(), new FieldsIndex(asList(Fields.byName("simple")))));
+			assertThat(custom.matches(complexSimple)).isTrue();
+			assertThat(custom.matches(simpleStr)).isFalse();
+		}
+
+		@Test
+		public void onFieldDescriptor() throws Exception {
+			FieldsIndex index = new FieldsIndex(asList(
+				Fields.byName("net.amygdalum.testrecorder.util.testobjects.Simple.str"),
+				Fields.byDescription("net/amygdalum/testrecorder/util/testobjects/Complex", "simple", "Lnet/amygdalum/testrecorder/util/testobjects/Simple;")));
+
+			assertThat(index.matches("net/amygdalum/testrecorder/util/testobjects/Simple", "str", "Ljava/lang/String;")).isTrue();
+			assertThat(index.matches("net/amygdalum/testrecorder/util/testobjects/SimpleMisleadingFieldName", "str", "I")).isFalse();
+			assertThat(index.matches("net/amygdalum/testrecorder/util/testobjects/Complex", "simple", "Lnet/amygdalum/testrecorder/util/testobjects/Simple;")).isTrue();
+			assertThat(index.matches("net/amygdalum/testrecorder/util/testobjects/Complex", "simple", "Ljava/lang/Object;")).isFalse();
+		}
+	}
+}
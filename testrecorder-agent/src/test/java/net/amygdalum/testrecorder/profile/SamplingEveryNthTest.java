@@ -0,0 +1,57 @@
+package net.amygdalum.testrecorder.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class SamplingEveryNthTest {
+
+	@Test
+	void testInvalidInterval() throws Exception {
+		assertThatThrownBy(() -> new SamplingEveryNth(Methods.byName("method"), 0))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void testMatches() throws Exception {
+		SamplingEveryNth sampling = new SamplingEveryNth(Methods.byName("method"), 3);
+
+		assertThat(sampling.matches("AnyClass", "method", "()V")).isTrue();
+		assertThat(sampling.matches("AnyClass", "other", "()V")).isFalse();
+	}
+
+	@Nested
+	class testNewSampler {
+		@Test
+		void samplesEveryNth() throws Exception {
+			Sampler sampler = new SamplingEveryNth(Methods.byName("method"), 3).newSampler();
+
+			assertThat(sampler.sample()).isTrue();
+			assertThat(sampler.sample()).isFalse();
+			assertThat(sampler.sample()).isFalse();
+			assertThat(sampler.sample()).isTrue();
+			assertThat(sampler.sample()).isFalse();
+		}
+
+		@Test
+		void samplesAllForOne() throws Exception {
+			Sampler sampler = new SamplingEveryNth(Methods.byName("method"), 1).newSampler();
+
+			assertThat(sampler.sample()).isTrue();
+			assertThat(sampler.sample()).isTrue();
+		}
+
+		@Test
+		void samplesIndependentPerSampler() throws Exception {
+			SamplingEveryNth sampling = new SamplingEveryNth(Methods.byName("method"), 2);
+			Sampler sampler1 = sampling.newSampler();
+			Sampler sampler2 = sampling.newSampler();
+
+			assertThat(sampler1.sample()).isTrue();
+			assertThat(sampler2.sample()).isTrue();
+		}
+	}
+
+}
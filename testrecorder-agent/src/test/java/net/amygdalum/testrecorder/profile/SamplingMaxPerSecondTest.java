@@ -0,0 +1,59 @@
+package net.amygdalum.testrecorder.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.profile.SamplingMaxPerSecond.TokenBucket;
+
+public class SamplingMaxPerSecondTest {
+
+	@Test
+	void testInvalidRate() throws Exception {
+		assertThatThrownBy(() -> new SamplingMaxPerSecond(Methods.byName("method"), 0))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void testMatches() throws Exception {
+		SamplingMaxPerSecond sampling = new SamplingMaxPerSecond(Methods.byName("method"), 10);
+
+		assertThat(sampling.matches("AnyClass", "method", "()V")).isTrue();
+		assertThat(sampling.matches("AnyClass", "other", "()V")).isFalse();
+	}
+
+	@Nested
+	class testNewSampler {
+		@Test
+		void samplesUpToRate() throws Exception {
+			Sampler sampler = new SamplingMaxPerSecond(Methods.byName("method"), 10).newSampler();
+
+			int sampled = 0;
+			for (int i = 0; i < 100; i++) {
+				if (sampler.sample()) {
+					sampled++;
+				}
+			}
+
+			assertThat(sampled).isBetween(10, 11);
+		}
+
+		@Test
+		void refillsOverTime() throws Exception {
+			TokenBucket sampler = new TokenBucket(TimeUnit.MILLISECONDS.toNanos(10), TimeUnit.MILLISECONDS.toNanos(10));
+
+			assertThat(sampler.sample()).isTrue();
+			while (sampler.sample()) {
+			}
+
+			Thread.sleep(20);
+
+			assertThat(sampler.sample()).isTrue();
+		}
+	}
+
+}
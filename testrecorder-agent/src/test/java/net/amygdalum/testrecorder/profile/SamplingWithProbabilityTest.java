@@ -0,0 +1,62 @@
+package net.amygdalum.testrecorder.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class SamplingWithProbabilityTest {
+
+	@Test
+	void testInvalidProbability() throws Exception {
+		assertThatThrownBy(() -> new SamplingWithProbability(Methods.byName("method"), -0.1))
+			.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new SamplingWithProbability(Methods.byName("method"), 1.1))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void testMatches() throws Exception {
+		SamplingWithProbability sampling = new SamplingWithProbability(Methods.byName("method"), 0.5);
+
+		assertThat(sampling.matches("AnyClass", "method", "()V")).isTrue();
+		assertThat(sampling.matches("AnyClass", "other", "()V")).isFalse();
+	}
+
+	@Nested
+	class testNewSampler {
+		@Test
+		void samplesNoneForZero() throws Exception {
+			Sampler sampler = new SamplingWithProbability(Methods.byName("method"), 0).newSampler();
+
+			for (int i = 0; i < 100; i++) {
+				assertThat(sampler.sample()).isFalse();
+			}
+		}
+
+		@Test
+		void samplesAllForOne() throws Exception {
+			Sampler sampler = new SamplingWithProbability(Methods.byName("method"), 1).newSampler();
+
+			for (int i = 0; i < 100; i++) {
+				assertThat(sampler.sample()).isTrue();
+			}
+		}
+
+		@Test
+		void samplesSomeForHalf() throws Exception {
+			Sampler sampler = new SamplingWithProbability(Methods.byName("method"), 0.5).newSampler();
+
+			int sampled = 0;
+			for (int i = 0; i < 10_000; i++) {
+				if (sampler.sample()) {
+					sampled++;
+				}
+			}
+
+			assertThat(sampled).isBetween(4_000, 6_000);
+		}
+	}
+
+}
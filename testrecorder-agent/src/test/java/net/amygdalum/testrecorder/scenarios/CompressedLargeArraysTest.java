@@ -0,0 +1,57 @@
+package net.amygdalum.testrecorder.scenarios;
+
+import static net.amygdalum.extensions.assertj.Assertions.assertThat;
+import static net.amygdalum.testrecorder.test.JUnit4TestsRun.testsRun;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.DataInputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import net.amygdalum.testrecorder.generator.TestGenerator;
+import net.amygdalum.testrecorder.integration.Instrumented;
+import net.amygdalum.testrecorder.integration.TestRecorderAgentExtension;
+import net.amygdalum.testrecorder.util.BlockCompression;
+
+@ExtendWith(TestRecorderAgentExtension.class)
+@Instrumented(classes = { "net.amygdalum.testrecorder.scenarios.CompressedLargeIntArrays" })
+public class CompressedLargeArraysTest {
+
+	@Test
+	public void testCompressedLargeIntArraysResultAndArgumentCode() throws Exception {
+		CompressedLargeIntArrays arrays = new CompressedLargeIntArrays();
+
+		int[][] result = arrays.initInts(400);
+		arrays.doubleInts(result);
+
+		TestGenerator testGenerator = TestGenerator.fromRecorded();
+		String testCode = testGenerator.renderTest(CompressedLargeIntArrays.class).getTestCode();
+		assertThat(testCode)
+			.doesNotContainWildcardPattern("int[][] intArrayArray? = new int[][]{intArray1, intArray2");
+		Matcher files = Pattern.compile("\\w+\\.serialized").matcher(testCode);
+		assertThat(files.find()).isTrue();
+		do {
+			try (DataInputStream in = new DataInputStream(Files.newInputStream(Paths.get("target/generated", files.group())))) {
+				assertThat(in.readInt()).isEqualTo(BlockCompression.MAGIC);
+			}
+		} while (files.find());
+	}
+
+	@Test
+	public void testCompressedLargeIntArraysResultAndArgumentCompilable() throws Exception {
+		CompressedLargeIntArrays arrays = new CompressedLargeIntArrays();
+
+		int[][] result = arrays.initInts(400);
+		arrays.doubleInts(result);
+
+		TestGenerator testGenerator = TestGenerator.fromRecorded();
+		assertThat(testGenerator.testsFor(CompressedLargeIntArrays.class)).hasSize(2);
+		assertThat(testGenerator.renderTest(CompressedLargeIntArrays.class)).satisfies(testsRun());
+	}
+
+}
@@ -0,0 +1,37 @@
+package net.amygdalum.testrecorder.scenarios;
+
+import net.amygdalum.testrecorder.hints.LoadFromFile;
+import net.amygdalum.testrecorder.profile.Recorded;
+
+public class CompressedLargeIntArrays {
+
+    public CompressedLargeIntArrays() {
+    }
+
+    @Recorded
+    @LoadFromFile(writeTo = "target/generated", readFrom = "target/generated", compression = 6)
+    public int[][] initInts(int entries) {
+        int counter = entries * entries;
+        int[][] is = new int[entries][entries];
+        for (int i = 0; i < is.length; i++) {
+            for (int j = 0; j < is[i].length; j++) {
+                is[i][j] = counter--;
+            }
+        }
+        return is;
+    }
+
+    @Recorded
+    @LoadFromFile(writeTo = "target/generated", readFrom = "target/generated", compression = 6)
+    public int[][] doubleInts(@LoadFromFile(writeTo = "target/generated", readFrom = "target/generated", compression = 6) int[][] entries) {
+        int[][] is = new int[entries.length][];
+        for (int i = 0; i < is.length; i++) {
+            is[i] = new int[entries[i].length];
+            for (int j = 0; j < is[i].length; j++) {
+                is[i][j] = entries[i][j] * 2;
+            }
+        }
+        return is;
+    }
+
+}
@@ -69,4 +69,25 @@ public class DefaultListSerializerTest {
 		assertThat(value).containsExactly(foo, bar);
 	}
 
+	@Test
+	void testComponentsWithMaxElements() throws Exception {
+		when(session.maxElements()).thenReturn(1);
+
+		assertThat(serializer.components(new LinkedList<>(asList("Foo", "Bar")), session).map(o -> (Object) o))
+			.containsExactly("Foo");
+	}
+
+	@Test
+	void testPopulateWithMaxElements() throws Exception {
+		when(session.maxElements()).thenReturn(1);
+
+		SerializedList value = serializer.generate(LinkedList.class, session);
+		value.useAs(parameterized(LinkedList.class, null, String.class));
+
+		serializer.populate(value, asList("Foo", "Bar"), session);
+
+		assertThat(value).containsExactly(literal("Foo"));
+		assertThat(value.isTruncated()).isTrue();
+	}
+
 }
@@ -16,6 +16,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import net.amygdalum.testrecorder.types.ClassLayout;
 import net.amygdalum.testrecorder.types.FieldSignature;
 import net.amygdalum.testrecorder.types.SerializedField;
 import net.amygdalum.testrecorder.types.SerializedReferenceType;
@@ -34,6 +35,8 @@ public class GenericSerializerTest {
 	@BeforeEach
 	void before() throws Exception {
 		session = mock(SerializerSession.class);
+		when(session.layout(any())).thenAnswer(invocation -> ClassLayout.of(invocation.getArgument(0),
+			clazz -> session.excludes(clazz), field -> session.excludes(field), clazz -> false, field -> false));
 		serializer = new GenericSerializer();
 	}
 
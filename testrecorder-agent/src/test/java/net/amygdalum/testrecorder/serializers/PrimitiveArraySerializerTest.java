@@ -0,0 +1,54 @@
+package net.amygdalum.testrecorder.serializers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.types.Serializer;
+import net.amygdalum.testrecorder.types.SerializerSession;
+import net.amygdalum.testrecorder.values.SerializedPrimitiveArray;
+
+public class PrimitiveArraySerializerTest {
+
+	private SerializerSession session;
+	private Serializer<SerializedPrimitiveArray> serializer;
+
+	@BeforeEach
+	void before() throws Exception {
+		session = mock(SerializerSession.class);
+		serializer = new PrimitiveArraySerializer();
+	}
+
+	@Test
+	void testGetMatchingClasses() throws Exception {
+		assertThat(serializer.getMatchingClasses()).isEmpty();
+	}
+
+	@Test
+	void testComponents() throws Exception {
+		assertThat(serializer.components(new int[] { 1, 2 }, session)).isEmpty();
+	}
+
+	@Test
+	void testGenerate() throws Exception {
+		SerializedPrimitiveArray value = serializer.generate(int[].class, session);
+		value.useAs(int[].class);
+
+		assertThat(value.getUsedTypes()).containsExactly(int[].class);
+		assertThat(value.getType()).isEqualTo(int[].class);
+		assertThat(value.getComponentType()).isEqualTo(int.class);
+	}
+
+	@Test
+	void testPopulate() throws Exception {
+		SerializedPrimitiveArray value = serializer.generate(int[].class, session);
+		value.useAs(int[].class);
+
+		serializer.populate(value, new int[] { 0, 8, 15 }, session);
+
+		assertThat((int[]) value.getArray()).containsExactly(0, 8, 15);
+	}
+
+}
@@ -0,0 +1,103 @@
+package net.amygdalum.testrecorder.types;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.types.ClassLayout.LayoutField;
+
+public class ClassLayoutTest {
+
+	@Nested
+	class testOf {
+		@Test
+		void onPlainClass() throws Exception {
+			ClassLayout layout = ClassLayout.of(Sub.class, c -> false, f -> f.isSynthetic(), c -> false, f -> false);
+
+			assertThat(layout.getType()).isEqualTo(Sub.class);
+			assertThat(layout.isFacade()).isFalse();
+			assertThat(names(layout.getFields())).containsExactly("subString", "subInt", "superString", "superInt");
+			assertThat(names(layout.getReferenceFields())).containsExactly("subString", "superString");
+			assertThat(layout.getFacadeFields()).isEmpty();
+		}
+
+		@Test
+		void onExcludedField() throws Exception {
+			ClassLayout layout = ClassLayout.of(Sub.class, c -> false, f -> f.isSynthetic() || f.getName().startsWith("sub"), c -> false, f -> false);
+
+			assertThat(names(layout.getFields())).containsExactly("superString", "superInt");
+			assertThat(names(layout.getReferenceFields())).containsExactly("superString");
+		}
+
+		@Test
+		void onExcludedSuperClass() throws Exception {
+			ClassLayout layout = ClassLayout.of(Sub.class, c -> c == Super.class, f -> f.isSynthetic(), c -> false, f -> f.getName().endsWith("String"));
+
+			assertThat(names(layout.getFields())).containsExactly("subString", "subInt");
+			assertThat(names(layout.getFacadeFields())).containsExactly("subString", "superString");
+		}
+
+		@Test
+		void onFacadedClass() throws Exception {
+			ClassLayout layout = ClassLayout.of(Sub.class, c -> false, f -> false, c -> c == Sub.class, f -> false);
+
+			assertThat(layout.isFacade()).isTrue();
+		}
+	}
+
+	@Nested
+	class testLayoutField {
+		@Test
+		void testGet() throws Exception {
+			ClassLayout layout = ClassLayout.of(Sub.class, c -> false, f -> f.isSynthetic(), c -> false, f -> false);
+
+			Sub sub = new Sub();
+
+			assertThat(layout.getFields().stream()
+				.map(field -> get(field, sub))
+				.collect(toList())).containsExactly("sub", 1, "super", 2);
+		}
+
+		@Test
+		void testSignature() throws Exception {
+			ClassLayout layout = ClassLayout.of(Sub.class, c -> false, f -> f.isSynthetic(), c -> false, f -> false);
+
+			LayoutField field = layout.getFields().get(2);
+
+			assertThat(field.getSignature()).isEqualTo(new FieldSignature(Super.class, String.class, "superString"));
+			assertThat(field.getDeclaringClass()).isEqualTo(Super.class);
+			assertThat(field.getType()).isEqualTo(String.class);
+			assertThat(field.isPrimitive()).isFalse();
+		}
+	}
+
+	private static List<String> names(List<LayoutField> fields) {
+		return fields.stream()
+			.map(LayoutField::getName)
+			.collect(toList());
+	}
+
+	private static Object get(LayoutField field, Object object) {
+		try {
+			return field.get(object);
+		} catch (ReflectiveOperationException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	@SuppressWarnings("unused")
+	private static class Super {
+		private String superString = "super";
+		private int superInt = 2;
+	}
+
+	@SuppressWarnings("unused")
+	private static class Sub extends Super {
+		private String subString = "sub";
+		private int subInt = 1;
+	}
+}
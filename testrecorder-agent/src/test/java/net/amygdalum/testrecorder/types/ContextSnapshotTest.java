@@ -320,6 +320,31 @@ public class ContextSnapshotTest {
 			assertThat(streamValue).containsExactly(input);
 		}
 
+		@Test
+		void withPendingInput() throws Exception {
+			ContextSnapshot snapshot = contextSnapshot(ArrayList.class, boolean.class, "add", Object.class);
+			SerializedInput input = new SerializedInput(41, new MethodSignature(String.class, char.class, "name", new Type[0]));
+
+			snapshot.addInput(input);
+
+			assertThat(snapshot.onPendingInput(input.id())).contains(input);
+			assertThat(snapshot.onPendingInput(input.id() + 1)).isNotPresent();
+
+			snapshot.completeInput(input.id());
+
+			assertThat(snapshot.onPendingInput(input.id())).isNotPresent();
+			assertThat(snapshot.getSetupInput()).containsExactly(input);
+		}
+
+		@Test
+		void withPendingInputCompletedWithoutInput() throws Exception {
+			ContextSnapshot snapshot = contextSnapshot(ArrayList.class, boolean.class, "add", Object.class);
+
+			snapshot.completeInput(41);
+
+			assertThat(snapshot.onPendingInput(41)).isNotPresent();
+		}
+
 		@Test
 		void withoutInput() throws Exception {
 			ContextSnapshot snapshot = contextSnapshot(ArrayList.class, boolean.class, "add", Object.class);
@@ -355,6 +380,31 @@ public class ContextSnapshotTest {
 			assertThat(streamValue).containsExactly(output);
 		}
 
+		@Test
+		void withPendingOutput() throws Exception {
+			ContextSnapshot snapshot = contextSnapshot(ArrayList.class, boolean.class, "add", Object.class);
+			SerializedOutput output = new SerializedOutput(41, new MethodSignature(String.class, char.class, "name", new Type[0]));
+
+			snapshot.addOutput(output);
+
+			assertThat(snapshot.onPendingOutput(output.id())).contains(output);
+			assertThat(snapshot.onPendingOutput(output.id() + 1)).isNotPresent();
+
+			snapshot.completeOutput(output.id());
+
+			assertThat(snapshot.onPendingOutput(output.id())).isNotPresent();
+			assertThat(snapshot.getExpectOutput()).containsExactly(output);
+		}
+
+		@Test
+		void withPendingOutputCompletedWithoutOutput() throws Exception {
+			ContextSnapshot snapshot = contextSnapshot(ArrayList.class, boolean.class, "add", Object.class);
+
+			snapshot.completeOutput(41);
+
+			assertThat(snapshot.onPendingOutput(41)).isNotPresent();
+		}
+
 		@Test
 		void withoutOutput() throws Exception {
 			ContextSnapshot snapshot = contextSnapshot(ArrayList.class, boolean.class, "add", Object.class);
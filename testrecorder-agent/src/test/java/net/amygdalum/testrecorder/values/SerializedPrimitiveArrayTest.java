@@ -0,0 +1,73 @@
+package net.amygdalum.testrecorder.values;
+
+import static net.amygdalum.testrecorder.values.SerializedLiteral.literal;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.types.TestValueVisitor;
+
+public class SerializedPrimitiveArrayTest {
+
+	@Test
+	public void testGetType() throws Exception {
+		SerializedPrimitiveArray value = new SerializedPrimitiveArray(int[].class);
+
+		assertThat(value.getType()).isEqualTo(int[].class);
+		assertThat(value.getUsedTypes()).containsExactly(int[].class);
+		assertThat(value.getComponentType()).isEqualTo(int.class);
+	}
+
+	@Test
+	public void testGetArrayOnUnset() throws Exception {
+		SerializedPrimitiveArray value = new SerializedPrimitiveArray(int[].class);
+
+		assertThat((int[]) value.getArray()).isEmpty();
+		assertThat(value.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void testSetArrayCopies() throws Exception {
+		SerializedPrimitiveArray value = new SerializedPrimitiveArray(int[].class);
+		int[] array = new int[] { 0, 8, 15 };
+
+		value.setArray(array);
+		array[0] = 42;
+
+		assertThat((int[]) value.getArray()).containsExactly(0, 8, 15);
+		assertThat(value.size()).isEqualTo(3);
+	}
+
+	@Test
+	public void testGet() throws Exception {
+		SerializedPrimitiveArray value = new SerializedPrimitiveArray(char[].class);
+		value.setArray(new char[] { 'a', 'b' });
+
+		assertThat(value.get(1)).isEqualTo(literal(char.class, 'b'));
+	}
+
+	@Test
+	public void testElements() throws Exception {
+		SerializedPrimitiveArray value = new SerializedPrimitiveArray(int[].class);
+		value.setArray(new int[] { 0, 8, 15 });
+
+		assertThat(value.elements()).isEmpty();
+		assertThat(value.referencedValues()).isEmpty();
+	}
+
+	@Test
+	public void testAccept() throws Exception {
+		SerializedPrimitiveArray value = new SerializedPrimitiveArray(int[].class);
+
+		assertThat(value.accept(new TestValueVisitor())).isEqualTo("ReferenceType:SerializedPrimitiveArray");
+	}
+
+	@Test
+	public void testToString() throws Exception {
+		SerializedPrimitiveArray value = new SerializedPrimitiveArray(double[].class);
+		value.setArray(new double[] { 0.5, 2 });
+
+		assertThat(value.toString()).isEqualTo("<0.5, 2.0>");
+	}
+
+}
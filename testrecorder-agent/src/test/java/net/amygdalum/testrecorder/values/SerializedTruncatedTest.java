@@ -0,0 +1,41 @@
+package net.amygdalum.testrecorder.values;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.types.TestValueVisitor;
+import net.amygdalum.testrecorder.util.testobjects.Simple;
+
+public class SerializedTruncatedTest {
+
+	@Test
+	public void testGetType() throws Exception {
+		SerializedTruncated value = new SerializedTruncated(Simple.class);
+
+		assertThat(value.getType()).isEqualTo(Simple.class);
+		assertThat(value.getUsedTypes()).containsExactly(Simple.class);
+	}
+
+	@Test
+	public void testReferencedValues() throws Exception {
+		SerializedTruncated value = new SerializedTruncated(Simple.class);
+
+		assertThat(value.referencedValues()).isEmpty();
+	}
+
+	@Test
+	public void testAccept() throws Exception {
+		SerializedTruncated value = new SerializedTruncated(Simple.class);
+
+		assertThat(value.accept(new TestValueVisitor())).isEqualTo("ReferenceType:SerializedTruncated");
+	}
+
+	@Test
+	public void testToString() throws Exception {
+		SerializedTruncated value = new SerializedTruncated(Simple.class);
+
+		assertThat(value.toString()).endsWith(" {...}").startsWith("net.amygdalum.testrecorder.util.testobjects.Simple/");
+	}
+
+}
@@ -0,0 +1,423 @@
+package net.amygdalum.testrecorder.values;
+
+import static net.amygdalum.testrecorder.TestAgentConfiguration.defaultConfig;
+import static net.amygdalum.testrecorder.util.Types.serializableOf;
+import static net.amygdalum.testrecorder.values.GenericTypes.listOfSetOfString;
+import static net.amygdalum.testrecorder.values.GenericTypes.mapOfBounded;
+import static net.amygdalum.testrecorder.values.SerializedLiteral.literal;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.lang.invoke.MethodHandleInfo;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.ConfigurableSerializerFacade;
+import net.amygdalum.testrecorder.types.ContextSnapshot;
+import net.amygdalum.testrecorder.types.FieldSignature;
+import net.amygdalum.testrecorder.types.MethodSignature;
+import net.amygdalum.testrecorder.types.SerializedField;
+import net.amygdalum.testrecorder.types.SerializedInput;
+import net.amygdalum.testrecorder.types.SerializedOutput;
+import net.amygdalum.testrecorder.types.SerializedValue;
+import net.amygdalum.testrecorder.types.SerializerSession;
+import net.amygdalum.testrecorder.types.VirtualMethodSignature;
+import net.amygdalum.testrecorder.util.Types;
+import net.amygdalum.testrecorder.util.testobjects.Bean;
+import net.amygdalum.testrecorder.util.testobjects.Complex;
+import net.amygdalum.testrecorder.util.testobjects.PublicEnum;
+
+public class SnapshotCodecTest {
+
+	private SnapshotCodec codec = new SnapshotCodec();
+
+	@Nested
+	class testValues {
+		@Test
+		void onLiterals() throws Exception {
+			for (Object value : new Object[] { true, (byte) -3, (short) -300, 'c', -70000, Long.MIN_VALUE, 1.5f, -2.25d, "string", "ünicode" }) {
+				SerializedValue decoded = roundtrip(literal(value));
+
+				assertThat(decoded).isInstanceOf(SerializedLiteral.class);
+				assertThat(decoded.getType()).isEqualTo(value.getClass());
+				assertThat(((SerializedLiteral) decoded).getValue()).isEqualTo(value);
+			}
+		}
+
+		@Test
+		void onPrimitiveLiterals() throws Exception {
+			SerializedValue decoded = roundtrip(literal(int.class, 42));
+
+			assertThat(decoded).isSameAs(literal(int.class, 42));
+			assertThat(decoded.getType()).isEqualTo(int.class);
+		}
+
+		@Test
+		void onNull() throws Exception {
+			SerializedNull value = SerializedNull.nullInstance();
+			value.useAs(String.class);
+
+			SerializedValue decoded = roundtrip(value);
+
+			assertThat(decoded).isEqualTo(value);
+			assertThat(roundtrip(SerializedNull.nullInstance())).isEqualTo(SerializedNull.nullInstance());
+			assertThat(roundtrip(SerializedNull.VOID)).isSameAs(SerializedNull.VOID);
+		}
+
+		@Test
+		void onObject() throws Exception {
+			SerializedObject value = new SerializedObject(Bean.class);
+			value.setId(42);
+			value.useAs(Object.class);
+			value.addField(new SerializedField(new FieldSignature(Bean.class, String.class, "attribute"), literal("str")));
+
+			SerializedObject decoded = (SerializedObject) roundtrip(value);
+
+			assertThat(decoded.getType()).isEqualTo(Bean.class);
+			assertThat(decoded.getId()).isEqualTo(42);
+			assertThat(decoded.getUsedTypes()).containsExactly(Object.class);
+			assertThat(decoded.getFields()).containsExactlyElementsOf(value.getFields());
+			assertThat(printed(decoded)).isEqualTo(printed(value));
+		}
+
+		@Test
+		void onSharedAndCyclicValues() throws Exception {
+			SerializedObject cycle = new SerializedObject(Complex.class);
+			cycle.addField(new SerializedField(new FieldSignature(Complex.class, Object.class, "self"), cycle));
+			SerializedList list = new SerializedList(ArrayList.class);
+			list.add(cycle);
+			list.add(cycle);
+
+			SerializedList decoded = (SerializedList) roundtrip(list);
+
+			SerializedObject decodedCycle = (SerializedObject) decoded.get(0);
+			assertThat(decoded.get(1)).isSameAs(decodedCycle);
+			assertThat(decodedCycle.getField("self").get().getValue()).isSameAs(decodedCycle);
+		}
+
+		@Test
+		void onArray() throws Exception {
+			SerializedArray value = new SerializedArray(Object[].class);
+			value.useAs(serializableOf(Types.array(String.class)));
+			value.add(literal("a"));
+			value.add(literal("b"));
+
+			SerializedArray decoded = (SerializedArray) roundtrip(value);
+
+			assertThat(decoded.getComponentType()).isEqualTo(value.getComponentType());
+			assertThat(decoded.getUsedTypes()).containsExactly(value.getUsedTypes());
+			assertThat(decoded.getArray()).containsExactly(literal("a"), literal("b"));
+		}
+
+		@Test
+		void onPrimitiveArrays() throws Exception {
+			Object[] arrays = new Object[] {
+				new boolean[] { true, false },
+				new byte[] { 1, -2 },
+				new short[] { 3, -4 },
+				new char[] { 'a', 'z' },
+				new int[] { Integer.MIN_VALUE, 0, Integer.MAX_VALUE },
+				new long[] { Long.MIN_VALUE, Long.MAX_VALUE },
+				new float[] { 1.5f, Float.NaN },
+				new double[] { -2.5, Double.POSITIVE_INFINITY }
+			};
+			for (Object array : arrays) {
+				SerializedPrimitiveArray value = new SerializedPrimitiveArray(array.getClass());
+				value.setArray(array);
+
+				SerializedPrimitiveArray decoded = (SerializedPrimitiveArray) roundtrip(value);
+
+				assertThat(decoded.getType()).isEqualTo(array.getClass());
+				assertThat(decoded.getArray()).isEqualTo(array);
+			}
+		}
+
+		@Test
+		void onCollections() throws Exception {
+			SerializedList list = new SerializedList(ArrayList.class);
+			list.useAs(listOfSetOfString());
+			SerializedSet set = new SerializedSet(HashSet.class);
+			set.add(literal("s"));
+			list.add(set);
+			SerializedMap map = new SerializedMap(LinkedHashMap.class);
+			map.useAs(mapOfBounded());
+			map.put(literal("k1"), list);
+			map.put(literal("k2"), set);
+
+			SerializedMap decoded = (SerializedMap) roundtrip(map);
+
+			assertThat(decoded.getUsedTypes()).containsExactly(map.getUsedTypes());
+			assertThat(decoded.getMapKeyType()).isEqualTo(map.getMapKeyType());
+			assertThat(decoded.getMapValueType()).isEqualTo(map.getMapValueType());
+			assertThat(decoded.keySet()).containsExactly(literal("k1"), literal("k2"));
+			SerializedList decodedList = (SerializedList) decoded.get(literal("k1"));
+			assertThat(decodedList.getComponentType()).isEqualTo(list.getComponentType());
+			assertThat(decodedList.get(0)).isSameAs(decoded.get(literal("k2")));
+			assertThat(((SerializedSet) decodedList.get(0)).getComponentType()).isEqualTo(set.getComponentType());
+			assertThat(printed(decoded)).isEqualTo(printed(map));
+		}
+
+		@Test
+		void onTruncatedCollections() throws Exception {
+			SerializedList list = new SerializedList(ArrayList.class);
+			list.add(literal("first"));
+			list.truncate();
+			SerializedMap map = new SerializedMap(LinkedHashMap.class);
+			map.put(literal("k"), list);
+
+			SerializedMap decoded = (SerializedMap) roundtrip(map);
+
+			assertThat(decoded.isTruncated()).isFalse();
+			SerializedList decodedList = (SerializedList) decoded.get(literal("k"));
+			assertThat(decodedList).containsExactly(literal("first"));
+			assertThat(decodedList.isTruncated()).isTrue();
+		}
+
+		@Test
+		void onImmutables() throws Exception {
+			SerializedEnum enumValue = new SerializedEnum(PublicEnum.class).withName("VALUE2");
+			SerializedImmutable<BigInteger> bigInteger = new SerializedImmutable<BigInteger>(BigInteger.class).withValue(new BigInteger("-123456789012345678901234567890"));
+			SerializedImmutable<BigDecimal> bigDecimal = new SerializedImmutable<BigDecimal>(BigDecimal.class).withValue(new BigDecimal("-1234567890.0987654321"));
+			SerializedImmutable<Class<?>> clazz = new SerializedImmutable<Class<?>>(Class.class).withValue(int[].class);
+			SerializedTruncated truncated = new SerializedTruncated(Complex.class);
+
+			assertThat(((SerializedEnum) roundtrip(enumValue)).getName()).isEqualTo("VALUE2");
+			assertThat(((SerializedImmutable<?>) roundtrip(bigInteger)).getValue()).isEqualTo(bigInteger.getValue());
+			assertThat(((SerializedImmutable<?>) roundtrip(bigDecimal)).getValue()).isEqualTo(bigDecimal.getValue());
+			assertThat(((SerializedImmutable<?>) roundtrip(clazz)).getValue()).isEqualTo(int[].class);
+			assertThat(roundtrip(truncated)).isInstanceOf(SerializedTruncated.class);
+			assertThat(roundtrip(truncated).getType()).isEqualTo(Complex.class);
+		}
+
+		@Test
+		void onLambda() throws Exception {
+			SerializedLambdaObject value = new SerializedLambdaObject(Callable.class);
+			value.setSignature(new LambdaSignature()
+				.withCapturingClass("net/amygdalum/testrecorder/Capturing")
+				.withInstantiatedMethodType("()Ljava/lang/Object;")
+				.withFunctionalInterface("java/util/concurrent/Callable", "call", "()Ljava/lang/Object;")
+				.withImplMethod("net/amygdalum/testrecorder/Capturing", MethodHandleInfo.REF_invokeStatic, "lambda$0", "(I)Ljava/lang/Object;"));
+			value.setCapturedArguments(Arrays.asList(literal(int.class, 1)));
+
+			SerializedLambdaObject decoded = (SerializedLambdaObject) roundtrip(value);
+
+			assertThat(decoded.getSignature()).isEqualToComparingFieldByField(value.getSignature());
+			assertThat(decoded.getCapturedArguments()).containsExactly(literal(int.class, 1));
+		}
+
+		@Test
+		void onProxy() throws Exception {
+			SerializedProxy value = new SerializedProxy(Proxy.class);
+			value.setInterfaces(Arrays.asList(new SerializedImmutable<Class<?>>(Class.class).withValue(Runnable.class)));
+			value.setInvocationHandler(new SerializedObject(InvocationHandler.class));
+
+			SerializedProxy decoded = (SerializedProxy) roundtrip(value);
+
+			assertThat(decoded.getInterfaces()).extracting(SerializedImmutable::getValue).containsExactly(Runnable.class);
+			assertThat(decoded.getInvocationHandler().getType()).isEqualTo(InvocationHandler.class);
+		}
+
+		@Test
+		void onUnknownValue() throws Exception {
+			SerializedValue decoded = roundtrip(new ASerializedValue(String.class, 7));
+
+			assertThat(decoded).isInstanceOf(ASerializedValue.class);
+			assertThat(((ASerializedValue) decoded).getId()).isEqualTo(7);
+		}
+
+		@Test
+		void onSerializedGraph() throws Exception {
+			ConfigurableSerializerFacade facade = new ConfigurableSerializerFacade(defaultConfig());
+			SerializerSession session = facade.newSession();
+			Map<String, Object> graph = new HashMap<>();
+			graph.put("complex", new Complex());
+			graph.put("list", new ArrayList<>(Arrays.asList(1, "2", 3.0)));
+			graph.put("enum", PublicEnum.VALUE1);
+			graph.put("ints", new int[] { 1, 2, 3 });
+			graph.put("self", graph);
+			SerializedValue value = facade.serialize(Map.class, graph, session);
+
+			SerializedValue decoded = roundtrip(value);
+
+			assertThat(printed(decoded)).isEqualTo(printed(value));
+		}
+	}
+
+	@Nested
+	class testTypes {
+		@Test
+		void onGenericTypes() throws Exception {
+			Type[] types = new Type[] {
+				listOfSetOfString(),
+				mapOfBounded(),
+				serializableOf(Enum.class.getTypeParameters()[0]),
+				serializableOf(Collections.class.getMethod("emptyList").getTypeParameters()[0]),
+				serializableOf(ArrayList.class.getConstructor(Collection.class).getGenericParameterTypes()[0]),
+				Types.genericArray(listOfSetOfString()),
+				Types.wildcardSuper(String.class)
+			};
+			for (Type type : types) {
+				SerializedObject value = new SerializedObject(Object.class);
+				value.useAs(type);
+
+				SerializedValue decoded = roundtrip(value);
+
+				assertThat(decoded.getUsedTypes()).containsExactly(type);
+				assertThat(decoded.getUsedTypes()[0].getTypeName()).isEqualTo(type.getTypeName());
+			}
+		}
+	}
+
+	@Nested
+	class testSnapshots {
+		@Test
+		void onCompleteSnapshot() throws Exception {
+			MethodSignature signature = new MethodSignature(Bean.class, void.class, "setAttribute", new Type[] { String.class });
+			ContextSnapshot snapshot = new ContextSnapshot(4711, "key", new VirtualMethodSignature(signature));
+			SerializedObject bean = new SerializedObject(Bean.class);
+			FieldSignature attribute = new FieldSignature(Bean.class, String.class, "attribute");
+			bean.addField(new SerializedField(attribute, literal("before")));
+			snapshot.setSetupThis(bean);
+			snapshot.setSetupArgs(literal("after"));
+			snapshot.setSetupGlobals(new SerializedField(attribute, literal("global")));
+			snapshot.setExpectThis(bean);
+			snapshot.setExpectResult(SerializedNull.VOID);
+			snapshot.setExpectArgs(literal("after"));
+			snapshot.setExpectGlobals(new SerializedField[0]);
+			MethodSignature read = new MethodSignature(Bean.class, String.class, "getAttribute", new Type[0]);
+			SerializedInput input = new SerializedInput(42, read).updateResult(literal("in")).updateArguments();
+			snapshot.addInput(input);
+			snapshot.completeInput(input.id());
+			SerializedOutput output = new SerializedOutput(43, signature).updateArguments(literal("out"));
+			snapshot.addOutput(output);
+
+			ContextSnapshot decoded = codec.decode(codec.encode(snapshot));
+
+			assertThat(decoded.isValid()).isTrue();
+			assertThat(decoded.getTime()).isEqualTo(4711);
+			assertThat(decoded.getKey()).isEqualTo("key");
+			assertThat(decoded.getSignature().signature).isEqualTo(signature);
+			assertThat(decoded.getExpectThis()).isSameAs(decoded.getSetupThis());
+			assertThat(printed(decoded.getSetupThis())).isEqualTo(printed(bean));
+			assertThat(decoded.getSetupArgs()).containsExactly(snapshot.getSetupArgs());
+			assertThat(decoded.getSetupGlobals()).containsExactly(snapshot.getSetupGlobals());
+			assertThat(decoded.getExpectResult()).isEqualTo(snapshot.getExpectResult());
+			assertThat(decoded.getExpectException()).isNull();
+			assertThat(decoded.getExpectArgs()).containsExactly(snapshot.getExpectArgs());
+			assertThat(decoded.getExpectGlobals()).isEmpty();
+			assertThat(decoded.getSetupInput()).containsExactly(input);
+			assertThat(decoded.getSetupInput().peek().getResult()).isEqualTo(input.getResult());
+			assertThat(decoded.onPendingInput(decoded.getSetupInput().peek().id())).isNotPresent();
+			assertThat(decoded.getExpectOutput()).containsExactly(output);
+			assertThat(decoded.getExpectOutput().peek().getArguments()).containsExactly(output.getArguments());
+			assertThat(decoded.onPendingOutput(decoded.getExpectOutput().peek().id())).isPresent();
+		}
+
+		@Test
+		void onInvalidSnapshot() throws Exception {
+			ContextSnapshot snapshot = new ContextSnapshot(0, "key", VirtualMethodSignature.NULL);
+			snapshot.invalidate();
+
+			ContextSnapshot decoded = codec.decode(codec.encode(snapshot));
+
+			assertThat(decoded.isValid()).isFalse();
+			assertThat(decoded.getSignature()).isSameAs(VirtualMethodSignature.NULL);
+			assertThat(codec.decode(codec.encode(ContextSnapshot.INVALID)).isValid()).isFalse();
+		}
+
+		@Test
+		void isSmallerThanJavaSerialization() throws Exception {
+			ContextSnapshot snapshot = new ContextSnapshot(0, "key", new VirtualMethodSignature(new MethodSignature(Bean.class, void.class, "setAttribute", new Type[] { String.class })));
+			SerializedList list = new SerializedList(ArrayList.class);
+			list.useAs(listOfSetOfString());
+			for (int i = 0; i < 100; i++) {
+				SerializedObject bean = new SerializedObject(Bean.class);
+				bean.addField(new SerializedField(new FieldSignature(Bean.class, String.class, "attribute"), literal("value" + i)));
+				list.add(bean);
+			}
+			snapshot.setSetupThis(list);
+
+			ByteArrayOutputStream javaSerialized = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(javaSerialized)) {
+				out.writeObject(snapshot);
+			}
+
+			assertThat(codec.encode(snapshot).length).isLessThan(javaSerialized.size() / 2);
+		}
+	}
+
+	@Nested
+	class testDecode {
+		@Test
+		void onTruncated() throws Exception {
+			byte[] encoded = codec.encodeValue(literal("string"));
+
+			assertThatThrownBy(() -> codec.decodeValue(Arrays.copyOf(encoded, encoded.length - 1))).isInstanceOf(EOFException.class);
+		}
+
+		@Test
+		void onForeignData() throws Exception {
+			assertThatThrownBy(() -> codec.decodeValue(new byte[] { 1, 2, 3, 4, 5 })).isInstanceOf(IOException.class);
+		}
+
+		@Test
+		void onOtherVersion() throws Exception {
+			byte[] encoded = codec.encodeValue(literal("string"));
+			encoded[4] = (byte) (SnapshotCodec.VERSION + 1);
+
+			assertThatThrownBy(() -> codec.decodeValue(encoded)).isInstanceOf(IOException.class);
+		}
+
+		@Test
+		void onUnknownClass() throws Exception {
+			SnapshotCodec isolated = new SnapshotCodec(new ClassLoader(null) {
+			});
+			byte[] encoded = codec.encodeValue(new SerializedObject(Bean.class));
+
+			assertThatThrownBy(() -> isolated.decodeValue(encoded)).isInstanceOf(IOException.class);
+		}
+
+		@Test
+		void headerOnly() throws Exception {
+			ContextSnapshot snapshot = new ContextSnapshot(42, "key", new VirtualMethodSignature(new MethodSignature(Bean.class, void.class, "setAttribute", new Type[] { String.class })));
+			snapshot.setSetupThis(new SerializedObject(Bean.class));
+			SnapshotCodec isolated = new SnapshotCodec(new ClassLoader(null) {
+			});
+
+			ContextSnapshot decoded = isolated.decodeHeader(codec.encode(snapshot));
+
+			assertThat(decoded.getTime()).isEqualTo(42);
+			assertThat(decoded.getKey()).isEqualTo("key");
+			assertThat(decoded.getSignature()).isNull();
+			assertThat(decoded.getSetupThis()).isNull();
+		}
+	}
+
+	private SerializedValue roundtrip(SerializedValue value) throws IOException {
+		return codec.decodeValue(codec.encodeValue(value));
+	}
+
+	private String printed(SerializedValue value) {
+		return value.toString().replaceAll("/\\d+", "");
+	}
+
+}
@@ -21,4 +21,10 @@ public @interface LoadFromFile {
 	String writeTo() default "files";
 
 	String readFrom() default "files";
+
+	/**
+	 * the deflate level (1-9) the files are compressed with, 0 stores the files uncompressed. Compressed files are loaded
+	 * transparently.
+	 */
+	int compression() default 0;
 }
@@ -16,6 +16,7 @@ public class ArrayMatcher<T> extends AbstractIterableMatcher<T, T[]> {
 
 	private Class<T> type;
 	private List<Matcher<T>> elements;
+	private boolean more;
 
 	public ArrayMatcher(Class<T> type) {
 		this.type = type;
@@ -31,6 +32,15 @@ public class ArrayMatcher<T> extends AbstractIterableMatcher<T, T[]> {
 		return this;
 	}
 
+	/**
+	 * allows further elements after the matched elements, e.g. if the matched elements were only the first ones of a larger
+	 * recorded array
+	 */
+	public ArrayMatcher<T> andMore() {
+		more = true;
+		return this;
+	}
+
 	private Matcher<T> match(T element) {
 		if (element == null) {
 			return nullValue(type);
@@ -52,6 +62,9 @@ public class ArrayMatcher<T> extends AbstractIterableMatcher<T, T[]> {
 	@Override
 	public void describeTo(Description description) {
 		description.appendText("containing ").appendValueList("[", ", ", "]", elements);
+		if (more) {
+			description.appendText(" and more");
+		}
 	}
 
 	@Override
@@ -73,7 +86,7 @@ public class ArrayMatcher<T> extends AbstractIterableMatcher<T, T[]> {
 			List<Matcher<T>> matchers = remainder(elementIterator);
 			matches.mismatch("missing " + matchers.size() + " elements " + toExpectedSet(matchers));
 		}
-		if (itemIterator.hasNext()) {
+		if (itemIterator.hasNext() && !more) {
 			List<T> items = remainder(itemIterator);
 			matches.mismatch("found " + items.size() + " elements surplus " + toFoundSet(items));
 		}
@@ -95,7 +108,7 @@ public class ArrayMatcher<T> extends AbstractIterableMatcher<T, T[]> {
 			}
 		}
 		return !elementIterator.hasNext()
-		    && !itemIterator.hasNext();
+		    && (more || !itemIterator.hasNext());
 	}
 
 	@SuppressWarnings("unchecked")
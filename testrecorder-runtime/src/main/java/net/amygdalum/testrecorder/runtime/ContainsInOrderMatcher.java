@@ -16,6 +16,7 @@ public class ContainsInOrderMatcher<T> extends AbstractIterableMatcher<T, Collec
 
 	private Class<T> type;
 	private List<Matcher<T>> elements;
+	private boolean more;
 
 	public ContainsInOrderMatcher(Class<T> type) {
 		this.type = type;
@@ -31,6 +32,15 @@ public class ContainsInOrderMatcher<T> extends AbstractIterableMatcher<T, Collec
 		return this;
 	}
 
+	/**
+	 * allows further elements after the matched elements, e.g. if the matched elements were only the first ones of a larger
+	 * recorded collection
+	 */
+	public ContainsInOrderMatcher<T> andMore() {
+		more = true;
+		return this;
+	}
+
 	private Matcher<T> match(T element) {
 		if (element == null) {
 			return nullValue(type);
@@ -42,6 +52,9 @@ public class ContainsInOrderMatcher<T> extends AbstractIterableMatcher<T, Collec
 	@Override
 	public void describeTo(Description description) {
 		description.appendText("containing in sequence ").appendValueList("[", ", ", "]", elements);
+		if (more) {
+			description.appendText(" and more");
+		}
 	}
 
 	@Override
@@ -63,7 +76,7 @@ public class ContainsInOrderMatcher<T> extends AbstractIterableMatcher<T, Collec
 			List<Matcher<T>> matchers = remainder(elementIterator);
 			matches.mismatch("missing " + matchers.size() + " elements " + toExpectedSet(matchers));
 		}
-		if (itemIterator.hasNext()) {
+		if (itemIterator.hasNext() && !more) {
 			List<T> items = remainder(itemIterator);
 			matches.mismatch("found " + items.size() + " elements surplus " + toFoundSet(items));
 		}
@@ -95,7 +108,7 @@ public class ContainsInOrderMatcher<T> extends AbstractIterableMatcher<T, Collec
 			}
 		}
 		return !elementIterator.hasNext()
-			&& !itemIterator.hasNext();
+			&& (more || !itemIterator.hasNext());
 	}
 
 	@SuppressWarnings("unchecked")
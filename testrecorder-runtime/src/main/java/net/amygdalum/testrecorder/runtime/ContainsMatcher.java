@@ -17,6 +17,7 @@ public class ContainsMatcher<T> extends AbstractIterableMatcher<T, Collection<?
 
 	private Class<T> type;
 	private List<Matcher<T>> elements;
+	private boolean more;
 
 	public ContainsMatcher(Class<T> type) {
 		this.type = type;
@@ -32,6 +33,15 @@ public class ContainsMatcher<T> extends AbstractIterableMatcher<T, Collection<?
 		return this;
 	}
 
+	/**
+	 * allows further elements besides the matched elements, e.g. if the matched elements were only some of a larger recorded
+	 * collection
+	 */
+	public ContainsMatcher<T> andMore() {
+		more = true;
+		return this;
+	}
+
 	private Matcher<T> match(T element) {
 		if (element == null) {
 			return nullValue(type);
@@ -43,6 +53,9 @@ public class ContainsMatcher<T> extends AbstractIterableMatcher<T, Collection<?
 	@Override
 	public void describeTo(Description description) {
 		description.appendText("containing ").appendValueList("[", ", ", "]", elements);
+		if (more) {
+			description.appendText(" and more");
+		}
 	}
 
 	@Override
@@ -61,7 +74,7 @@ public class ContainsMatcher<T> extends AbstractIterableMatcher<T, Collection<?
 			}
 		}
 
-		if (!notExpected.isEmpty()) {
+		if (!notExpected.isEmpty() && !more) {
 			matches.mismatch("found " + notExpected.size() + " elements surplus " + toFoundSet(notExpected));
 		}
 		if (!unmatched.isEmpty()) {
@@ -86,7 +99,7 @@ public class ContainsMatcher<T> extends AbstractIterableMatcher<T, Collection<?
 
 		for (T element : item) {
 			boolean success = tryMatch(unmatched, element);
-			if (!success) {
+			if (!success && !more) {
 				return false;
 			}
 		}
@@ -23,6 +23,7 @@ public class MapMatcher<K, V> extends TypeSafeMatcher<Map<K, V>> {
     private Class<K> key;
     private Class<V> value;
     private Map<Matcher<K>, Matcher<V>> entries;
+    private boolean more;
 
     public MapMatcher(Class<K> key, Class<V> value) {
         this.key = key;
@@ -48,6 +49,14 @@ public class MapMatcher<K, V> extends TypeSafeMatcher<Map<K, V>> {
         return this;
     }
 
+    /**
+     * allows further entries besides the matched entries, e.g. if the matched entries were only some of a larger recorded map
+     */
+    public MapMatcher<K, V> andMore() {
+        more = true;
+        return this;
+    }
+
     @SuppressWarnings("unchecked")
     private Matcher<K> matchKey(K element) {
         if (element == null) {
@@ -73,6 +82,9 @@ public class MapMatcher<K, V> extends TypeSafeMatcher<Map<K, V>> {
     @Override
     public void describeTo(Description description) {
         description.appendText("containing ").appendValueList("{", ", ", "}", entries.entrySet());
+        if (more) {
+            description.appendText(" and more");
+        }
     }
 
     @Override
@@ -83,7 +95,7 @@ public class MapMatcher<K, V> extends TypeSafeMatcher<Map<K, V>> {
         for (Entry<K, V> entry : item.entrySet()) {
 
             boolean success = tryMatch(unmatched, entry);
-            if (!success) {
+            if (!success && !more) {
                 notfound.add(new AbstractMap.SimpleEntry<>(entry.getKey(), entry.getValue()));
             }
         }
@@ -142,7 +154,7 @@ public class MapMatcher<K, V> extends TypeSafeMatcher<Map<K, V>> {
         for (Entry<K, V> entry : item.entrySet()) {
 
             boolean success = tryMatch(unmatched, entry);
-            if (!success) {
+            if (!success && !more) {
                 return false;
             }
         }
@@ -0,0 +1,316 @@
+package net.amygdalum.testrecorder.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses data block by block with {@link Deflater}. Each block is compressed on its own (so it may be decompressed without
+ * the blocks before), but all blocks after the first use the first block as preset dictionary. Recorded data is highly
+ * repetitive (the same classes, field names and values over and over again), so even small blocks compress well.
+ *
+ * A compressed block starts with the length of the uncompressed block. The first block has to be compressed and decompressed
+ * before any other block. Instances are not thread safe.
+ */
+public class BlockCompression implements Closeable {
+
+	/**
+	 * the magic number of a compressed block stream
+	 */
+	public static final int MAGIC = 0x54524233;
+	public static final int BLOCK_SIZE = 64 * 1024;
+
+	private static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+	private int level;
+	private Deflater deflater;
+	private Inflater inflater;
+	private byte[] dictionary;
+
+	/**
+	 * @param level the compression level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}
+	 */
+	public BlockCompression(int level) {
+		this.level = level;
+	}
+
+	public byte[] compress(byte[] block) {
+		return compress(block, 0, block.length);
+	}
+
+	public byte[] compress(byte[] block, int offset, int length) {
+		if (deflater == null) {
+			deflater = new Deflater(level);
+		}
+		deflater.reset();
+		if (dictionary != null) {
+			deflater.setDictionary(dictionary);
+		}
+		deflater.setInput(block, offset, length);
+		deflater.finish();
+
+		byte[] compressed = new byte[Integer.BYTES + Math.max(64, length / 2)];
+		writeInt(compressed, length);
+		int size = Integer.BYTES;
+		while (!deflater.finished()) {
+			if (size == compressed.length) {
+				compressed = Arrays.copyOf(compressed, compressed.length * 2);
+			}
+			size += deflater.deflate(compressed, size, compressed.length - size);
+		}
+		if (dictionary == null) {
+			dictionary = dictionaryOf(block, offset, length);
+		}
+		return Arrays.copyOf(compressed, size);
+	}
+
+	public byte[] decompress(byte[] compressed) throws IOException {
+		return decompress(compressed, 0, compressed.length);
+	}
+
+	public byte[] decompress(byte[] compressed, int offset, int length) throws IOException {
+		if (length < Integer.BYTES) {
+			throw new EOFException("incomplete block");
+		}
+		if (inflater == null) {
+			inflater = new Inflater();
+		}
+		inflater.reset();
+		inflater.setInput(compressed, offset + Integer.BYTES, length - Integer.BYTES);
+
+		byte[] block = new byte[readInt(compressed, offset)];
+		int size = 0;
+		try {
+			while (size < block.length) {
+				int inflated = inflater.inflate(block, size, block.length - size);
+				if (inflated == 0) {
+					if (inflater.needsDictionary() && dictionary != null) {
+						inflater.setDictionary(dictionary);
+					} else if (inflater.needsDictionary()) {
+						throw new IOException("block needs the dictionary of a preceding block");
+					} else if (inflater.finished() || inflater.needsInput()) {
+						throw new EOFException("incomplete block");
+					}
+				}
+				size += inflated;
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("corrupt block", e);
+		}
+		if (dictionary == null) {
+			dictionary = dictionaryOf(block, 0, block.length);
+		}
+		return block;
+	}
+
+	/**
+	 * releases the native resources of this compression, it cannot be used afterwards
+	 */
+	@Override
+	public void close() {
+		if (deflater != null) {
+			deflater.end();
+		}
+		if (inflater != null) {
+			inflater.end();
+		}
+	}
+
+	private static byte[] dictionaryOf(byte[] block, int offset, int length) {
+		int size = Math.min(length, MAX_DICTIONARY_SIZE);
+		return Arrays.copyOfRange(block, offset, offset + size);
+	}
+
+	private static void writeInt(byte[] bytes, int value) {
+		bytes[0] = (byte) (value >>> 24);
+		bytes[1] = (byte) (value >>> 16);
+		bytes[2] = (byte) (value >>> 8);
+		bytes[3] = (byte) value;
+	}
+
+	private static int readInt(byte[] bytes, int offset) throws IOException {
+		int value = (bytes[offset] & 0xff) << 24
+			| (bytes[offset + 1] & 0xff) << 16
+			| (bytes[offset + 2] & 0xff) << 8
+			| (bytes[offset + 3] & 0xff);
+		if (value < 0) {
+			throw new IOException("corrupt block");
+		}
+		return value;
+	}
+
+	/**
+	 * wraps a stream such that all data written to it is compressed to a block stream. The block stream is complete when the
+	 * returned stream is closed.
+	 *
+	 * @param out the stream to write the block stream to
+	 * @param level the compression level
+	 * @return a stream compressing all data
+	 * @throws IOException if the header of the block stream cannot be written
+	 */
+	public static OutputStream compressing(OutputStream out, int level) throws IOException {
+		return new CompressingOutputStream(out, new BlockCompression(level));
+	}
+
+	/**
+	 * wraps a stream such that a block stream is decompressed, any other data is passed unchanged.
+	 *
+	 * @param in the stream to read from, must support {@link InputStream#mark(int)}
+	 * @return a stream with the decompressed (or unchanged) data
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static InputStream decompressing(InputStream in) throws IOException {
+		in.mark(Integer.BYTES);
+		int magic = 0;
+		for (int i = 0; i < Integer.BYTES; i++) {
+			int b = in.read();
+			if (b < 0) {
+				in.reset();
+				return in;
+			}
+			magic = magic << 8 | b;
+		}
+		if (magic != MAGIC) {
+			in.reset();
+			return in;
+		}
+		return new DecompressingInputStream(new DataInputStream(in), new BlockCompression(Deflater.DEFAULT_COMPRESSION));
+	}
+
+	private static class CompressingOutputStream extends FilterOutputStream {
+
+		private DataOutputStream data;
+		private BlockCompression compression;
+		private byte[] block;
+		private int size;
+
+		CompressingOutputStream(OutputStream out, BlockCompression compression) throws IOException {
+			super(new BufferedOutputStream(out, BLOCK_SIZE));
+			this.data = new DataOutputStream(this.out);
+			this.compression = compression;
+			this.block = new byte[BLOCK_SIZE];
+			data.writeInt(MAGIC);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (size == block.length) {
+				writeBlock();
+			}
+			block[size++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				if (size == block.length) {
+					writeBlock();
+				}
+				int chunk = Math.min(len, block.length - size);
+				System.arraycopy(b, off, block, size, chunk);
+				size += chunk;
+				off += chunk;
+				len -= chunk;
+			}
+		}
+
+		private void writeBlock() throws IOException {
+			byte[] compressed = compression.compress(block, 0, size);
+			data.writeInt(compressed.length);
+			data.write(compressed);
+			size = 0;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (size > 0) {
+				writeBlock();
+			}
+			data.writeInt(0);
+			compression.close();
+			super.close();
+		}
+
+	}
+
+	private static class DecompressingInputStream extends InputStream {
+
+		private DataInputStream in;
+		private BlockCompression compression;
+		private byte[] block;
+		private int pos;
+		private boolean finished;
+
+		DecompressingInputStream(DataInputStream in, BlockCompression compression) {
+			this.in = in;
+			this.compression = compression;
+			this.block = new byte[0];
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!ensureData()) {
+				return -1;
+			}
+			return block[pos++] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (!ensureData()) {
+				return -1;
+			}
+			int chunk = Math.min(len, block.length - pos);
+			System.arraycopy(block, pos, b, off, chunk);
+			pos += chunk;
+			return chunk;
+		}
+
+		private boolean ensureData() throws IOException {
+			while (pos == block.length) {
+				if (finished) {
+					return false;
+				}
+				int length = in.readInt();
+				if (length == 0) {
+					finished = true;
+					return false;
+				}
+				if (length < 0) {
+					throw new IOException("corrupt block stream");
+				}
+				byte[] compressed = new byte[length];
+				in.readFully(compressed);
+				block = compression.decompress(compressed);
+				pos = 0;
+			}
+			return true;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return block.length - pos;
+		}
+
+		@Override
+		public void close() throws IOException {
+			compression.close();
+			in.close();
+		}
+
+	}
+
+}
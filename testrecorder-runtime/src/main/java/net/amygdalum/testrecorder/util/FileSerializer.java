@@ -1,41 +1,74 @@
 package net.amygdalum.testrecorder.util;
 
-import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
 import static java.nio.file.StandardOpenOption.READ;
 import static java.nio.file.StandardOpenOption.SYNC;
 import static java.nio.file.StandardOpenOption.WRITE;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.zip.Deflater;
 
 
+/**
+ * Stores objects to files (with java serialization) and loads them again.
+ *
+ * Objects may optionally be stored compressed with {@link BlockCompression}, loading detects compressed files and decompresses
+ * them transparently. Files are replaced atomically (where the file system supports it), so loading never sees a partially
+ * written file (even if the same object is stored again, e.g. by a recording of a test that loads it).
+ */
 public class FileSerializer {
 
     private String dir;
+    private int compression;
 
 	public FileSerializer(String dir) {
-		this.dir = dir;
+		this(dir, Deflater.NO_COMPRESSION);
     }
 
+	/**
+	 * @param dir the directory of the files
+	 * @param compression the compression level of stored files ({@link Deflater#NO_COMPRESSION} stores files uncompressed)
+	 */
+	public FileSerializer(String dir, int compression) {
+		this.dir = dir;
+		this.compression = compression;
+	}
+
     public String store(Object object) throws IOException {
         try {
             byte[] data = serialize(object);
             String string = digest(data);
             Path path = Paths.get(dir, string + ".serialized");
             Files.createDirectories(path.getParent());
-            try (OutputStream o = Files.newOutputStream(path, SYNC, CREATE, WRITE)) {
-                o.write(data);
-                o.flush();
+            Path temp = Paths.get(dir, string + "." + Long.toHexString(System.nanoTime()) + ".tmp");
+            try {
+                try (OutputStream o = open(temp)) {
+                    o.write(data);
+                    o.flush();
+                }
+                try {
+                    Files.move(temp, path, REPLACE_EXISTING, ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, path, REPLACE_EXISTING);
+                }
 
                 return path.getFileName().toString();
+            } finally {
+                Files.deleteIfExists(temp);
             }
         } catch (NullPointerException | IOException e) {
             throw new IOException("failed writing object to file", e);
@@ -44,6 +77,14 @@ public class FileSerializer {
         }
     }
 
+    private OutputStream open(Path path) throws IOException {
+        OutputStream out = Files.newOutputStream(path, SYNC, CREATE_NEW, WRITE);
+        if (compression == Deflater.NO_COMPRESSION) {
+            return out;
+        }
+        return BlockCompression.compressing(out, compression);
+    }
+
     private byte[] serialize(Object object) throws IOException {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         try (ObjectOutputStream o = new ObjectOutputStream(out)) {
@@ -65,7 +106,8 @@ public class FileSerializer {
     }
 
     public <T> T load(String fileName, Class<T> type) {
-        try (ObjectInputStream in = new ObjectInputStream(Files.newInputStream(Paths.get(dir, fileName), READ))) {
+        try (InputStream file = BlockCompression.decompressing(new BufferedInputStream(Files.newInputStream(Paths.get(dir, fileName), READ)));
+            ObjectInputStream in = new ObjectInputStream(file)) {
             Object rawObject = in.readObject();
             T object = type.cast(rawObject);
             return object;
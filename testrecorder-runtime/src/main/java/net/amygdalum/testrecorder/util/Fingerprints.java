@@ -0,0 +1,126 @@
+package net.amygdalum.testrecorder.util;
+
+import static java.lang.System.identityHashCode;
+import static java.lang.reflect.Modifier.isStatic;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes shallow fingerprints of objects: the values of all primitive fields and the identities of all referenced objects.
+ *
+ * Two equal fingerprints do not prove that an object graph is unchanged (changes of referenced objects are not detected),
+ * but a changed fingerprint proves that the object itself was modified.
+ */
+public final class Fingerprints {
+
+	private static final ClassValue<Field[]> FIELDS = new ClassValue<Field[]>() {
+		@Override
+		protected Field[] computeValue(Class<?> type) {
+			return fieldsOf(type);
+		}
+	};
+
+	private Fingerprints() {
+	}
+
+	public static long fingerprint(Object object) {
+		if (object == null) {
+			return 0;
+		}
+		Class<?> clazz = object.getClass();
+		if (clazz.isArray()) {
+			return 31 * identityHashCode(clazz) + arrayFingerprint(object);
+		}
+		long fingerprint = identityHashCode(clazz);
+		for (Field field : FIELDS.get(clazz)) {
+			fingerprint = 31 * fingerprint + fieldFingerprint(field, object);
+		}
+		return fingerprint;
+	}
+
+	public static long fingerprintAll(Object... objects) {
+		long fingerprint = 1;
+		for (Object object : objects) {
+			fingerprint = 31 * fingerprint + fingerprint(object);
+		}
+		return fingerprint;
+	}
+
+	private static long arrayFingerprint(Object array) {
+		Class<?> componentType = array.getClass().getComponentType();
+		if (componentType == boolean.class) {
+			return Arrays.hashCode((boolean[]) array);
+		} else if (componentType == byte.class) {
+			return Arrays.hashCode((byte[]) array);
+		} else if (componentType == short.class) {
+			return Arrays.hashCode((short[]) array);
+		} else if (componentType == char.class) {
+			return Arrays.hashCode((char[]) array);
+		} else if (componentType == int.class) {
+			return Arrays.hashCode((int[]) array);
+		} else if (componentType == long.class) {
+			return Arrays.hashCode((long[]) array);
+		} else if (componentType == float.class) {
+			return Arrays.hashCode((float[]) array);
+		} else if (componentType == double.class) {
+			return Arrays.hashCode((double[]) array);
+		} else {
+			long fingerprint = 1;
+			for (Object element : (Object[]) array) {
+				fingerprint = 31 * fingerprint + identityHashCode(element);
+			}
+			return fingerprint;
+		}
+	}
+
+	private static long fieldFingerprint(Field field, Object object) {
+		try {
+			Class<?> type = field.getType();
+			if (type == boolean.class) {
+				return field.getBoolean(object) ? 1231 : 1237;
+			} else if (type == byte.class) {
+				return field.getByte(object);
+			} else if (type == short.class) {
+				return field.getShort(object);
+			} else if (type == char.class) {
+				return field.getChar(object);
+			} else if (type == int.class) {
+				return field.getInt(object);
+			} else if (type == long.class) {
+				return field.getLong(object);
+			} else if (type == float.class) {
+				return Float.floatToIntBits(field.getFloat(object));
+			} else if (type == double.class) {
+				return Double.doubleToLongBits(field.getDouble(object));
+			} else {
+				return identityHashCode(field.get(object));
+			}
+		} catch (IllegalAccessException e) {
+			return 0;
+		}
+	}
+
+	private static Field[] fieldsOf(Class<?> type) {
+		List<Field> fields = new ArrayList<>();
+		Class<?> current = type;
+		while (current != null && current != Object.class) {
+			for (Field field : current.getDeclaredFields()) {
+				if (isStatic(field.getModifiers())) {
+					continue;
+				}
+				try {
+					field.setAccessible(true);
+					fields.add(field);
+				} catch (RuntimeException e) {
+					continue;
+				}
+			}
+			current = current.getSuperclass();
+		}
+		return fields.toArray(new Field[0]);
+	}
+
+}
@@ -2,6 +2,7 @@ package net.amygdalum.testrecorder.util;
 
 import java.lang.reflect.Array;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Queue;
@@ -11,6 +12,7 @@ public class IdentityWorkQueue<E> implements Queue<E> {
 	private int size = 0;
 	private Node<E> first;
 	private Node<E> last;
+	private IdentityHashMap<E, Integer> counts = new IdentityHashMap<>();
 
 	public IdentityWorkQueue() {
 	}
@@ -31,12 +33,7 @@ public class IdentityWorkQueue<E> implements Queue<E> {
 
 	@Override
 	public boolean contains(Object o) {
-		for (Node<E> x = first; x != null; x = x.next) {
-			if (x.item == o) {
-				return true;
-			}
-		}
-		return false;
+		return counts.containsKey(o);
 	}
 
 	@Override
@@ -140,6 +137,7 @@ public class IdentityWorkQueue<E> implements Queue<E> {
         size = 0;
         first = null;
         last = null;
+        counts.clear();
 	}
 
 	@Override
@@ -209,6 +207,7 @@ public class IdentityWorkQueue<E> implements Queue<E> {
             l.next = newLast;
         }
         size++;
+        counts.merge(e, 1, Integer::sum);
     }
 
     private E unlink(Node<E> x) {
@@ -232,6 +231,7 @@ public class IdentityWorkQueue<E> implements Queue<E> {
 
 		x.item = null;
 		size--;
+		counts.computeIfPresent(element, (item, count) -> count == 1 ? null : count - 1);
 		return element;
 	}
 
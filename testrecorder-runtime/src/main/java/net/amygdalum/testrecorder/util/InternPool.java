@@ -0,0 +1,86 @@
+package net.amygdalum.testrecorder.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * A thread safe pool of canonical instances. Instances are only weakly referenced, so an instance that is not used anywhere
+ * else may be garbage collected (and its entry is purged later on). The pool is bounded, if it is full, new instances are
+ * created but not pooled.
+ *
+ * @param <K> the key of the pooled instances (must implement equals/hashCode)
+ * @param <V> the type of the pooled instances
+ */
+public class InternPool<K, V> {
+
+	private int capacity;
+	private ConcurrentMap<K, Entry<K, V>> pool;
+	private ReferenceQueue<V> collected;
+
+	public InternPool(int capacity) {
+		this.capacity = capacity;
+		this.pool = new ConcurrentHashMap<>();
+		this.collected = new ReferenceQueue<>();
+	}
+
+	/**
+	 * @param key the key of the instance
+	 * @param factory creates a new instance if no instance with this key is pooled
+	 * @return the pooled instance for this key, or a new instance if the pool is full
+	 */
+	public V intern(K key, Function<? super K, ? extends V> factory) {
+		Entry<K, V> entry = pool.get(key);
+		V value = entry == null ? null : entry.get();
+		if (value != null) {
+			return value;
+		}
+		purge();
+		value = factory.apply(key);
+		if (pool.size() >= capacity) {
+			return value;
+		}
+		while (true) {
+			Entry<K, V> newEntry = new Entry<>(key, value, collected);
+			Entry<K, V> oldEntry = pool.putIfAbsent(key, newEntry);
+			if (oldEntry == null) {
+				return value;
+			}
+			V oldValue = oldEntry.get();
+			if (oldValue != null) {
+				return oldValue;
+			}
+			if (pool.replace(key, oldEntry, newEntry)) {
+				return value;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of pooled entries (including entries that are collected but not yet purged)
+	 */
+	public int size() {
+		return pool.size();
+	}
+
+	private void purge() {
+		Entry<?, ?> entry;
+		while ((entry = (Entry<?, ?>) collected.poll()) != null) {
+			pool.remove(entry.key, entry);
+		}
+	}
+
+	private static class Entry<K, V> extends WeakReference<V> {
+
+		private K key;
+
+		Entry(K key, V value, ReferenceQueue<V> queue) {
+			super(value, queue);
+			this.key = key;
+		}
+
+	}
+
+}
@@ -8,12 +8,21 @@ import java.util.regex.Pattern;
 public final class Lambdas {
 
 	private static final Pattern LAMBDA_NAME_PATTERN = Pattern.compile("\\$\\$Lambda\\$\\d+/\\d+");
+	private static final ClassValue<Boolean> SERIALIZABLE_LAMBDAS = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			return isSerializableLambdaClass(type);
+		}
+	};
 
 	private Lambdas() {
 	}
 
 	public static boolean isSerializableLambda(Type type) {
-		Class<?> baseType = Types.baseType(type);
+		return SERIALIZABLE_LAMBDAS.get(Types.baseType(type));
+	}
+
+	private static boolean isSerializableLambdaClass(Class<?> baseType) {
 		if (LAMBDA_NAME_PATTERN.matcher(baseType.getName()).find()) {
 			try {
 				Method writeReplace = baseType.getDeclaredMethod("writeReplace");
@@ -9,6 +9,8 @@ public class Logger {
 	private static Logger WARN = warnLogger();
 	private static Logger ERROR = errorLogger();
 
+	private static final ThreadLocal<int[]> LOGGING = ThreadLocal.withInitial(() -> new int[1]);
+
 	private PrintStream[] out;
 
 	public Logger(PrintStream... out) {
@@ -87,12 +89,26 @@ public class Logger {
 		}
 	}
 
+	/**
+	 * @return true if the current thread is currently logging. Output of the logger (which is itself an output of the
+	 * application) should not be recorded.
+	 */
+	public static boolean isLogging() {
+		return LOGGING.get()[0] > 0;
+	}
+
 	public void log(Object msg) {
-		for (int i = 0; i < out.length; i++) {
-			out[i].println(msg);
-			if (msg instanceof Exception) {
-				((Exception) msg).printStackTrace(out[i]);
+		int[] logging = LOGGING.get();
+		logging[0]++;
+		try {
+			for (int i = 0; i < out.length; i++) {
+				out[i].println(msg);
+				if (msg instanceof Exception) {
+					((Exception) msg).printStackTrace(out[i]);
+				}
 			}
+		} finally {
+			logging[0]--;
 		}
 	}
 
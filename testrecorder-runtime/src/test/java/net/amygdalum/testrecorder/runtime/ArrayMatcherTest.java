@@ -35,6 +35,12 @@ public class ArrayMatcherTest {
 			assertThat(arrayContaining(String.class, "A", "b").matchesSafely(new String[] {"a", "b"})).isFalse();
 		}
 
+		@Test
+		void withMore() throws Exception {
+			assertThat(arrayContaining(String.class, "A", "b").andMore().matchesSafely(new String[] {"A", "b", "C"})).isTrue();
+			assertThat(arrayContaining(String.class, "A", "b").andMore().matchesSafely(new String[] {"C", "A", "b"})).isFalse();
+		}
+
 		@Test
 		void onEmpty() throws Exception {
 			assertThat(arrayContaining(String.class).matchesSafely(new String[] {"A", "b"})).isFalse();
@@ -23,6 +23,15 @@ public class ContainsInOrderMatcherTest {
 		assertThat(description.toString()).isEqualTo("containing in sequence [<\"A\">, <\"b\">]");
 	}
 
+	@Test
+	void testDescribeToWithMore() throws Exception {
+		StringDescription description = new StringDescription();
+
+		containsInOrder(String.class, "A", "b").andMore().describeTo(description);
+
+		assertThat(description.toString()).isEqualTo("containing in sequence [<\"A\">, <\"b\">] and more");
+	}
+
 	@Nested
 	class testMatchesSafely {
 
@@ -41,6 +50,14 @@ public class ContainsInOrderMatcherTest {
 				assertThat(containsInOrder(String.class, "A", "b").matchesSafely(asList("A", "b", "C"))).isFalse();
 			}
 
+			@Test
+			void withMore() throws Exception {
+				assertThat(containsInOrder(String.class, "A", "b").andMore().matchesSafely(asList("A", "b"))).isTrue();
+				assertThat(containsInOrder(String.class, "A", "b").andMore().matchesSafely(asList("A", "b", "C"))).isTrue();
+				assertThat(containsInOrder(String.class, "A", "b").andMore().matchesSafely(asList("A", "C", "b"))).isFalse();
+				assertThat(containsInOrder(String.class, "A", "b").andMore().matchesSafely(asList("A"))).isFalse();
+			}
+
 			@Test
 			void onMatchers() throws Exception {
 				assertThat(containsInOrder(String.class, equalTo("A")).matchesSafely(asList("A"))).isTrue();
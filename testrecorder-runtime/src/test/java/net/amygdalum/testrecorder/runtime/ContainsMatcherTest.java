@@ -43,6 +43,12 @@ public class ContainsMatcherTest {
 				assertThat(matches).isFalse();
 			}
 
+			@Test
+			void withMore() throws Exception {
+				assertThat(contains(String.class, "A", "b").andMore().matchesSafely(asList("b", "C", "A"))).isTrue();
+				assertThat(contains(String.class, "A", "b").andMore().matchesSafely(asList("A", "C"))).isFalse();
+			}
+
 			@Test
 			void onEmpty() throws Exception {
 				assertThat(empty(String.class).matchesSafely(asList("A", "b"))).isFalse();
@@ -83,6 +83,25 @@ public class MapMatcherTest {
 				assertThat(matcher.matchesSafely(map)).isTrue();
 			}
 
+			@Test
+			void withMore() throws Exception {
+				MapMatcher<String, Integer> matcher = containsEntries(String.class, Integer.class)
+					.entry("A", 3)
+					.entry("b", 4)
+					.andMore();
+
+				Map<String, Integer> entrySurplus = new HashMap<>();
+				entrySurplus.put("A", 3);
+				entrySurplus.put("b", 4);
+				entrySurplus.put("c", 2);
+				assertThat(matcher.matchesSafely(entrySurplus)).isTrue();
+
+				Map<String, Integer> entryMissing = new HashMap<>();
+				entryMissing.put("A", 3);
+				entryMissing.put("c", 2);
+				assertThat(matcher.matchesSafely(entryMissing)).isFalse();
+			}
+
 			@Test
 			void withFailure() throws Exception {
 				MapMatcher<String, Integer> matcher = containsEntries(String.class, Integer.class)
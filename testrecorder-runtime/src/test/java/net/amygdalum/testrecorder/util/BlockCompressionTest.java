@@ -0,0 +1,143 @@
+package net.amygdalum.testrecorder.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class BlockCompressionTest {
+
+	@Nested
+	class testCompress {
+		@Test
+		void roundtrip() throws Exception {
+			BlockCompression compressor = new BlockCompression(Deflater.BEST_SPEED);
+			BlockCompression decompressor = new BlockCompression(Deflater.BEST_SPEED);
+
+			byte[] first = compressor.compress(block("first"));
+			byte[] second = compressor.compress(block("second"));
+
+			assertThat(decompressor.decompress(first)).isEqualTo(block("first"));
+			assertThat(decompressor.decompress(second)).isEqualTo(block("second"));
+		}
+
+		@Test
+		void usesFirstBlockAsDictionary() throws Exception {
+			BlockCompression compressor = new BlockCompression(Deflater.BEST_COMPRESSION);
+
+			compressor.compress(block("first"));
+			byte[] second = compressor.compress(block("second"));
+
+			byte[] secondWithoutDictionary = new BlockCompression(Deflater.BEST_COMPRESSION).compress(block("second"));
+			assertThat(second.length).isLessThan(secondWithoutDictionary.length);
+		}
+
+		@Test
+		void withEmptyBlock() throws Exception {
+			BlockCompression compressor = new BlockCompression(Deflater.DEFAULT_COMPRESSION);
+
+			byte[] compressed = compressor.compress(new byte[0]);
+
+			assertThat(new BlockCompression(Deflater.DEFAULT_COMPRESSION).decompress(compressed)).isEmpty();
+		}
+	}
+
+	@Nested
+	class testDecompress {
+		@Test
+		void withoutDictionary() throws Exception {
+			BlockCompression compressor = new BlockCompression(Deflater.DEFAULT_COMPRESSION);
+			compressor.compress(block("first"));
+			byte[] second = compressor.compress(block("second"));
+
+			assertThatThrownBy(() -> new BlockCompression(Deflater.DEFAULT_COMPRESSION).decompress(second))
+				.isInstanceOf(IOException.class);
+		}
+
+		@Test
+		void onTruncated() throws Exception {
+			byte[] compressed = new BlockCompression(Deflater.DEFAULT_COMPRESSION).compress(block("first"));
+
+			assertThatThrownBy(() -> new BlockCompression(Deflater.DEFAULT_COMPRESSION).decompress(Arrays.copyOf(compressed, compressed.length / 2)))
+				.isInstanceOf(IOException.class);
+		}
+
+		@Test
+		void onCorrupt() throws Exception {
+			byte[] compressed = new BlockCompression(Deflater.DEFAULT_COMPRESSION).compress(block("first"));
+			for (int i = 4; i < compressed.length; i++) {
+				compressed[i] = (byte) 0xff;
+			}
+
+			assertThatThrownBy(() -> new BlockCompression(Deflater.DEFAULT_COMPRESSION).decompress(compressed))
+				.isInstanceOf(IOException.class);
+		}
+	}
+
+	@Nested
+	class testStreams {
+		@Test
+		void roundtrip() throws Exception {
+			byte[] data = new byte[3 * BlockCompression.BLOCK_SIZE + 17];
+			for (int i = 0; i < data.length; i++) {
+				data[i] = (byte) (i % 251);
+			}
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+			try (OutputStream out = BlockCompression.compressing(compressed, Deflater.DEFAULT_COMPRESSION)) {
+				out.write(data, 0, 10);
+				out.write(data[10]);
+				out.write(data, 11, data.length - 11);
+			}
+
+			assertThat(compressed.size()).isLessThan(data.length / 10);
+			assertThat(readAll(BlockCompression.decompressing(new BufferedInputStream(new ByteArrayInputStream(compressed.toByteArray())))))
+				.isEqualTo(data);
+		}
+
+		@Test
+		void withUncompressedData() throws Exception {
+			byte[] data = "uncompressed data".getBytes(UTF_8);
+
+			assertThat(readAll(BlockCompression.decompressing(new BufferedInputStream(new ByteArrayInputStream(data))))).isEqualTo(data);
+		}
+
+		@Test
+		void withShortData() throws Exception {
+			byte[] data = new byte[] { 1, 2 };
+
+			assertThat(readAll(BlockCompression.decompressing(new BufferedInputStream(new ByteArrayInputStream(data))))).isEqualTo(data);
+		}
+	}
+
+	private static byte[] block(String name) {
+		StringBuilder buffer = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			buffer.append("net.amygdalum.testrecorder.util.testobjects.Bean{attribute=").append(name).append(i % 7).append("}\n");
+		}
+		return buffer.toString().getBytes(UTF_8);
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		try (InputStream stream = in) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1000];
+			int read;
+			while ((read = stream.read(buffer)) >= 0) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		}
+	}
+
+}
@@ -3,6 +3,10 @@ package net.amygdalum.testrecorder.util;
 import static net.amygdalum.extensions.assertj.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.Deflater;
+
 import org.junit.jupiter.api.Test;
 
 public class FileSerializerTest {
@@ -21,4 +25,30 @@ public class FileSerializerTest {
 		assertThat(loaded).contains((byte) 1, (byte) 2);
 	}
 
+	@Test
+	void testLoadCompressed() throws Exception {
+		int[] data = new int[10_000];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = i % 100;
+		}
+		String stored = new FileSerializer("target/temp", Deflater.BEST_SPEED).store(data);
+
+		int[] loaded = new FileSerializer("target/temp").load(stored, int[].class);
+
+		assertThat(loaded).isEqualTo(data);
+		assertThat(Files.size(Paths.get("target/temp", stored))).isLessThan(data.length);
+	}
+
+	@Test
+	void testStoreCompressedOverUncompressed() throws Exception {
+		byte[] data = new byte[1000];
+		String uncompressed = new FileSerializer("target/temp").store(data);
+		String compressed = new FileSerializer("target/temp", Deflater.BEST_COMPRESSION).store(data);
+
+		byte[] loaded = new FileSerializer("target/temp").load(compressed, byte[].class);
+
+		assertThat(compressed).isEqualTo(uncompressed);
+		assertThat(loaded).isEqualTo(data);
+	}
+
 }
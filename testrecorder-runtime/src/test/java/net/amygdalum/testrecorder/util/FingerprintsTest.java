@@ -0,0 +1,83 @@
+package net.amygdalum.testrecorder.util;
+
+import static net.amygdalum.testrecorder.util.Fingerprints.fingerprint;
+import static net.amygdalum.testrecorder.util.Fingerprints.fingerprintAll;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import net.amygdalum.testrecorder.util.testobjects.Bean;
+import net.amygdalum.testrecorder.util.testobjects.PrimitiveSimple;
+
+public class FingerprintsTest {
+
+	@Test
+	public void testFingerprintNull() throws Exception {
+		assertThat(fingerprint(null)).isEqualTo(0);
+	}
+
+	@Test
+	public void testFingerprintIsStable() throws Exception {
+		Bean bean = new Bean();
+		bean.setAttribute("value");
+
+		assertThat(fingerprint(bean)).isEqualTo(fingerprint(bean));
+	}
+
+	@Test
+	public void testFingerprintChangesOnReferenceChange() throws Exception {
+		Bean bean = new Bean();
+		bean.setAttribute("value");
+		long before = fingerprint(bean);
+
+		bean.setAttribute("other");
+
+		assertThat(fingerprint(bean)).isNotEqualTo(before);
+	}
+
+	@Test
+	public void testFingerprintChangesOnPrimitiveChange() throws Exception {
+		PrimitiveSimple object = new PrimitiveSimple();
+		long before = fingerprint(object);
+
+		object.setI(42);
+
+		assertThat(fingerprint(object)).isNotEqualTo(before);
+	}
+
+	@Test
+	public void testFingerprintIsShallow() throws Exception {
+		Bean bean = new Bean();
+		Object[] container = new Object[] { bean };
+		long before = fingerprint(container);
+
+		bean.setAttribute("changed");
+
+		assertThat(fingerprint(container)).isEqualTo(before);
+	}
+
+	@Test
+	public void testFingerprintOfArrays() throws Exception {
+		byte[] bytes = new byte[] { 1, 2, 3 };
+		Object[] objects = new Object[] { "a", "b" };
+		long bytesBefore = fingerprint(bytes);
+		long objectsBefore = fingerprint(objects);
+
+		bytes[1] = 0;
+		objects[1] = "c";
+
+		assertThat(fingerprint(bytes)).isNotEqualTo(bytesBefore);
+		assertThat(fingerprint(objects)).isNotEqualTo(objectsBefore);
+	}
+
+	@Test
+	public void testFingerprintAll() throws Exception {
+		Bean bean = new Bean();
+		long before = fingerprintAll(bean, "str");
+
+		bean.setAttribute("changed");
+
+		assertThat(fingerprintAll(bean, "str")).isNotEqualTo(before);
+	}
+
+}
@@ -29,6 +29,18 @@ public class IdentityWorkQueueTest {
 		assertThat(new IdentityWorkQueue<>(asList("a", "b")).contains(new String("b"))).isFalse();
 	}
 
+	@Test
+	void testContainsOnDuplicates() throws Exception {
+		IdentityWorkQueue<String> queue = new IdentityWorkQueue<>(asList("a", "b", "a"));
+
+		queue.remove();
+		assertThat(queue.contains("a")).isTrue();
+
+		queue.remove();
+		queue.remove();
+		assertThat(queue.contains("a")).isFalse();
+	}
+
 	@Nested
 	class testIterator {
 		@Test
@@ -0,0 +1,72 @@
+package net.amygdalum.testrecorder.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class InternPoolTest {
+
+	@Nested
+	class testIntern {
+		@Test
+		void onNewKey() throws Exception {
+			InternPool<String, StringBuilder> pool = new InternPool<>(10);
+
+			StringBuilder value = pool.intern("key", StringBuilder::new);
+
+			assertThat(value.toString()).isEqualTo("key");
+			assertThat(pool.size()).isEqualTo(1);
+		}
+
+		@Test
+		void onKnownKey() throws Exception {
+			InternPool<String, StringBuilder> pool = new InternPool<>(10);
+
+			StringBuilder value = pool.intern("key", StringBuilder::new);
+
+			assertThat(pool.intern(new String("key"), StringBuilder::new)).isSameAs(value);
+			assertThat(pool.size()).isEqualTo(1);
+		}
+
+		@Test
+		void onFullPool() throws Exception {
+			InternPool<String, StringBuilder> pool = new InternPool<>(1);
+
+			StringBuilder first = pool.intern("first", StringBuilder::new);
+			StringBuilder second = pool.intern("second", StringBuilder::new);
+
+			assertThat(pool.intern("first", StringBuilder::new)).isSameAs(first);
+			assertThat(pool.intern("second", StringBuilder::new)).isNotSameAs(second);
+			assertThat(pool.size()).isEqualTo(1);
+		}
+
+		@Test
+		void onConcurrentAccess() throws Exception {
+			InternPool<Integer, Object> pool = new InternPool<>(100);
+			ExecutorService executor = Executors.newFixedThreadPool(4);
+			try {
+				List<Callable<Object>> tasks = new ArrayList<>();
+				for (int i = 0; i < 100; i++) {
+					tasks.add(() -> pool.intern(42, key -> new Object()));
+				}
+				List<Future<Object>> results = executor.invokeAll(tasks);
+
+				Object expected = pool.intern(42, key -> new Object());
+				for (Future<Object> result : results) {
+					assertThat(result.get()).isSameAs(expected);
+				}
+			} finally {
+				executor.shutdown();
+			}
+		}
+	}
+
+}
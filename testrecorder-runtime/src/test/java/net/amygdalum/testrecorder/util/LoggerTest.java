@@ -1,10 +1,12 @@
 package net.amygdalum.testrecorder.util;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -43,6 +45,43 @@ public class LoggerTest {
 		}
 	}
 
+	@Nested
+	class testIsLogging {
+		@Test
+		void outsideLog() throws Exception {
+			assertThat(Logger.isLogging()).isFalse();
+		}
+
+		@Test
+		void insideLog() throws Exception {
+			List<Boolean> logging = new ArrayList<>();
+			PrintStream out = new PrintStream(new ByteArrayOutputStream()) {
+				@Override
+				public void println(Object x) {
+					logging.add(Logger.isLogging());
+				}
+			};
+
+			new Logger(out).log("msg");
+
+			assertThat(logging).containsExactly(true);
+			assertThat(Logger.isLogging()).isFalse();
+		}
+
+		@Test
+		void afterFailingLog() throws Exception {
+			PrintStream out = new PrintStream(new ByteArrayOutputStream()) {
+				@Override
+				public void println(Object x) {
+					throw new IllegalStateException();
+				}
+			};
+
+			assertThatThrownBy(() -> new Logger(out).log("msg")).isInstanceOf(IllegalStateException.class);
+			assertThat(Logger.isLogging()).isFalse();
+		}
+	}
+
 	@Test
 	void testDebug() throws Exception {
 		ByteArrayOutputStream out = new ByteArrayOutputStream();